@@ -0,0 +1,183 @@
+package org.nanohttpd.protocols.http;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.nanohttpd.protocols.http.response.Response;
+import org.nanohttpd.protocols.http.response.Status;
+import org.nanohttpd.util.IHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Small requests per second through the HTTP server, a new connection for each versus keep-alive versus
+ * pipelined 8 deep, 4 clients at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HTTPKeepAliveBenchmark {
+
+    private final static int DEPTH = 8;
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        NanoHTTPD httpd;
+
+        int port;
+
+        @Setup
+        public void setup() throws IOException {
+            // (no abstract methods, just not meant to be used as is)
+            httpd = new NanoHTTPD(0, null, false, true) {
+            };
+            httpd.setHTTPHandler(new IHandler<IHTTPSession, Response>() {
+
+                @Override
+                public Response handle(IHTTPSession session) {
+                    return Response.newFixedLengthResponse(Status.OK, "application/json", "{\"name\": \"Lobby Projector\"}");
+                }
+
+            });
+            httpd.start();
+
+            port = httpd.getListeningPort();
+        }
+
+        @TearDown
+        public void tearDown() {
+            httpd.stop();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Connection {
+
+        Socket socket;
+
+        OutputStream out;
+
+        InputStream in;
+
+        byte[] request;
+
+        byte[] requests;
+
+        byte[] closingRequest;
+
+        @Setup
+        public void setup(Server server) throws IOException {
+            String request = "GET /REST/ HTTP/1.1\r\nHost: 127.0.0.1:" + server.port + "\r\n\r\n";
+
+            StringBuilder batch = new StringBuilder();
+            for (int i = 0; i < DEPTH; i++)
+                batch.append(request);
+
+            this.request = request.getBytes(StandardCharsets.US_ASCII);
+            this.requests = batch.toString().getBytes(StandardCharsets.US_ASCII);
+            this.closingRequest = ("GET /REST/ HTTP/1.1\r\nHost: 127.0.0.1:" + server.port + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+            socket = new Socket("127.0.0.1", server.port);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+
+    }
+
+    @Benchmark
+    public int newConnection(Server server, Connection connection) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", server.port)) {
+            socket.getOutputStream().write(connection.closingRequest);
+
+            return readResponse(new BufferedInputStream(socket.getInputStream()));
+        }
+    }
+
+    @Benchmark
+    public int keepAlive(Connection connection) throws IOException {
+        connection.out.write(connection.request);
+
+        return readResponse(connection.in);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DEPTH)
+    public int pipelined(Connection connection) throws IOException {
+        connection.out.write(connection.requests);
+
+        int status = 0;
+        for (int i = 0; i < DEPTH; i++)
+            status = readResponse(connection.in);
+
+        return status;
+    }
+
+    /**
+     * Reads a fixed-length response, returning the status code.
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+
+        long contentLength = 0;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "content-length:", 0, 15))
+                contentLength = Long.parseLong(line.substring(15).trim());
+        }
+
+        while (contentLength > 0) {
+            if (in.read() < 0)
+                throw new IOException("Connection closed mid-response");
+            contentLength--;
+        }
+
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0)
+                throw new IOException("Connection closed");
+            if (c != '\r')
+                sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+}
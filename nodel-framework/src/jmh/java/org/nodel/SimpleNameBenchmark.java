@@ -0,0 +1,154 @@
+package org.nodel;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SimpleName construction, interning, comparison and wildcard matching, as done for every event, action and
+ * interest filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimpleNameBenchmark {
+
+    /**
+     * (a power of two)
+     */
+    private final static int COUNT = 256;
+
+    private String[] _raw = new String[COUNT];
+
+    private SimpleName[] _names = new SimpleName[COUNT];
+
+    private SimpleName[] _copies = new SimpleName[COUNT];
+
+    private WildcardMatcher _filter;
+
+    private WildcardMatcher _filters;
+
+    private String[] _rawFilters = new String[12];
+
+    private Map<SimpleName, Object> _registered = new HashMap<SimpleName, Object>();
+
+    private int _index;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < COUNT; i++) {
+            _raw[i] = "Gallery " + (char) ('A' + i % 20) + " Projector \u00dcnit " + i;
+            _names[i] = new SimpleName(_raw[i]);
+            _copies[i] = new SimpleName(_raw[i].toUpperCase());
+        }
+
+        for (int i = 0; i < COUNT; i++)
+            _registered.put(_names[i], _raw[i]);
+
+        _filter = WildcardMatcher.compile("Gallery ? Projector*");
+
+        List<WildcardMatcher> filters = new ArrayList<WildcardMatcher>();
+        for (int i = 0; i < 12; i++) {
+            _rawFilters[i] = "Gallery " + (char) ('A' + i) + " Projector*";
+            filters.add(WildcardMatcher.compile(_rawFilters[i]));
+        }
+        _filters = WildcardMatcher.anyOf(filters);
+    }
+
+    private int next() {
+        return _index = (_index + 1) & (COUNT - 1);
+    }
+
+    @Benchmark
+    public SimpleName construct() {
+        return new SimpleName(_raw[next()]);
+    }
+
+    @Benchmark
+    public SimpleName intern() {
+        return SimpleName.intern(_raw[next()]);
+    }
+
+    /**
+     * Models the event path, i.e. 'NodelServers.emitEvent' then 'ChannelServer.sendEventMessage' for each of
+     * 4 interested channels, each turning the raw node name into a SimpleName for a map lookup.
+     */
+    @Benchmark
+    public int eventPathConstructed() {
+        String raw = _raw[next()];
+
+        int found = _registered.containsKey(new SimpleName(raw)) ? 1 : 0;
+        for (int c = 0; c < 4; c++) {
+            if (_registered.get(new SimpleName(raw)) != null)
+                found++;
+        }
+        return found;
+    }
+
+    /**
+     * (as above, interned)
+     */
+    @Benchmark
+    public int eventPathInterned() {
+        String raw = _raw[next()];
+
+        int found = _registered.containsKey(SimpleName.intern(raw)) ? 1 : 0;
+        for (int c = 0; c < 4; c++) {
+            if (_registered.get(SimpleName.intern(raw)) != null)
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public boolean equalsDifferentInstance() {
+        int i = next();
+        return _names[i].equals(_copies[i]);
+    }
+
+    @Benchmark
+    public boolean wildcardMatch() {
+        return _filter.matches(_names[next()]);
+    }
+
+    @Benchmark
+    public boolean wildcardMatchAnyOf12() {
+        return _filters.matches(_names[next()]);
+    }
+
+    /**
+     * (as above, tokenising each filter per test, as was done before filters were compiled)
+     */
+    @Benchmark
+    public boolean wildcardMatchTokensAnyOf12() {
+        SimpleName name = _names[next()];
+        for (String filter : _rawFilters) {
+            if (SimpleName.wildcardMatch(name, SimpleName.wildcardMatchTokens(filter)))
+                return true;
+        }
+        return false;
+    }
+
+}
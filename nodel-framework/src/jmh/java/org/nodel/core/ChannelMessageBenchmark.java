@@ -0,0 +1,80 @@
+package org.nodel.core;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.nodel.reflection.Serialisation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialising and deserialising a typical event message, as every channel does for every event.
+ * (run with '-prof gc' for the bytes allocated per message)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ChannelMessageBenchmark {
+
+    private ChannelMessage _message;
+
+    private String _json;
+
+    private ChannelMessage.Decoder _decoder = new ChannelMessage.Decoder();
+
+    @Setup
+    public void setup() {
+        Map<String, Object> arg = new LinkedHashMap<String, Object>();
+        arg.put("state", "On");
+        arg.put("level", 75);
+        arg.put("gain", -12.5);
+        arg.put("inputs", Arrays.asList("HDMI 1", "HDMI 2", "DisplayPort"));
+
+        _message = new ChannelMessage();
+        _message.node = "Lobby Projector";
+        _message.event = "Status";
+        _message.arg = arg;
+        _message.timestamp = DateTime.parse("2026-10-19T10:00:00.000+11:00");
+
+        _json = Serialisation.serialise(_message);
+    }
+
+    @Benchmark
+    public String serialise() {
+        return Serialisation.serialise(_message);
+    }
+
+    @Benchmark
+    public Object coerceFromJSON() {
+        return Serialisation.coerceFromJSON(ChannelMessage.class, _json);
+    }
+
+    /**
+     * (as above, decoding into a reused holder as the receive path does)
+     */
+    @Benchmark
+    public Object decodeReused() {
+        return _decoder.decode(_json);
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.nodel.core;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.nodel.SimpleName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 'NodelServers.emitEvent' to a number of interested channels, i.e. the filtering and message building for each
+ * channel, with sending itself left out.
+ *
+ * (uses the in-process discovery so nothing is advertised on the network)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.nodel.discovery.impl=org.nodel.discovery.LocalAutoDNS;instance")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EventFanOutBenchmark {
+
+    /**
+     * Channels interested in the event.
+     */
+    @Param({ "1", "8", "64" })
+    public int channels;
+
+    private NodelServerEvent _event;
+
+    private BenchChannel[] _channels;
+
+    private Object _arg = "On";
+
+    private DateTime _timestamp = DateTime.now();
+
+    /**
+     * Counts instead of sending.
+     */
+    private static class BenchChannel extends ChannelServer {
+
+        long sent;
+
+        BenchChannel(NodelServers nodelServers) {
+            super(nodelServers);
+        }
+
+        @Override
+        protected void sendMessage(ChannelMessage message) {
+            sent++;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        /**
+         * (as a peer's 'interests' request would)
+         */
+        void interestedIn(String node, String... events) {
+            ChannelMessage message = new ChannelMessage();
+            message.node = node;
+            message.events = events;
+            message.actions = new String[0];
+
+            handleMessage(message);
+        }
+
+    } // (class)
+
+    @Setup
+    public void setup() {
+        _event = new NodelServerEvent(new SimpleName("Bench Node"), new SimpleName("Power Status"), null);
+        _event.registerEvent();
+
+        _channels = new BenchChannel[channels];
+        for (int i = 0; i < channels; i++) {
+            _channels[i] = new BenchChannel(NodelServers.instance());
+
+            // a mix of exact and wildcard interests
+            _channels[i].interestedIn("Bench Node", i % 2 == 0 ? "Power Status" : "*Status");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        _event.close();
+    }
+
+    @Benchmark
+    public void emitEvent() {
+        NodelServers.instance().emitEvent(_event, _arg, _timestamp);
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.nodel.core;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Framing of a channel's message stream, per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JSONStreamReaderBenchmark {
+
+    private final static int MESSAGES = 100;
+
+    /**
+     * The size of each message's argument.
+     */
+    @Param({ "64", "4096" })
+    public int argSize;
+
+    private String _stream;
+
+    private StringBuilder _sb = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        StringBuilder arg = new StringBuilder();
+        while (arg.length() < argSize)
+            arg.append("{\\\"level\\\": ").append(arg.length()).append("} ");
+
+        StringBuilder stream = new StringBuilder();
+        for (int i = 0; i < MESSAGES; i++)
+            stream.append("{\"node\": \"Lobby Projector\", \"event\": \"Status\", \"arg\": {\"text\": \"").append(arg)
+                  .append("\", \"seq\": ").append(i).append("}, \"timestamp\": \"2026-10-19T10:00:00.000+11:00\"}\n");
+
+        _stream = stream.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int readMessages() throws IOException {
+        JSONStreamReader reader = new JSONStreamReader(new StringReader(_stream));
+
+        int total = 0;
+        for (;;) {
+            _sb.setLength(0);
+            if (!reader.readJSONMessage(_sb))
+                return total;
+
+            total += _sb.length();
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.nodel.json;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.nodel.reflection.Serialisation;
+import org.nodel.reflection.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coercion of a large config (lots of similar objects), through a JSONObject tree versus straight from the
+ * text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JSONCoerceBenchmark {
+
+    public static class Sample {
+
+        @Value(name = "name")
+        public String name;
+
+        @Value(name = "count")
+        public int count;
+
+        @Value(name = "total")
+        public long total;
+
+        @Value(name = "level")
+        public double level;
+
+        @Value(name = "on")
+        public boolean on;
+
+        @Value(name = "tags", genericClassA = String.class)
+        public List<String> tags;
+
+        @Value(name = "levels")
+        public double[] levels;
+
+        @Value(name = "props")
+        public Map<String, Object> props;
+
+        @Value(name = "children", genericClassA = Sample.class)
+        public List<Sample> children;
+
+    }
+
+    private String _text;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{\"name\": \"root\", \"children\": [");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("{\"name\": \"Gallery ").append(i).append(" Projector\", \"count\": ").append(i).append(", \"total\": ").append(i * 1000003L)
+              .append(", \"level\": ").append(i / 8.0).append(", \"on\": ").append(i % 2 == 0).append(", \"tags\": [\"av\", \"gallery\"]")
+              .append(", \"levels\": [0.5, 1.25, -3], \"props\": {\"ip\": \"10.0.0.").append(i % 250).append("\", \"port\": 4352}}");
+        }
+        _text = sb.append("]}").toString();
+    }
+
+    @Benchmark
+    public Object coerceTree() throws Exception {
+        return Serialisation.coerce(Sample.class, new JSONObject(new JSONTokener(_text)));
+    }
+
+    @Benchmark
+    public Object coerceStreamed() {
+        return Serialisation.coerceFromJSON(Sample.class, _text);
+    }
+
+}
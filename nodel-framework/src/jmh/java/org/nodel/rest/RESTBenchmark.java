@@ -0,0 +1,110 @@
+package org.nodel.rest;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.nodel.SimpleName;
+import org.nodel.reflection.Param;
+import org.nodel.reflection.Service;
+import org.nodel.reflection.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 'REST.resolveRESTcall' through a graph shaped like a host's, i.e. nodes by name, then actions by name, then a call
+ * with its argument from the query string or a POST body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RESTBenchmark {
+
+    public static class BenchAction {
+
+        @Value(name = "title")
+        public String title;
+
+        @Service(name = "call")
+        public Object call(@Param(name = "arg") String arg) {
+            return arg;
+        }
+
+    } // (class)
+
+    public static class BenchNode {
+
+        @Service(name = "actions", genericClassA = SimpleName.class)
+        public Map<SimpleName, BenchAction> actions = new LinkedHashMap<SimpleName, BenchAction>();
+
+    } // (class)
+
+    public static class BenchHost {
+
+        @Service(name = "nodes", genericClassA = SimpleName.class)
+        public Map<SimpleName, BenchNode> nodes = new LinkedHashMap<SimpleName, BenchNode>();
+
+    } // (class)
+
+    private BenchHost _host = new BenchHost();
+
+    private String[] _callPath = { "nodes", "Gallery 42 Projector", "actions", "Power On", "call" };
+
+    private String[] _valuePath = { "nodes", "Gallery 42 Projector", "actions", "Power On", "title" };
+
+    private Map<String, String[]> _query = new HashMap<String, String[]>();
+
+    private byte[] _post = "{\"arg\": \"On\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Setup
+    public void setup() {
+        for (int n = 0; n < 100; n++) {
+            BenchNode node = new BenchNode();
+
+            for (String name : new String[] { "Power On", "Power Off", "Input", "Mute", "Volume" }) {
+                BenchAction action = new BenchAction();
+                action.title = name;
+                node.actions.put(new SimpleName(name), action);
+            }
+
+            _host.nodes.put(new SimpleName("Gallery " + n + " Projector"), node);
+        }
+
+        _query.put("arg", new String[] { "On" });
+    }
+
+    @Benchmark
+    public Object callWithQuery() throws Exception {
+        return REST.resolveRESTcall(_host, _callPath, _query, null);
+    }
+
+    @Benchmark
+    public Object callWithPost() throws Exception {
+        return REST.resolveRESTcall(_host, _callPath, null, _post);
+    }
+
+    @Benchmark
+    public Object value() throws Exception {
+        return REST.resolveRESTcall(_host, _valuePath, null, null, false);
+    }
+
+}
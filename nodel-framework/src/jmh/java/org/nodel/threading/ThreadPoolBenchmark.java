@@ -0,0 +1,71 @@
+package org.nodel.threading;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tasks through 'ThreadPool.execute' to completion, per task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ThreadPoolBenchmark {
+
+    private final static int TASKS = 1000;
+
+    /**
+     * The pool size.
+     */
+    @Param({ "4", "64" })
+    public int threads;
+
+    private ThreadPool _threadPool;
+
+    @Setup
+    public void setup() {
+        _threadPool = new ThreadPool("Benchmark " + threads, threads);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void execute() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(TASKS);
+
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                done.countDown();
+            }
+
+        };
+
+        for (int i = 0; i < TASKS; i++)
+            _threadPool.execute(task);
+
+        done.await();
+    }
+
+}
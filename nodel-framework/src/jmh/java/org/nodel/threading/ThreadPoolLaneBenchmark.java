@@ -0,0 +1,101 @@
+package org.nodel.threading;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.nodel.threading.ThreadPool.Lane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for a task to get through a small pool already flooded with slow-ish data tasks, per lane.
+ * (the flood is queued and drained outside the measurement, each invocation is around a millisecond)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ThreadPoolLaneBenchmark {
+
+    private final static int FLOOD = 200;
+
+    /**
+     * How long each data task in the flood keeps its thread busy.
+     */
+    private final static long FLOOD_TASK_NANOS = 20000;
+
+    @Param({ "Control", "Data" })
+    public Lane lane;
+
+    private ThreadPool _threadPool;
+
+    private CountDownLatch _flood;
+
+    @Setup
+    public void setup() {
+        _threadPool = new ThreadPool("Lane benchmark " + lane, 4);
+    }
+
+    @Setup(Level.Invocation)
+    public void flood() {
+        final CountDownLatch flood = new CountDownLatch(FLOOD);
+
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                long until = System.nanoTime() + FLOOD_TASK_NANOS;
+                while (System.nanoTime() < until)
+                    ;
+                flood.countDown();
+            }
+
+        };
+
+        for (int i = 0; i < FLOOD; i++)
+            _threadPool.execute(task, Lane.Data);
+
+        _flood = flood;
+    }
+
+    @TearDown(Level.Invocation)
+    public void drain() throws InterruptedException {
+        _flood.await();
+    }
+
+    @Benchmark
+    public void behindFlood() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+
+        _threadPool.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                done.countDown();
+            }
+
+        }, lane);
+
+        done.await();
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.nodel.threading;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduling then cancelling a timer (e.g. timeouts that rarely fire) alongside others already pending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TimersBenchmark {
+
+    /**
+     * Timers already scheduled.
+     */
+    @Param({ "0", "10000" })
+    public int pending;
+
+    private Timers _timers;
+
+    private List<TimerTask> _pending = new ArrayList<TimerTask>();
+
+    private static class NoOp extends TimerTask {
+
+        @Override
+        public void run() {
+        }
+
+    } // (class)
+
+    @Setup
+    public void setup() {
+        _timers = new Timers("Benchmark");
+
+        for (int i = 0; i < pending; i++)
+            _pending.add(_timers.schedule(new NoOp(), 3600000 + i));
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (TimerTask task : _pending)
+            task.cancel();
+    }
+
+    @Benchmark
+    public TimerTask scheduleAndCancel() {
+        TimerTask task = _timers.schedule(new NoOp(), 60000);
+        task.cancel();
+        return task;
+    }
+
+}
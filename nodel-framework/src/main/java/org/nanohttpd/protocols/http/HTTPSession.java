@@ -34,6 +34,7 @@ package org.nanohttpd.protocols.http;
  */
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -52,6 +53,7 @@ import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -92,7 +94,7 @@ public class HTTPSession implements IHTTPSession {
 
     private final ITempFileManager tempFileManager;
 
-    private final OutputStream outputStream;
+    private final HoldableOutputStream outputStream;
 
     private final BufferedInputStream inputStream;
 
@@ -120,6 +122,21 @@ public class HTTPSession implements IHTTPSession {
 
     private byte[] bodyBytes;
 
+    /**
+     * Whether the connection will be kept open after the current request.
+     */
+    private boolean keepAlive;
+
+    /**
+     * Whether the body of the current request has been read (or the handler has taken the stream)
+     */
+    private boolean bodyConsumed;
+
+    /**
+     * The header buffer, reused for every request on this connection.
+     */
+    private final byte[] headerBuf = new byte[HTTPSession.BUFSIZE];
+
     private static final SharableMeasurementProvider s_dataRecvRate = Diagnostics.shared().registerSharableCounter("Nodel HTTP server.Receive rate", true);
 
     private static final SharableMeasurementProvider s_dataSendRate = Diagnostics.shared().registerSharableCounter("Nodel HTTP server.Send rate", true);
@@ -128,14 +145,14 @@ public class HTTPSession implements IHTTPSession {
         this.httpd = httpd;
         this.tempFileManager = tempFileManager;
         this.inputStream = new BufferedInputStream(new CountableInputStream(inputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataRecvRate), HTTPSession.BUFSIZE);
-        this.outputStream = new CountableOutputStream(outputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataSendRate);
+        this.outputStream = new HoldableOutputStream(new CountableOutputStream(outputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataSendRate));
     }
 
     public HTTPSession(NanoHTTPD httpd, ITempFileManager tempFileManager, InputStream inputStream, OutputStream outputStream, Socket acceptSocket) {
         this.httpd = httpd;
         this.tempFileManager = tempFileManager;
         this.inputStream = new BufferedInputStream(new CountableInputStream(inputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataRecvRate), HTTPSession.BUFSIZE);
-        this.outputStream = new CountableOutputStream(outputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataSendRate);
+        this.outputStream = new HoldableOutputStream(new CountableOutputStream(outputStream, SharableMeasurementProvider.Null.INSTANCE, s_dataSendRate));
 
         this.acceptSocket = acceptSocket;
         InetAddress inetAddress = acceptSocket.getInetAddress();
@@ -144,61 +161,103 @@ public class HTTPSession implements IHTTPSession {
     }
 
     /**
-     * Decodes the sent headers and loads the data into Key/value pairs
+     * Decodes the sent headers and loads the data into Key/value pairs. Works directly on
+     * the header buffer, i.e. without any intermediate readers or per-request buffers.
      */
-    private void decodeHeader(BufferedReader in, Map<String, String> pre, Map<String, List<String>> parms, Map<String, String> headers) throws ResponseException {
-        try {
-            // Read the request line
-            String inLine = in.readLine();
-            if (inLine == null) {
-                return;
-            }
+    private void decodeHeader(byte[] buf, int len, Map<String, String> pre, Map<String, List<String>> parms, Map<String, String> headers) throws ResponseException {
+        // Read the request line
+        if (len == 0) {
+            return;
+        }
 
-            StringTokenizer st = new StringTokenizer(inLine);
-            if (!st.hasMoreTokens()) {
-                throw new ResponseException(Status.BAD_REQUEST, "BAD REQUEST: Syntax error. Usage: GET /example/file.html");
-            }
+        int lineEnd = indexOfLineEnd(buf, 0, len);
+        String inLine = lineString(buf, 0, lineEnd);
 
-            pre.put("method", st.nextToken());
+        StringTokenizer st = new StringTokenizer(inLine);
+        if (!st.hasMoreTokens()) {
+            throw new ResponseException(Status.BAD_REQUEST, "BAD REQUEST: Syntax error. Usage: GET /example/file.html");
+        }
 
-            if (!st.hasMoreTokens()) {
-                throw new ResponseException(Status.BAD_REQUEST, "BAD REQUEST: Missing URI. Usage: GET /example/file.html");
-            }
+        pre.put("method", st.nextToken());
 
-            String uri = st.nextToken();
+        if (!st.hasMoreTokens()) {
+            throw new ResponseException(Status.BAD_REQUEST, "BAD REQUEST: Missing URI. Usage: GET /example/file.html");
+        }
 
-            // Decode parameters from the URI
-            int qmi = uri.indexOf('?');
-            if (qmi >= 0) {
-                decodeParms(uri.substring(qmi + 1), parms);
-                uri = NanoHTTPD.decodePercent(uri.substring(0, qmi));
-            } else {
-                uri = NanoHTTPD.decodePercent(uri);
-            }
+        String uri = st.nextToken();
 
-            // If there's another token, its protocol version,
-            // followed by HTTP headers.
-            // NOTE: this now forces header names lower case since they are
-            // case insensitive and vary by client.
-            if (st.hasMoreTokens()) {
-                protocolVersion = st.nextToken();
-            } else {
-                protocolVersion = "HTTP/1.1";
-                NanoHTTPD.LOG.log(Level.FINE, "no protocol version specified, strange. Assuming HTTP/1.1.");
+        // Decode parameters from the URI
+        int qmi = uri.indexOf('?');
+        if (qmi >= 0) {
+            decodeParms(uri.substring(qmi + 1), parms);
+            uri = NanoHTTPD.decodePercent(uri.substring(0, qmi));
+        } else {
+            uri = NanoHTTPD.decodePercent(uri);
+        }
+
+        // If there's another token, its protocol version,
+        // followed by HTTP headers.
+        // NOTE: this now forces header names lower case since they are
+        // case insensitive and vary by client.
+        if (st.hasMoreTokens()) {
+            protocolVersion = st.nextToken();
+        } else {
+            protocolVersion = "HTTP/1.1";
+            NanoHTTPD.LOG.log(Level.FINE, "no protocol version specified, strange. Assuming HTTP/1.1.");
+        }
+
+        int lineStart = lineEnd + 1;
+        while (lineStart < len) {
+            lineEnd = indexOfLineEnd(buf, lineStart, len);
+
+            // strip any CR
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buf[contentEnd - 1] == '\r')
+                contentEnd--;
+
+            if (contentEnd == lineStart) {
+                // blank line, end of headers
+                break;
             }
-            String line = in.readLine();
-            while (line != null && !line.trim().isEmpty()) {
-                int p = line.indexOf(':');
-                if (p >= 0) {
-                    headers.put(line.substring(0, p).trim().toLowerCase(Locale.US), line.substring(p + 1).trim());
+
+            int colon = -1;
+            for (int i = lineStart; i < contentEnd; i++) {
+                if (buf[i] == ':') {
+                    colon = i;
+                    break;
                 }
-                line = in.readLine();
             }
 
-            pre.put("uri", uri);
-        } catch (IOException ioe) {
-            throw new ResponseException(Status.INTERNAL_ERROR, "SERVER INTERNAL ERROR: IOException: " + ioe.getMessage(), ioe);
+            if (colon >= 0) {
+                String name = new String(buf, lineStart, colon - lineStart, StandardCharsets.ISO_8859_1).trim().toLowerCase(Locale.US);
+                headers.put(name, lineString(buf, colon + 1, contentEnd).trim());
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        pre.put("uri", uri);
+    }
+
+    /**
+     * The position of the next LF (or the end)
+     */
+    private static int indexOfLineEnd(byte[] buf, int from, int len) {
+        for (int i = from; i < len; i++) {
+            if (buf[i] == '\n')
+                return i;
         }
+        return len;
+    }
+
+    /**
+     * (excludes any trailing CR)
+     */
+    private static String lineString(byte[] buf, int from, int to) {
+        if (to > from && buf[to - 1] == '\r')
+            to--;
+
+        return new String(buf, from, to - from, StandardCharsets.UTF_8);
     }
 
     /**
@@ -364,8 +423,10 @@ public class HTTPSession implements IHTTPSession {
             // Apache's default header limit is 8KB.
             // Do NOT assume that a single read will get the entire header
             // at once!
-            byte[] buf = new byte[HTTPSession.BUFSIZE];
+            byte[] buf = this.headerBuf;
             this.splitbyte = 0;
+            this.bodyConsumed = false;
+            this.cookies = null;
             this.rlen = 0;
 
             int read = -1;
@@ -406,12 +467,9 @@ public class HTTPSession implements IHTTPSession {
                 this.headers.clear();
             }
 
-            // Create a BufferedReader for parsing the header.
-            BufferedReader hin = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(buf, 0, this.rlen)));
-
             // Decode the header into parms and header java properties
             Map<String, String> pre = new HashMap<String, String>();
-            decodeHeader(hin, pre, this.parms, this.headers);
+            decodeHeader(buf, this.splitbyte > 0 ? this.splitbyte : this.rlen, pre, this.parms, this.headers);
 
             if (null != this.remoteIp) {
                 this.headers.put("remote-addr", this.remoteIp);
@@ -425,10 +483,15 @@ public class HTTPSession implements IHTTPSession {
 
             this.uri = pre.get("uri");
 
-            this.cookies = new CookieHandler(this.headers);
+            // bodies must be delimited by 'content-length', an encoded (e.g. chunked) body would
+            // otherwise be read as the next request (the error closes the connection)
+            String transferEncoding = this.headers.get("transfer-encoding");
+            if (transferEncoding != null && !transferEncoding.trim().equalsIgnoreCase("identity")) {
+                throw new ResponseException(Status.LENGTH_REQUIRED, "LENGTH REQUIRED: Transfer-Encoding '" + transferEncoding + "' is not supported, use Content-Length.");
+            }
 
             String connection = this.headers.get("connection");
-            boolean keepAlive = "HTTP/1.1".equals(protocolVersion) && (connection == null || !connection.matches("(?i).*close.*"));
+            this.keepAlive = "HTTP/1.1".equals(protocolVersion) && (connection == null || connection.toLowerCase(Locale.US).indexOf("close") < 0);
 
             // Ok, now do the serve()
 
@@ -443,19 +506,36 @@ public class HTTPSession implements IHTTPSession {
                 throw new ResponseException(Status.INTERNAL_ERROR, "SERVER INTERNAL ERROR: Serve() returned a null response.");
             } else {
                 String acceptEncoding = this.headers.get("accept-encoding");
-                this.cookies.unloadQueue(r);
+                if (this.cookies != null)
+                    this.cookies.unloadQueue(r);
                 r.setRequestMethod(this.method);
                 if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
                     r.setUseGzip(false);
                 }
-                r.setKeepAlive(keepAlive);
-                r.send(this.outputStream);
+                r.setKeepAlive(this.keepAlive);
+
+                // skip over any body the handler ignored so the next (possibly pipelined) request lines up
+                if (this.keepAlive && !this.bodyConsumed)
+                    skipBody();
+
+                // if the next request has already arrived, hold back the flush so responses are
+                // coalesced into fewer segments (the last response of a batch flushes)
+                boolean pipelined = this.keepAlive && r.getStatus() != Status.SWITCH_PROTOCOL && this.inputStream.available() > 0;
+
+                this.outputStream.hold = pipelined;
+                try {
+                    r.send(this.outputStream);
+                } finally {
+                    this.outputStream.hold = false;
+                }
             }
-            if (!keepAlive || r.isCloseConnection()) {
+            if (!this.keepAlive || r.isCloseConnection()) {
+                this.outputStream.flush();
                 throw new SocketException("NanoHttpd Shutdown");
             }
 
-            httpd.LOG.info("Finished serving. TimeTaken:" + (System.currentTimeMillis() - startTime) + "ms, URI='" + uri + "'");
+            if (NanoHTTPD.LOG.isLoggable(Level.INFO))
+                NanoHTTPD.LOG.info("Finished serving. TimeTaken:" + (System.currentTimeMillis() - startTime) + "ms, URI='" + uri + "'");
 
         } catch (SocketException e) {
             // throw it out to close socket object (finalAccept)
@@ -551,8 +631,50 @@ public class HTTPSession implements IHTTPSession {
         return res;
     }
 
+    /**
+     * An output stream that can ignore flushes while responses to pipelined requests are being written.
+     */
+    private static class HoldableOutputStream extends BufferedOutputStream {
+
+        /**
+         * (only touched by the session thread)
+         */
+        boolean hold;
+
+        public HoldableOutputStream(OutputStream out) {
+            super(out, 16 * 1024);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (!this.hold)
+                super.flush();
+        }
+
+    } // (class)
+
+    /**
+     * Discards the unread body of the current request.
+     */
+    private void skipBody() throws IOException {
+        long remaining = getBodySize();
+        while (remaining > 0) {
+            long skipped = this.inputStream.skip(remaining);
+            if (skipped <= 0) {
+                if (this.inputStream.read() < 0)
+                    break;
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
     @Override
     public CookieHandler getCookies() {
+        // (parsed on first use, most requests don't need cookies)
+        if (this.cookies == null)
+            this.cookies = new CookieHandler(this.headers);
+
         return this.cookies;
     }
 
@@ -563,6 +685,9 @@ public class HTTPSession implements IHTTPSession {
 
     @Override
     public final InputStream getInputStream() {
+        // caller is taking over the stream
+        this.bodyConsumed = true;
+
         return this.inputStream;
     }
 
@@ -624,12 +749,14 @@ public class HTTPSession implements IHTTPSession {
 
     /**
      * Deduce body length in bytes. Either from "content-length" header or read
-     * bytes.
+     * bytes. On a persistent connection, a request without a "content-length"
+     * has no body; anything else already read is the next (pipelined) request.
      */
     public long getBodySize() {
-        if (this.headers.containsKey("content-length")) {
-            return Long.parseLong(this.headers.get("content-length"));
-        } else if (this.splitbyte < this.rlen) {
+        String contentLength = this.headers.get("content-length");
+        if (contentLength != null) {
+            return Long.parseLong(contentLength.trim());
+        } else if (!this.keepAlive && this.splitbyte < this.rlen) {
             return this.rlen - this.splitbyte;
         }
         return 0;
@@ -637,9 +764,18 @@ public class HTTPSession implements IHTTPSession {
 
     @Override
     public void parseBody(Map<String, String> files) throws IOException, ResponseException {
+        this.bodyConsumed = true;
+
         RandomAccessFile randomAccessFile = null;
         try {
             long size = getBodySize();
+
+            if (size <= 0 && !Method.PUT.equals(this.method)) {
+                // nothing to read or decode (the common case)
+                this.bodyBytes = new byte[0];
+                return;
+            }
+
             ByteArrayOutputStream baos = null;
             DataOutput requestDataOutput = null;
 
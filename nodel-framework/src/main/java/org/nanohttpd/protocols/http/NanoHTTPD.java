@@ -402,6 +402,11 @@ public abstract class NanoHTTPD {
      */
     private File firstChoiceDir;
 
+    /**
+     * Path resolution and metadata for static files.
+     */
+    private final StaticFileCache fileCache = new StaticFileCache();
+
     /**
      * Allows for first-choice overriding (fallback web-server)
      */
@@ -693,22 +698,25 @@ public abstract class NanoHTTPD {
         Properties header = request.header;
         Properties files = request.files;
 
-        myOut.println(method + " '" + uri + "' ");
+        // (tracing, skip building the strings when it goes nowhere)
+        if (myOut != staticNullPrintStream) {
+            myOut.println(method + " '" + uri + "' ");
 
-        Enumeration<?> e = header.propertyNames();
-        while (e.hasMoreElements()) {
-            String value = (String) e.nextElement();
-            myOut.println("  HDR: '" + value + "' = '" + header.getProperty(value) + "'");
-        }
-        e = parms.propertyNames();
-        while (e.hasMoreElements()) {
-            String value = (String) e.nextElement();
-            myOut.println("  PRM: '" + value + "' = '" + parms.getProperty(value) + "'");
-        }
-        e = files.propertyNames();
-        while (e.hasMoreElements()) {
-            String value = (String) e.nextElement();
-            myOut.println("  UPLOADED: '" + value + "' = '" + files.getProperty(value) + "'");
+            Enumeration<?> e = header.propertyNames();
+            while (e.hasMoreElements()) {
+                String value = (String) e.nextElement();
+                myOut.println("  HDR: '" + value + "' = '" + header.getProperty(value) + "'");
+            }
+            e = parms.propertyNames();
+            while (e.hasMoreElements()) {
+                String value = (String) e.nextElement();
+                myOut.println("  PRM: '" + value + "' = '" + parms.getProperty(value) + "'");
+            }
+            e = files.propertyNames();
+            while (e.hasMoreElements()) {
+                String value = (String) e.nextElement();
+                myOut.println("  UPLOADED: '" + value + "' = '" + files.getProperty(value) + "'");
+            }
         }
 
         // try custom root first (can be null)
@@ -728,18 +736,17 @@ public abstract class NanoHTTPD {
      */
     public File resolveFile(String uri, File customRoot) {
         String relPath = uriIntoPath(uri);
+        if (relPath == null)
+            return null;
 
-        File file = new File(customRoot, relPath);
-        if (file.exists() && file.isFile())
-            return file;
-
-        file = new File(this.firstChoiceDir, relPath);
-        if (file.exists() && file.isFile())
-            return file;
+        for (File root : new File[] { customRoot, this.firstChoiceDir, this.myRootDir }) {
+            if (root == null)
+                continue;
 
-        file = new File(this.myRootDir, relPath);
-        if (file.exists() && file.isFile())
-            return file;
+            File file = this.fileCache.resolve(root, relPath);
+            if (file != null)
+                return file;
+        }
 
         return null;
     }
@@ -800,13 +807,15 @@ public abstract class NanoHTTPD {
                 res = new Response(Status.FORBIDDEN, MIME_PLAINTEXT, "FORBIDDEN: Won't serve ../ for security reasons.");
         }
 
-        File f = new File(homeDir, uri);
+        StaticFileCache.Entry entry = res == null ? this.fileCache.lookup(homeDir, uri) : null;
 
-        if (res == null && !f.exists())
+        if (res == null && !entry.exists())
             res = new Response(Status.NOT_FOUND, MIME_PLAINTEXT, "Error 404, file not found.");
 
+        File f = entry != null ? entry.getFile() : null;
+
         // List the directory, if necessary
-        if (!noFallback && res == null && f.isDirectory()) {
+        if (!noFallback && res == null && entry.isDirectory()) {
             // Browsers get confused without '/' after the
             // directory, send a redirect.
             if (!uri.endsWith("/")) {
@@ -816,11 +825,15 @@ public abstract class NanoHTTPD {
             }
 
             if (res == null) {
+                StaticFileCache.Entry indexEntry;
+
                 // First try index.html and index.htm
-                if (new File(f, "index.html").exists()) {
-                    f = new File(homeDir, uri + "/index.html");
-                } else if (new File(f, "index.htm").exists()) {
-                    f = new File(homeDir, uri + "/index.htm");
+                if ((indexEntry = this.fileCache.lookup(homeDir, uri + "index.html")).exists()) {
+                    entry = indexEntry;
+                    f = entry.getFile();
+                } else if ((indexEntry = this.fileCache.lookup(homeDir, uri + "index.htm")).exists()) {
+                    entry = indexEntry;
+                    f = entry.getFile();
                 }
                 // No index file, list the directory if it is readable
                 else if (allowDirectoryListing && f.canRead()) {
@@ -873,17 +886,12 @@ public abstract class NanoHTTPD {
 
         try {
             if (res == null) {
-                // Get MIME type from file name extension, if possible
-                String mime = null;
-                int dot = f.getCanonicalPath().lastIndexOf('.');
-                if (dot >= 0) {
-                    mime = getMimeTypeForFile(f.getCanonicalPath());
-                }
-                if (mime == null) {
-                    mime = MIME_DEFAULT_BINARY;
-                }
-                // Calculate etag
-                String etag = Integer.toHexString((f.getAbsolutePath() + f.lastModified() + "" + f.length()).hashCode());
+                if (!entry.isFile())
+                    throw new IOException("Not a file");
+
+                // MIME type (from file name extension) and etag are cached
+                String mime = entry.getMimeType();
+                String etag = entry.getETag();
 
                 // Support (simple) skipping:
                 long startFrom = 0;
@@ -908,7 +916,7 @@ public abstract class NanoHTTPD {
 
                 // Change return code and add Content-Range header when skipping
                 // is requested
-                long fileLen = f.length();
+                long fileLen = entry.getLength();
                 if (range != null && startFrom >= 0) {
                     if (startFrom >= fileLen) {
                         res = new Response(Status.RANGE_NOT_SATISFIABLE, MIME_PLAINTEXT, "");
@@ -935,14 +943,27 @@ public abstract class NanoHTTPD {
                         res.addHeader("ETag", etag);
                     }
                 } else {
+                    // select any compressed variant (never for server-side processing i.e. 'noFallback')
+                    StaticFileCache.Variant variant = noFallback ? null : this.fileCache.selectVariant(entry, header.getProperty("accept-encoding"));
+                    if (variant != null)
+                        etag = etag + "-" + variant.encoding;
+
                     if (!noFallback && etag.equals(header.getProperty("if-none-match"))) {
                         res = new Response(Status.NOT_MODIFIED, mime, "");
                         res.addHeader("ETag", etag);
+                    } else if (variant != null) {
+                        res = new Response(Status.OK, mime, variant.open(), variant.length);
+                        res.addHeader("Content-Length", "" + variant.length);
+                        res.addHeader("Content-Encoding", variant.encoding);
+                        res.addHeader("ETag", etag);
                     } else {
                         res = new Response(Status.OK, mime, new FileInputStream(f), fileLen);
                         res.addHeader("Content-Length", "" + fileLen);
                         res.addHeader("ETag", etag);
                     }
+
+                    if (!noFallback && entry.isCompressible())
+                        res.addHeader("Vary", "Accept-Encoding");
                 }
             }
         } catch (IOException ioe) {
@@ -0,0 +1,554 @@
+package org.nanohttpd.protocols.http;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.nodel.diagnostics.AtomicLongMeasurementProvider;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.SharableMeasurementProvider;
+
+/**
+ * Caches the resolution and metadata of static files (existence, type, size, ETag, MIME type and any
+ * compressed variants) so repeated requests for the same content don't hit the file system.
+ *
+ * Entries are trusted for a short period after which the file's size and modification time are
+ * re-checked; unchanged entries (and any compressed content) are kept. Nothing is watched or held open so
+ * the content can be freely renamed or deleted (Windows locks watched directories).
+ *
+ * Existing files and directories are kept in one LRU set, misses (404s) in another, smaller one so a
+ * stream of bad requests can't push out good entries.
+ */
+public class StaticFileCache {
+
+    /**
+     * Beyond this, the least recently used entries are evicted.
+     */
+    private final static int MAX_ENTRIES = 4096;
+
+    /**
+     * Same as above, for paths that don't exist.
+     */
+    private final static int MAX_MISSES = 256;
+
+    /**
+     * How long an entry is trusted for before the file system is checked again (millis)
+     */
+    private final static long REVALIDATE = 1000;
+
+    /**
+     * Files smaller than this aren't worth compressing.
+     */
+    private final static long MIN_COMPRESS_SIZE = 1024;
+
+    /**
+     * Files larger than this aren't compressed on the fly (precompressed siblings are still used)
+     */
+    private final static long MAX_COMPRESS_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Total memory allowed for lazily compressed content.
+     */
+    private final static long MAX_COMPRESSED_BYTES = 32 * 1024 * 1024;
+
+    private final static AtomicLong s_compressedBytes = new AtomicLong();
+
+    private final static SharableMeasurementProvider s_hitRate = Diagnostics.shared().registerSharableCounter("Nodel HTTP server.Static file cache hit rate", true);
+
+    private final static SharableMeasurementProvider s_missRate = Diagnostics.shared().registerSharableCounter("Nodel HTTP server.Static file cache miss rate", true);
+
+    static {
+        Diagnostics.shared().registerCounter("Nodel HTTP server.Static file compressed bytes", new AtomicLongMeasurementProvider(s_compressedBytes), false);
+    }
+
+    /**
+     * A compressed (or identity) representation of an entry.
+     */
+    public static class Variant {
+
+        /**
+         * e.g. "br", "gzip"
+         */
+        public final String encoding;
+
+        /**
+         * (one of these is set)
+         */
+        private final File file;
+
+        /**
+         * (one of these is set)
+         */
+        private final byte[] data;
+
+        public final long length;
+
+        /**
+         * (millis, only for file based content)
+         */
+        private final long lastModified;
+
+        private Variant(String encoding, File file, byte[] data, long length, long lastModified) {
+            this.encoding = encoding;
+            this.file = file;
+            this.data = data;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Opens the content (file based content can be transferred directly by the response)
+         */
+        public InputStream open() throws IOException {
+            if (this.data != null)
+                return new ByteArrayInputStream(this.data);
+            else
+                return new FileInputStream(this.file);
+        }
+
+    } // (class)
+
+    /**
+     * The resolved state of a path.
+     */
+    public static class Entry {
+
+        private final File file;
+
+        private final boolean isFile;
+
+        private final boolean isDirectory;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final String etag;
+
+        private final String mimeType;
+
+        private final boolean compressible;
+
+        /**
+         * Precompressed siblings, i.e. '.br' and '.gz' (if present and up-to-date)
+         */
+        private final Variant brotli;
+
+        private final Variant gzipFile;
+
+        /**
+         * (lazily produced, see 'gzipped()')
+         */
+        private volatile Variant gzipped;
+
+        private volatile boolean gzipAttempted;
+
+        /**
+         * (millis)
+         */
+        private volatile long validUntil;
+
+        private Entry(File file, BasicFileAttributes attrs, long validUntil) {
+            this.file = file;
+            this.isFile = attrs != null && attrs.isRegularFile();
+            this.isDirectory = attrs != null && attrs.isDirectory();
+            this.length = this.isFile ? attrs.size() : 0;
+            this.lastModified = attrs != null ? attrs.lastModifiedTime().toMillis() : 0;
+            this.validUntil = validUntil;
+
+            if (!this.isFile) {
+                this.etag = null;
+                this.mimeType = null;
+                this.compressible = false;
+                this.brotli = null;
+                this.gzipFile = null;
+                return;
+            }
+
+            // same form as has always been used
+            this.etag = Integer.toHexString((file.getAbsolutePath() + this.lastModified + "" + this.length).hashCode());
+
+            String mime = NanoHTTPD.getMimeTypeForFile(file.getName());
+            this.mimeType = mime != null ? mime : NanoHTTPD.MIME_DEFAULT_BINARY;
+            this.compressible = isCompressibleType(this.mimeType);
+
+            if (this.compressible) {
+                this.brotli = precompressed(file, ".br", "br", this.lastModified);
+                this.gzipFile = precompressed(file, ".gz", "gzip", this.lastModified);
+            } else {
+                this.brotli = null;
+                this.gzipFile = null;
+            }
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public boolean exists() {
+            return this.isFile || this.isDirectory;
+        }
+
+        public boolean isFile() {
+            return this.isFile;
+        }
+
+        public boolean isDirectory() {
+            return this.isDirectory;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        public String getETag() {
+            return this.etag;
+        }
+
+        public String getMimeType() {
+            return this.mimeType;
+        }
+
+        /**
+         * Whether or not the representation could vary by 'Accept-Encoding'
+         */
+        public boolean isCompressible() {
+            return this.compressible;
+        }
+
+        /**
+         * Whether or not the file system still matches this entry.
+         */
+        private boolean isCurrent(BasicFileAttributes attrs) {
+            if (attrs == null)
+                return !exists();
+
+            if (attrs.isRegularFile() != this.isFile || attrs.isDirectory() != this.isDirectory)
+                return false;
+
+            if (!this.isFile)
+                return true;
+
+            if (attrs.size() != this.length || attrs.lastModifiedTime().toMillis() != this.lastModified)
+                return false;
+
+            if (!this.compressible)
+                return true;
+
+            return sameFile(this.brotli, precompressed(this.file, ".br", "br", this.lastModified))
+                    && sameFile(this.gzipFile, precompressed(this.file, ".gz", "gzip", this.lastModified));
+        }
+
+        /**
+         * Compresses on first use if there's room in the budget, otherwise null.
+         */
+        private Variant gzipped() {
+            if (this.gzipAttempted)
+                return this.gzipped;
+
+            synchronized (this) {
+                if (this.gzipAttempted)
+                    return this.gzipped;
+
+                if (this.length >= MIN_COMPRESS_SIZE && this.length <= MAX_COMPRESS_SIZE && s_compressedBytes.get() + this.length <= MAX_COMPRESSED_BYTES) {
+                    try {
+                        byte[] data = gzip(this.file, this.length);
+
+                        // only worth it if there's a reasonable saving
+                        if (data.length < this.length * 9 / 10) {
+                            s_compressedBytes.addAndGet(data.length);
+                            this.gzipped = new Variant("gzip", null, data, data.length, 0);
+                        }
+
+                    } catch (IOException exc) {
+                        // ignore, will serve as-is
+                    }
+                }
+
+                this.gzipAttempted = true;
+
+                return this.gzipped;
+            }
+        }
+
+        /**
+         * Releases any memory held.
+         */
+        private void release() {
+            Variant gzipped = this.gzipped;
+            if (gzipped != null)
+                s_compressedBytes.addAndGet(-gzipped.length);
+        }
+
+    } // (class)
+
+    /**
+     * Holds the existing entries by root and path, in access order.
+     * (synchronized)
+     */
+    private final LinkedHashMap<String, Entry> _entries;
+
+    /**
+     * Holds the entries of paths that don't exist, in access order.
+     * (synchronized on '_entries')
+     */
+    private final LinkedHashMap<String, Entry> _misses;
+
+    /**
+     * (see 'REVALIDATE')
+     */
+    private final long _revalidate;
+
+    public StaticFileCache() {
+        this(REVALIDATE, MAX_ENTRIES, MAX_MISSES);
+    }
+
+    /**
+     * (for testing)
+     */
+    StaticFileCache(long revalidate, int maxEntries, int maxMisses) {
+        _revalidate = revalidate;
+        _entries = newLRUMap(maxEntries);
+        _misses = newLRUMap(maxMisses);
+    }
+
+    /**
+     * Looks up (or resolves and caches) the state of a path relative to the given root.
+     */
+    public Entry lookup(File root, String relPath) {
+        String key = root.getPath() + '\0' + relPath;
+
+        Entry entry;
+        synchronized (_entries) {
+            entry = _entries.get(key);
+            if (entry == null)
+                entry = _misses.get(key);
+        }
+
+        long now = System.currentTimeMillis();
+
+        if (entry != null && entry.validUntil > now) {
+            s_hitRate.incr();
+            return entry;
+        }
+
+        File file = entry != null ? entry.file : new File(root, relPath).getAbsoluteFile();
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (Exception exc) {
+            // doesn't exist or can't be accessed
+            attrs = null;
+        }
+
+        if (entry != null && entry.isCurrent(attrs)) {
+            // unchanged, trust it for a while longer
+            entry.validUntil = now + _revalidate;
+            s_hitRate.incr();
+            return entry;
+        }
+
+        s_missRate.incr();
+
+        Entry newEntry = new Entry(file, attrs, now + _revalidate);
+
+        synchronized (_entries) {
+            Entry previous = _entries.remove(key);
+            if (previous != null)
+                previous.release();
+            _misses.remove(key);
+
+            if (newEntry.exists())
+                _entries.put(key, newEntry);
+            else
+                _misses.put(key, newEntry);
+        }
+
+        return newEntry;
+    }
+
+    /**
+     * Resolves a relative path into an existing file (not directory) or null.
+     */
+    public File resolve(File root, String relPath) {
+        Entry entry = lookup(root, relPath);
+
+        return entry.isFile ? entry.file : null;
+    }
+
+    /**
+     * Selects the best encoded variant given the 'Accept-Encoding' request header or null if the file
+     * should be sent as-is. Brotli is only available if precompressed, gzip is also produced lazily.
+     */
+    public Variant selectVariant(Entry entry, String acceptEncoding) {
+        if (!entry.compressible || acceptEncoding == null)
+            return null;
+
+        if (entry.brotli != null && accepts(acceptEncoding, "br"))
+            return entry.brotli;
+
+        if (accepts(acceptEncoding, "gzip")) {
+            if (entry.gzipFile != null)
+                return entry.gzipFile;
+
+            return entry.gzipped();
+        }
+
+        return null;
+    }
+
+    /**
+     * Clears all entries.
+     */
+    public void clear() {
+        synchronized (_entries) {
+            for (Entry entry : _entries.values())
+                entry.release();
+
+            _entries.clear();
+            _misses.clear();
+        }
+    }
+
+    /**
+     * (for testing)
+     */
+    int entryCount() {
+        synchronized (_entries) {
+            return _entries.size();
+        }
+    }
+
+    /**
+     * (for testing)
+     */
+    int missCount() {
+        synchronized (_entries) {
+            return _misses.size();
+        }
+    }
+
+    /**
+     * An access ordered map that evicts (and releases) beyond the given size.
+     */
+    private static LinkedHashMap<String, Entry> newLRUMap(final int max) {
+        return new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StaticFileCache.Entry> eldest) {
+                if (size() <= max)
+                    return false;
+
+                eldest.getValue().release();
+                return true;
+            }
+
+        };
+    }
+
+    /**
+     * Checks for a precompressed sibling that's no older than the original.
+     */
+    private static Variant precompressed(File file, String suffix, String encoding, long lastModified) {
+        File sibling = new File(file.getPath() + suffix);
+
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(sibling.toPath(), BasicFileAttributes.class);
+            if (!attrs.isRegularFile() || attrs.lastModifiedTime().toMillis() < lastModified)
+                return null;
+
+            return new Variant(encoding, sibling, null, attrs.size(), attrs.lastModifiedTime().toMillis());
+
+        } catch (Exception exc) {
+            // not present
+            return null;
+        }
+    }
+
+    /**
+     * Whether or not two (file based) variants are the same, including both being absent.
+     */
+    private static boolean sameFile(Variant a, Variant b) {
+        if (a == null || b == null)
+            return a == b;
+
+        return a.length == b.length && a.lastModified == b.lastModified;
+    }
+
+    /**
+     * Text-like content compresses well; images, archives, etc. are usually already compressed.
+     */
+    private static boolean isCompressibleType(String mimeType) {
+        String mime = mimeType.toLowerCase();
+
+        return mime.startsWith("text/") || mime.contains("javascript") || mime.contains("json") || mime.contains("xml") || mime.contains("svg");
+    }
+
+    /**
+     * Checks whether a content-coding is present and not refused ("q=0") within an 'Accept-Encoding' header.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        for (String part : acceptEncoding.split(",")) {
+            String item = part.trim();
+
+            String name = item;
+            String params = null;
+            int semicolon = item.indexOf(';');
+            if (semicolon >= 0) {
+                name = item.substring(0, semicolon).trim();
+                params = item.substring(semicolon + 1).trim();
+            }
+
+            if (!name.equalsIgnoreCase(coding) && !name.equals("*"))
+                continue;
+
+            if (params != null && params.startsWith("q=")) {
+                try {
+                    if (Double.parseDouble(params.substring(2).trim()) <= 0)
+                        return false;
+                } catch (NumberFormatException exc) {
+                    // ignore, treat as accepted
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * (convenience method)
+     */
+    private static byte[] gzip(File file, long length) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream((int) (length / 3));
+
+        try (FileInputStream fis = new FileInputStream(file); GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = fis.read(buffer)) > 0)
+                gzos.write(buffer, 0, read);
+        }
+
+        return baos.toByteArray();
+    }
+
+} // (class)
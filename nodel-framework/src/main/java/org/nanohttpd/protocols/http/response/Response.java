@@ -33,14 +33,11 @@ package org.nanohttpd.protocols.http.response;
  * #L%
  */
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
@@ -246,38 +243,79 @@ public class Response implements Closeable {
     }
 
     /**
-     * Sends given response to the socket.
+     * Bodies up to this size are written together with the headers in a single write.
      */
-    public void send(OutputStream outputStream) {
-        SimpleDateFormat gmtFrmt = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss 'GMT'", Locale.US);
-        gmtFrmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+    private static final int GATHER_LIMIT = 16 * 1024;
+
+    /**
+     * (see 'currentDate')
+     */
+    private static class DateHeader {
+
+        final long second;
+
+        final String value;
+
+        DateHeader(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+
+    }
+
+    private static volatile DateHeader s_dateHeader = new DateHeader(-1, null);
+
+    /**
+     * The 'Date' header value, only formatted once a second.
+     */
+    private static String currentDate() {
+        long now = System.currentTimeMillis();
+        long second = now / 1000;
+
+        DateHeader dateHeader = s_dateHeader;
+        if (dateHeader.second != second) {
+            SimpleDateFormat gmtFrmt = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+            gmtFrmt.setTimeZone(TimeZone.getTimeZone("GMT"));
 
+            dateHeader = new DateHeader(second, gmtFrmt.format(new Date(now)));
+            s_dateHeader = dateHeader;
+        }
+
+        return dateHeader.value;
+    }
+
+    /**
+     * Sends given response to the socket. The headers (and small fixed-length bodies) are
+     * gathered into a single write to avoid a partial segment waiting on a delayed ACK.
+     */
+    public void send(OutputStream outputStream) {
         try {
             if (this.status == null) {
                 throw new Error("sendResponse(): Status can't be null.");
             }
-            PrintWriter pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outputStream, new ContentType(this.mimeType).getEncoding())), false);
-            pw.append("HTTP/1.1 ").append(this.status.getDescription()).append(" \r\n");
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("HTTP/1.1 ").append(this.status.getDescription()).append(" \r\n");
             if (this.mimeType != null) {
-                printHeader(pw, "Content-Type", this.mimeType);
+                printHeader(sb, "Content-Type", this.mimeType);
             }
             if (getHeader("date") == null) {
-                printHeader(pw, "Date", gmtFrmt.format(new Date()));
+                printHeader(sb, "Date", currentDate());
             }
             for (Entry<String, String> entry : this.header.entrySet()) {
-                printHeader(pw, entry.getKey(), entry.getValue());
+                printHeader(sb, entry.getKey(), entry.getValue());
             }
             for (String cookieHeader : this.cookieHeaders) {
-                printHeader(pw, "Set-Cookie", cookieHeader);
+                printHeader(sb, "Set-Cookie", cookieHeader);
             }
             if (getHeader("connection") == null) {
-                printHeader(pw, "Connection", (this.keepAlive ? "keep-alive" : "close"));
+                printHeader(sb, "Connection", (this.keepAlive ? "keep-alive" : "close"));
             }
             if (getHeader("content-length") != null) {
                 setUseGzip(false);
             }
-            if (useGzipWhenAccepted()) {
-                printHeader(pw, "Content-Encoding", "gzip");
+            boolean gzip = useGzipWhenAccepted();
+            if (gzip) {
+                printHeader(sb, "Content-Encoding", "gzip");
                 setChunkedTransfer(true);
             }
 
@@ -286,15 +324,37 @@ public class Response implements Closeable {
 
             long pending = this.data != null ? this.contentLength : 0;
             if (this.requestMethod != Method.HEAD && this.chunkedTransfer) {
-                printHeader(pw, "Transfer-Encoding", "chunked");
-            } else if (!useGzipWhenAccepted()) {
+                printHeader(sb, "Transfer-Encoding", "chunked");
+            } else if (!gzip) {
                 // https://github.com/SuaveIO/suave/issues/626
-                pending = wsHandshake ? 0 : sendContentLengthHeaderIfNotAlreadyPresent(pw, pending);
+                pending = wsHandshake ? 0 : sendContentLengthHeaderIfNotAlreadyPresent(sb, pending);
             }
-            pw.append("\r\n");
-            pw.flush();
-            if (pending > 0) {
-                sendBodyWithCorrectTransferAndEncoding(outputStream, pending);
+            sb.append("\r\n");
+
+            byte[] head = sb.toString().getBytes(new ContentType(this.mimeType).getEncoding());
+
+            if (pending > 0 && pending <= GATHER_LIMIT && !this.chunkedTransfer && !gzip) {
+                // small fixed-length body, gather with the headers
+                byte[] all = new byte[head.length + (int) pending];
+                System.arraycopy(head, 0, all, 0, head.length);
+
+                int filled = head.length;
+                int read;
+                while (filled < all.length && (read = this.data.read(all, filled, all.length - filled)) > 0)
+                    filled += read;
+
+                outputStream.write(all, 0, filled);
+
+                // the body came up short of its Content-Length, the client would take the start of
+                // the next response as the rest of this one so the connection must be dropped
+                if (filled < all.length)
+                    closeConnection(true);
+
+            } else {
+                outputStream.write(head);
+                if (pending > 0) {
+                    sendBodyWithCorrectTransferAndEncoding(outputStream, pending);
+                }
             }
             outputStream.flush();
             NanoHTTPD.safeClose(this.data);
@@ -304,11 +364,11 @@ public class Response implements Closeable {
     }
 
     @SuppressWarnings("static-method")
-    protected void printHeader(PrintWriter pw, String key, String value) {
-        pw.append(key).append(": ").append(value).append("\r\n");
+    protected void printHeader(StringBuilder sb, String key, String value) {
+        sb.append(key).append(": ").append(value).append("\r\n");
     }
 
-    protected long sendContentLengthHeaderIfNotAlreadyPresent(PrintWriter pw, long defaultSize) {
+    protected long sendContentLengthHeaderIfNotAlreadyPresent(StringBuilder sb, long defaultSize) {
         String contentLengthString = getHeader("content-length");
         long size = defaultSize;
         if (contentLengthString != null) {
@@ -318,7 +378,7 @@ public class Response implements Closeable {
                 NanoHTTPD.LOG.severe("content-length was no number " + contentLengthString);
             }
         } else {
-            pw.print("Content-Length: " + size + "\r\n");
+            sb.append("Content-Length: ").append(size).append("\r\n");
         }
         return size;
     }
@@ -376,6 +436,10 @@ public class Response implements Closeable {
             long bytesToRead = sendEverything ? BUFFER_SIZE : Math.min(pending, BUFFER_SIZE);
             int read = this.data.read(buff, 0, (int) bytesToRead);
             if (read <= 0) {
+                // short of the Content-Length (e.g. a file that shrank since it was looked up), so as 
+                // with a gathered body the connection must be dropped
+                if (!sendEverything)
+                    closeConnection(true);
                 break;
             }
             try {
@@ -6,11 +6,15 @@ package org.nodel;
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. 
  */
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.nodel.core.Nodel;
 
@@ -35,6 +39,11 @@ public class SimpleName {
      */
     private String _reducedForMatching;
     
+    /**
+     * (hash of '_reducedForMatching', precomputed)
+     */
+    private final int _hash;
+    
     /**
      * (constructor)
      */
@@ -42,6 +51,77 @@ public class SimpleName {
         _original = original;
         _reduced = Nodel.reduce(original);
         _reducedForMatching = SimpleName.flatten(_reduced);
+        _hash = _reducedForMatching.hashCode();
+    }
+    
+    /**
+     * Raw names to their canonical instances (see 'intern')
+     */
+    private final static ConcurrentHashMap<String, InternedRef> s_interned = new ConcurrentHashMap<>();
+    
+    /**
+     * Instances no longer in use, to be purged from 's_interned'
+     */
+    private final static ReferenceQueue<SimpleName> s_collected = new ReferenceQueue<>();
+    
+    /**
+     * (weak reference that knows its key)
+     */
+    private static class InternedRef extends WeakReference<SimpleName> {
+        
+        final String key;
+        
+        InternedRef(String key, SimpleName name) {
+            super(name, s_collected);
+            this.key = key;
+        }
+        
+    }
+    
+    /**
+     * Returns the canonical instance for a raw name, so names used over and over (e.g. while emitting events)
+     * are only reduced and flattened once; repeat lookups are a single hash probe. Instances no longer referenced
+     * elsewhere are released.
+     * (thread-safe)
+     */
+    public static SimpleName intern(String original) {
+        InternedRef ref = s_interned.get(original);
+        if (ref != null) {
+            SimpleName name = ref.get();
+            if (name != null)
+                return name;
+        }
+        
+        purgeCollected();
+        
+        SimpleName name = new SimpleName(original);
+        InternedRef newRef = new InternedRef(original, name);
+        
+        for (;;) {
+            InternedRef existing = s_interned.putIfAbsent(original, newRef);
+            if (existing == null)
+                return name;
+            
+            // another thread got in first
+            SimpleName other = existing.get();
+            if (other != null)
+                return other;
+            
+            // (or it has been collected in the meantime)
+            if (s_interned.replace(original, existing, newRef))
+                return name;
+        }
+    }
+    
+    /**
+     * (see 'intern')
+     */
+    private static void purgeCollected() {
+        Reference<? extends SimpleName> ref;
+        while ((ref = s_collected.poll()) != null) {
+            InternedRef interned = (InternedRef) ref;
+            s_interned.remove(interned.key, interned);
+        }
     }
      
     /**
@@ -52,10 +132,10 @@ public class SimpleName {
             return (SimpleName) obj;
         
         else if (obj instanceof String)
-            return new SimpleName((String) obj);
+            return intern((String) obj);
         
         else if (obj != null)
-            return new SimpleName(obj.toString());
+            return intern(obj.toString());
         
         else
             return null;
@@ -87,26 +167,29 @@ public class SimpleName {
      */
     @Override
     public boolean equals(Object obj) {
-        SimpleName other;
+        if (obj == this)
+            return true;
         
-        if (obj instanceof String)
-            other = new SimpleName((String) obj);
+        SimpleName other;
         
-        else if (obj instanceof SimpleName)
+        if (obj instanceof SimpleName)
             other = (SimpleName) obj;
         
+        else if (obj instanceof String)
+            other = intern((String) obj);
+        
         else if (obj == null)
             return false;
         
         else
-            other = new SimpleName(obj.toString());
+            other = intern(obj.toString());
 
-        return _reducedForMatching.equals(other._reducedForMatching);
+        return _hash == other._hash && _reducedForMatching.equals(other._reducedForMatching);
     }
     
     @Override
     public int hashCode() {
-        return _reducedForMatching.hashCode();
+        return _hash;
     } // (method)
     
     /**
@@ -151,7 +234,7 @@ public class SimpleName {
         List<SimpleName> nodes = new ArrayList<SimpleName>(len);
 
         for (String name : names)
-            nodes.add(new SimpleName(name));
+            nodes.add(intern(name));
 
         return nodes;
     } // (method)
@@ -160,6 +243,7 @@ public class SimpleName {
     
     /**
      * Can be used in conjunction with 'wildcardMatch' for efficiency.
+     * (prefer 'WildcardMatcher.compile' which does not allocate when matching)
      */
     public static String[] wildcardMatchTokens(String wildcardMatcher) {
         return splitOnTokens(Nodel.reduceToLower(wildcardMatcher, GLOB_CHARS));
@@ -179,7 +263,7 @@ public class SimpleName {
         if (name == null || wildcardMatcher == null)
             return false;
 
-        return wildcardMatch(name, splitOnTokens(Nodel.reduceToLower(wildcardMatcher, GLOB_CHARS)));
+        return WildcardMatcher.compileCached(wildcardMatcher).matches(name);
     }
 
     /**
@@ -0,0 +1,552 @@
+package org.nodel;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nodel.core.Nodel;
+
+/**
+ * A wildcard filter compiled once for matching against many names, where '*' matches any number of characters and
+ * '?' exactly one. Matching is done against reduced-for-matching names (see 'SimpleName') and does not allocate
+ * (combined filters of more than 64 positions use scratch space kept per thread, allocated on first use).
+ *
+ * Many filters tested against the same name (e.g. include / exclude lists, channel interests) can be combined with
+ * 'anyOf' into a single automaton which tests them all in one pass over the name.
+ *
+ * (immutable, thread-safe)
+ */
+public abstract class WildcardMatcher {
+
+    /**
+     * Matches nothing (e.g. an empty list of filters)
+     */
+    public final static WildcardMatcher NONE = new WildcardMatcher("") {
+
+        @Override
+        public boolean matches(String reducedName) {
+            return false;
+        }
+
+    };
+
+    /**
+     * (passthrough characters when reducing)
+     */
+    private final static char[] GLOB_CHARS = "*?".toCharArray();
+
+    /**
+     * The most filters held by each of the caches below.
+     */
+    final static int CACHE_SIZE = 256;
+
+    /**
+     * Recently compiled filters, for the callers that can't hold onto a matcher (see 'compileCached')
+     * (self locked)
+     */
+    private final static Map<String, WildcardMatcher> s_cache = newCache();
+
+    /**
+     * (same as above, for 'compileContainsCached')
+     */
+    private final static Map<String, WildcardMatcher> s_containsCache = newCache();
+
+    /**
+     * The reduced pattern (with consecutive '*' collapsed)
+     */
+    protected final String _pattern;
+
+    private WildcardMatcher(String pattern) {
+        _pattern = pattern;
+    }
+
+    /**
+     * Compiles a filter that must match the whole name, e.g. "Projector*", "*Lobby*", "Gallery?*"
+     * (same semantics as 'SimpleName.wildcardMatch')
+     */
+    public static WildcardMatcher compile(String filter) {
+        return new Single(collapse(Nodel.reduceToLower(filter, GLOB_CHARS)));
+    }
+
+    /**
+     * Compiles a filter that can match anywhere within the name with '*' separating parts that must appear in order,
+     * e.g. "power" matches "Main Power On" ('?' is not special)
+     * (same semantics as 'Nodel.filterMatch')
+     */
+    public static WildcardMatcher compileContains(String filter) {
+        return new Single(collapse("*" + Nodel.reduceFilter(filter) + "*"));
+    }
+
+    /**
+     * Same as 'compile' but reuses recently compiled filters, for callers given the filter as text each time
+     * (e.g. 'SimpleName.wildcardMatch')
+     */
+    public static WildcardMatcher compileCached(String filter) {
+        synchronized (s_cache) {
+            WildcardMatcher matcher = s_cache.get(filter);
+            if (matcher == null) {
+                matcher = compile(filter);
+                s_cache.put(filter, matcher);
+            }
+
+            return matcher;
+        }
+    }
+
+    /**
+     * Same as 'compileContains' but reuses recently compiled filters (e.g. 'Nodel.filterMatch')
+     */
+    public static WildcardMatcher compileContainsCached(String filter) {
+        synchronized (s_containsCache) {
+            WildcardMatcher matcher = s_containsCache.get(filter);
+            if (matcher == null) {
+                matcher = compileContains(filter);
+                s_containsCache.put(filter, matcher);
+            }
+
+            return matcher;
+        }
+    }
+
+    /**
+     * Combines matchers into one that matches if any of them do.
+     */
+    public static WildcardMatcher anyOf(Collection<WildcardMatcher> matchers) {
+        List<String> patterns = new ArrayList<String>(matchers.size());
+
+        for (WildcardMatcher matcher : matchers) {
+            if (matcher == NONE)
+                continue;
+
+            if (matcher instanceof Automaton)
+                patterns.addAll(((Automaton) matcher)._patterns);
+
+            else if (!patterns.contains(matcher._pattern))
+                patterns.add(matcher._pattern);
+        }
+
+        if (patterns.isEmpty())
+            return NONE;
+
+        if (patterns.size() == 1)
+            return new Single(patterns.get(0));
+
+        return new Automaton(patterns);
+    }
+
+    /**
+     * Tests a name.
+     */
+    public boolean matches(SimpleName name) {
+        if (name == null)
+            return false;
+
+        return matches(name.getReducedForMatchingName());
+    }
+
+    /**
+     * Tests an already reduced name (e.g. 'SimpleName.getReducedForMatchingName')
+     */
+    public abstract boolean matches(String reducedName);
+
+    /**
+     * The reduced pattern (for single matchers)
+     */
+    public String getPattern() {
+        return _pattern;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+
+        if (obj == null || obj.getClass() != getClass())
+            return false;
+
+        return _pattern.equals(((WildcardMatcher) obj)._pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return _pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return _pattern;
+    }
+
+    /**
+     * (least recently used is evicted beyond 'CACHE_SIZE')
+     */
+    @SuppressWarnings("serial")
+    private static Map<String, WildcardMatcher> newCache() {
+        return new LinkedHashMap<String, WildcardMatcher>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WildcardMatcher> eldest) {
+                return size() > CACHE_SIZE;
+            }
+
+        };
+    }
+
+    /**
+     * Collapses runs of '*'
+     */
+    private static String collapse(String pattern) {
+        if (pattern.indexOf("**") < 0)
+            return pattern;
+
+        StringBuilder sb = new StringBuilder(pattern.length());
+        char last = 0;
+
+        int len = pattern.length();
+        for (int a = 0; a < len; a++) {
+            char c = pattern.charAt(a);
+            if (c == '*' && last == '*')
+                continue;
+
+            sb.append(c);
+            last = c;
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * A single pattern, with the common shapes handled by plain string operations.
+     */
+    private static class Single extends WildcardMatcher {
+
+        private final static int EXACT = 0;
+
+        private final static int ANY = 1;
+
+        private final static int PREFIX = 2;
+
+        private final static int SUFFIX = 3;
+
+        private final static int CONTAINS = 4;
+
+        private final static int GLOB = 5;
+
+        /**
+         * (one of the above)
+         */
+        private final int _shape;
+
+        /**
+         * The literal part for the simple shapes.
+         */
+        private final String _literal;
+
+        /**
+         * (for GLOB)
+         */
+        private final char[] _chars;
+
+        Single(String pattern) {
+            super(pattern);
+
+            _chars = pattern.toCharArray();
+
+            int len = pattern.length();
+            boolean leading = len > 0 && pattern.charAt(0) == '*';
+            boolean trailing = len > 1 && pattern.charAt(len - 1) == '*';
+            String inner = pattern.substring(leading ? 1 : 0, trailing ? len - 1 : len);
+
+            if (pattern.indexOf('?') >= 0 || inner.indexOf('*') >= 0) {
+                _shape = GLOB;
+                _literal = null;
+
+            } else if (pattern.equals("*")) {
+                _shape = ANY;
+                _literal = "";
+
+            } else {
+                _shape = leading ? (trailing ? CONTAINS : SUFFIX) : (trailing ? PREFIX : EXACT);
+                _literal = inner;
+            }
+        }
+
+        @Override
+        public boolean matches(String text) {
+            switch (_shape) {
+                case EXACT:
+                    return text.equals(_literal);
+
+                case ANY:
+                    return true;
+
+                case PREFIX:
+                    return text.startsWith(_literal);
+
+                case SUFFIX:
+                    return text.endsWith(_literal);
+
+                case CONTAINS:
+                    return text.contains(_literal);
+
+                default:
+                    return glob(text);
+            }
+        }
+
+        /**
+         * Greedy matching, backtracking to the last '*' only.
+         */
+        private boolean glob(String text) {
+            char[] pattern = _chars;
+            int m = pattern.length;
+            int n = text.length();
+
+            int p = 0;
+            int t = 0;
+            int starP = -1;
+            int starT = 0;
+
+            while (t < n) {
+                if (p < m && (pattern[p] == '?' || pattern[p] == text.charAt(t))) {
+                    p++;
+                    t++;
+
+                } else if (p < m && pattern[p] == '*') {
+                    starP = p++;
+                    starT = t;
+
+                } else if (starP >= 0) {
+                    // let the last '*' take one more character
+                    p = starP + 1;
+                    t = ++starT;
+
+                } else {
+                    return false;
+                }
+            }
+
+            while (p < m && pattern[p] == '*')
+                p++;
+
+            return p == m;
+        }
+
+    } // (class)
+
+    /**
+     * Several patterns simulated together as a bit-parallel NFA, one bit per position in each pattern. A '*' is a
+     * self-loop on the position before it, anything else advances one position.
+     */
+    private static class Automaton extends WildcardMatcher {
+
+        /**
+         * The active and next positions when over 64, kept per thread so matching doesn't allocate
+         * (grows to the largest automaton used on the thread)
+         */
+        private final static ThreadLocal<long[]> s_scratch = new ThreadLocal<long[]>() {
+
+            @Override
+            protected long[] initialValue() {
+                return new long[0];
+            }
+
+        };
+
+        /**
+         * (the original patterns)
+         */
+        final List<String> _patterns;
+
+        /**
+         * (number of 64-bit words)
+         */
+        private final int _words;
+
+        /**
+         * The first position of each pattern.
+         */
+        private final long[] _start;
+
+        /**
+         * Positions with a '*' self-loop.
+         */
+        private final long[] _loop;
+
+        /**
+         * The last position of each pattern.
+         */
+        private final long[] _accept;
+
+        /**
+         * Positions reached by a '?'
+         */
+        private final long[] _any;
+
+        /**
+         * Positions reached by each ASCII character.
+         */
+        private final long[][] _ascii = new long[128][];
+
+        /**
+         * (as above, other characters)
+         */
+        private final Map<Character, long[]> _other = new HashMap<Character, long[]>();
+
+        Automaton(List<String> patterns) {
+            super(String.join(",", patterns));
+
+            _patterns = patterns;
+
+            int states = 0;
+            for (String pattern : patterns)
+                states += countTokens(pattern) + 1;
+
+            _words = (states + 63) / 64;
+            _start = new long[_words];
+            _loop = new long[_words];
+            _accept = new long[_words];
+            _any = new long[_words];
+
+            int position = 0;
+            for (String pattern : patterns) {
+                set(_start, position);
+
+                int len = pattern.length();
+                for (int a = 0; a < len; a++) {
+                    char c = pattern.charAt(a);
+
+                    if (c == '*') {
+                        set(_loop, position);
+                        continue;
+                    }
+
+                    // the next position is reached by this character
+                    position++;
+
+                    if (c == '?') {
+                        set(_any, position);
+
+                    } else if (c < 128) {
+                        if (_ascii[c] == null)
+                            _ascii[c] = new long[_words];
+                        set(_ascii[c], position);
+
+                    } else {
+                        long[] bits = _other.get(c);
+                        if (bits == null) {
+                            bits = new long[_words];
+                            _other.put(c, bits);
+                        }
+                        set(bits, position);
+                    }
+                }
+
+                set(_accept, position);
+                position++;
+            }
+        }
+
+        @Override
+        public boolean matches(String text) {
+            if (_words == 1)
+                return matchesSingleWord(text);
+
+            long[] scratch = s_scratch.get();
+            if (scratch.length < _words * 2) {
+                scratch = new long[_words * 2];
+                s_scratch.set(scratch);
+            }
+
+            // (offsets of the two halves, swapped after each character)
+            int active = 0;
+            int next = _words;
+
+            System.arraycopy(_start, 0, scratch, active, _words);
+
+            int len = text.length();
+            for (int a = 0; a < len; a++) {
+                long[] reached = reachedBy(text.charAt(a));
+
+                long carry = 0;
+                long any = 0;
+                for (int w = 0; w < _words; w++) {
+                    long current = scratch[active + w];
+                    long shifted = (current << 1) | carry;
+                    carry = current >>> 63;
+
+                    long mask = _any[w] | (reached == null ? 0 : reached[w]);
+                    long bits = (shifted & mask) | (current & _loop[w]);
+                    scratch[next + w] = bits;
+                    any |= bits;
+                }
+
+                if (any == 0)
+                    return false;
+
+                int tmp = active;
+                active = next;
+                next = tmp;
+            }
+
+            for (int w = 0; w < _words; w++) {
+                if ((scratch[active + w] & _accept[w]) != 0)
+                    return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * (up to 64 positions in total, i.e. the usual case)
+         */
+        private boolean matchesSingleWord(String text) {
+            long active = _start[0];
+            long loop = _loop[0];
+            long any = _any[0];
+
+            int len = text.length();
+            for (int a = 0; a < len; a++) {
+                long[] reached = reachedBy(text.charAt(a));
+
+                active = ((active << 1) & (any | (reached == null ? 0 : reached[0]))) | (active & loop);
+
+                if (active == 0)
+                    return false;
+            }
+
+            return (active & _accept[0]) != 0;
+        }
+
+        private long[] reachedBy(char c) {
+            return c < 128 ? _ascii[c] : _other.get(c);
+        }
+
+        private static int countTokens(String pattern) {
+            int count = 0;
+
+            int len = pattern.length();
+            for (int a = 0; a < len; a++) {
+                if (pattern.charAt(a) != '*')
+                    count++;
+            }
+
+            return count;
+        }
+
+        private static void set(long[] bits, int position) {
+            bits[position / 64] |= 1L << (position % 64);
+        }
+
+    } // (class)
+
+}
@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.joda.time.DateTime;
 import org.nodel.Handler;
 import org.nodel.SimpleName;
 import org.nodel.Tuple;
@@ -82,7 +83,10 @@ public abstract class ChannelClient {
     
     public interface ChannelEventHandler {
         
-        public void handle(NodelPoint point, Object arg);
+        /**
+         * @param timestamp When the event was emitted according to the remote host (may be null)
+         */
+        public void handle(NodelPoint point, Object arg, DateTime timestamp);
         
     }
     
@@ -559,9 +563,10 @@ public abstract class ChannelClient {
 
     /**
      * Handles in incoming Channel packet.
+     * (the message may be reused once this returns so anything needed later is copied out)
      */
-    protected void handleMessage(final ChannelMessage message) {
-            _logger.info("Client: message arrived: " + message);
+    protected void handleMessage(ChannelMessage message) {
+            _logger.info("Client: message arrived: {}", message);
             
             // received an 'event'
             if (message.node != null && message.event != null) {
@@ -593,16 +598,17 @@ public abstract class ChannelClient {
 
             final NodelPoint entryKey = eventHandlersEntry.key;
             final Object messageArg = message.arg;
+            final DateTime messageTimestamp = message.timestamp;
 
             for (final ChannelEventHandler handler : eventHandlersEntry.handlers) {
                 s_threadPool.execute(new Runnable() {
 
                     @Override
                     public void run() {
-                        handler.handle(entryKey, messageArg);
+                        handler.handle(entryKey, messageArg, messageTimestamp);
                     }
 
-                });
+                }, ThreadPool.Lane.Data);
 
             } // (for)
         }
@@ -614,7 +620,7 @@ public abstract class ChannelClient {
      * action or events.
      */
     private void handleInterestResponse(String source, String[] events, String[] actions) {
-        SimpleName node = new SimpleName(source);
+        SimpleName node = SimpleName.intern(source);
         
         // these need to be captured to accommodate threading model
         Set<SimpleName> eventsSet = new HashSet<SimpleName>();
@@ -632,13 +638,13 @@ public abstract class ChannelClient {
             wiringPointEntry.events.clear();
             
             for (String actionName : actions) {
-                SimpleName action = new SimpleName(actionName);
+                SimpleName action = SimpleName.intern(actionName);
                 wiringPointEntry.actions.add(action);
                 actionsSet.add(action);
             }            
 
             for (String eventName : events) {
-                SimpleName event = new SimpleName(eventName);
+                SimpleName event = SimpleName.intern(eventName);
                 wiringPointEntry.events.add(event);
                 eventsSet.add(event);
             }
@@ -708,6 +714,17 @@ public abstract class ChannelClient {
      */
     public abstract void sendMessage(ChannelMessage message);
     
+    /**
+     * The thread-pool lane a message travels on: calls and events are data, everything else 
+     * (interests, keep-alives, announcements, etc.) is control.
+     */
+    static ThreadPool.Lane laneFor(ChannelMessage message) {
+        if (message.action != null || message.event != null)
+            return ThreadPool.Lane.Data;
+        else
+            return ThreadPool.Lane.Control;
+    } // (method)
+    
     /**
      * Permanently closes this channel.
      */
@@ -8,6 +8,8 @@ package org.nodel.core;
 
 import java.util.Map;
 
+import org.joda.time.DateTime;
+import org.nodel.json.JSONReader;
 import org.nodel.reflection.Serialisation;
 import org.nodel.reflection.Value;
 
@@ -63,6 +65,13 @@ public class ChannelMessage {
     @Value(name = "event", order = 8)
     public String event;
     
+    /**
+     * When the event occurred according to the emitting host.
+     * (server resp., optional)
+     */
+    @Value(name = "timestamp", order = 8.1)
+    public DateTime timestamp;
+    
     public enum Announcement {
         Moved
     }
@@ -103,4 +112,48 @@ public class ChannelMessage {
         return this.string;
     }
 
+    /**
+     * Clears all fields so the instance can hold another message.
+     */
+    public void reset() {
+        this.node = null;
+        this.events = null;
+        this.actions = null;
+        this.schema = null;
+        this.action = null;
+        this.arg = null;
+        this.event = null;
+        this.timestamp = null;
+        this.announcement = null;
+        this.error = null;
+        this.reveal = null;
+        this.string = null;
+    }
+
+    /**
+     * Decodes a channel's incoming messages into the same instance each time so busy channels don't churn through
+     * messages and parser buffers. A message is only valid until the next one is decoded; anything needed after it has
+     * been handled has to be copied out first.
+     * (one per receiving thread)
+     */
+    public static class Decoder {
+
+        private final ChannelMessage _message = new ChannelMessage();
+
+        private final JSONReader _reader = new JSONReader("");
+
+        /**
+         * (throws 'SerialisationException' if not a valid message)
+         */
+        public ChannelMessage decode(CharSequence json) {
+            _message.reset();
+            _reader.reset(json);
+
+            Serialisation.coerceFromJSON(_message, _reader, null, null, false);
+
+            return _message;
+        }
+
+    } // (class)
+
 } // (class)
@@ -7,13 +7,16 @@ package org.nodel.core;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.joda.time.DateTime;
 import org.nodel.Handler;
 import org.nodel.SimpleName;
+import org.nodel.WildcardMatcher;
 import org.nodel.threading.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,14 +67,14 @@ public abstract class ChannelServer {
     private NodelServers _nodelServer;
 
     /**
-     * Holds the events filter list.
+     * Holds the event filters, compiled into one matcher per node.
      */
-    private Map<SimpleName, List<String>> _eventFiltersByNode = new HashMap<SimpleName, List<String>>();
+    private Map<SimpleName, WildcardMatcher> _eventFiltersByNode = new HashMap<SimpleName, WildcardMatcher>();
 
     /**
-     * Holds the action filter list.
+     * Holds the action filters, compiled into one matcher per node.
      */
-    private Map<SimpleName, List<String>> _actionFiltersByNode = new HashMap<SimpleName, List<String>>();
+    private Map<SimpleName, WildcardMatcher> _actionFiltersByNode = new HashMap<SimpleName, WildcardMatcher>();
 
     public ChannelServer(NodelServers nodelServer) {
         _nodelServer = nodelServer;
@@ -100,26 +103,16 @@ public abstract class ChannelServer {
     /**
      * Sends an event message down the channel, applying any 'interest'
      * filtering. (exception free, non-blocking)
+     * 
+     * @param timestamp When the event was emitted (allows peers to measure transit time).
      */
-    protected void sendEventMessage(String nodeName, String originalEvent, Object arg) {
-        SimpleName node = new SimpleName(nodeName);
+    protected void sendEventMessage(String nodeName, String originalEvent, Object arg, DateTime timestamp) {
+        SimpleName node = SimpleName.intern(nodeName);
         String reducedEvent = Nodel.reduceToLower(originalEvent);
 
         synchronized (_signal) {
-            List<String> eventFilters = _eventFiltersByNode.get(node);
-            if (eventFilters == null)
-                return;
-            
-            // find the first matching event filter and use it
-            boolean found = false;
-            for (String eventFilter : eventFilters) {
-                if (Nodel.filterMatch(reducedEvent, eventFilter)) {
-                    found = true;
-                    break;
-                }
-            } // (for)
-
-            if (!found)
+            WildcardMatcher eventFilters = _eventFiltersByNode.get(node);
+            if (eventFilters == null || !eventFilters.matches(reducedEvent))
                 return;
         }
 
@@ -127,6 +120,7 @@ public abstract class ChannelServer {
         message.node = nodeName;
         message.event = originalEvent;
         message.arg = arg;
+        message.timestamp = timestamp;
 
         sendMessage(message);
     } // (method)
@@ -174,13 +168,14 @@ public abstract class ChannelServer {
 
     /**
      * Processes incoming messages.
+     * (the message may be reused once this returns so anything needed later is copied out)
      */
-    protected void handleMessage(final ChannelMessage message) {
-        _logger.info("Server: message arrived: " + message);
+    protected void handleMessage(ChannelMessage message) {
+        _logger.info("Server: message arrived: {}", message);
 
         // 'interests' request
         if (message.node != null && (message.events != null || message.actions != null)) {
-            SimpleName node = new SimpleName(message.node);
+            SimpleName node = SimpleName.intern(message.node);
 
             // register interest in the node
             _nodelServer.registerInterest(this, message.node);
@@ -210,16 +205,16 @@ public abstract class ChannelServer {
             
             synchronized (_signal) {
                 matchedEvents = new ArrayList<SimpleName>();
+                WildcardMatcher eventFilters = _eventFiltersByNode.get(node);
                 for (SimpleName event : allEvents) {
-                    List<String> eventFilters = _eventFiltersByNode.get(node);
-                    if (eventFilters != null && containsMatchingFilter(node, event.getReducedForMatchingName(), eventFilters))
+                    if (eventFilters != null && eventFilters.matches(event))
                         matchedEvents.add(event);
                 }
 
                 matchedActions = new ArrayList<SimpleName>();
+                WildcardMatcher actionFilters = _actionFiltersByNode.get(node);
                 for (SimpleName action : allActions) {
-                    List<String> actionFilters = _actionFiltersByNode.get(node);
-                    if (actionFilters != null && containsMatchingFilter(node, action.getReducedForMatchingName(), actionFilters))
+                    if (actionFilters != null && actionFilters.matches(action))
                         matchedActions.add(action);
                 }
             }
@@ -238,6 +233,9 @@ public abstract class ChannelServer {
                 return;
             }
 
+            final long queuedAt = System.nanoTime();
+            final Object arg = message.arg;
+
             // invoke on a separate thread
             s_threadPool.execute(new Runnable() {
 
@@ -245,7 +243,7 @@ public abstract class ChannelServer {
                 public void run() {
                     try {
                         // call the action
-                    	handler.handleActionRequest(message.arg);
+                        handler.handleActionRequest(arg, queuedAt);
 
                     } catch (Exception exc) {
                         // ignore exception
@@ -262,45 +260,27 @@ public abstract class ChannelServer {
      * (assumes locked)
      */
     private void doAddEventFilter(SimpleName node, String eventFilter) {
-        String reducedEvent = Nodel.reduceFilter(eventFilter);
-
-        List<String> eventsList = _eventFiltersByNode.get(node);
-        if (eventsList == null) {
-            eventsList = new ArrayList<String>();
-            _eventFiltersByNode.put(node, eventsList);
-        }
-
-        if (!eventsList.contains(reducedEvent))
-            eventsList.add(reducedEvent);
+        _eventFiltersByNode.put(node, withFilter(_eventFiltersByNode.get(node), eventFilter));
     } // (method)
 
     /**
      * (assumes locked)
      */
     private void doAddActionFilter(SimpleName node, String actionFilter) {
-        String reducedAction = Nodel.reduceFilter(actionFilter);
-
-        List<String> actionsList = _actionFiltersByNode.get(node);
-        if (actionsList == null) {
-            actionsList = new ArrayList<String>();
-            _actionFiltersByNode.put(node, actionsList);
-        }
-
-        if (!actionsList.contains(reducedAction))
-            actionsList.add(reducedAction);
+        _actionFiltersByNode.put(node, withFilter(_actionFiltersByNode.get(node), actionFilter));
     } // (method)
 
     /**
-     * (args prechecked)
+     * Recompiles the filters with one more, which is rare compared to matching.
+     * (duplicates are ignored)
      */
-    private boolean containsMatchingFilter(SimpleName node, String value, List<String> filters) {
-        // find the first matching event filter
-        for (String eventFilter : filters) {
-            if (Nodel.filterMatch(value, eventFilter))
-                return true;
-        } // (for)
-
-        return false;
+    private static WildcardMatcher withFilter(WildcardMatcher current, String filter) {
+        WildcardMatcher added = WildcardMatcher.compileContains(filter);
+
+        if (current == null)
+            return added;
+
+        return WildcardMatcher.anyOf(Arrays.asList(current, added));
     } // (method)
 
     /**
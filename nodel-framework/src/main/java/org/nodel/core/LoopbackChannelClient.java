@@ -44,7 +44,7 @@ public class LoopbackChannelClient extends ChannelClient {
                 LoopbackChannelServer.instance().receiveMessage(message);
             }
 
-        });
+        }, laneFor(message));
     }
 
     /**
@@ -51,7 +51,7 @@ public class LoopbackChannelServer extends ChannelServer {
                 LoopbackChannelClient.instance().receiveMessage(message);
             }
 
-        });
+        }, ChannelClient.laneFor(message));
     }
     
     /**
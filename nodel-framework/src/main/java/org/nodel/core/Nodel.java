@@ -11,7 +11,6 @@ import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -20,6 +19,7 @@ import org.nodel.Handler;
 import org.nodel.Handlers;
 import org.nodel.SimpleName;
 import org.nodel.Strings;
+import org.nodel.WildcardMatcher;
 import org.nodel.core.NodelClients.NodeURL;
 import org.nodel.discovery.AdvertisementInfo;
 import org.nodel.discovery.AutoDNS;
@@ -171,53 +171,8 @@ public class Nodel {
      * otherwise.
      */
     public static boolean filterMatch(String text, String filter) {
-        // Create the cards by splitting using a RegEx. If more speed
-        // is desired, a simpler character based splitting can be done.
-        Collection<String> parts = split(reduceFilter(filter), '*');
-
-        // iterate over the cards.
-        for (String card : parts) {
-            int i = text.indexOf(card);
-
-            // card not detected in the text.
-            if (i == -1)
-                return false;
-
-            // move ahead, towards the right of the text.
-            text = text.substring(i + card.length());
-        } // (for)
-
-        return true;
-    } // (method)
-    
-    /**
-     * Fast, simple string splitting by char. Assumes string is prefiltered (trimmed, etc).
-     */
-    private static List<String> split(String string, char delim) {
-        List<String> parts = new LinkedList<String>();
-
-        StringBuilder sb = new StringBuilder();
-
-        int len = string.length();
-
-        for (int a = 0; a < len; a++) {
-            char c = string.charAt(a);
-
-            if (c == delim) {
-                if (sb.length() != 0) {
-                    parts.add(sb.toString());
-                    sb.setLength(0);
-                }
-            } else {
-                sb.append(c);
-            }
-        } // (for)
-
-        if (sb.length() != 0) {
-            parts.add(sb.toString());
-        }
-
-        return parts;
+        // (callers matching often should hold onto a compiled matcher instead)
+        return WildcardMatcher.compileContainsCached(filter).matches(text);
     } // (method)
     
     /**
@@ -248,36 +203,25 @@ public class Nodel {
     
     /**
      * Returns all the advertised nodes.
+     * (returns a copy of the cached list, callers such as scripts are free to change it)
      */
     public static List<NodeURL> getNodeURLs() throws IOException {
-        return NodelClients.instance().getAllNodesURLs();
+        return new ArrayList<NodeURL>(NodelClients.instance().getAllNodesURLs());
     }
     
     /**
      * Same as 'getNodeURLS' with filter.
+     * (returns a copy, as above)
      */
     public static List<NodeURL> getNodeURLs(String filter) throws IOException {
-        List<NodeURL> urls = Nodel.getNodeURLs();
-
-        if (Strings.isNullOrEmpty(filter))
-            return urls;
-
-        String lcFilter = filter.toLowerCase();
-
-        ArrayList<NodeURL> filteredList = new ArrayList<NodeURL>();
-        for (NodeURL url : urls) {
-            if (url.node.getOriginalName().toLowerCase().contains(lcFilter))
-                filteredList.add(url);
-        }
-
-        return filteredList;
+        return new ArrayList<NodeURL>(NodelClients.instance().getFilteredNodeURLs(filter));
     }
     
     /**
      * Gets a node's URLs
      */
     public static List<NodeURL> getNodeURLsForNode(SimpleName name) throws IOException {
-        return NodelClients.instance().getNodeURLs(name);
+        return new ArrayList<NodeURL>(NodelClients.instance().getNodeURLs(name));
     }
     
     
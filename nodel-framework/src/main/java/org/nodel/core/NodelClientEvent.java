@@ -16,9 +16,12 @@ import org.nodel.Handler.H1;
 import org.nodel.LockFreeList;
 import org.nodel.Random;
 import org.nodel.SimpleName;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.LatencyStats;
 import org.nodel.host.Binding;
 import org.nodel.reflection.Objects;
 import org.nodel.reflection.Serialisation;
+import org.nodel.reflection.Service;
 import org.nodel.reflection.Value;
 import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
@@ -130,6 +133,16 @@ public class NodelClientEvent {
      */
     private boolean _isUnbound;
 
+    /**
+     * Queue, handler and transit latencies.
+     */
+    private LatencyStats _latency = new LatencyStats();
+    
+    /**
+     * The name the latencies are registered under with Diagnostics (null if not registered)
+     */
+    private String _latencyName;
+
     /**
      * (for context on callbacks)
      */
@@ -272,11 +285,17 @@ public class NodelClientEvent {
         return _statusTimestamp;
     }
     
+    @Service(name = "latency", title = "Latency", desc = "Queue wait, handler execution and channel transit time distributions.")
+    public LatencyStats getLatency() {
+        return _latency;
+    }
+    
     /**
      * Sets the fields which control the threading context
      */
     public void setThreadingEnvironment(CallbackQueue callbackQueue, Handler.H0 threadStateHandler, Handler.H1<Exception> exceptionHandler) {
-        _callbackQueue = callbackQueue;
+        // (waits are also recorded against this binding)
+        _callbackQueue = callbackQueue != null ? callbackQueue.recordingTo(_latency.callbackQueue()) : null;
         _threadStateHandler = threadStateHandler;
         _exceptionHandler = exceptionHandler;
     }
@@ -308,6 +327,27 @@ public class NodelClientEvent {
         };
     }
     
+    /**
+     * (called internally by framework when an event arrives from a channel)
+     * 
+     * @param timestamp When the event was emitted according to the remote host (may be null)
+     * @param queuedAt When the event was queued for dispatch ('System.nanoTime' based)
+     */
+    void handleArrival(SimpleName node, SimpleName event, Object arg, DateTime timestamp, long queuedAt) {
+        long start = System.nanoTime();
+        
+        _latency.queue().record(start - queuedAt);
+        
+        if (timestamp != null)
+            _latency.transit().record((System.currentTimeMillis() - timestamp.getMillis()) * 1000000);
+        
+        try {
+            _handler.handleEvent(node, event, arg);
+        } finally {
+            _latency.handler().record(System.nanoTime() - start);
+        }
+    }
+    
     /**
      * Registers interest in a remote Node's event (Nodel layer trigger)
      * (will fail if already registered)
@@ -317,6 +357,9 @@ public class NodelClientEvent {
             return;
         
         NodelClients.instance().registerEventInterest(this);
+        
+        _latencyName = _eventPoint + " (" + _name + " remote event)";
+        Diagnostics.shared().registerLatencies(_latencyName, _latency);
     }
     
     /**
@@ -374,6 +417,7 @@ public class NodelClientEvent {
             Handler.handle(handlers.get(0), status);
 
         // treat the others as "wild"
+        // (binding state is control traffic so must not queue up behind event floods)
         if (handlers.size() > 1) {
             ChannelClient.getThreadPool().execute(new Runnable() {
 
@@ -406,7 +450,7 @@ public class NodelClientEvent {
                     }
                 }
 
-            });
+            }, ThreadPool.Lane.Control);
         }
     }
     
@@ -427,6 +471,9 @@ public class NodelClientEvent {
         persistNow();
         
         NodelClients.instance().release(this);
+        
+        if (_latencyName != null)
+            Diagnostics.shared().unregisterLatencies(_latencyName, _latency);
     }    
 
     @Override
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.joda.time.DateTime;
 import org.nodel.DateTimes;
 import org.nodel.Handler;
 import org.nodel.Handlers;
@@ -29,6 +30,7 @@ import org.nodel.SimpleName;
 import org.nodel.discovery.AdvertisementInfo;
 import org.nodel.discovery.AdvertisementInfo.Addresses;
 import org.nodel.discovery.AutoDNS;
+import org.nodel.net.ReconnectScheduler;
 import org.nodel.reflection.Serialisation;
 import org.nodel.reflection.Value;
 import org.nodel.threading.ThreadPool;
@@ -42,6 +44,16 @@ import org.slf4j.LoggerFactory;
  */
 public class NodelClients {
     
+    /**
+     * The shortest time before retrying a node that could not be resolved or connected to (millis)
+     */
+    private final static long MIN_RETRY = 10000;
+    
+    /**
+     * The longest time (millis)
+     */
+    private final static long MAX_RETRY = 30000;
+    
     /**
      * A single instance of the 'NodelClient' class.
      */
@@ -102,6 +114,11 @@ public class NodelClients {
          */
         public boolean recentConnectionError = false;
         
+        /**
+         * Spaces out retries (jittered so entries that fail together don't retry together)
+         */
+        public ReconnectScheduler.Backoff backoff = new ReconnectScheduler.Backoff(MIN_RETRY, MAX_RETRY);
+        
         /**
          * If this entry has been disposed.
          */
@@ -387,7 +404,7 @@ public class NodelClients {
                 doMaintainNode(nodeEntry, false);
             }
             
-        });
+        }, ThreadPool.Lane.Control);
     } // (method)
     
     /**
@@ -541,7 +558,7 @@ public class NodelClients {
                     nodeEntry.recentConnectionError = false;
                 }
 
-                // re-schedule an update 30 seconds into the future if
+                // re-schedule an update (10 - 30 seconds) into the future if
                 // there no future schedule to do so
                 _logger.debug("Address was not resolved so rescheduling maintainence...");
                 if (nodeEntry.schedule == null) {
@@ -552,7 +569,7 @@ public class NodelClients {
                             doMaintainNode(nodeEntry, true);
                         }
                         
-                    }, 30000);
+                    }, nodeEntry.backoff.next());
                 }
                 
                 // notify all linked bindings that it could not be resolved
@@ -573,6 +590,8 @@ public class NodelClients {
             } else {
                 _logger.debug("Address was resolved. Will use a new or established channel. address={}", address);
                 
+                nodeEntry.backoff.reset();
+                
                 // notify all linked bindings that it could not be resolved
                 //   (actions...)
                 for (NodeEntry.ActionEntry entry : nodeEntry.actionEntries.values()) {
@@ -702,9 +721,9 @@ public class NodelClients {
             channel.registerEventInterest(eventHandlerEntry.eventPoint, new ChannelClient.ChannelEventHandler() {
 
                 @Override
-                public void handle(NodelPoint eventPoint, Object arg) {
+                public void handle(NodelPoint eventPoint, Object arg, DateTime timestamp) {
                     // use the original event point
-                    handleChannelEvent(eventHandlerEntry, arg);
+                    handleChannelEvent(eventHandlerEntry, arg, timestamp);
                 }
 
             });
@@ -730,9 +749,11 @@ public class NodelClients {
     /**
      * Handles events generated from the channel.
      */
-    private void handleChannelEvent(final NodeEntry.EventHandlerEntry eventHandlerEntry, final Object arg) {
+    private void handleChannelEvent(final NodeEntry.EventHandlerEntry eventHandlerEntry, final Object arg, final DateTime timestamp) {
         _logger.info("Received channel event {}", eventHandlerEntry.eventPoint);
         
+        final long queuedAt = System.nanoTime();
+        
         synchronized (_signal) {
             // go through all the registered handlers
             for (final NodelClientEvent handler : eventHandlerEntry.bindings) {
@@ -744,14 +765,14 @@ public class NodelClients {
                     @Override
                     public void run() {
                         try {
-                            handler._handler.handleEvent(eventHandlerEntry.eventPoint.getNode(), eventHandlerEntry.eventPoint.getPoint(), arg);
+                            handler.handleArrival(eventHandlerEntry.eventPoint.getNode(), eventHandlerEntry.eventPoint.getPoint(), arg, timestamp, queuedAt);
                         } catch (Exception exc) {
                             // a handler did not take care of an exception
                             _logger.info("An event handler did not take care of an exception; ignoring. Exception was '{}'", exc);
                         }
                     }
 
-                });
+                }, ThreadPool.Lane.Data);
             } // (for)
         }
     } // (method)
@@ -897,29 +918,103 @@ public class NodelClients {
 
     } // (class)
     
+    /**
+     * The most filtered URL lists held.
+     */
+    private final static int URL_CACHE_SIZE = 64;
+    
+    /**
+     * The advertisement list the cached URLs were built from (compared by identity, discovery returns the same
+     * snap-shot until something changes)
+     * (locked by '_urlCache')
+     */
+    private Collection<AdvertisementInfo> _urlCacheSource;
+    
+    /**
+     * Lower-case filter to (immutable) URL list, least recently used first.
+     * (self locked)
+     */
+    @SuppressWarnings("serial")
+    private Map<String, List<NodeURL>> _urlCache = new LinkedHashMap<String, List<NodeURL>>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<NodeURL>> eldest) {
+            return size() > URL_CACHE_SIZE;
+        }
+
+    };
+    
     /**
      * Gets the URLs of *all* the nodes. 
      */
     protected List<NodeURL> getAllNodesURLs() throws IOException {
-        return getNodeURLs(null);
+        return getFilteredNodeURLs(null);
+    }
+    
+    /**
+     * Gets the URLs of the nodes with a name containing the filter (case-insensitive), or of all of them. Lists
+     * are held until the advertisements change (the UI filters on every keystroke).
+     * (returns immutable list)
+     */
+    protected List<NodeURL> getFilteredNodeURLs(String filter) throws IOException {
+        String lcFilter = filter == null ? "" : filter.toLowerCase();
+        
+        AutoDNS autoDNS = AutoDNS.instance();
+        
+        // (always list, it keeps discovery active)
+        Collection<AdvertisementInfo> all = autoDNS.list();
+        
+        synchronized (_urlCache) {
+            if (all != _urlCacheSource) {
+                _urlCache.clear();
+                _urlCacheSource = all;
+                
+            } else {
+                List<NodeURL> cached = _urlCache.get(lcFilter);
+                if (cached != null)
+                    return cached;
+            }
+        }
+        
+        List<NodeURL> nodeURLs;
+        if (lcFilter.isEmpty())
+            nodeURLs = toNodeURLs(all, null);
+        else
+            nodeURLs = toNodeURLs(autoDNS.list(lcFilter), lcFilter);
+        
+        synchronized (_urlCache) {
+            if (all == _urlCacheSource)
+                _urlCache.put(lcFilter, nodeURLs);
+        }
+        
+        return nodeURLs;
     }
 
     /**
      * Gets the URLs of a node.
      */
     protected List<NodeURL> getNodeURLs(SimpleName name) throws IOException {
-        Collection<AdvertisementInfo> list;
-        if (name == null) {
-            list = AutoDNS.instance().list();
-        } else {
-            AdvertisementInfo result = AutoDNS.instance().resolve(name);
-            list = result != null ? Arrays.asList(result) : Collections.<AdvertisementInfo>emptyList();
-        }
+        if (name == null)
+            return getFilteredNodeURLs(null);
+        
+        AdvertisementInfo result = AutoDNS.instance().resolve(name);
+        Collection<AdvertisementInfo> list = result != null ? Arrays.asList(result) : Collections.<AdvertisementInfo>emptyList();
 
+        return toNodeURLs(list, null);
+    }
+    
+    /**
+     * Builds the sorted URL list, optionally only those with names containing a lower-case filter.
+     * (returns immutable list)
+     */
+    private static List<NodeURL> toNodeURLs(Collection<AdvertisementInfo> list, String lcFilter) {
         List<NodeURL> nodeURLs = new ArrayList<NodeURL>();
 
         for (AdvertisementInfo adInfo : list) {
             for (Addresses addresses : adInfo.getAllAddresses()) {
+                if (lcFilter != null && !addresses.getNode().getOriginalName().toLowerCase().contains(lcFilter))
+                    continue;
+                
                 for (String address : addresses.getAddresses()) {
                     if (address.toLowerCase().startsWith("http://")) {
 
@@ -936,7 +1031,7 @@ public class NodelClients {
         // sort them the list
         Collections.sort(nodeURLs, s_nodeURLComparator);
         
-        return nodeURLs;
+        return Collections.unmodifiableList(nodeURLs);
     }
     
     /**
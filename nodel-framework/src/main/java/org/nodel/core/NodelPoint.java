@@ -36,7 +36,7 @@ public class NodelPoint {
      * Creates a new key.
      */
     public static NodelPoint create(String nodeName, String pointName) {
-        return new NodelPoint(new SimpleName(nodeName), new SimpleName(pointName));
+        return new NodelPoint(SimpleName.intern(nodeName), SimpleName.intern(pointName));
     }
     
     /**
@@ -16,11 +16,14 @@ import org.nodel.Handler;
 import org.nodel.SimpleName;
 import org.nodel.Strings;
 import org.nodel.Handler.H1;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.LatencyStats;
 import org.nodel.host.Binding;
 import org.nodel.reflection.Param;
 import org.nodel.reflection.Service;
 import org.nodel.reflection.Value;
 import org.nodel.threading.CallbackQueue;
+import org.nodel.threading.ThreadPool;
 
 public class NodelServerAction implements Closeable {
     
@@ -90,6 +93,11 @@ public class NodelServerAction implements Closeable {
      */
     private Handler.F1<Object, Object> _callFilter = null;
 
+    /**
+     * Queue and handler latencies.
+     */
+    private LatencyStats _latency = new LatencyStats();
+
     private boolean _closed;
 
     public NodelServerAction(String node, String action, Binding metadata) {
@@ -127,7 +135,8 @@ public class NodelServerAction implements Closeable {
      * Sets fields which control the threading environment.
      */
     public void setThreadingEnvironment(CallbackQueue callbackQueue, Handler.H0 threadStateHandler, Handler.H1<Exception> exceptionHandler) {
-        _callbackQueue = callbackQueue;
+        // (waits are also recorded against this binding)
+        _callbackQueue = callbackQueue != null ? callbackQueue.recordingTo(_latency.callbackQueue()) : null;
         _threadStateHandler = threadStateHandler;
         _exceptionHandler = exceptionHandler;
     }    
@@ -222,6 +231,11 @@ public class NodelServerAction implements Closeable {
         return _argValue.get();
     }
     
+    @Service(name = "latency", title = "Latency", desc = "Queue wait and handler execution time distributions.")
+    public LatencyStats getLatency() {
+        return _latency;
+    }
+    
     /**
      * Gets request handling object.
      */
@@ -246,6 +260,8 @@ public class NodelServerAction implements Closeable {
         // 'handlerWithExtraCallHandlers' is used as main callback
         
         NodelServers.instance().registerAction(this);
+        
+        Diagnostics.shared().registerLatencies(_actionPoint + " (action)", _latency);
     } // (method)
     
     /**
@@ -255,6 +271,15 @@ public class NodelServerAction implements Closeable {
         _handlerWithExtraCallHandlers.handleActionRequest(arg);        
     }
     
+    /**
+     * (as above, recording the time since the request was queued ('System.nanoTime' based))
+     */
+    void handleActionRequest(Object arg, long queuedAt) {
+        _latency.queue().record(System.nanoTime() - queuedAt);
+        
+        _handlerWithExtraCallHandlers.handleActionRequest(arg);
+    }
+    
     /**
      * Holds the interception logic and processes additional call handlers
      */
@@ -289,7 +314,12 @@ public class NodelServerAction implements Closeable {
             // seq must be set last
             _seqNum = Nodel.getNextSeq();
             
-            _handler.handleActionRequest(finalArg);
+            long start = System.nanoTime();
+            try {
+                _handler.handleActionRequest(finalArg);
+            } finally {
+                _latency.handler().record(System.nanoTime() - start);
+            }
             
             // snap-shot of handlers
             final H1<Object>[] handlers = _callHandlers.get();
@@ -325,7 +355,7 @@ public class NodelServerAction implements Closeable {
                         }
                     }
                     
-                });
+                }, ThreadPool.Lane.Data);
             }
         }
         
@@ -395,6 +425,8 @@ public class NodelServerAction implements Closeable {
         _closed = true;
         
         NodelServers.instance().unregisterAction(this);
+        
+        Diagnostics.shared().unregisterLatencies(_actionPoint + " (action)", _latency);
     }
     
 } // (class)
@@ -10,6 +10,7 @@ import java.io.Closeable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.joda.time.DateTime;
@@ -19,6 +20,8 @@ import org.nodel.LockFreeList;
 import org.nodel.Random;
 import org.nodel.SimpleName;
 import org.nodel.Strings;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.Binding;
 import org.nodel.reflection.Objects;
 import org.nodel.reflection.Param;
@@ -28,6 +31,7 @@ import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
 import org.nodel.threading.Timers;
+import org.nodel.threading.TokenBucket;
 
 public class NodelServerEvent implements Closeable {
     
@@ -36,6 +40,16 @@ public class NodelServerEvent implements Closeable {
      */
     private static Timers s_timers = new Timers("_NodelServerEvent");
     
+    /**
+     * (diagnostics, all events)
+     */
+    private final static SharableMeasurementProvider s_publishedRate = Diagnostics.shared().registerSharableCounter("Nodel events.Published", true);
+    
+    /**
+     * (diagnostics, all events)
+     */
+    private final static SharableMeasurementProvider s_suppressedRate = Diagnostics.shared().registerSharableCounter("Nodel events.Suppressed", true);
+    
     protected SimpleName _node;
     
     protected SimpleName _event;
@@ -75,6 +89,60 @@ public class NodelServerEvent implements Closeable {
     
     private Map<String, Object> _fullSchema;
     
+    /**
+     * Paces emits if a 'maxRate' is given.
+     * (null if not throttled)
+     */
+    private TokenBucket _rateLimiter;
+    
+    /**
+     * Whether to publish the latest suppressed value at the end of a rate window.
+     */
+    private boolean _coalesce;
+    
+    /**
+     * Numeric values within this of the last published one are suppressed.
+     * (0 for none)
+     */
+    private double _deadband;
+    
+    /**
+     * (for 'pending' and 'trailingTimer')
+     */
+    private Object _throttleLock = new Object();
+    
+    /**
+     * The latest value held back for the end of the rate window.
+     * (locked around 'throttleLock')
+     */
+    private Pending _pending;
+    
+    /**
+     * The timer that publishes 'pending' at the end of the rate window.
+     * (locked around 'throttleLock')
+     */
+    private TimerTask _trailingTimer;
+    
+    /**
+     * (holds a suppressed arg, which may itself be null)
+     */
+    private static class Pending {
+        
+        public final Object arg;
+        
+        public Pending(Object arg) {
+            this.arg = arg;
+        }
+        
+    } // (class)
+    
+    /**
+     * Emits published and suppressed (stats)
+     */
+    private AtomicLong _published = new AtomicLong();
+    
+    private AtomicLong _suppressed = new AtomicLong();
+    
     /**
      * The last snap shot of the argument (linked to 'seqNum')
      * (can never be 'null')
@@ -148,7 +216,16 @@ public class NodelServerEvent implements Closeable {
         _caution = metadata.caution;
         _order = metadata.order;
         _argSchema = metadata.schema;
-        _fullSchema = prepareFullSchema();         
+        _fullSchema = prepareFullSchema();
+        
+        if (metadata.maxRate != null && metadata.maxRate > 0) {
+            // (no bursts, i.e. at most one per window)
+            _rateLimiter = new TokenBucket(metadata.maxRate, 1);
+            _coalesce = metadata.coalesce != null && metadata.coalesce;
+        }
+        
+        if (metadata.deadband != null && metadata.deadband > 0)
+            _deadband = metadata.deadband;
     }
     
     private Map<String, Object> prepareFullSchema() {
@@ -269,6 +346,16 @@ public class NodelServerEvent implements Closeable {
         return _argInstance.get().timestamp;
     }
     
+    @Service(name = "published", title = "Published", desc = "The number of emits published.")
+    public long getPublishedCount() {
+        return _published.get();
+    }
+    
+    @Service(name = "suppressed", title = "Suppressed", desc = "The number of emits suppressed by the rate limit or deadband.")
+    public long getSuppressedCount() {
+        return _suppressed.get();
+    }
+    
     public NodelPoint getNodelPoint() {
         return _eventPoint;
     }
@@ -303,11 +390,9 @@ public class NodelServerEvent implements Closeable {
     }
     
     /**
-     * Fires the event.
+     * Filters then fires the event, unless throttled.
      */
     private void doEmit(Object arg) {
-        DateTime now = DateTime.now();
-        
         if (_emitFilter != null) {
             // arg = _emitFilter.handle(arg);
             if (_callbackQueue != null) {
@@ -327,6 +412,125 @@ public class NodelServerEvent implements Closeable {
             }
         }
         
+        if (_rateLimiter == null && _deadband == 0) {
+            // not throttled (the usual case)
+            publish(arg);
+            return;
+        }
+        
+        // within the deadband of what was last published?
+        if (_deadband > 0 && withinDeadband(_argInstance.get().arg, arg)) {
+            synchronized (_throttleLock) {
+                // (makes any held back value stale too)
+                dropPending();
+            }
+            
+            suppressed();
+            return;
+        }
+        
+        if (_rateLimiter != null) {
+            synchronized (_throttleLock) {
+                long wait = _rateLimiter.tryTake();
+                
+                if (wait > 0) {
+                    // throttled, hold onto the latest value if coalescing
+                    if (_coalesce) {
+                        dropPending();
+                        _pending = new Pending(arg);
+                        
+                        if (_trailingTimer == null && !_closed)
+                            scheduleTrailing(wait);
+                    } else {
+                        suppressed();
+                    }
+
+                    return;
+                }
+                
+                // (supersedes any held back value)
+                dropPending();
+            }
+        }
+        
+        publish(arg);
+    }
+    
+    /**
+     * (timer entry-point) Publishes the value held back at the end of the rate window.
+     */
+    private void publishPending() {
+        Pending pending;
+        
+        synchronized (_throttleLock) {
+            _trailingTimer = null;
+            
+            pending = _pending;
+            if (pending == null || _closed)
+                return;
+            
+            long wait = _rateLimiter.tryTake();
+            if (wait > 0) {
+                // (window taken in the meantime, try again at the end of it)
+                scheduleTrailing(wait);
+                return;
+            }
+            
+            _pending = null;
+        }
+        
+        publish(pending.arg);
+    }
+    
+    /**
+     * (assumes locked)
+     */
+    private void scheduleTrailing(long delay) {
+        _trailingTimer = s_timers.schedule(ChannelClient.getThreadPool(), new TimerTask() {
+
+            @Override
+            public void run() {
+                publishPending();
+            }
+
+        }, delay);
+    }
+    
+    /**
+     * Drops any held back value, counting it as suppressed.
+     * (assumes locked)
+     */
+    private void dropPending() {
+        if (_pending != null) {
+            _pending = null;
+            suppressed();
+        }
+    }
+    
+    /**
+     * Whether both are numbers and closer than the deadband.
+     */
+    private boolean withinDeadband(Object last, Object arg) {
+        if (!(last instanceof Number) || !(arg instanceof Number))
+            return false;
+        
+        return Math.abs(((Number) arg).doubleValue() - ((Number) last).doubleValue()) < _deadband;
+    }
+    
+    private void suppressed() {
+        _suppressed.incrementAndGet();
+        s_suppressedRate.incr();
+    }
+    
+    /**
+     * Fires the event.
+     */
+    private void publish(Object arg) {
+        DateTime now = DateTime.now();
+        
+        _published.incrementAndGet();
+        s_publishedRate.incr();
+        
         ArgInstance argInstance = new ArgInstance();
         argInstance.timestamp = now;
         argInstance.arg = arg;
@@ -337,7 +541,7 @@ public class NodelServerEvent implements Closeable {
         if (_monitor != null)
             _monitor.handle(now, arg);
 
-        NodelServers.instance().emitEvent(this, arg);
+        NodelServers.instance().emitEvent(this, arg, now);
         
         // snap-shot of handlers
         final List<Handler.H1<Object>> handlers = _emitHandlers.items();
@@ -375,7 +579,7 @@ public class NodelServerEvent implements Closeable {
                     }
                 }
 
-            });
+            }, ThreadPool.Lane.Data);
         }
     }
     
@@ -436,6 +640,13 @@ public class NodelServerEvent implements Closeable {
         if (_persisterTimer != null)
             _persisterTimer.cancel();
         
+        synchronized (_throttleLock) {
+            if (_trailingTimer != null)
+                _trailingTimer.cancel();
+            
+            dropPending();
+        }
+        
         _emitHandlers.clear();
         
         persistNow();
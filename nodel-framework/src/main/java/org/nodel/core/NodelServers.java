@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.joda.time.DateTime;
 import org.nodel.Handler;
 import org.nodel.Handlers;
 import org.nodel.SimpleName;
@@ -424,7 +425,7 @@ public class NodelServers {
      */
     protected void registerInterest(ChannelServer channel, String nodeName) {
         synchronized (_signal) {
-            SimpleName node = new SimpleName(nodeName);
+            SimpleName node = SimpleName.intern(nodeName);
             
             List<ChannelServer> channels = _interestedChannels.get(node);
             
@@ -493,15 +494,22 @@ public class NodelServers {
      * Called when an event has occurred. Must have previously been registered. 
      */    
     public void emitEvent(NodelServerEvent eventBinding, Object arg) {
-        emitEvent(eventBinding._node.getReducedName(), eventBinding._event.getReducedName(), arg);
+        emitEvent(eventBinding, arg, DateTime.now());
+    }
+    
+    /**
+     * (as above, with the time the event was emitted)
+     */
+    public void emitEvent(NodelServerEvent eventBinding, Object arg, DateTime timestamp) {
+        emitEvent(eventBinding._node.getReducedName(), eventBinding._event.getReducedName(), arg, timestamp);
     }
     
     /**
      * (Used by Channel Server) 
      */
-    protected void emitEvent(String nodeName, String eventName, Object arg) {
+    protected void emitEvent(String nodeName, String eventName, Object arg, DateTime timestamp) {
         synchronized (_signal) {
-            SimpleName node = new SimpleName(nodeName);
+            SimpleName node = SimpleName.intern(nodeName);
             
             if (!_nodeEvents.containsKey(node))
                 throw new NodelException("A node must be registered before firing any events.");
@@ -515,7 +523,7 @@ public class NodelServers {
             
             // send the event out through all the interested channels
             for(ChannelServer channel : channels) {
-                channel.sendEventMessage(nodeName, eventName, arg);
+                channel.sendEventMessage(nodeName, eventName, arg, timestamp);
             } // (for)
         }
     } // (method)
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.net.InetAddress;
 import java.net.Socket;
 
 import javax.net.SocketFactory;
@@ -22,7 +23,10 @@ import org.nodel.diagnostics.CountableOutputStream;
 import org.nodel.diagnostics.Diagnostics;
 import org.nodel.diagnostics.LongSharableMeasurementProvider;
 import org.nodel.diagnostics.SharableMeasurementProvider;
+import org.nodel.net.AddressResolver;
+import org.nodel.net.ReconnectScheduler;
 import org.nodel.reflection.Serialisation;
+import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
 
 /**
@@ -123,7 +127,16 @@ public class TCPChannelClient extends ChannelClient {
         Socket socket = null;
         try {
             long start = System.nanoTime();
-            socket = SocketFactory.getDefault().createSocket(this._address.getHost(), this._address.getPort());
+            InetAddress address = AddressResolver.shared().resolve(this._address.getHost());
+            
+            // wait for a turn (limits simultaneous attempts against the same subnet)
+            ReconnectScheduler.Ticket ticket = ReconnectScheduler.shared().ticket(address, false);
+            try {
+                ticket.await();
+                socket = SocketFactory.getDefault().createSocket(address, this._address.getPort());
+            } finally {
+                ticket.release();
+            }
             
             _logger.info("Connected to {} (took {})", this._address, DateTimes.formatPeriod(start)); 
             
@@ -157,7 +170,7 @@ public class TCPChannelClient extends ChannelClient {
             _socket = socket;
             
             // schedule a keep-alive every 3 minutes
-            _keepAliveTask = s_timerThread.schedule(s_threadPool, new TimerTask() {
+            _keepAliveTask = s_timerThread.schedule(s_threadPool, ThreadPool.Lane.Control, new TimerTask() {
 
                 @Override
                 public void run() {
@@ -188,6 +201,9 @@ public class TCPChannelClient extends ChannelClient {
         // on single thread so can create a reusable character buffer that will grow if necessarily
         StringBuilder sb = new StringBuilder(256);
 
+        // (and decode into the same message each time)
+        ChannelMessage.Decoder decoder = new ChannelMessage.Decoder();
+
         for (;;) {
             // always reset the buffer
             sb.setLength(0);
@@ -197,7 +213,7 @@ public class TCPChannelClient extends ChannelClient {
                 throw new EOFException("Stream ended abruptly.");
             
             // retrieve the message delivered to this channel server
-            ChannelMessage message = (ChannelMessage) Serialisation.coerceFromJSON(ChannelMessage.class, sb);
+            ChannelMessage message = decoder.decode(sb);
             
             handleMessage(message);
         } // (while)
@@ -228,7 +244,7 @@ public class TCPChannelClient extends ChannelClient {
                 doSendMessage(message);
             }
 
-        });
+        }, laneFor(message));
     } // (method)
     
     /**
@@ -230,7 +230,10 @@ public class TCPChannelServer extends ChannelServer {
         }
         
         // on single thread so can create a reusable character buffer that will grow if necessarily
-        StringBuilder sb = new StringBuilder(256);        
+        StringBuilder sb = new StringBuilder(256);
+        
+        // (and decode into the same message each time)
+        ChannelMessage.Decoder decoder = new ChannelMessage.Decoder();
         
         // enter the main loop
         try {
@@ -243,7 +246,7 @@ public class TCPChannelServer extends ChannelServer {
                     throw new EOFException("Unexpectedly reached the end of the stream.");
 
                 // retrieve the message delivered to this channel server
-                ChannelMessage message = (ChannelMessage) Serialisation.coerceFromJSON(ChannelMessage.class, sb);
+                ChannelMessage message = decoder.decode(sb);
                 
                 super.handleMessage(message);
             } // (while)
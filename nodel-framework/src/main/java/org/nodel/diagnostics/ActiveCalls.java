@@ -0,0 +1,143 @@
+package org.nodel.diagnostics;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks calls in progress so never-ending ones can be reported. Entering and exiting are lock-free; each call
+ * claims its own slot (starting from one based on the calling thread so threads rarely compete) and only falls back to
+ * a shared map when all slots are busy. Reads are approximate snapshots which is fine for diagnostics.
+ */
+public class ActiveCalls {
+
+    /**
+     * A call in progress.
+     */
+    public static class Call {
+
+        private final String _name;
+
+        private final long _timeIn = System.nanoTime();
+
+        /**
+         * (-1 if in the overflow map)
+         */
+        private int _slot = -1;
+
+        private Call(String name) {
+            _name = name;
+        }
+
+        public String getName() {
+            return _name;
+        }
+
+        /**
+         * How long the call has been going for.
+         */
+        public long getMillis() {
+            return (System.nanoTime() - _timeIn) / 1000000;
+        }
+
+    } // (class)
+
+    private final AtomicReferenceArray<Call> _slots;
+
+    /**
+     * (slot count minus one, a power of two)
+     */
+    private final int _mask;
+
+    /**
+     * When all slots are taken.
+     */
+    private final ConcurrentHashMap<Call, Boolean> _overflow = new ConcurrentHashMap<>();
+
+    /**
+     * @param slots calls that can be tracked without contention (rounded up to a power of two)
+     */
+    public ActiveCalls(int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+
+        _slots = new AtomicReferenceArray<>(size);
+        _mask = size - 1;
+    }
+
+    /**
+     * When a call starts, returning what needs to be passed to 'exit'.
+     */
+    public Call enter(String name) {
+        Call call = new Call(name);
+
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= _mask; i++) {
+            int slot = (start + i) & _mask;
+
+            if (_slots.get(slot) == null && _slots.compareAndSet(slot, null, call)) {
+                call._slot = slot;
+                return call;
+            }
+        }
+
+        _overflow.put(call, Boolean.TRUE);
+        return call;
+    }
+
+    /**
+     * When a call finishes (null is ignored)
+     */
+    public void exit(Call call) {
+        if (call == null)
+            return;
+
+        if (call._slot >= 0)
+            _slots.compareAndSet(call._slot, call, null);
+        else
+            _overflow.remove(call);
+    }
+
+    /**
+     * All the calls in progress for at least the given time.
+     */
+    public List<Call> getCalls(long minMillis) {
+        List<Call> result = new ArrayList<>();
+
+        int len = _slots.length();
+        for (int i = 0; i < len; i++) {
+            Call call = _slots.get(i);
+            if (call != null && call.getMillis() >= minMillis)
+                result.add(call);
+        }
+
+        for (Call call : _overflow.keySet()) {
+            if (call.getMillis() >= minMillis)
+                result.add(call);
+        }
+
+        return result;
+    }
+
+    /**
+     * The number of calls in progress.
+     */
+    public int size() {
+        int count = _overflow.size();
+
+        int len = _slots.length();
+        for (int i = 0; i < len; i++) {
+            if (_slots.get(i) != null)
+                count++;
+        }
+
+        return count;
+    }
+
+} // (class)
@@ -11,10 +11,12 @@ import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.joda.time.DateTime;
 import org.nodel.Environment;
@@ -67,6 +69,16 @@ public class Diagnostics {
     @Service(name = "measurements", title = "Measurements", desc = "The list of performance measurement data.", genericClassA = MeasurementHistory.class)
     public Queue<MeasurementHistory> _measurements = new ConcurrentLinkedQueue<MeasurementHistory>();
     
+    /**
+     * Latency histograms of the live bindings, keyed by name.
+     */
+    private Map<String, LatencyStats> _latencies = new ConcurrentSkipListMap<String, LatencyStats>();
+    
+    @Service(name = "latencies", title = "Latencies", desc = "Queue, handler and transit latencies of the live action and event bindings.", genericClassA = String.class, genericClassB = LatencyStats.class)
+    public Map<String, LatencyStats> getLatencies() {
+        return _latencies;
+    }
+    
     /**
      * (logging)
      */
@@ -268,6 +280,20 @@ public class Diagnostics {
         }
     }
     
+    /**
+     * Registers the latency stats of a binding (replaces any previous stats with the same name).
+     */
+    public void registerLatencies(String name, LatencyStats stats) {
+        _latencies.put(name, stats);
+    }
+    
+    /**
+     * Unregisters latency stats (only if they are the ones registered under the name).
+     */
+    public void unregisterLatencies(String name, LatencyStats stats) {
+        _latencies.remove(name, stats);
+    }
+    
     /**
      * Records stats periodically.
      * (timer entry-point)
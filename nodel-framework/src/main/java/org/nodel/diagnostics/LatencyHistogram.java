@@ -0,0 +1,185 @@
+package org.nodel.diagnostics;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.nodel.reflection.Service;
+import org.nodel.reflection.Value;
+
+/**
+ * A low-overhead latency histogram using log-linear ("HDR-style") buckets at microsecond resolution
+ * and roughly 6% relative precision. Recording is lock-free and allocation-free; reads are
+ * approximate snapshots which is fine for diagnostics.
+ *
+ * (bucket storage is only allocated on first use so idle bindings cost next to nothing)
+ */
+public class LatencyHistogram {
+
+    /**
+     * Sub-buckets per power-of-two range (as bits).
+     */
+    private final static int SUB_BUCKET_BITS = 4;
+
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest value that can be tracked (in micros, roughly 71 minutes); larger values are clamped.
+     */
+    private final static long MAX_MICROS = (1L << 32) - 1;
+
+    private final static int BUCKET_COUNT = indexOf(MAX_MICROS) + 1;
+
+    /**
+     * The bucket counts (lazily allocated)
+     */
+    private volatile AtomicLongArray _counts;
+
+    private final AtomicLong _count = new AtomicLong();
+
+    /**
+     * (micros)
+     */
+    private final AtomicLong _sum = new AtomicLong();
+
+    /**
+     * (micros)
+     */
+    private final AtomicLong _max = new AtomicLong();
+
+    /**
+     * Records a duration (in nanos). Negative durations (e.g. clock skew) are treated as zero.
+     */
+    public void record(long nanos) {
+        long micros = nanos <= 0 ? 0 : nanos / 1000;
+        if (micros > MAX_MICROS)
+            micros = MAX_MICROS;
+
+        AtomicLongArray counts = _counts;
+        if (counts == null)
+            counts = allocate();
+
+        counts.incrementAndGet(indexOf(micros));
+        _count.incrementAndGet();
+        _sum.addAndGet(micros);
+
+        long max = _max.get();
+        while (micros > max && !_max.compareAndSet(max, micros))
+            max = _max.get();
+    }
+
+    /**
+     * (first use only)
+     */
+    private synchronized AtomicLongArray allocate() {
+        if (_counts == null)
+            _counts = new AtomicLongArray(BUCKET_COUNT);
+
+        return _counts;
+    }
+
+    @Value(name = "count", title = "Count", desc = "The number of samples recorded.", order = 1)
+    public long getCount() {
+        return _count.get();
+    }
+
+    @Value(name = "mean", title = "Mean", desc = "The mean (in milliseconds).", order = 2)
+    public double getMean() {
+        long count = _count.get();
+        if (count == 0)
+            return 0;
+
+        return _sum.get() / (double) count / 1000.0;
+    }
+
+    @Value(name = "p50", title = "50th percentile", desc = "The median (in milliseconds).", order = 3)
+    public double getP50() {
+        return getPercentile(50);
+    }
+
+    @Value(name = "p90", title = "90th percentile", desc = "(in milliseconds)", order = 4)
+    public double getP90() {
+        return getPercentile(90);
+    }
+
+    @Value(name = "p99", title = "99th percentile", desc = "(in milliseconds)", order = 5)
+    public double getP99() {
+        return getPercentile(99);
+    }
+
+    @Value(name = "max", title = "Maximum", desc = "The largest sample (in milliseconds).", order = 6)
+    public double getMax() {
+        return _max.get() / 1000.0;
+    }
+
+    /**
+     * Returns the given percentile (0 - 100) in milliseconds, reporting the highest
+     * value equivalent to the bucket it falls in.
+     */
+    public double getPercentile(double percentile) {
+        AtomicLongArray counts = _counts;
+        long total = _count.get();
+        if (counts == null || total == 0)
+            return 0;
+
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        if (target < 1)
+            target = 1;
+
+        long max = _max.get();
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target)
+                return Math.min(highestEquivalent(i), max) / 1000.0;
+        }
+
+        return max / 1000.0;
+    }
+
+    @Service(name = "reset", title = "Reset", desc = "Clears all samples.")
+    public void reset() {
+        AtomicLongArray counts = _counts;
+        if (counts != null) {
+            for (int i = 0; i < BUCKET_COUNT; i++)
+                counts.set(i, 0);
+        }
+
+        _count.set(0);
+        _sum.set(0);
+        _max.set(0);
+    }
+
+    /**
+     * Linear below SUB_BUCKET_COUNT, then SUB_BUCKET_COUNT linear sub-buckets per power of two.
+     */
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT)
+            return (int) micros;
+
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKET_COUNT - 1);
+
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * The largest value (micros) that falls into the given bucket.
+     */
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKET_COUNT)
+            return index;
+
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = index & (SUB_BUCKET_COUNT - 1);
+
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+} // (class)
@@ -0,0 +1,53 @@
+package org.nodel.diagnostics;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import org.nodel.reflection.Service;
+import org.nodel.reflection.Value;
+
+/**
+ * The set of latency histograms kept per action or event binding.
+ */
+public class LatencyStats {
+
+    private final LatencyHistogram _queue = new LatencyHistogram();
+
+    private final LatencyHistogram _handler = new LatencyHistogram();
+
+    private final LatencyHistogram _transit = new LatencyHistogram();
+
+    private final LatencyHistogram _callbackQueue = new LatencyHistogram();
+
+    @Value(name = "queue", title = "Queue wait", desc = "Time spent waiting for a thread or callback queue before the handler ran.", order = 1)
+    public LatencyHistogram queue() {
+        return _queue;
+    }
+
+    @Value(name = "handler", title = "Handler", desc = "Time spent executing the handler.", order = 2)
+    public LatencyHistogram handler() {
+        return _handler;
+    }
+
+    @Value(name = "transit", title = "Channel transit", desc = "Time from the remote emit to arrival (wall clock based, so subject to host clock skew).", order = 3)
+    public LatencyHistogram transit() {
+        return _transit;
+    }
+
+    @Value(name = "callbackQueue", title = "Callback queue wait", desc = "Time this binding's filters and additional handlers spent waiting for their turn in the node's callback queue.", order = 4)
+    public LatencyHistogram callbackQueue() {
+        return _callbackQueue;
+    }
+
+    @Service(name = "reset", title = "Reset", desc = "Clears all samples.")
+    public void reset() {
+        _queue.reset();
+        _handler.reset();
+        _transit.reset();
+        _callbackQueue.reset();
+    }
+
+} // (class)
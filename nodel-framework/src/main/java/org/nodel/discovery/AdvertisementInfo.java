@@ -117,10 +117,11 @@ public class AdvertisementInfo {
     }
     
     /**
-     * Refreshes / updates node name, addresses and timestamp ('nanoTime' base) 
+     * Refreshes / updates node name, addresses and timestamp ('nanoTime' base), returning true if the
+     * addresses or name changed (not just the timestamp)
      * (not thread safe)
      */
-    public void refresh(SimpleName node, List<String> addresses, long timestamp) {
+    public boolean refresh(SimpleName node, List<String> addresses, long timestamp) {
         // look for existing
         int size = _addressesEntries.size();
         Addresses found = null;
@@ -135,18 +136,25 @@ public class AdvertisementInfo {
             found = new Addresses(node, addresses, timestamp);
             _addressesEntries.add(found);
             
+            return true;
+            
         } else {
             // just refresh
+            boolean renamed = !node.getOriginalName().equals(found._node.getOriginalName());
+            
             found.refresh(node, timestamp);
+            
+            return renamed;
         }
     }
     
     /**
-     * Removes all the stale address entries
+     * Removes all the stale address entries, returning true if any were
      * (not thread safe)
      */
-    public void removeStaleAddressesEntries(long currentTime) {
+    public boolean removeStaleAddressesEntries(long currentTime) {
         int size = _addressesEntries.size();
+        boolean removed = false;
         
         // start from end so can remove item from list in-situ
         for (int i = size - 1; i >= 0; i--) {
@@ -154,9 +162,13 @@ public class AdvertisementInfo {
             
             long timeDiff = (currentTime / 1000000) - item._timestamp;
             
-            if (timeDiff > NodelAutoDNS.STALE_TIME)
+            if (timeDiff > NodelAutoDNS.STALE_TIME) {
                 _addressesEntries.remove(i);
+                removed = true;
+            }
         }
+        
+        return removed;
     }
     
     /**
@@ -9,11 +9,14 @@ package org.nodel.discovery;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.nodel.SimpleName;
 import org.nodel.Strings;
 import org.nodel.core.NodeAddress;
+import org.nodel.discovery.AdvertisementInfo.Addresses;
 import org.nodel.reflection.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,6 +121,32 @@ public abstract class AutoDNS implements Closeable {
     @Service(name = "list", title = "List", desc = "Retrieves the list of Node advertiseds.")
     public abstract Collection<AdvertisementInfo> list();
     
+    /**
+     * Lists the registered nodes with a name containing the filter (case-insensitive) or all of them
+     * if there is no filter. Implementations can override this with an indexed lookup.
+     * (non-blocking) 
+     */
+    public Collection<AdvertisementInfo> list(String filter) {
+        Collection<AdvertisementInfo> all = list();
+        
+        if (Strings.isEmpty(filter))
+            return all;
+        
+        String lcFilter = filter.toLowerCase();
+        
+        List<AdvertisementInfo> result = new ArrayList<AdvertisementInfo>();
+        for (AdvertisementInfo adInfo : all) {
+            for (Addresses addresses : adInfo.getAllAddresses()) {
+                if (addresses.getNode().getOriginalName().toLowerCase().contains(lcFilter)) {
+                    result.add(adInfo);
+                    break;
+                }
+            }
+        }
+        
+        return result;
+    }
+    
     /**
      * Resolves a node into full adverisement info.
      */
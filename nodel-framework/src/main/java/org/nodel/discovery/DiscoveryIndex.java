@@ -0,0 +1,318 @@
+package org.nodel.discovery;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.nodel.SimpleName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the discovered advertisements, indexed for fast filtered lookups with versioned snapshots so
+ * unchanged lists don't need to be copied on every call.
+ *
+ * Names are indexed by the trigrams of their lower-case original names (all of them, advertisements can be seen
+ * under differently cased or punctuated names) which covers the substring filtering used by the UI.
+ *
+ * (self locked, reads of single entries are lock-free)
+ */
+public class DiscoveryIndex {
+
+    /**
+     * (logging)
+     */
+    private final static Logger s_logger = LoggerFactory.getLogger(DiscoveryIndex.class);
+
+    /**
+     * (see 'addOnChangeHandler')
+     */
+    public static interface ChangeHandler {
+
+        public void handle(List<AdvertisementInfo> added, List<AdvertisementInfo> removed);
+
+    }
+
+    /**
+     * (length of indexed grams)
+     */
+    private final static int GRAM = 3;
+
+    /**
+     * The advertisements.
+     */
+    private final ConcurrentMap<SimpleName, AdvertisementInfo> _entries = new ConcurrentHashMap<>();
+
+    /**
+     * The lower-case names of each advertisement.
+     */
+    private final Map<SimpleName, Set<String>> _names = new HashMap<>();
+
+    /**
+     * Trigram to advertisements.
+     */
+    private final Map<String, Set<SimpleName>> _grams = new HashMap<>();
+
+    /**
+     * Changes whenever the list of advertisements or their names or addresses change.
+     */
+    private volatile long _version;
+
+    /**
+     * The snapshot for '_snapshotVersion' (immutable, rebuilt on demand)
+     */
+    private List<AdvertisementInfo> _snapshot = Collections.emptyList();
+
+    /**
+     * (see '_snapshot')
+     */
+    private long _snapshotVersion;
+
+    /**
+     * Changes not yet passed on to the handlers (see 'fireChanges')
+     */
+    private List<AdvertisementInfo> _pendingAdded = new ArrayList<>();
+
+    /**
+     * (see '_pendingAdded')
+     */
+    private List<AdvertisementInfo> _pendingRemoved = new ArrayList<>();
+
+    /**
+     * (see 'addOnChangeHandler')
+     */
+    private final List<ChangeHandler> _onChangeHandlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a callback for additions and removals (order is "added", "removed")
+     */
+    public void addOnChangeHandler(ChangeHandler handler) {
+        _onChangeHandlers.add(handler);
+    }
+
+    /**
+     * (see related 'add__Handler')
+     */
+    public void removeOnChangeHandler(ChangeHandler handler) {
+        _onChangeHandlers.remove(handler);
+    }
+
+    /**
+     * Looks up an advertisement.
+     * (lock-free)
+     */
+    public AdvertisementInfo get(SimpleName node) {
+        return _entries.get(node);
+    }
+
+    /**
+     * The names of the advertisements.
+     * (live view, enumeration-thread-safe)
+     */
+    public Set<SimpleName> nodes() {
+        return _entries.keySet();
+    }
+
+    /**
+     * The number of advertisements.
+     */
+    public int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Changes whenever the list changes (see 'snapshot')
+     */
+    public long getVersion() {
+        return _version;
+    }
+
+    /**
+     * Adds a new advertisement.
+     */
+    public synchronized void add(SimpleName node, AdvertisementInfo ad) {
+        AdvertisementInfo existing = _entries.put(node, ad);
+        if (existing != null)
+            unindex(node);
+        else
+            _pendingAdded.add(ad);
+
+        index(node, ad);
+        _version++;
+    }
+
+    /**
+     * Must be called after an advertisement's addresses (or names) change.
+     */
+    public synchronized void changed(SimpleName node) {
+        AdvertisementInfo ad = _entries.get(node);
+        if (ad == null)
+            return;
+
+        unindex(node);
+        index(node, ad);
+        _version++;
+    }
+
+    /**
+     * Removes an advertisement.
+     */
+    public synchronized void remove(SimpleName node) {
+        AdvertisementInfo ad = _entries.remove(node);
+        if (ad == null)
+            return;
+
+        unindex(node);
+        _pendingRemoved.add(ad);
+        _version++;
+    }
+
+    /**
+     * All the advertisements. The same list is returned until anything changes.
+     * (returns immutable list)
+     */
+    public synchronized List<AdvertisementInfo> snapshot() {
+        if (_snapshotVersion != _version) {
+            _snapshot = Collections.unmodifiableList(new ArrayList<>(_entries.values()));
+            _snapshotVersion = _version;
+        }
+
+        return _snapshot;
+    }
+
+    /**
+     * The advertisements with a name containing the filter (case-insensitive), or all of them with
+     * no filter.
+     */
+    public List<AdvertisementInfo> find(String filter) {
+        if (filter == null || filter.length() == 0)
+            return snapshot();
+
+        String lcFilter = filter.toLowerCase();
+        List<AdvertisementInfo> result = new ArrayList<>();
+
+        synchronized (this) {
+            Iterable<SimpleName> candidates;
+
+            if (lcFilter.length() < GRAM) {
+                // too short for the index, but a scan over the names is cheap enough
+                candidates = _names.keySet();
+
+            } else {
+                // start with the rarest gram and narrow from there
+                Set<SimpleName> smallest = null;
+                for (int i = 0; i <= lcFilter.length() - GRAM; i++) {
+                    Set<SimpleName> set = _grams.get(lcFilter.substring(i, i + GRAM));
+                    if (set == null)
+                        return result;
+
+                    if (smallest == null || set.size() < smallest.size())
+                        smallest = set;
+                }
+                candidates = smallest;
+            }
+
+            for (SimpleName node : candidates) {
+                for (String name : _names.get(node)) {
+                    if (name.contains(lcFilter)) {
+                        result.add(_entries.get(node));
+                        break;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Passes on the additions and removals since the last call; handlers are called on this thread so the
+     * caller can determine the order.
+     */
+    public void fireChanges() {
+        List<AdvertisementInfo> added;
+        List<AdvertisementInfo> removed;
+
+        synchronized (this) {
+            if (_pendingAdded.isEmpty() && _pendingRemoved.isEmpty())
+                return;
+
+            added = _pendingAdded;
+            removed = _pendingRemoved;
+
+            _pendingAdded = new ArrayList<>();
+            _pendingRemoved = new ArrayList<>();
+        }
+
+        for (ChangeHandler handler : _onChangeHandlers) {
+            try {
+                handler.handle(added, removed);
+
+            } catch (Exception exc) {
+                s_logger.warn("A discovery change handler threw an exception; ignoring.", exc);
+            }
+        }
+    }
+
+    /**
+     * (assumes locked)
+     */
+    private void index(SimpleName node, AdvertisementInfo ad) {
+        Set<String> names = new HashSet<>();
+        names.add(node.getOriginalName().toLowerCase());
+        for (AdvertisementInfo.Addresses addresses : ad.getAllAddresses())
+            names.add(addresses.getNode().getOriginalName().toLowerCase());
+
+        _names.put(node, names);
+
+        for (String name : names) {
+            for (int i = 0; i <= name.length() - GRAM; i++) {
+                String gram = name.substring(i, i + GRAM);
+
+                Set<SimpleName> set = _grams.get(gram);
+                if (set == null) {
+                    set = new HashSet<>();
+                    _grams.put(gram, set);
+                }
+                set.add(node);
+            }
+        }
+    }
+
+    /**
+     * (assumes locked)
+     */
+    private void unindex(SimpleName node) {
+        Set<String> names = _names.remove(node);
+        if (names == null)
+            return;
+
+        for (String name : names) {
+            for (int i = 0; i <= name.length() - GRAM; i++) {
+                String gram = name.substring(i, i + GRAM);
+
+                Set<SimpleName> set = _grams.get(gram);
+                if (set == null)
+                    continue;
+
+                set.remove(node);
+                if (set.isEmpty())
+                    _grams.remove(gram);
+            }
+        }
+    }
+
+}
@@ -64,6 +64,28 @@ public class NameServicesChannelMessage {
     @Value(name = "delay", order = 6)
     public Integer delay;
     
+    /**
+     * (server to client)
+     * Identifies the set of nodes being advertised, which only changes when nodes come or go. A response with
+     * a 'snapshot' but no 'present' field means "unchanged", i.e. the same nodes as a recent full response.
+     */
+    @Value(name = "snapshot", order = 7)
+    public String snapshot;
+    
+    /**
+     * (client to server)
+     * The prober holds the nodes of recent snapshots so "unchanged" responses can be used.
+     */
+    @Value(name = "deltas", order = 8)
+    public Boolean deltas;
+    
+    /**
+     * (client to server)
+     * Identifies the prober instance, which changes when it restarts (and has lost its snapshots).
+     */
+    @Value(name = "prober", order = 9)
+    public String prober;
+    
     @Override
     public String toString() {
         return Serialisation.serialise(this);
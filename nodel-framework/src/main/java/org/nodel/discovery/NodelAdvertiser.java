@@ -6,6 +6,7 @@ package org.nodel.discovery;
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. 
  */
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
@@ -16,11 +17,15 @@ import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.nodel.Exceptions;
 import org.nodel.Handler;
@@ -29,11 +34,45 @@ import org.nodel.Threads;
 import org.nodel.core.Nodel;
 import org.nodel.discovery.NodelAutoDNS.ServiceItem;
 import org.nodel.io.Stream;
+import org.nodel.io.UTF8Charset;
+import org.nodel.json.JSONObject;
 import org.nodel.threading.TimerTask;
+import org.nodel.threading.TokenBucket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class NodelAdvertiser {
+    
+    /**
+     * Responses are packed into datagrams no larger than this (bytes), within a typical Ethernet MTU of 1500 less
+     * IP / UDP headers and some room for tunnelling.
+     */
+    private final static int MAX_RESPONSE_SIZE = 1400;
+    
+    /**
+     * The average rate of response datagrams to each recipient (per second)
+     */
+    private final static double RESPONSE_RATE = 50;
+    
+    /**
+     * The most response datagrams sent at once to each recipient.
+     */
+    private final static int RESPONSE_BURST = 16;
+    
+    /**
+     * The most recipients remembered (for "unchanged" responses)
+     */
+    private final static int MAX_RECIPIENTS = 1024;
+    
+    /**
+     * Distinguishes this process' snapshots from others.
+     */
+    private final static String s_instanceToken = Integer.toString(Random.shared().nextInt() & 0x7fffffff, 36);
+    
+    /**
+     * (shared by all advertisers so snapshots are unique)
+     */
+    private final static AtomicLong s_snapshotCounter = new AtomicLong();
 
     /**
      * (logging)
@@ -302,6 +341,87 @@ public class NodelAdvertiser {
         } // (while) 
     } // (method)
 
+    /**
+     * Precomputed response datagrams for a snapshot of the services.
+     */
+    static class Responses {
+        
+        /**
+         * The snapshot these were composed from (compared by identity)
+         */
+        final Collection<ServiceItem> services;
+        
+        /**
+         * (see 'NameServicesChannelMessage.snapshot')
+         */
+        final String snapshot;
+        
+        /**
+         * All the names, packed into as few datagrams as possible.
+         */
+        final List<byte[]> full;
+        
+        /**
+         * The "unchanged" response.
+         */
+        final byte[] unchanged;
+        
+        Responses(Collection<ServiceItem> services, String snapshot, List<byte[]> full, byte[] unchanged) {
+            this.services = services;
+            this.snapshot = snapshot;
+            this.full = full;
+            this.unchanged = unchanged;
+        }
+        
+    } // (class)
+    
+    /**
+     * What was last sent to a recipient.
+     */
+    private static class LastSent {
+        
+        /**
+         * (see 'Responses.snapshot')
+         */
+        String snapshot;
+        
+        /**
+         * When the full response was sent (nanos)
+         */
+        long fullAt;
+        
+        /**
+         * (see 'NameServicesChannelMessage.prober')
+         */
+        String prober;
+        
+        /**
+         * The last response was an "unchanged" one.
+         */
+        boolean unchanged;
+        
+    } // (class)
+    
+    /**
+     * The responses for the current services snapshot, composed on demand.
+     * (locked around 'lock')
+     */
+    private Responses _responses;
+    
+    /**
+     * The last response sent to each recipient, most recent last.
+     * (self locked)
+     */
+    @SuppressWarnings("serial")
+    private Map<SocketAddress, LastSent> _lastSent = new LinkedHashMap<SocketAddress, LastSent>(16, 0.75f, true) {
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SocketAddress, LastSent> eldest) {
+            return size() > MAX_RECIPIENTS;
+        }
+        
+    };
+    
     /**
      * One responder per recipient at any stage.
      */
@@ -309,13 +429,35 @@ public class NodelAdvertiser {
         
         public InetSocketAddress _recipient;
         
-        private Iterator<ServiceItem> _serviceIterator;
+        /**
+         * The recipient can handle "unchanged" responses.
+         */
+        private boolean _deltas;
+        
+        /**
+         * (see 'NameServicesChannelMessage.prober')
+         */
+        private String _prober;
+        
+        /**
+         * Paces the datagrams to this recipient (one busy prober doesn't hold up others)
+         */
+        private TokenBucket _pacer = new TokenBucket(RESPONSE_RATE, RESPONSE_BURST);
+        
+        /**
+         * The datagrams to send (null until first needed)
+         */
+        private List<byte[]> _packets;
         
-        public Responder(InetSocketAddress recipient) {
+        /**
+         * The next one to send.
+         */
+        private int _next;
+        
+        public Responder(InetSocketAddress recipient, boolean deltas, String prober) {
             _recipient = recipient;
-
-            // the service iterator
-            _serviceIterator = _servicesSnapshotProvider.handle().iterator();
+            _deltas = deltas;
+            _prober = prober;
         }
 
         /**
@@ -346,56 +488,36 @@ public class NodelAdvertiser {
          * Complete the necessary response, also a timer entry-point. 
          */
         private void completeResponse() {
-            // prepare a message
-            final NameServicesChannelMessage message = new NameServicesChannelMessage();
-            message.present = new ArrayList<String>();
+            if (_packets == null)
+                _packets = selectResponse(responses(), _recipient, _deltas, _prober, System.nanoTime());
             
-            // try keep the packets relatively small by roughly guessing how much space 
-            // its JSON advertisement packet might take up
+            // send as many as the pacer allows right now
+            final List<byte[]> batch = new ArrayList<byte[]>();
+            long wait = 0;
             
-            // account for "present"... 
-            // and "addresses":["tcp://136.154.27.100:65017","http://136.154.27.100:8085/index.htm?node=%NODE%"]
-            // so start off with approx. 110 chars
-            long roughTotalSize = 110;
-            
-            while(_serviceIterator.hasNext()) {
-                ServiceItem si = _serviceIterator.next();
-                
-                String name = si._name.getOriginalName();
-                
-                // calculate size to be the name, two inverted-commas, and a comma and a possible space in between. 
-                int size = name.length() + 4;
-                roughTotalSize += size;
-                
-                message.present.add(name);
-                
-                // make sure we're not going anywhere near UDP MTU (64K),
-                // in fact, squeeze them into packets similar to size of Ethernet MTU (~1400 MTU)
-                if (roughTotalSize > 1200)
+            while (_next < _packets.size()) {
+                wait = _pacer.tryTake();
+                if (wait > 0)
                     break;
-            } // (while)
-            
-            message.addresses = new ArrayList<String>();
-            message.addresses.add(nodelAddress());
-            message.addresses.add(_httpAddress);
+                
+                batch.add(_packets.get(_next++));
+            }
             
             // IO is involved so use thread-pool
-            // (and only send if the 'present' list is not empty)
-            
-            if (message.present.size() > 0) {
+            if (batch.size() > 0) {
                 Discovery.threadPool().execute(new Runnable() {
 
                     @Override
                     public void run() {
-                        sendResponse(_socket, _recipient, message);
+                        for (byte[] data : batch)
+                            sendResponse(_socket, _recipient, data);
                     }
 
                 });
             }
             
-            // do we need this completed in the very near future?
-            // if so, space out by at least 333ms.
-            if (_serviceIterator.hasNext()) {
+            // the rest when the pacer allows
+            if (_next < _packets.size()) {
                 
                 Discovery.timerThread().schedule(new TimerTask() {
 
@@ -404,7 +526,7 @@ public class NodelAdvertiser {
                         completeResponse();
                     }
                     
-                }, 333);
+                }, wait);
             } else {
                 synchronized(_responders) {
                     _responders.remove(_recipient);
@@ -415,18 +537,131 @@ public class NodelAdvertiser {
     } // (class)
     
     /**
-     * Sends the message to a recipient
+     * Selects the full or "unchanged" response for a recipient. An "unchanged" response is only used for
+     * recipients that can handle them, when the same prober instance (i.e. not restarted since) was sent the same
+     * snapshot in full recently and never twice in a row (so a lost datagram can't keep nodes out for long).
+     */
+    List<byte[]> selectResponse(Responses responses, SocketAddress recipient, boolean deltas, String prober, long now) {
+        if (responses.full.isEmpty())
+            return responses.full;
+        
+        synchronized (_lastSent) {
+            LastSent last = _lastSent.get(recipient);
+            
+            if (last == null) {
+                last = new LastSent();
+                _lastSent.put(recipient, last);
+            }
+            
+            if (deltas && prober != null && prober.equals(last.prober) && !last.unchanged && responses.snapshot.equals(last.snapshot)
+                    && (now - last.fullAt) / 1000000 < NodelAutoDNS.STALE_TIME) {
+                last.unchanged = true;
+                
+                return Collections.singletonList(responses.unchanged);
+            }
+            
+            last.snapshot = responses.snapshot;
+            last.prober = prober;
+            last.fullAt = now;
+            last.unchanged = false;
+            
+            return responses.full;
+        }
+    }
+    
+    /**
+     * The responses for the current services, composing them again only if the services have changed.
+     */
+    private Responses responses() {
+        Collection<ServiceItem> services = _servicesSnapshotProvider.handle();
+        
+        synchronized (_lock) {
+            if (_responses == null || _responses.services != services)
+                _responses = composeResponses(services);
+            
+            return _responses;
+        }
+    }
+    
+    /**
+     * Composes the full and "unchanged" responses for a new snapshot of the services.
+     */
+    private Responses composeResponses(Collection<ServiceItem> services) {
+        String snapshot = s_instanceToken + "-" + s_snapshotCounter.incrementAndGet();
+        
+        String addressesAndSnapshot = "\"addresses\":[" + JSONObject.quote(nodelAddress()) + "," + JSONObject.quote(_httpAddress) + "]," +
+                "\"snapshot\":" + JSONObject.quote(snapshot) + "}";
+        
+        List<String> names = new ArrayList<String>(services.size());
+        for (ServiceItem si : services)
+            names.add(si._name.getOriginalName());
+        
+        List<byte[]> full = packResponses(names, addressesAndSnapshot, MAX_RESPONSE_SIZE);
+        
+        byte[] unchanged = ("{" + addressesAndSnapshot).getBytes(UTF8Charset.instance());
+        
+        _logger.info("Composed responses for {} node{} into {} datagram{}. snapshot:{}", 
+                services.size(), services.size() == 1 ? "" : "s", full.size(), full.size() == 1 ? "" : "s", snapshot);
+        
+        return new Responses(services, snapshot, full, unchanged);
+    }
+    
+    /**
+     * Packs the names into as few datagrams as possible, each no larger than 'maxSize', i.e.
+     * {"present":["name1","name2",...],"addresses":["tcp://...","http://..."],"snapshot":"..."}
+     * ('addressesAndSnapshot' is everything after the "present" array, including the closing brace)
+     */
+    static List<byte[]> packResponses(List<String> names, String addressesAndSnapshot, int maxSize) {
+        byte[] head = "{\"present\":[".getBytes(UTF8Charset.instance());
+        byte[] tail = ("]," + addressesAndSnapshot).getBytes(UTF8Charset.instance());
+        
+        List<byte[]> full = new ArrayList<byte[]>();
+        ByteArrayOutputStream packet = new ByteArrayOutputStream(maxSize);
+        int count = 0;
+        
+        for (String original : names) {
+            byte[] name = JSONObject.quote(original).getBytes(UTF8Charset.instance());
+            
+            // (a name that doesn't fit on its own is still sent, alone)
+            if (count > 0 && packet.size() + 1 + name.length + tail.length > maxSize) {
+                packet.write(tail, 0, tail.length);
+                full.add(packet.toByteArray());
+                
+                packet.reset();
+                count = 0;
+            }
+            
+            if (count == 0)
+                packet.write(head, 0, head.length);
+            else
+                packet.write(',');
+            
+            packet.write(name, 0, name.length);
+            count++;
+        }
+        
+        if (count > 0) {
+            packet.write(tail, 0, tail.length);
+            full.add(packet.toByteArray());
+        }
+        
+        return full;
+    }
+    
+    /**
+     * Sends a response datagram to a recipient
      */
-    private void sendResponse(DatagramSocket socket, InetSocketAddress to, NameServicesChannelMessage message) {
+    private void sendResponse(DatagramSocket socket, InetSocketAddress to, byte[] data) {
         if (socket == null) {
             _logger.info("(cannot send any response; no socket is available)");
             return;
         }
 
         try {
-            _logger.info("Responding to probe. message:{}", message);
+            if (_logger.isInfoEnabled())
+                _logger.info("Responding to probe. message:{}", new String(data, UTF8Charset.instance()));
             
-            DatagramPacket dp = message.intoPacket(to); 
+            DatagramPacket dp = new DatagramPacket(data, data.length, to);
             socket.send(dp);
             
             Discovery.countOutgoingPacket(dp);
@@ -461,7 +696,7 @@ public class NodelAdvertiser {
 
             synchronized (_responders) {
                 if (!_responders.containsKey(from)) {
-                    Responder responder = new Responder(from);
+                    Responder responder = new Responder(from, message.deltas != null && message.deltas, message.prober);
                     _responders.put(from, responder);
 
                     int delay = message.delay == null ? 0 : message.delay.intValue();
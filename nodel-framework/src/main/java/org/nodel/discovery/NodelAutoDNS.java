@@ -10,11 +10,11 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -97,10 +97,15 @@ public class NodelAutoDNS extends AutoDNS {
      */
     private ConcurrentMap<SimpleName, ServiceItem> _services = new ConcurrentHashMap<SimpleName, ServiceItem>();
     
+    /**
+     * Immutable snap-shot of '_services', replaced whenever they change (so advertisers can tell by identity)
+     */
+    private volatile Collection<ServiceItem> _servicesSnapshot = Collections.emptyList();
+    
     /**
      * Holds the collected advertisements.
      */
-    private ConcurrentMap<SimpleName, AdvertisementInfo> _advertisements = new ConcurrentHashMap<SimpleName, AdvertisementInfo>();
+    private DiscoveryIndex _index = new DiscoveryIndex();
 
     /**
      * Whether or not we're probing for client. It will probe on start up and then deactivate.
@@ -220,7 +225,7 @@ public class NodelAutoDNS extends AutoDNS {
                     @Override
                     public Collection<ServiceItem> handle() {
                         // return a thread-safe collection
-                        return _services.values();
+                        return _servicesSnapshot;
                     }
                     
                 });
@@ -237,18 +242,21 @@ public class NodelAutoDNS extends AutoDNS {
         synchronized (_discoveryLock) {
             long now = System.nanoTime() / 1000000;
             for (String name : message.present) {
-                SimpleName node = new SimpleName(name);
-                AdvertisementInfo ad = _advertisements.get(node);
+                SimpleName node = SimpleName.intern(name);
+                AdvertisementInfo ad = _index.get(node);
                 
                 if (ad == null) {
                     ad = new AdvertisementInfo(node, message.addresses, now);
-                    _advertisements.put(node, ad);
+                    _index.add(node, ad);
                     
                 } else {
                     // refresh the name (its original name might be different), time stamp and addresses
-                    ad.refresh(node, message.addresses, now);
+                    if (ad.refresh(node, message.addresses, now))
+                        _index.changed(node);
                 }
             }
+            
+            _index.fireChanges();
         }
     }
 
@@ -298,14 +306,16 @@ public class NodelAutoDNS extends AutoDNS {
         List<SimpleName> toRemove = new LinkedList<>();
 
         synchronized (_discoveryLock) {
-            for (Entry<SimpleName, AdvertisementInfo> entry : _advertisements.entrySet()) {
-                SimpleName node = entry.getKey();
-                AdvertisementInfo adInfo = entry.getValue();
+            for (SimpleName node : _index.nodes()) {
+                AdvertisementInfo adInfo = _index.get(node);
                 
-                adInfo.removeStaleAddressesEntries(currentTime);
+                boolean changed = adInfo.removeStaleAddressesEntries(currentTime);
                 
                 if (adInfo.isStale())
                     toRemove.add(node);
+                
+                else if (changed)
+                    _index.changed(node);
             }
             
             // reap if necessary
@@ -316,9 +326,11 @@ public class NodelAutoDNS extends AutoDNS {
                     if (sb.length() > 0)
                         sb.append(",");
 
-                    _advertisements.remove(node);
+                    _index.remove(node);
                     sb.append(node.getReducedName());
                 }
+                
+                _index.fireChanges();
 
                 _logger.info("{} stale record{} removed. [{}]",
                         toRemove.size(), toRemove.size() == 1 ? " was" : "s were", sb.toString());
@@ -331,7 +343,7 @@ public class NodelAutoDNS extends AutoDNS {
     	// indicate client resolution is being used
     	_usingResolution = true;
     	
-        AdvertisementInfo adInfo = _advertisements.get(node);
+        AdvertisementInfo adInfo = _index.get(node);
         if (adInfo == null)
             return null;
         
@@ -384,6 +396,8 @@ public class NodelAutoDNS extends AutoDNS {
             ServiceItem si = new ServiceItem(node);
 
             _services.put(node, si);
+            
+            _servicesSnapshot = Collections.unmodifiableList(new ArrayList<>(_services.values()));
         }
     } // (method)
 
@@ -394,11 +408,39 @@ public class NodelAutoDNS extends AutoDNS {
                 throw new IllegalStateException(node + " is not advertised anyway.");
 
             _services.remove(node);
+            
+            _servicesSnapshot = Collections.unmodifiableList(new ArrayList<>(_services.values()));
         }        
     }    
 
+    /**
+     * (returns the same immutable snap-shot until the list changes)
+     */
     @Override
     public Collection<AdvertisementInfo> list() {
+        handleListActivity();
+
+        return _index.snapshot();
+    }
+    
+    @Override
+    public Collection<AdvertisementInfo> list(String filter) {
+        handleListActivity();
+        
+        return _index.find(filter);
+    }
+    
+    /**
+     * The index of the collected advertisements (e.g. for change notification)
+     */
+    public DiscoveryIndex getIndex() {
+        return _index;
+    }
+    
+    /**
+     * Keeps probing active while there are 'list' operations.
+     */
+    private void handleListActivity() {
     	long now = System.nanoTime();
     	
     	_lastList.set(now);
@@ -408,15 +450,6 @@ public class NodelAutoDNS extends AutoDNS {
 
         if (timeSinceProbe > LIST_ACTIVITY_PERIOD)
             sendProbes();
-
-        // create snap-shot
-        List<AdvertisementInfo> ads = new ArrayList<AdvertisementInfo>(_advertisements.size());
-        
-        synchronized (_discoveryLock) {
-            ads.addAll(_advertisements.values());
-        }
-        
-        return ads;
     }
     
     private void sendProbes() {
@@ -433,7 +466,7 @@ public class NodelAutoDNS extends AutoDNS {
         // indicate client resolution is being used
         _usingResolution = true;
         
-        return _advertisements.get(node);
+        return _index.get(node);
     }
 
     /**
@@ -15,12 +15,17 @@ import java.net.MulticastSocket;
 import java.net.NoRouteToHostException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 import org.nodel.Exceptions;
 import org.nodel.Handler;
+import org.nodel.Random;
 import org.nodel.Threads;
 import org.nodel.core.Nodel;
 import org.nodel.io.Stream;
@@ -86,6 +91,30 @@ public class NodelDiscoverer {
      */
     private InetAddress _intf;
     
+    /**
+     * Sent with probes so advertisers know when the snapshots below were lost (see 'NameServicesChannelMessage.prober')
+     */
+    private final String _proberID = Integer.toString(Random.shared().nextInt() & 0x7fffffff, 36);
+    
+    /**
+     * The most snapshots remembered (see 'NameServicesChannelMessage.snapshot')
+     */
+    private final static int MAX_SNAPSHOTS = 256;
+    
+    /**
+     * The names of recently seen snapshots, most recent last.
+     * (self locked)
+     */
+    @SuppressWarnings("serial")
+    private Map<String, Set<String>> _snapshots = new LinkedHashMap<String, Set<String>>(16, 0.75f, true) {
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+        
+    };
+    
     /**
      * (see public setter)
      */
@@ -286,6 +315,10 @@ public class NodelDiscoverer {
 
         message.discovery = discoveryList;
         message.types = typesList;
+        
+        // "unchanged" responses can be handled (for the snapshots this instance holds)
+        message.deltas = true;
+        message.prober = _proberID;
 
         // I/O is involved so use a thread-pool
         Discovery.threadPool().execute(new Runnable() {
@@ -329,9 +362,40 @@ public class NodelDiscoverer {
      * Handles a complete packet from the socket.
      */
     private void handleIncomingMessage(InetSocketAddress from, NameServicesChannelMessage message) {
-        if (message.present != null && message.addresses != null) {
+        if (message.addresses == null)
+            return;
+        
+        if (message.present != null) {
             _logger.info("Received probe response. message:{}", message);
             
+            // remember the names of the snapshot (can span several responses)
+            if (message.snapshot != null) {
+                synchronized (_snapshots) {
+                    Set<String> names = _snapshots.get(message.snapshot);
+                    if (names == null) {
+                        names = new HashSet<String>();
+                        _snapshots.put(message.snapshot, names);
+                    }
+                    names.addAll(message.present);
+                }
+            }
+            
+            Handler.tryHandle(_probeResponseHandler, message);
+            
+        } else if (message.snapshot != null) {
+            // "unchanged", so refresh the names from the snapshot
+            synchronized (_snapshots) {
+                Set<String> names = _snapshots.get(message.snapshot);
+                if (names == null) {
+                    _logger.info("Received 'unchanged' probe response for an unknown snapshot; ignoring. message:{}", message);
+                    return;
+                }
+                
+                message.present = new ArrayList<String>(names);
+            }
+            
+            _logger.info("Received 'unchanged' probe response. message:{}", message);
+            
             Handler.tryHandle(_probeResponseHandler, message);
         }
     }    
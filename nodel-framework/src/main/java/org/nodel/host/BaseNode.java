@@ -3,6 +3,7 @@ package org.nodel.host;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,6 +28,7 @@ import org.nodel.core.NodelClientEvent;
 import org.nodel.core.NodelServerAction;
 import org.nodel.core.NodelServerEvent;
 import org.nodel.core.NodelClients.NodeURL;
+import org.nodel.diagnostics.LatencyStats;
 import org.nodel.discovery.AdvertisementInfo;
 import org.nodel.discovery.AutoDNS;
 import org.nodel.host.LogEntry.Source;
@@ -173,6 +175,12 @@ public abstract class BaseNode implements Closeable {
      */
     private LinkedList<ConsoleLogEntry> _console = new LinkedList<ConsoleLogEntry>();
     
+    /**
+     * Holds console streamers.
+     * (locked around 'console')
+     */
+    private Handlers.H1<ConsoleLogEntry> _consoleStreamerHandlers = new Handlers.H1<>();
+    
     /**
      * The time this node instance was started.
      */
@@ -389,6 +397,8 @@ public abstract class BaseNode implements Closeable {
             
             _console.add(entry);
             
+            _consoleStreamerHandlers.updateAllUnsynchronized(entry);
+            
             if (_console.size() > 1000)
                 _console.removeFirst();
             
@@ -396,6 +406,36 @@ public abstract class BaseNode implements Closeable {
         }
     } // (method)
     
+    /**
+     * Adds a console stream handler (e.g. a push connection), returning the entries from the given
+     * sequence number onwards (oldest first). The handler must not block.
+     */
+    public List<ConsoleLogEntry> registerConsoleHandler(Handler.H1<ConsoleLogEntry> handler, long from) {
+        synchronized (_console) {
+            _consoleStreamerHandlers.addHandler(handler);
+
+            if (_consoleSeqCounter < from)
+                from = 0;
+
+            List<ConsoleLogEntry> backlog = new ArrayList<ConsoleLogEntry>();
+            for (ConsoleLogEntry entry : _console) {
+                if (entry.seq >= from)
+                    backlog.add(entry);
+            }
+
+            return backlog;
+        }
+    }
+    
+    /**
+     * Unregisters a console stream handler.
+     */
+    public void unregisterConsoleHandler(Handler.H1<ConsoleLogEntry> handler) {
+        synchronized (_console) {
+            _consoleStreamerHandlers.removeHandler(handler);
+        }
+    }
+    
     /**
      * Logs general log 
      */
@@ -500,6 +540,27 @@ public abstract class BaseNode implements Closeable {
         }
     }
     
+    /**
+     * Same as 'registerActivityHandler' except returns the log entries from the given sequence
+     * number onwards (oldest first) instead of the current activity state.
+     */
+    public List<LogEntry> registerLogHandler(Handler.H1<LogEntry> handler, long from) {
+        synchronized (_logs) {
+            _logStreamerHandlers.addHandler(handler);
+
+            if (_logsSeqCounter < from)
+                from = 0;
+
+            List<LogEntry> backlog = new ArrayList<LogEntry>();
+            for (LogEntry entry : _logs) {
+                if (entry.seq >= from)
+                    backlog.add(entry);
+            }
+
+            return backlog;
+        }
+    }
+    
     /**
      * Unregisters an activity stream handler.
      */
@@ -846,6 +907,19 @@ public abstract class BaseNode implements Closeable {
         return _remoteEvents;
     }
 
+    @Service(name = "latencies", title = "Latencies", desc = "Queue, handler and transit latencies of the local actions and remote events.", genericClassA = String.class, genericClassB = LatencyStats.class)
+    public Map<String, LatencyStats> getLatencies() {
+        Map<String, LatencyStats> result = new LinkedHashMap<String, LatencyStats>();
+        
+        for (NodelServerAction action : _localActions.values())
+            result.put("action " + action.getAction().getReducedName(), action.getLatency());
+        
+        for (NodelClientEvent event : _remoteEvents.values())
+            result.put("remoteEvent " + event.getName().getReducedName(), event.getLatency());
+        
+        return result;
+    }
+
     /**
      * Add a remote action (by subclass)
      */
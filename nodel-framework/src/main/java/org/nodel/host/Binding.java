@@ -114,6 +114,24 @@ public class Binding {
     @Value(name = "order", title = "order", order = 7)
     public double order;
     
+    /**
+     * (local events only)
+     */
+    @Value(name = "maxRate", title = "Max rate", order = 8, required = false, desc = "The most times per second this event is published (the rest are suppressed).")
+    public Double maxRate;
+    
+    /**
+     * (local events only, applies with 'maxRate')
+     */
+    @Value(name = "coalesce", title = "Coalesce", order = 9, required = false, desc = "Publish the latest suppressed value at the end of each rate window.")
+    public Boolean coalesce;
+    
+    /**
+     * (local events only)
+     */
+    @Value(name = "deadband", title = "Deadband", order = 10, required = false, desc = "Numeric values closer than this to the last published value are suppressed.")
+    public Double deadband;
+    
     public String toString() {
         return Serialisation.serialise(this); 
     } // (method)
@@ -118,20 +118,26 @@ public class BufferBuilder {
      * Returns a UTF8 encoded trimmed string or null if its empty
      */
     public String getTrimmedString() {
-        int end = _size;
-        if (end > 0) {
+        return getTrimmedString(_buffer, 0, _size);
+    }
+    
+    /**
+     * Same as above but for a region of any buffer.
+     */
+    public static String getTrimmedString(byte[] buffer, int offset, int len) {
+        int end = offset + len;
+        if (len > 0) {
             // trim
-            int offset = 0;
-            while (offset < end && _buffer[offset] <= ' ')
+            while (offset < end && buffer[offset] <= ' ')
                 offset++;
 
-            while (offset < end && _buffer[end - 1] <= ' ')
+            while (offset < end && buffer[end - 1] <= ' ')
                 end--;
 
             // make sure there still something after the
             if (offset < end) {
                 // String trimmed = new String(_buffer, offset, end - offset, UTF8Charset.instance());
-                String trimmed = bufferToString(_buffer, offset, end-offset);
+                String trimmed = bufferToString(buffer, offset, end-offset);
                 return trimmed;
             }
         }
@@ -0,0 +1,196 @@
+package org.nodel.io.framing;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+
+import org.nodel.Handler.H1;
+import org.nodel.io.BufferBuilder;
+
+/**
+ * Frames on any of a set of delimiter characters (the delimiters themselves are not included).
+ * 
+ * Uses a byte-indexed lookup table so any number of delimiters costs a single array access per byte. 
+ * Frames that fall entirely within a chunk are passed through without copying.
+ */
+public class DelimiterFramer implements Framer {
+    
+    /**
+     * The maximum frame allowed between delimiters (default 2 MB)
+     */
+    public final static int DEFAULT_MAX_FRAME = 2 * 1024 * 1024;
+    
+    /**
+     * The delimiter lookup table.
+     */
+    private boolean[] _table;
+    
+    /**
+     * Holds frames that span chunks.
+     * (start off small, will grow as needed)
+     */
+    private BufferBuilder _bb = new BufferBuilder(256);
+    
+    /**
+     * (see constructor)
+     */
+    private int _maxFrame;
+    
+    /**
+     * (see setter)
+     */
+    private H1<IOException> _overflowHandler;
+    
+    /**
+     * Set after an overflow while the rest of the oversized frame (up to the next delimiter) is dropped.
+     */
+    private boolean _discarding;
+    
+    /**
+     * (constructor)
+     */
+    public DelimiterFramer(String delimiters, int maxFrame) {
+        if (delimiters == null || delimiters.length() == 0)
+            throw new IllegalArgumentException("At least one delimiter is required.");
+        
+        if (maxFrame <= 0)
+            throw new IllegalArgumentException("Maximum frame size must be positive.");
+        
+        _table = delimiterTable(delimiters);
+        _maxFrame = maxFrame;
+    }
+    
+    /**
+     * (overloaded, uses default max frame)
+     */
+    public DelimiterFramer(String delimiters) {
+        this(delimiters, DEFAULT_MAX_FRAME);
+    }
+    
+    /**
+     * Changes the delimiters (partial frames are kept)
+     */
+    public void setDelimiters(String delimiters) {
+        if (delimiters == null || delimiters.length() == 0)
+            throw new IllegalArgumentException("At least one delimiter is required.");
+        
+        _table = delimiterTable(delimiters);
+    }
+    
+    /**
+     * When set, frames that are too large are discarded, the handler notified and framing continues
+     * from the next delimiter instead of an exception being raised.
+     */
+    public void setOverflowHandler(H1<IOException> handler) {
+        _overflowHandler = handler;
+    }
+
+    @Override
+    public void feed(byte[] buffer, int offset, int len, FrameHandler handler) throws IOException {
+        boolean[] table = _table;
+        BufferBuilder bb = _bb;
+        
+        int end = offset + len;
+        
+        // start of the current frame within the buffer
+        int frameStart = offset;
+        
+        for (int a = offset; a < end; a++) {
+            if (!table[buffer[a] & 0xff])
+                continue;
+            
+            int frameLen = a - frameStart;
+            
+            if (_discarding) {
+                // the end of an oversized frame, so drop its tail and resume framing
+                _discarding = false;
+                
+            } else if (bb.getSize() == 0) {
+                // entirely within this chunk, so no copying necessary
+                if (frameLen <= _maxFrame)
+                    handler.handleFrame(buffer, frameStart, frameLen);
+                else
+                    overflow(frameLen);
+                
+            } else if (checkFrameSize(bb.getSize() + frameLen)) {
+                bb.append(buffer, frameStart, frameLen);
+                handler.handleFrame(bb.getBuffer(), 0, bb.getSize());
+                bb.reset();
+            }
+            
+            frameStart = a + 1;
+        } // (for)
+        
+        // keep any trailing partial frame
+        int remaining = end - frameStart;
+        if (remaining > 0 && !_discarding) {
+            if (checkFrameSize(bb.getSize() + remaining))
+                bb.append(buffer, frameStart, remaining);
+            else
+                // (the rest of it is dropped too as it arrives)
+                _discarding = true;
+        }
+    }
+    
+    /**
+     * Returns true if the frame can be accommodated, otherwise deals with the overflow.
+     */
+    private boolean checkFrameSize(int size) throws IOException {
+        if (size <= _maxFrame)
+            return true;
+        
+        overflow(size);
+        return false;
+    }
+    
+    /**
+     * (convenience method)
+     */
+    private void overflow(int size) throws IOException {
+        IOException exc = new IOException("Too much data arrived (at least " + size / 1024 + " KB) before any delimeter was present.");
+        
+        if (_overflowHandler == null)
+            throw exc;
+        
+        // dump what's in the buffer and continue
+        _bb.reset();
+        _overflowHandler.handle(exc);
+    }
+
+    @Override
+    public void flush(FrameHandler handler) {
+        if (_bb.getSize() > 0)
+            handler.handleFrame(_bb.getBuffer(), 0, _bb.getSize());
+        
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        _bb.reset();
+        _discarding = false;
+    }
+    
+    /**
+     * Builds a byte-indexed lookup table of the delimiters.
+     */
+    private static boolean[] delimiterTable(String delims) {
+        boolean[] table = new boolean[256];
+        
+        int len = delims.length();
+        for (int a = 0; a < len; a++) {
+            char c = delims.charAt(a);
+            
+            // (characters outside of byte range could never match)
+            if (c < 256)
+                table[c] = true;
+        }
+        
+        return table;
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.nodel.io.framing;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+/**
+ * Frames on a fixed number of bytes.
+ */
+public class FixedLengthFramer implements Framer {
+    
+    /**
+     * (see constructor)
+     */
+    private int _length;
+    
+    /**
+     * Holds frames that span chunks.
+     */
+    private byte[] _partial;
+    
+    /**
+     * How much of the partial frame has been filled.
+     */
+    private int _partialSize;
+    
+    /**
+     * (constructor)
+     */
+    public FixedLengthFramer(int length) {
+        if (length <= 0 || length > DelimiterFramer.DEFAULT_MAX_FRAME)
+            throw new IllegalArgumentException("Length must be positive and no larger than " + DelimiterFramer.DEFAULT_MAX_FRAME);
+        
+        _length = length;
+        _partial = new byte[length];
+    }
+
+    @Override
+    public void feed(byte[] buffer, int offset, int len, FrameHandler handler) {
+        int end = offset + len;
+        
+        // complete any partial frame first
+        if (_partialSize > 0) {
+            int needed = Math.min(_length - _partialSize, len);
+            System.arraycopy(buffer, offset, _partial, _partialSize, needed);
+            _partialSize += needed;
+            offset += needed;
+            
+            if (_partialSize < _length)
+                return;
+            
+            handler.handleFrame(_partial, 0, _length);
+            _partialSize = 0;
+        }
+        
+        // whole frames straight from the buffer
+        while (end - offset >= _length) {
+            handler.handleFrame(buffer, offset, _length);
+            offset += _length;
+        }
+        
+        // keep the remainder
+        int remaining = end - offset;
+        if (remaining > 0) {
+            System.arraycopy(buffer, offset, _partial, 0, remaining);
+            _partialSize = remaining;
+        }
+    }
+
+    @Override
+    public void flush(FrameHandler handler) {
+        // (an incomplete frame is meaningless)
+        _partialSize = 0;
+    }
+
+    @Override
+    public void reset() {
+        _partialSize = 0;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.nodel.io.framing;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+
+/**
+ * Assembles frames (packets, lines, etc.) from a stream of bytes as they arrive.
+ * 
+ * Framers are stateful so an instance must only be used by one stream at a time; 'reset' is 
+ * called whenever a new stream starts (e.g. on reconnect).
+ * (not thread-safe)
+ */
+public interface Framer {
+    
+    /**
+     * Receives complete frames. 
+     * (the buffer is reused so the region must be copied if it is to be retained)
+     */
+    public interface FrameHandler {
+        
+        public void handleFrame(byte[] buffer, int offset, int len);
+        
+    }
+    
+    /**
+     * Consumes a chunk of the stream, calling the handler for every frame completed by it.
+     * An exception is raised if the stream cannot be framed (which normally drops the connection)
+     */
+    public void feed(byte[] buffer, int offset, int len, FrameHandler handler) throws IOException;
+    
+    /**
+     * The stream has ended; passes through any partial frame if it is meaningful to do so.
+     */
+    public void flush(FrameHandler handler);
+    
+    /**
+     * Discards any partial frame.
+     */
+    public void reset();
+
+}
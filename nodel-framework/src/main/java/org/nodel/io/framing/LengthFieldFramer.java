@@ -0,0 +1,183 @@
+package org.nodel.io.framing;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+
+import org.nodel.Formatting;
+import org.nodel.io.BufferBuilder;
+
+/**
+ * Frames using a length field found at a fixed position in each frame (the header).
+ * 
+ * The total frame length is: fieldOffset + fieldSize + (field value) + adjustment, i.e. by default the
+ * value counts the bytes after the length field. A negative adjustment can be used when the value includes 
+ * the header itself, a positive one for trailing checksums, etc. The whole frame (including header) is passed on.
+ */
+public class LengthFieldFramer implements Framer {
+    
+    /**
+     * (see constructor)
+     */
+    private int _fieldOffset;
+    
+    /**
+     * (see constructor)
+     */
+    private int _fieldSize;
+    
+    /**
+     * (see constructor)
+     */
+    private boolean _bigEndian;
+    
+    /**
+     * (see constructor)
+     */
+    private int _adjustment;
+    
+    /**
+     * (see constructor)
+     */
+    private int _maxFrame;
+    
+    /**
+     * Holds frames that span chunks.
+     */
+    private BufferBuilder _bb = new BufferBuilder(256);
+    
+    /**
+     * The length of the frame being assembled or -1 if the header hasn't been read yet.
+     */
+    private int _frameLength = -1;
+    
+    /**
+     * (constructor)
+     * 
+     * @param fieldSize 1, 2, 3 or 4 bytes (unsigned)
+     */
+    public LengthFieldFramer(int fieldOffset, int fieldSize, boolean bigEndian, int adjustment, int maxFrame) {
+        if (fieldOffset < 0)
+            throw new IllegalArgumentException("Field offset cannot be negative.");
+        
+        if (fieldSize < 1 || fieldSize > 4)
+            throw new IllegalArgumentException("Field size must be 1, 2, 3 or 4 bytes.");
+        
+        if (maxFrame <= 0)
+            throw new IllegalArgumentException("Maximum frame size must be positive.");
+        
+        _fieldOffset = fieldOffset;
+        _fieldSize = fieldSize;
+        _bigEndian = bigEndian;
+        _adjustment = adjustment;
+        _maxFrame = maxFrame;
+    }
+    
+    /**
+     * (overloaded, uses default max frame)
+     */
+    public LengthFieldFramer(int fieldOffset, int fieldSize, boolean bigEndian, int adjustment) {
+        this(fieldOffset, fieldSize, bigEndian, adjustment, DelimiterFramer.DEFAULT_MAX_FRAME);
+    }
+    
+    @Override
+    public void feed(byte[] buffer, int offset, int len, FrameHandler handler) throws IOException {
+        int end = offset + len;
+        int headerSize = _fieldOffset + _fieldSize;
+        
+        while (offset < end) {
+            if (_bb.getSize() == 0) {
+                // fast path: whole frames straight from the buffer
+                int available = end - offset;
+                if (available < headerSize)
+                    break;
+                
+                int frameLength = frameLength(buffer, offset);
+                if (available < frameLength)
+                    break;
+                
+                handler.handleFrame(buffer, offset, frameLength);
+                offset += frameLength;
+                
+            } else {
+                // assembling a frame that spans chunks
+                if (_frameLength < 0) {
+                    // need the header
+                    int needed = Math.min(headerSize - _bb.getSize(), end - offset);
+                    _bb.append(buffer, offset, needed);
+                    offset += needed;
+                    
+                    if (_bb.getSize() < headerSize)
+                        return;
+                    
+                    _frameLength = frameLength(_bb.getBuffer(), 0);
+                }
+                
+                int needed = Math.min(_frameLength - _bb.getSize(), end - offset);
+                _bb.append(buffer, offset, needed);
+                offset += needed;
+                
+                if (_bb.getSize() < _frameLength)
+                    return;
+                
+                handler.handleFrame(_bb.getBuffer(), 0, _frameLength);
+                
+                _bb.reset();
+                _frameLength = -1;
+            }
+        } // (while)
+        
+        // keep the remainder
+        if (offset < end) {
+            _bb.append(buffer, offset, end - offset);
+            
+            if (_bb.getSize() >= headerSize)
+                _frameLength = frameLength(_bb.getBuffer(), 0);
+        }
+    }
+    
+    /**
+     * Reads and validates the total frame length from the header at the given position.
+     */
+    private int frameLength(byte[] buffer, int frameOffset) throws IOException {
+        long value = 0;
+        
+        int start = frameOffset + _fieldOffset;
+        for (int a = 0; a < _fieldSize; a++) {
+            int b = buffer[start + a] & 0xff;
+            
+            if (_bigEndian)
+                value = (value << 8) | b;
+            else
+                value |= ((long) b) << (8 * a);
+        }
+        
+        long frameLength = _fieldOffset + _fieldSize + value + _adjustment;
+        
+        if (frameLength > _maxFrame)
+            throw new IOException("Length field indicates frame is too large to accept (" + Formatting.formatByteLength(frameLength) + ").");
+        
+        // the frame must at least contain its own header
+        if (frameLength < _fieldOffset + _fieldSize)
+            throw new IOException("Length field indicates frame is shorter than its header (" + frameLength + " bytes).");
+        
+        return (int) frameLength;
+    }
+
+    @Override
+    public void flush(FrameHandler handler) {
+        // (an incomplete frame is meaningless)
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        _bb.reset();
+        _frameLength = -1;
+    }
+
+}
@@ -0,0 +1,172 @@
+package org.nodel.io.framing;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.nodel.io.BufferBuilder;
+
+/**
+ * Frames on matches of a regular expression, each match being a frame; any data between matches is discarded.
+ * 
+ * Bytes are matched as 8-bit characters (ISO-8859-1) so binary patterns can be used, e.g. "\x02[^\x03]*\x03".
+ * A match that runs up to the end of the data received so far is held back until more data arrives in case 
+ * it would extend further.
+ * 
+ * Leading data that can't be the start of a match, even with more data, is skipped as it arrives so only a single
+ * (partial) match longer than the maximum frame size is treated as an error. Nothing beyond a match that's still
+ * pending is scanned so as data arrives only that match is retried (from its start).
+ */
+public class RegexFramer implements Framer {
+    
+    /**
+     * (see constructor)
+     */
+    private Pattern _pattern;
+    
+    /**
+     * (see constructor)
+     */
+    private int _maxFrame;
+    
+    /**
+     * Unmatched data so far.
+     */
+    private BufferBuilder _bb = new BufferBuilder(256);
+    
+    /**
+     * Unmatched data as 8-bit characters (kept in step with '_bb')
+     */
+    private StringBuilder _chars = new StringBuilder();
+    
+    /**
+     * (constructor)
+     */
+    public RegexFramer(String pattern, int maxFrame) {
+        if (pattern == null || pattern.length() == 0)
+            throw new IllegalArgumentException("A pattern is required.");
+        
+        if (maxFrame <= 0)
+            throw new IllegalArgumentException("Maximum frame size must be positive.");
+        
+        _pattern = Pattern.compile(pattern, Pattern.DOTALL);
+        _maxFrame = maxFrame;
+    }
+    
+    /**
+     * (overloaded, uses default max frame)
+     */
+    public RegexFramer(String pattern) {
+        this(pattern, DelimiterFramer.DEFAULT_MAX_FRAME);
+    }
+
+    @Override
+    public void feed(byte[] buffer, int offset, int len, FrameHandler handler) throws IOException {
+        _bb.append(buffer, offset, len);
+        
+        int end = offset + len;
+        for (int a = offset; a < end; a++)
+            _chars.append((char) (buffer[a] & 0xff));
+        
+        Matcher matcher = _pattern.matcher(_chars);
+        
+        // (anchors and look-arounds still see the whole data)
+        matcher.useAnchoringBounds(false);
+        matcher.useTransparentBounds(true);
+        
+        int length = _chars.length();
+        
+        // everything before the first possible start was discarded last time, so scanning resumes from 
+        // there and stops at the first match (or possible match) that needs more data
+        int start = 0;
+        
+        while (start < length) {
+            matcher.region(start, length);
+            
+            boolean matched = matcher.lookingAt();
+            
+            // might the match extend (or only start) with more data?
+            if (matcher.hitEnd())
+                break;
+            
+            if (!matched) {
+                // junk
+                start++;
+                continue;
+            }
+            
+            int matchEnd = matcher.end();
+            
+            if (matchEnd - start > _maxFrame)
+                throw tooLarge(matchEnd - start);
+            
+            if (matchEnd > start)
+                handler.handleFrame(_bb.getBuffer(), start, matchEnd - start);
+            
+            // (guard against empty matches)
+            start = Math.max(matchEnd, start + 1);
+        }
+        
+        if (start > 0)
+            discard(start);
+        
+        if (_bb.getSize() > _maxFrame)
+            throw tooLarge(_bb.getSize());
+    }
+    
+    /**
+     * (convenience method)
+     */
+    private static IOException tooLarge(int size) {
+        return new IOException("Too much data arrived (at least " + size / 1024 + " KB) for a single match of the pattern.");
+    }
+    
+    /**
+     * Discards the given number of leading bytes.
+     */
+    private void discard(int count) {
+        int remaining = _bb.getSize() - count;
+        
+        if (remaining <= 0) {
+            _bb.reset();
+            _chars.setLength(0);
+            return;
+        }
+        
+        byte[] data = _bb.getBuffer();
+        System.arraycopy(data, count, data, 0, remaining);
+        _bb.reset();
+        _bb.append(data, 0, remaining);
+        
+        _chars.delete(0, count);
+    }
+
+    @Override
+    public void flush(FrameHandler handler) {
+        // the stream has ended so matches can no longer extend
+        Matcher matcher = _pattern.matcher(_chars);
+        
+        int consumed = 0;
+        while (consumed < _chars.length() && matcher.find(consumed)) {
+            if (matcher.end() > matcher.start())
+                handler.handleFrame(_bb.getBuffer(), matcher.start(), matcher.end() - matcher.start());
+            
+            consumed = Math.max(matcher.end(), matcher.start() + 1);
+        }
+        
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        _bb.reset();
+        _chars.setLength(0);
+    }
+
+}
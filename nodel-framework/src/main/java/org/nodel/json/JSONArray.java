@@ -141,7 +141,8 @@ public class JSONArray {
      *  @throws JSONException If there is a syntax error.
      */
     public JSONArray(String source) throws JSONException {
-        this(new JSONTokener(source));
+        this();
+        new JSONReader(source).readArray(this);
     }
 
 
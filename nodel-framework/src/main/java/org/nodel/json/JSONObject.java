@@ -330,7 +330,8 @@ public class JSONObject {
      *  string or a duplicated key.
      */
     public JSONObject(String source) throws JSONException {
-        this(new JSONTokener(source));
+        this();
+        new JSONReader(source).readObject(this);
     }
 
 
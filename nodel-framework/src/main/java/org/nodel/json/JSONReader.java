@@ -0,0 +1,973 @@
+package org.nodel.json;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A pull-style JSON tokenizer that reads through text a token at a time instead of building a tree, e.g.
+ *
+ *   BEGIN_OBJECT, NAME "a", NUMBER 1, NAME "b", BEGIN_ARRAY, STRING "x", END_ARRAY, END_OBJECT, END
+ *
+ * Numbers are parsed straight into primitives ('getLong', 'getDouble') without boxing, strings without escapes are
+ * taken straight out of the buffer and repeated names share the same string.
+ *
+ * Accepts the same (lenient) text as 'JSONTokener' does and values come out the same way too, i.e. single quotes,
+ * unquoted strings, case-insensitive true / false / null, '=' or '=>' after names, ';' between entries, trailing commas
+ * and empty array elements (as nulls). Unquoted numbers that don't fit a long or a finite double are strings.
+ *
+ * 'readValue' builds the 'JSONObject' / 'JSONArray' tree for the next value, so trees and tokens can be mixed.
+ *
+ * (not thread-safe)
+ */
+public class JSONReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END
+    }
+
+    /**
+     * What ends unquoted values (same as 'JSONTokener'), by character.
+     */
+    private final static boolean[] DELIMITERS = new boolean[128];
+
+    static {
+        for (char c : ",:]}/\\\"[{;=#".toCharArray())
+            DELIMITERS[c] = true;
+    }
+
+    /**
+     * Exact powers of ten for the fast double path.
+     */
+    private final static double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    // (positions in the structure)
+
+    private final static int DOCUMENT = 0;
+
+    private final static int DOCUMENT_DONE = 1;
+
+    private final static int OBJECT_START = 2;
+
+    private final static int OBJECT_NAME = 3;
+
+    private final static int OBJECT_VALUE = 4;
+
+    private final static int ARRAY_START = 5;
+
+    private final static int ARRAY_VALUE = 6;
+
+    /**
+     * (null if reading from text)
+     */
+    private final Reader _reader;
+
+    /**
+     * (null if reading from a reader)
+     */
+    private CharSequence _text;
+
+    /**
+     * How much of the text has been copied into the buffer.
+     */
+    private int _textPos;
+
+    private char[] _buffer;
+
+    private int _pos;
+
+    private int _limit;
+
+    /**
+     * (characters discarded before the buffer, for error positions)
+     */
+    private long _offset;
+
+    private int[] _stack = new int[32];
+
+    private int _depth = 1;
+
+    /**
+     * (when 'peek' has been used)
+     */
+    private Token _peeked;
+
+    private Token _token;
+
+    // the current token's value
+
+    private String _string;
+
+    private boolean _integral;
+
+    private long _long;
+
+    private double _double;
+
+    private boolean _boolean;
+
+    /**
+     * Shared names, indexed by hash.
+     */
+    private final String[] _names = new String[512];
+
+    /**
+     * (for tokens that don't fit in the buffer or have escapes)
+     */
+    private final StringBuilder _sb = new StringBuilder();
+
+    public JSONReader(CharSequence text) {
+        _text = text;
+        _reader = null;
+        _buffer = new char[Math.max(16, Math.min(text.length(), 8192))];
+        _stack[0] = DOCUMENT;
+    }
+
+    public JSONReader(Reader reader) {
+        _text = null;
+        _reader = reader;
+        _buffer = new char[8192];
+        _stack[0] = DOCUMENT;
+    }
+
+    /**
+     * Starts over with another text, keeping the buffers and shared names, e.g. for a stream of small documents read
+     * one after the other on the same thread.
+     * (only for readers of text)
+     */
+    public void reset(CharSequence text) {
+        if (_reader != null)
+            throw new IllegalStateException("Not reading from text");
+
+        int size = Math.min(text.length(), 8192);
+        if (_buffer.length < size)
+            _buffer = new char[size];
+
+        _text = text;
+        _textPos = 0;
+        _pos = 0;
+        _limit = 0;
+        _offset = 0;
+        _depth = 1;
+        _stack[0] = DOCUMENT;
+        _peeked = null;
+        _token = null;
+        _string = null;
+    }
+
+    /**
+     * Moves to the next token.
+     */
+    public Token next() throws JSONException {
+        if (_peeked != null) {
+            _token = _peeked;
+            _peeked = null;
+        } else {
+            _token = advance();
+        }
+
+        return _token;
+    }
+
+    /**
+     * The next token without moving to it (its value is only available once moved to)
+     */
+    public Token peek() throws JSONException {
+        if (_peeked == null)
+            _peeked = advance();
+
+        return _peeked;
+    }
+
+    private Token advance() throws JSONException {
+        char c;
+
+        switch (_stack[_depth - 1]) {
+            case DOCUMENT:
+                _stack[_depth - 1] = DOCUMENT_DONE;
+                return readValueToken(nextClean());
+
+            case DOCUMENT_DONE:
+                // (like 'JSONObject', anything after the value is ignored)
+                return Token.END;
+
+            case OBJECT_START:
+                c = nextClean();
+                if (c == '}') {
+                    _depth--;
+                    return Token.END_OBJECT;
+                }
+                return readName(c);
+
+            case OBJECT_NAME:
+                // (also tolerates '=' or '=>')
+                c = nextClean();
+                if (c == '=') {
+                    if (read() != '>')
+                        unread();
+
+                } else if (c != ':') {
+                    throw syntaxError("Expected a ':' after a key");
+                }
+
+                _stack[_depth - 1] = OBJECT_VALUE;
+                return readValueToken(nextClean());
+
+            case OBJECT_VALUE:
+                // (also tolerates ';')
+                c = nextClean();
+                if (c == ',' || c == ';')
+                    c = nextClean();
+                else if (c != '}')
+                    throw syntaxError("Expected a ',' or '}'");
+
+                if (c == '}') {
+                    _depth--;
+                    return Token.END_OBJECT;
+                }
+                return readName(c);
+
+            case ARRAY_START:
+                c = nextClean();
+                if (c == ']') {
+                    _depth--;
+                    return Token.END_ARRAY;
+                }
+                return readElement(c);
+
+            case ARRAY_VALUE:
+            default:
+                c = nextClean();
+                if (c == ']') {
+                    _depth--;
+                    return Token.END_ARRAY;
+                }
+
+                if (c != ',' && c != ';')
+                    throw syntaxError("Expected a ',' or ']'");
+
+                c = nextClean();
+                if (c == ']') {
+                    _depth--;
+                    return Token.END_ARRAY;
+                }
+                return readElement(c);
+        }
+    }
+
+    /**
+     * The current NAME or STRING, or the text of any other value (as the tree would convert it, null for NULL)
+     */
+    public String getString() {
+        if (_token == Token.NUMBER)
+            return numberToString();
+
+        return _string;
+    }
+
+    /**
+     * Whether the current NUMBER has no fraction or exponent (and fits a long)
+     */
+    public boolean isIntegral() {
+        return _integral;
+    }
+
+    /**
+     * The current NUMBER (truncated if not integral)
+     */
+    public long getLong() {
+        return _integral ? _long : (long) _double;
+    }
+
+    /**
+     * The current NUMBER.
+     */
+    public double getDouble() {
+        return _integral ? _long : _double;
+    }
+
+    /**
+     * The current BOOLEAN.
+     */
+    public boolean getBoolean() {
+        return _boolean;
+    }
+
+    /**
+     * The current scalar value as the tree holds it, i.e. String, Integer, Long, Double, Boolean or 'JSONObject.NULL'
+     */
+    public Object getValue() {
+        switch (_token) {
+            case NUMBER:
+                if (!_integral)
+                    return _double;
+                else if (_long == (int) _long)
+                    return (int) _long;
+                else
+                    return _long;
+
+            case BOOLEAN:
+                return _boolean;
+
+            case NULL:
+                return JSONObject.NULL;
+
+            default:
+                return _string;
+        }
+    }
+
+    /**
+     * Skips over the next value (including everything within it)
+     */
+    public void skipValue() throws JSONException {
+        int depth = 0;
+
+        do {
+            switch (next()) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    depth++;
+                    break;
+
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+
+                case END:
+                    throw syntaxError("Missing value");
+
+                default:
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Reads the next value as a tree, i.e. a 'JSONObject', 'JSONArray' or a scalar as 'getValue'
+     */
+    public Object readValue() throws JSONException {
+        Token token = next();
+
+        switch (token) {
+            case BEGIN_OBJECT:
+                JSONObject object = new JSONObject();
+                readObjectEntries(object);
+                return object;
+
+            case BEGIN_ARRAY:
+                JSONArray array = new JSONArray();
+                readArrayElements(array);
+                return array;
+
+            case END:
+                throw syntaxError("Missing value");
+
+            case END_OBJECT:
+            case END_ARRAY:
+            case NAME:
+                throw syntaxError("Expected a value");
+
+            default:
+                return getValue();
+        }
+    }
+
+    /**
+     * Reads the next value, which must be an object, into a tree.
+     */
+    public void readObject(JSONObject object) throws JSONException {
+        if (next() != Token.BEGIN_OBJECT)
+            throw syntaxError("A JSONObject text must begin with '{'");
+
+        readObjectEntries(object);
+    }
+
+    /**
+     * Reads the next value, which must be an array, into a tree.
+     */
+    public void readArray(JSONArray array) throws JSONException {
+        if (next() != Token.BEGIN_ARRAY)
+            throw syntaxError("A JSONArray text must start with '['");
+
+        readArrayElements(array);
+    }
+
+    /**
+     * (BEGIN_OBJECT has been read)
+     */
+    private void readObjectEntries(JSONObject object) throws JSONException {
+        while (next() == Token.NAME)
+            object.putOnce(_string, readValue());
+    }
+
+    /**
+     * (BEGIN_ARRAY has been read)
+     */
+    private void readArrayElements(JSONArray array) throws JSONException {
+        while (peek() != Token.END_ARRAY)
+            array.put(readValue());
+
+        next();
+    }
+
+    public JSONException syntaxError(String message) {
+        return new JSONException(message + " at " + (_offset + _pos));
+    }
+
+    /**
+     * (the first character of the name has been read)
+     */
+    private Token readName(char c) throws JSONException {
+        if (c == 0)
+            throw syntaxError("A JSONObject text must end with '}'");
+
+        if (c == '"' || c == '\'') {
+            _string = readString(c, true);
+
+        } else {
+            unread();
+
+            // unquoted names are converted as values are and then used as text, e.g. 'TRUE' is "true"
+            Token token = readLiteral();
+            if (token == Token.NUMBER)
+                _string = numberToString();
+            else if (token == Token.NULL)
+                _string = "null";
+        }
+
+        _stack[_depth - 1] = OBJECT_NAME;
+        return Token.NAME;
+    }
+
+    /**
+     * (the first character of the element has been read)
+     */
+    private Token readElement(char c) throws JSONException {
+        _stack[_depth - 1] = ARRAY_VALUE;
+
+        // an empty element is a null
+        if (c == ',') {
+            unread();
+            _string = null;
+            return Token.NULL;
+        }
+
+        return readValueToken(c);
+    }
+
+    /**
+     * (the first character of the value has been read)
+     */
+    private Token readValueToken(char c) throws JSONException {
+        switch (c) {
+            case '"':
+            case '\'':
+                _string = readString(c, false);
+                return Token.STRING;
+
+            case '{':
+                push(OBJECT_START);
+                return Token.BEGIN_OBJECT;
+
+            case '[':
+                push(ARRAY_START);
+                return Token.BEGIN_ARRAY;
+
+            default:
+                unread();
+                return readLiteral();
+        }
+    }
+
+    private void push(int position) {
+        if (_depth == _stack.length) {
+            int[] stack = new int[_depth * 2];
+            System.arraycopy(_stack, 0, stack, 0, _depth);
+            _stack = stack;
+        }
+
+        _stack[_depth++] = position;
+    }
+
+    /**
+     * (the opening quote has been read)
+     */
+    private String readString(char quote, boolean isName) throws JSONException {
+        StringBuilder sb = null;
+        int start = _pos;
+
+        for (;;) {
+            if (_pos == _limit) {
+                if (sb == null) {
+                    sb = _sb;
+                    sb.setLength(0);
+                }
+                sb.append(_buffer, start, _pos - start);
+
+                if (!fill())
+                    throw syntaxError("Unterminated string");
+                start = _pos;
+            }
+
+            char c = _buffer[_pos++];
+
+            if (c == quote) {
+                int end = _pos - 1;
+
+                if (sb == null)
+                    return isName ? name(start, end) : new String(_buffer, start, end - start);
+
+                sb.append(_buffer, start, end - start);
+                return sb.toString();
+            }
+
+            if (c == 0 || c == '\n' || c == '\r')
+                throw syntaxError("Unterminated string");
+
+            if (c == '\\') {
+                if (sb == null) {
+                    sb = _sb;
+                    sb.setLength(0);
+                }
+                sb.append(_buffer, start, _pos - 1 - start);
+
+                readEscape(sb);
+                start = _pos;
+            }
+        }
+    }
+
+    /**
+     * (the backslash has been read)
+     */
+    private void readEscape(StringBuilder sb) throws JSONException {
+        char c = read();
+
+        switch (c) {
+            case 'b':
+                sb.append('\b');
+                break;
+
+            case 't':
+                sb.append('\t');
+                break;
+
+            case 'n':
+                sb.append('\n');
+                break;
+
+            case 'f':
+                sb.append('\f');
+                break;
+
+            case 'r':
+                sb.append('\r');
+                break;
+
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = JSONTokener.dehexchar(read());
+                    if (digit < 0)
+                        throw syntaxError("Illegal escape.");
+                    value = (value << 4) | digit;
+                }
+                sb.append((char) value);
+                break;
+
+            case '"':
+            case '\'':
+            case '\\':
+            case '/':
+                sb.append(c);
+                break;
+
+            default:
+                throw syntaxError("Illegal escape.");
+        }
+    }
+
+    /**
+     * Unquoted text up to the next delimiter, interpreted as 'JSONObject.stringToValue' does.
+     */
+    private Token readLiteral() throws JSONException {
+        char[] chars = _buffer;
+        int start = _pos;
+        int end;
+
+        for (;;) {
+            if (_pos == _limit) {
+                // spans buffers (rare) so carry on in the builder
+                StringBuilder sb = _sb;
+                sb.setLength(0);
+                sb.append(_buffer, start, _pos - start);
+
+                for (;;) {
+                    char c = read();
+                    if (isDelimiter(c)) {
+                        if (c != 0)
+                            unread();
+                        break;
+                    }
+                    sb.append(c);
+                }
+
+                chars = sb.toString().toCharArray();
+                start = 0;
+                end = chars.length;
+                break;
+            }
+
+            char c = _buffer[_pos];
+            if (isDelimiter(c)) {
+                end = _pos;
+                break;
+            }
+            _pos++;
+        }
+
+        // (trim)
+        while (end > start && chars[end - 1] <= ' ')
+            end--;
+        while (start < end && chars[start] <= ' ')
+            start++;
+
+        int len = end - start;
+        if (len == 0)
+            throw syntaxError("Missing value");
+
+        if (len == 4 && matchesIgnoreCase(chars, start, "true")) {
+            _boolean = true;
+            _string = "true";
+            return Token.BOOLEAN;
+        }
+
+        if (len == 5 && matchesIgnoreCase(chars, start, "false")) {
+            _boolean = false;
+            _string = "false";
+            return Token.BOOLEAN;
+        }
+
+        if (len == 4 && matchesIgnoreCase(chars, start, "null")) {
+            _string = null;
+            return Token.NULL;
+        }
+
+        char b = chars[start];
+        if (((b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+') && parseNumber(chars, start, end))
+            return Token.NUMBER;
+
+        _string = new String(chars, start, len);
+        return Token.STRING;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c < ' ' || (c < 128 && DELIMITERS[c]);
+    }
+
+    /**
+     * (as the tree's Integer, Long or Double would be)
+     */
+    private String numberToString() {
+        return _integral ? Long.toString(_long) : Double.toString(_double);
+    }
+
+    /**
+     * (false if not a number after all)
+     */
+    private boolean parseNumber(char[] chars, int start, int end) {
+        boolean fractional = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' || c == 'e' || c == 'E') {
+                fractional = true;
+                break;
+            }
+        }
+
+        if (fractional)
+            return parseDouble(chars, start, end);
+        else
+            return parseLong(chars, start, end);
+    }
+
+    private boolean parseLong(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+
+        char c = chars[i];
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        if (i == end)
+            return false;
+
+        // accumulate negatively so Long.MIN_VALUE fits
+        long value = 0;
+        for (; i < end; i++) {
+            c = chars[i];
+            if (c < '0' || c > '9')
+                return parseLongSlowly(chars, start, end);
+
+            if (value < Long.MIN_VALUE / 10)
+                return false;
+            value *= 10;
+
+            int digit = c - '0';
+            if (value < Long.MIN_VALUE + digit)
+                return false;
+            value -= digit;
+        }
+
+        if (!negative) {
+            if (value == Long.MIN_VALUE)
+                return false;
+            value = -value;
+        }
+
+        _integral = true;
+        _long = value;
+        return true;
+    }
+
+    /**
+     * (e.g. non-ASCII digits, which 'Long.parseLong' also accepts)
+     */
+    private boolean parseLongSlowly(char[] chars, int start, int end) {
+        try {
+            _long = Long.parseLong(new String(chars, start, end - start));
+            _integral = true;
+            return true;
+
+        } catch (NumberFormatException exc) {
+            return false;
+        }
+    }
+
+    private boolean parseDouble(char[] chars, int start, int end) {
+        _integral = false;
+
+        // fast path for plain decimals whose digits and power of ten are both exactly representable, in which case
+        // one multiplication or division is correctly rounded
+        int i = start;
+        boolean negative = false;
+
+        char c = chars[i];
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigits = false;
+        boolean point = false;
+
+        for (; i < end; i++) {
+            c = chars[i];
+
+            if (c >= '0' && c <= '9') {
+                anyDigits = true;
+                if (mantissa == 0 && c == '0') {
+                    // (leading zeros don't count)
+                } else {
+                    digits++;
+                    if (digits > 15)
+                        return parseDoubleSlowly(chars, start, end);
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+
+                if (point)
+                    scale--;
+
+            } else if (c == '.' && !point) {
+                point = true;
+
+            } else {
+                break;
+            }
+        }
+
+        if (!anyDigits)
+            return parseDoubleSlowly(chars, start, end);
+
+        if (i < end) {
+            if (c != 'e' && c != 'E')
+                return parseDoubleSlowly(chars, start, end);
+            i++;
+
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+
+            if (i == end)
+                return parseDoubleSlowly(chars, start, end);
+
+            int exponent = 0;
+            for (; i < end; i++) {
+                c = chars[i];
+                if (c < '0' || c > '9' || exponent > 1000)
+                    return parseDoubleSlowly(chars, start, end);
+                exponent = exponent * 10 + (c - '0');
+            }
+
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        if (scale < -22 || scale > 22)
+            return parseDoubleSlowly(chars, start, end);
+
+        double value = mantissa;
+        if (scale < 0)
+            value /= POWERS_OF_TEN[-scale];
+        else
+            value *= POWERS_OF_TEN[scale];
+
+        _double = negative ? -value : value;
+        return true;
+    }
+
+    /**
+     * (anything else 'Double.parseDouble' accepts, e.g. many digits, large exponents, 'd' suffixes)
+     */
+    private boolean parseDoubleSlowly(char[] chars, int start, int end) {
+        try {
+            double value = Double.parseDouble(new String(chars, start, end - start));
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                return false;
+
+            _double = value;
+            return true;
+
+        } catch (NumberFormatException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Names repeat a lot (e.g. arrays of similar objects) so their strings are shared.
+     */
+    private String name(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + _buffer[i];
+
+        int slot = (hash ^ (hash >>> 16)) & (_names.length - 1);
+
+        String name = _names[slot];
+        if (name != null && name.hashCode() == hash && matches(_buffer, start, end, name))
+            return name;
+
+        name = new String(_buffer, start, end - start);
+        _names[slot] = name;
+        return name;
+    }
+
+    private static boolean matches(char[] chars, int start, int end, String string) {
+        int len = end - start;
+        if (string.length() != len)
+            return false;
+
+        for (int i = 0; i < len; i++) {
+            if (chars[start + i] != string.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * (against lower case)
+     */
+    private static boolean matchesIgnoreCase(char[] chars, int start, String lower) {
+        int len = lower.length();
+        for (int i = 0; i < len; i++) {
+            if (Character.toLowerCase(chars[start + i]) != lower.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * The next character that is not whitespace (0 at the end)
+     */
+    private char nextClean() throws JSONException {
+        for (;;) {
+            char c = read();
+            if (c == 0 || c > ' ')
+                return c;
+        }
+    }
+
+    /**
+     * (0 at the end)
+     */
+    private char read() throws JSONException {
+        if (_pos == _limit && !fill())
+            return 0;
+
+        return _buffer[_pos++];
+    }
+
+    /**
+     * Steps back over the character just read (only ever one)
+     */
+    private void unread() {
+        if (_pos > 0)
+            _pos--;
+    }
+
+    /**
+     * Replaces the buffer with the next part of the text (false at the end)
+     */
+    private boolean fill() throws JSONException {
+        _offset += _limit;
+        _pos = 0;
+        _limit = 0;
+
+        if (_text != null) {
+            int count = Math.min(_buffer.length, _text.length() - _textPos);
+            if (count <= 0)
+                return false;
+
+            if (_text instanceof String)
+                ((String) _text).getChars(_textPos, _textPos + count, _buffer, 0);
+            else if (_text instanceof StringBuilder)
+                ((StringBuilder) _text).getChars(_textPos, _textPos + count, _buffer, 0);
+            else
+                for (int i = 0; i < count; i++)
+                    _buffer[i] = _text.charAt(_textPos + i);
+
+            _textPos += count;
+            _limit = count;
+            return true;
+        }
+
+        try {
+            int count = _reader.read(_buffer, 0, _buffer.length);
+            if (count <= 0)
+                return false;
+
+            _limit = count;
+            return true;
+
+        } catch (IOException exc) {
+            throw new JSONException(exc);
+        }
+    }
+
+}
@@ -6,10 +6,14 @@ package org.nodel.logging;
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. 
  */
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.nodel.Handler;
+import org.nodel.Handlers;
+
 /**
  * A class designed to be used as a singleton to publish logs at run-time.
  */
@@ -37,6 +41,12 @@ public class Logging {
      * (locked around self)
      */
     private LinkedList<LogEntry> logs = new LinkedList<LogEntry>();
+    
+    /**
+     * Log streamers.
+     * (locked around 'lock')
+     */
+    private Handlers.H1<LogEntry> handlers = new Handlers.H1<LogEntry>();
 
     /**
      * (constructor)
@@ -49,6 +59,8 @@ public class Logging {
         synchronized(this.lock) {
             this.logs.add(entry);
             
+            this.handlers.updateAllUnsynchronized(entry);
+            
             if (this.logs.size() > 3000)
                 this.logs.removeFirst();
         }
@@ -75,6 +87,33 @@ public class Logging {
         }
     } // (method)
     
+    /**
+     * Adds a log stream handler (e.g. a push connection), returning the entries from the given
+     * sequence number onwards (oldest first). The handler must not block.
+     */
+    public List<LogEntry> registerHandler(Handler.H1<LogEntry> handler, long from) {
+        synchronized (this.lock) {
+            this.handlers.addHandler(handler);
+
+            List<LogEntry> backlog = new ArrayList<LogEntry>();
+            for (LogEntry entry : this.logs) {
+                if (entry.seq >= from)
+                    backlog.add(entry);
+            }
+
+            return backlog;
+        }
+    } // (method)
+    
+    /**
+     * Unregisters a log stream handler.
+     */
+    public void unregisterHandler(Handler.H1<LogEntry> handler) {
+        synchronized (this.lock) {
+            this.handlers.removeHandler(handler);
+        }
+    } // (method)
+    
     /**
      * Same as 'getLogs' except filters out everything except WARNINGs and more serious.
      */
@@ -0,0 +1,406 @@
+package org.nodel.net;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.LatencyHistogram;
+import org.nodel.diagnostics.MeasurementProvider;
+import org.nodel.diagnostics.SharableMeasurementProvider;
+import org.nodel.threading.ThreadPool;
+
+/**
+ * A host-wide name resolution cache used by the toolkit transports so that reconnect storms (or
+ * per-datagram sends) don't each go to a possibly slow DNS server.
+ *
+ * Lookups run on their own threads; callers wait no longer than the timeout and concurrent callers for the
+ * same name share the one lookup. Successful results are kept for 'staticPositiveTTL', failures for
+ * 'staticNegativeTTL'. Names in use are refreshed in the background shortly before they expire. If refreshing fails
+ * the last good address continues to be used, but for no more than one negative TTL period past its own expiry;
+ * after that the failure is returned, and each failed lookup is kept for a negative TTL period like any other.
+ *
+ * Literal addresses bypass the cache.
+ */
+public class AddressResolver {
+
+    /**
+     * The default time to keep successful results (millis)
+     */
+    public final static long DEFAULT_POSITIVE_TTL = 60000;
+
+    /**
+     * The default time to keep failures (millis)
+     */
+    public final static long DEFAULT_NEGATIVE_TTL = 10000;
+
+    /**
+     * The default time callers will wait for a lookup (millis)
+     */
+    public final static long DEFAULT_TIMEOUT = 5000;
+
+    /**
+     * (see related methods)
+     */
+    public static long staticPositiveTTL = DEFAULT_POSITIVE_TTL;
+
+    /**
+     * (see related methods)
+     */
+    public static long staticNegativeTTL = DEFAULT_NEGATIVE_TTL;
+
+    /**
+     * (see related methods)
+     */
+    public static long staticTimeout = DEFAULT_TIMEOUT;
+
+    /**
+     * Entries used within this fraction of the end of their TTL are refreshed in the background.
+     */
+    private final static double PREFETCH_FRACTION = 0.8;
+
+    /**
+     * The most names held; beyond this, expired entries are purged.
+     */
+    private final static int MAX_ENTRIES = 1024;
+
+    /**
+     * (diagnostics)
+     */
+    private final static SharableMeasurementProvider s_hitRate = Diagnostics.shared().registerSharableCounter("Address resolver.Hit rate", true);
+
+    /**
+     * (diagnostics)
+     */
+    private final static SharableMeasurementProvider s_missRate = Diagnostics.shared().registerSharableCounter("Address resolver.Miss rate", true);
+
+    /**
+     * (diagnostics)
+     */
+    private final static SharableMeasurementProvider s_failureRate = Diagnostics.shared().registerSharableCounter("Address resolver.Failure rate", true);
+
+    /**
+     * The duration of actual lookups.
+     */
+    private final static LatencyHistogram s_lookupTimes = new LatencyHistogram();
+
+    static {
+        Diagnostics.shared().registerCounter("Address resolver.Lookup time p90 (ms)", new MeasurementProvider() {
+
+            @Override
+            public long getMeasurement() {
+                return Math.round(s_lookupTimes.getP90());
+            }
+
+        }, false);
+    }
+
+    /**
+     * (see 'shared')
+     */
+    private final static AddressResolver s_shared = new AddressResolver();
+
+    /**
+     * The resolver shared by all transports.
+     */
+    public static AddressResolver shared() {
+        return s_shared;
+    }
+
+    /**
+     * A cached name.
+     */
+    private static class Entry {
+
+        /**
+         * The last good addresses (null if never resolved)
+         */
+        InetAddress[] addresses;
+
+        /**
+         * The last failure (null if last lookup succeeded)
+         */
+        UnknownHostException failure;
+
+        /**
+         * How long the last good addresses may still be used while lookups are failing (nanos)
+         */
+        long staleUntil;
+
+        /**
+         * When the result should no longer be used (nanos)
+         */
+        long expires;
+
+        /**
+         * When a background refresh should start (nanos)
+         */
+        long refreshAt;
+
+        /**
+         * The lookup in progress, if any.
+         */
+        CompletableFuture<Entry> lookup;
+
+    }
+
+    /**
+     * (self locked)
+     */
+    private Map<String, Entry> _entries = new HashMap<>();
+
+    /**
+     * Where lookups are performed (blocking calls)
+     */
+    private final ThreadPool _threadPool;
+
+    /**
+     * The actual lookup, i.e. 'InetAddress.getAllByName'.
+     */
+    interface Lookup {
+
+        InetAddress[] getAllByName(String host) throws UnknownHostException;
+
+    }
+
+    /**
+     * (see 'Lookup')
+     */
+    private final Lookup _lookup;
+
+    private AddressResolver() {
+        this(new Lookup() {
+
+            @Override
+            public InetAddress[] getAllByName(String host) throws UnknownHostException {
+                return InetAddress.getAllByName(host);
+            }
+
+        }, new ThreadPool("Address resolver", 8));
+    }
+
+    /**
+     * (for testing)
+     */
+    AddressResolver(Lookup lookup, ThreadPool threadPool) {
+        _lookup = lookup;
+        _threadPool = threadPool;
+    }
+
+    /**
+     * The distribution of actual lookup times.
+     */
+    public LatencyHistogram getLookupTimes() {
+        return s_lookupTimes;
+    }
+
+    /**
+     * Resolves a socket address, using the cache.
+     */
+    public InetSocketAddress resolve(String host, int port) throws UnknownHostException {
+        return new InetSocketAddress(resolve(host), port);
+    }
+
+    /**
+     * Resolves a host name, using the cache. Waits no longer than the timeout.
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        return lookup(host)[0];
+    }
+
+    /**
+     * Resolves all the addresses of a host name (see 'resolve')
+     */
+    public InetAddress[] resolveAll(String host) throws UnknownHostException {
+        return lookup(host).clone();
+    }
+
+    /**
+     * (the cached array is returned so must not be modified)
+     */
+    private InetAddress[] lookup(String host) throws UnknownHostException {
+        if (isLiteral(host))
+            return InetAddress.getAllByName(host);
+
+        String key = host.toLowerCase();
+        long now = System.nanoTime();
+
+        CompletableFuture<Entry> lookup;
+
+        synchronized (_entries) {
+            Entry entry = _entries.get(key);
+
+            if (entry != null && now - entry.expires < 0) {
+                // fresh enough
+                s_hitRate.incr();
+
+                if (entry.lookup == null && now - entry.refreshAt >= 0)
+                    startLookup(key, entry);
+
+                return resultOf(host, entry);
+            }
+
+            s_missRate.incr();
+
+            if (entry == null) {
+                if (_entries.size() >= MAX_ENTRIES)
+                    purge(now);
+
+                entry = new Entry();
+                _entries.put(key, entry);
+            }
+
+            if (entry.lookup == null)
+                startLookup(key, entry);
+
+            lookup = entry.lookup;
+        }
+
+        try {
+            return resultOf(host, lookup.get(staticTimeout, TimeUnit.MILLISECONDS));
+
+        } catch (TimeoutException exc) {
+            // (lookup continues in the background and will be cached when it completes)
+            throw new UnknownHostException("Timed out resolving '" + host + "' (after " + staticTimeout + " ms)");
+
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException("Interrupted resolving '" + host + "'");
+
+        } catch (ExecutionException exc) {
+            // (never completes exceptionally)
+            throw new UnknownHostException("'" + host + "' could not be resolved - " + exc.getCause());
+        }
+    }
+
+    /**
+     * Forgets everything (e.g. after a network change)
+     */
+    public void clear() {
+        synchronized (_entries) {
+            _entries.clear();
+        }
+    }
+
+    /**
+     * (assumes locked)
+     */
+    private void startLookup(final String host, final Entry entry) {
+        final CompletableFuture<Entry> lookup = new CompletableFuture<>();
+        entry.lookup = lookup;
+
+        _threadPool.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+
+                InetAddress[] addresses = null;
+                UnknownHostException failure = null;
+
+                try {
+                    addresses = _lookup.getAllByName(host);
+
+                } catch (UnknownHostException exc) {
+                    failure = exc;
+
+                } catch (Exception exc) {
+                    failure = new UnknownHostException("'" + host + "' could not be resolved - " + exc);
+                }
+
+                long now = System.nanoTime();
+                s_lookupTimes.record(now - start);
+
+                synchronized (_entries) {
+                    if (failure == null) {
+                        entry.addresses = addresses;
+                        entry.failure = null;
+                        entry.expires = now + staticPositiveTTL * 1000000L;
+                        entry.refreshAt = now + (long) (staticPositiveTTL * PREFETCH_FRACTION) * 1000000L;
+                        entry.staleUntil = entry.expires + staticNegativeTTL * 1000000L;
+
+                    } else {
+                        s_failureRate.incr();
+
+                        // the last good address (if any) keeps being used until 'staleUntil' (see 'resultOf'),
+                        // the failure itself is kept for the negative TTL, re-armed by each failed lookup
+                        entry.failure = failure;
+                        entry.expires = now + staticNegativeTTL * 1000000L;
+                        entry.refreshAt = entry.expires;
+                    }
+
+                    entry.lookup = null;
+                }
+
+                lookup.complete(entry);
+            }
+
+        });
+    }
+
+    /**
+     * (result or failure of an entry)
+     */
+    private InetAddress[] resultOf(String host, Entry entry) throws UnknownHostException {
+        InetAddress[] addresses;
+        UnknownHostException failure;
+
+        synchronized (_entries) {
+            addresses = entry.addresses;
+            failure = entry.failure;
+
+            // (past its use while failing)
+            if (failure != null && System.nanoTime() - entry.staleUntil >= 0)
+                addresses = null;
+        }
+
+        if (addresses != null)
+            return addresses;
+
+        if (failure != null)
+            throw new UnknownHostException(failure.getMessage());
+
+        throw new UnknownHostException("'" + host + "' could not be resolved");
+    }
+
+    /**
+     * Removes expired, idle entries.
+     * (assumes locked)
+     */
+    private void purge(long now) {
+        _entries.values().removeIf(entry -> entry.lookup == null && now - entry.expires >= 0);
+    }
+
+    /**
+     * IPv4 dotted or IPv6 literals (which involve no lookup)
+     */
+    private static boolean isLiteral(String host) {
+        if (host.indexOf(':') >= 0)
+            return true;
+
+        int len = host.length();
+        if (len == 0)
+            return false;
+
+        for (int i = 0; i < len; i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9'))
+                return false;
+        }
+
+        return true;
+    }
+
+} // (class)
@@ -0,0 +1,660 @@
+package org.nodel.net;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.nodel.Handler;
+import org.nodel.Handler.H1;
+import org.nodel.Strings;
+import org.nodel.diagnostics.AtomicIntegerMeasurementProvider;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.io.UnexpectedIOException;
+
+/**
+ * A non-blocking HTTP engine (built on the JDK's 'java.net.http' client) with a connection pool that
+ * is shared by all clients using the same proxy and SSL settings.
+ *
+ * Concurrent requests to the same host are limited; requests beyond the limit are queued (never blocking
+ * the caller) and dispatched as earlier ones complete. Connections are kept alive and reused. HTTP/1.1 is
+ * used (instead of upgrading) because many devices handle upgrade requests badly; HTTP/1.1 pipelining is
+ * not supported by the JDK client.
+ */
+public class AsyncHTTPEngine {
+
+    /**
+     * The default number of concurrent requests allowed per host.
+     */
+    public final static int DEFAULT_MAXPERHOST = 4;
+
+    /**
+     * (see related methods)
+     */
+    public static int staticMaxPerHost = DEFAULT_MAXPERHOST;
+
+    /**
+     * Maximum content allowed to avoid uncontrolled memory allocation
+     * (default 150 MB, anything more should be using a streaming technique instead)
+     */
+    private final static int MAX_ALLOWED = 150 * 1024 * 1024;
+
+    /**
+     * Headers the JDK client manages itself and refuses to have set.
+     */
+    private final static Set<String> RESTRICTED_HEADERS = new HashSet<String>(Arrays.asList(
+            "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+    /**
+     * (counter)
+     */
+    private static AtomicInteger s_queued = new AtomicInteger();
+
+    static {
+        Diagnostics.shared().registerCounter("HTTP client.Queued requests", new AtomicIntegerMeasurementProvider(s_queued), false);
+    }
+
+    /**
+     * The most engines kept for sharing (the least recently used are dropped, any requests still using
+     * them complete as normal).
+     */
+    private final static int MAX_ENGINES = 16;
+
+    /**
+     * The shared engines, keyed by their configuration (which only includes a digest of any proxy password).
+     * (self locked)
+     */
+    @SuppressWarnings("serial")
+    private static Map<String, AsyncHTTPEngine> s_engines = new LinkedHashMap<String, AsyncHTTPEngine>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AsyncHTTPEngine> eldest) {
+            return size() > MAX_ENGINES;
+        }
+
+    };
+
+    /**
+     * Returns an engine shared by all clients with the same settings, including the connect timeout
+     * (null for the default) which the JDK client only allows per client.
+     */
+    public static AsyncHTTPEngine shared(String proxyAddress, String proxyUsername, String proxyPassword, boolean ignoreSSL, boolean ignoreRedirects, Integer connectTimeout) {
+        int actualConnTimeout = connectTimeout != null ? connectTimeout : NodelHTTPClient.DEFAULT_CONNECTTIMEOUT;
+
+        String key = proxyAddress + "|" + proxyUsername + "|" + digest(proxyPassword) + "|" + ignoreSSL + "|" + ignoreRedirects + "|" + actualConnTimeout;
+
+        synchronized (s_engines) {
+            AsyncHTTPEngine engine = s_engines.get(key);
+            if (engine == null) {
+                engine = new AsyncHTTPEngine(proxyAddress, proxyUsername, proxyPassword, ignoreSSL, ignoreRedirects, staticMaxPerHost, actualConnTimeout);
+                s_engines.put(key, engine);
+            }
+
+            return engine;
+        }
+    }
+
+    /**
+     * (overloaded, uses the default connect timeout)
+     */
+    public static AsyncHTTPEngine shared(String proxyAddress, String proxyUsername, String proxyPassword, boolean ignoreSSL, boolean ignoreRedirects) {
+        return shared(proxyAddress, proxyUsername, proxyPassword, ignoreSSL, ignoreRedirects, null);
+    }
+
+    /**
+     * (for testing)
+     */
+    static int getSharedCount() {
+        synchronized (s_engines) {
+            return s_engines.size();
+        }
+    }
+
+    /**
+     * A digest of a password so it's never held in plain form as part of a key.
+     */
+    private static String digest(String password) {
+        if (password == null)
+            return null;
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            return java.util.Base64.getEncoder().encodeToString(hash);
+
+        } catch (NoSuchAlgorithmException exc) {
+            // (every JRE is required to support SHA-256)
+            throw new RuntimeException(exc);
+        }
+    }
+
+    /**
+     * Tracks the in-flight and queued requests of a host.
+     */
+    private static class HostEntry {
+
+        int active;
+
+        Queue<Runnable> pending = new LinkedList<Runnable>();
+
+    }
+
+    /**
+     * The underlying (non-blocking) client.
+     */
+    private HttpClient _client;
+
+    /**
+     * (see constructor)
+     */
+    private int _maxPerHost;
+
+    /**
+     * Host entries keyed by 'host:port'.
+     * (self locked)
+     */
+    private Map<String, HostEntry> _hosts = new HashMap<String, HostEntry>();
+
+    /**
+     * Creates a new engine (normally 'shared' is used instead).
+     */
+    public AsyncHTTPEngine(String proxyAddress, final String proxyUsername, final String proxyPassword, boolean ignoreSSL, boolean ignoreRedirects, int maxPerHost, int connectTimeout) {
+        if (maxPerHost <= 0)
+            throw new IllegalArgumentException("Concurrency per host must be at least 1.");
+
+        _maxPerHost = maxPerHost;
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(ignoreRedirects ? Redirect.NEVER : Redirect.NORMAL);
+
+        // using a proxy?
+        if (!Strings.isBlank(proxyAddress)) {
+            String proxyHost = null;
+            int proxyPort = -1;
+
+            try {
+                int lastIndexOfColon = proxyAddress.lastIndexOf(':');
+                proxyHost = proxyAddress.substring(0, lastIndexOfColon);
+                proxyPort = Integer.parseInt(proxyAddress.substring(lastIndexOfColon + 1));
+            } catch (Exception ignore) {
+            }
+
+            if (Strings.isBlank(proxyHost) || proxyPort <= 0)
+                throw new IllegalArgumentException("Proxy address is not in form host:port");
+
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxyHost, proxyPort)));
+
+            // using proxy credentials?
+            if (!Strings.isBlank(proxyUsername) && proxyPassword != null) {
+                builder.authenticator(new Authenticator() {
+
+                    @Override
+                    protected PasswordAuthentication getPasswordAuthentication() {
+                        if (getRequestorType() != RequestorType.PROXY)
+                            return null;
+
+                        return new PasswordAuthentication(proxyUsername, proxyPassword.toCharArray());
+                    }
+
+                });
+            }
+        }
+
+        // ignore all SSL verifications errors?
+        if (ignoreSSL) {
+            try {
+                SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, new TrustManager[] { IGNORE_SSL_TRUSTMANAGER }, new SecureRandom());
+                builder.sslContext(sslContext);
+
+            } catch (Exception exc) {
+                throw new RuntimeException(exc);
+            }
+        }
+
+        _client = builder.build();
+    }
+
+    /**
+     * (overloaded, uses the default connect timeout)
+     */
+    public AsyncHTTPEngine(String proxyAddress, String proxyUsername, String proxyPassword, boolean ignoreSSL, boolean ignoreRedirects, int maxPerHost) {
+        this(proxyAddress, proxyUsername, proxyPassword, ignoreSSL, ignoreRedirects, maxPerHost, NodelHTTPClient.DEFAULT_CONNECTTIMEOUT);
+    }
+
+    /**
+     * (for testing, with a given client)
+     */
+    AsyncHTTPEngine(HttpClient client, int maxPerHost) {
+        _client = client;
+        _maxPerHost = maxPerHost;
+    }
+
+    /**
+     * Makes a request without blocking the caller; exactly one of the handlers will be called, on a thread
+     * belonging to the engine. The arguments are the same as 'NodelHTTPClient.makeRequest' (NTLM
+     * credentials are not supported).
+     */
+    public void makeRequest(String urlStr, String method, Map<String, String> query,
+                            String username, String password,
+                            Map<String, String> headers, String contentType,
+                            String body,
+                            Integer connectTimeout, Integer readTimeout,
+                            final H1<HTTPSimpleResponse> onComplete, final H1<Exception> onError) {
+        // construct the full URL (includes query string)
+        String fullURL;
+
+        String queryPart = NodelHTTPClient.urlEncodeQuery(query);
+        if (!Strings.isEmpty(queryPart))
+            fullURL = String.format("%s?%s", urlStr, queryPart);
+        else
+            fullURL = urlStr;
+
+        final HttpRequest request;
+        final String hostKey;
+        final int bodyLength = body != null ? body.length() : 0;
+
+        try {
+            URI uri = URI.create(fullURL);
+            hostKey = uri.getHost() + ":" + uri.getPort();
+
+            request = prepareRequest(uri, method, username, password, headers, contentType, body, connectTimeout, readTimeout);
+
+        } catch (Exception exc) {
+            Handler.tryHandle(onError, exc);
+            return;
+        }
+
+        Runnable dispatch = new Runnable() {
+
+            @Override
+            public void run() {
+                NodelHTTPClient.s_attemptRate.incrementAndGet();
+                NodelHTTPClient.s_activeConnections.incrementAndGet();
+
+                CompletableFuture<HttpResponse<byte[]>> future;
+                try {
+                    future = _client.sendAsync(request, LIMITED_BODY_HANDLER);
+
+                } catch (Exception exc) {
+                    // (rejected up front, the slot must still be given back)
+                    NodelHTTPClient.s_activeConnections.decrementAndGet();
+                    release(hostKey);
+
+                    Handler.tryHandle(onError, exc);
+                    return;
+                }
+
+                future.whenComplete(new BiConsumer<HttpResponse<byte[]>, Throwable>() {
+
+                    @Override
+                    public void accept(HttpResponse<byte[]> httpResponse, Throwable th) {
+                        NodelHTTPClient.s_activeConnections.decrementAndGet();
+
+                        // free up the slot before calling back
+                        release(hostKey);
+
+                        // (unwrap the future's exception)
+                        if (th instanceof CompletionException && th.getCause() != null)
+                            th = th.getCause();
+
+                        if (th != null) {
+                            Handler.tryHandle(onError, th instanceof Exception ? (Exception) th : new RuntimeException(th));
+                            return;
+                        }
+
+                        NodelHTTPClient.s_sendRate.addAndGet(bodyLength);
+
+                        HTTPSimpleResponse result;
+                        try {
+                            result = intoSimpleResponse(httpResponse);
+                        } catch (Exception exc) {
+                            Handler.tryHandle(onError, exc);
+                            return;
+                        }
+
+                        Handler.tryHandle(onComplete, result);
+                    }
+
+                });
+            }
+
+        };
+
+        boolean dispatchNow;
+
+        synchronized (_hosts) {
+            HostEntry hostEntry = _hosts.get(hostKey);
+            if (hostEntry == null) {
+                hostEntry = new HostEntry();
+                _hosts.put(hostKey, hostEntry);
+            }
+
+            if (hostEntry.active < _maxPerHost) {
+                hostEntry.active++;
+                dispatchNow = true;
+            } else {
+                hostEntry.pending.add(dispatch);
+                s_queued.incrementAndGet();
+                dispatchNow = false;
+            }
+        }
+
+        if (dispatchNow)
+            dispatch.run();
+    }
+
+    /**
+     * Releases a host slot, dispatching the next pending request if there is one.
+     */
+    private void release(String hostKey) {
+        Runnable next;
+
+        synchronized (_hosts) {
+            HostEntry hostEntry = _hosts.get(hostKey);
+            if (hostEntry == null)
+                return;
+
+            next = hostEntry.pending.poll();
+            if (next != null) {
+                // slot is handed straight over
+                s_queued.decrementAndGet();
+            } else {
+                hostEntry.active--;
+
+                if (hostEntry.active <= 0)
+                    _hosts.remove(hostKey);
+            }
+        }
+
+        if (next != null)
+            next.run();
+    }
+
+    /**
+     * (convenience method)
+     */
+    private static HttpRequest prepareRequest(URI uri, String method, String username, String password,
+                                              Map<String, String> headers, String contentType, String body,
+                                              Integer connectTimeout, Integer readTimeout) {
+        // deal with in order of likelihood (same rules as the blocking client)
+        String actualMethod;
+        if (Strings.isBlank(method))
+            actualMethod = Strings.isEmpty(body) ? "GET" : "POST";
+        else
+            actualMethod = method;
+
+        int actualConnTimeout = connectTimeout != null ? connectTimeout : NodelHTTPClient.DEFAULT_CONNECTTIMEOUT;
+        int actualReadTimeout = readTimeout != null ? readTimeout : NodelHTTPClient.DEFAULT_READTIMEOUT;
+
+        // the JDK client only has a per-request timeout (up to when the response headers arrive)
+        // so the sum of both is used
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(actualConnTimeout + actualReadTimeout))
+                .setHeader("User-Agent", "Nodel/" + org.nodel.Version.shared().version)
+                .method(actualMethod, Strings.isEmpty(body) ? BodyPublishers.noBody() : BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+
+        // if username is supplied, apply (pre-emptive) security
+        if (!Strings.isBlank(username)) {
+            String creds = username + ":" + (!Strings.isEmpty(password) ? password : "");
+            builder.setHeader("Authorization", "Basic " + java.util.Base64.getEncoder().encodeToString(creds.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // set 'Content-Type' header
+        if (!Strings.isBlank(contentType))
+            builder.setHeader("Content-Type", contentType);
+
+        // add (or override) any request headers
+        if (headers != null) {
+            for (Entry<String, String> entry : headers.entrySet()) {
+                // (skip the ones the engine manages itself)
+                if (entry.getKey() == null || RESTRICTED_HEADERS.contains(entry.getKey().toLowerCase()))
+                    continue;
+
+                builder.setHeader(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * (convenience method)
+     */
+    private static HTTPSimpleResponse intoSimpleResponse(HttpResponse<byte[]> httpResponse) {
+        HttpHeaders headers = httpResponse.headers();
+
+        byte[] data = httpResponse.body();
+
+        HTTPSimpleResponse result = new HTTPSimpleResponse();
+        result.statusCode = httpResponse.statusCode();
+        result.reasonPhrase = reasonPhrase(result.statusCode);
+
+        if (data != null) {
+            NodelHTTPClient.s_receiveRate.addAndGet(data.length);
+            result.content = new String(data, selectCharset(headers.firstValue("Content-Type").orElse(null)));
+        }
+
+        for (Entry<String, List<String>> entry : headers.map().entrySet()) {
+            // (skip any pseudo headers)
+            if (entry.getKey().startsWith(":"))
+                continue;
+
+            for (String value : entry.getValue())
+                result.addHeader(entry.getKey(), value);
+        }
+
+        return result;
+    }
+
+    /**
+     * Uses any given charset, otherwise UTF-8 for JSON and XML or a straight 8-bit widening (ISO-8859-1)
+     */
+    private static Charset selectCharset(String contentType) {
+        if (contentType == null)
+            return StandardCharsets.ISO_8859_1;
+
+        String lowerContentType = contentType.toLowerCase();
+
+        int indexOfCharset = lowerContentType.indexOf("charset=");
+        if (indexOfCharset >= 0) {
+            String charset = contentType.substring(indexOfCharset + 8).trim();
+
+            int indexOfSemicolon = charset.indexOf(';');
+            if (indexOfSemicolon >= 0)
+                charset = charset.substring(0, indexOfSemicolon).trim();
+
+            charset = charset.replace("\"", "");
+
+            // unknown encoding will raise an exception
+            return Charset.forName(charset);
+        }
+
+        if (lowerContentType.contains("json") || lowerContentType.contains("xml"))
+            return StandardCharsets.UTF_8;
+
+        return StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * The JDK client does not expose the reason phrase so the standard ones are used.
+     */
+    private static String reasonPhrase(int statusCode) {
+        switch (statusCode) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 301: return "Moved Permanently";
+            case 302: return "Found";
+            case 304: return "Not Modified";
+            case 307: return "Temporary Redirect";
+            case 308: return "Permanent Redirect";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 408: return "Request Timeout";
+            case 409: return "Conflict";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default: return "";
+        }
+    }
+
+    /**
+     * Rejects responses which declare a length that is too big up front, otherwise (e.g. chunked) as the
+     * bytes arrive.
+     */
+    private final static BodyHandler<byte[]> LIMITED_BODY_HANDLER = new BodyHandler<byte[]>() {
+
+        @Override
+        public HttpResponse.BodySubscriber<byte[]> apply(HttpResponse.ResponseInfo responseInfo) {
+            long length = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (length > MAX_ALLOWED)
+                throw new UnexpectedIOException("Too big - HTTP response over " + MAX_ALLOWED + " bytes is not allowed");
+
+            return new LimitedBodySubscriber(BodySubscribers.ofByteArray(), MAX_ALLOWED);
+        }
+
+    };
+
+    /**
+     * Fails the body (and stops receiving) once more than the limit has arrived.
+     */
+    static class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+        private final HttpResponse.BodySubscriber<byte[]> _delegate;
+
+        private final long _limit;
+
+        private Flow.Subscription _subscription;
+
+        private long _received;
+
+        private boolean _failed;
+
+        LimitedBodySubscriber(HttpResponse.BodySubscriber<byte[]> delegate, long limit) {
+            _delegate = delegate;
+            _limit = limit;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return _delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            _subscription = subscription;
+            _delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (_failed)
+                return;
+
+            for (ByteBuffer item : items)
+                _received += item.remaining();
+
+            if (_received > _limit) {
+                _failed = true;
+                _subscription.cancel();
+                _delegate.onError(new UnexpectedIOException("Too big - HTTP response over " + _limit + " bytes is not allowed"));
+                return;
+            }
+
+            _delegate.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!_failed)
+                _delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!_failed)
+                _delegate.onComplete();
+        }
+
+    }
+
+    /**
+     * Ignores all SSL issues, including host name mismatches (which are verified by an 'extended' trust manager)
+     */
+    private static X509ExtendedTrustManager IGNORE_SSL_TRUSTMANAGER = new X509ExtendedTrustManager() {
+
+        public void checkClientTrusted(X509Certificate[] chain, String authType) { }
+
+        public void checkServerTrusted(X509Certificate[] chain, String authType) { }
+
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) { }
+
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) { }
+
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) { }
+
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) { }
+
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+
+    };
+
+}
@@ -16,12 +16,15 @@ import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.nodel.Handler;
+import org.nodel.Handler.H1;
 import org.nodel.Strings;
 import org.nodel.diagnostics.AtomicIntegerMeasurementProvider;
 import org.nodel.diagnostics.AtomicLongMeasurementProvider;
 import org.nodel.diagnostics.Diagnostics;
 import org.nodel.diagnostics.MeasurementProvider;
 import org.nodel.json.JSONObject;
+import org.nodel.threading.ThreadPool;
 
 /**
  * An HTTP client with some sensible timeouts, support for NTLM and a multi-threaded connection manager. 
@@ -86,6 +89,11 @@ public abstract class NodelHTTPClient implements Closeable {
     
     protected final static int DEFAULT_READTIMEOUT = 15000;
     
+    /**
+     * For the few async requests that need to fall back to the blocking client (e.g. NTLM)
+     */
+    private static ThreadPool s_fallbackThreadPool = new ThreadPool("HTTP client", 16);
+    
     /**
      * (see setter)
      */
@@ -154,6 +162,49 @@ public abstract class NodelHTTPClient implements Closeable {
                               Integer connectTimeout, Integer readTimeout) {
         HTTPSimpleResponse response = makeRequest(urlStr, method, query, username, password, headers, contentType, post, connectTimeout, readTimeout);
 
+        return intoSimpleContent(response);
+    }
+    
+    /**
+     * Same as 'makeRequest' except never blocks; exactly one of the handlers is called once the response
+     * has arrived or the request has failed. Uses the shared non-blocking engine, falling back to the
+     * blocking client on a background thread if NTLM credentials are used.
+     */
+    public void makeRequestAsync(final String urlStr, final String method, final Map<String, String> query,
+                                 final String username, final String password,
+                                 final Map<String, String> headers, final String contentType,
+                                 final String post,
+                                 final Integer connectTimeout, final Integer readTimeout,
+                                 final H1<HTTPSimpleResponse> onComplete, final H1<Exception> onError) {
+        if ((username != null && username.indexOf('\\') > 0) || (_proxyUsername != null && _proxyUsername.indexOf('\\') > 0)) {
+            // NTLM (with a domain) is connection-orientated and only supported by the blocking client
+            s_fallbackThreadPool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    HTTPSimpleResponse response;
+                    try {
+                        response = makeRequest(urlStr, method, query, username, password, headers, contentType, post, connectTimeout, readTimeout);
+                    } catch (Exception exc) {
+                        Handler.tryHandle(onError, exc);
+                        return;
+                    }
+
+                    Handler.tryHandle(onComplete, response);
+                }
+
+            });
+            return;
+        }
+
+        AsyncHTTPEngine.shared(_proxyAddress, _proxyUsername, _proxyPassword, _ignoreSSL, _ignoreRedirects, connectTimeout)
+                .makeRequest(urlStr, method, query, username, password, headers, contentType, post, connectTimeout, readTimeout, onComplete, onError);
+    }
+    
+    /**
+     * Returns the content of an 'OK' response otherwise raises an exception including the status and content. 
+     */
+    public static String intoSimpleContent(HTTPSimpleResponse response) {
         if (response.statusCode >= 200 && response.statusCode < 300) { // 200 is HTTP_OK
             // any 'OK'-related response, just return content
             return response.content;
@@ -163,7 +214,7 @@ public abstract class NodelHTTPClient implements Closeable {
             throw new RuntimeException(String.format("Server returned '%s' with content %s", 
                     response.statusCode + " " + response.reasonPhrase, 
                     Strings.isEmpty(response.content) ? "<empty>" : JSONObject.quote(response.content)));
-        }        
+        }
     }
     
     /**
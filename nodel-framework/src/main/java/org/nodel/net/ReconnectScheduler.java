@@ -0,0 +1,363 @@
+package org.nodel.net;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nodel.Threads;
+import org.nodel.diagnostics.AtomicIntegerMeasurementProvider;
+import org.nodel.diagnostics.Diagnostics;
+
+/**
+ * Coordinates reconnects across all transports of a host so that connections lost at the same moment
+ * (e.g. a switch reboot) don't all come back in lockstep.
+ *
+ * Two parts:
+ * - 'Backoff' gives each connection its own decorrelated, jittered retry delays
+ * - connect attempts take a 'Ticket' which limits how many attempts can be started at once against the same
+ *   subnet (/24 or /64); tickets for connections with callers waiting on them go first.
+ *
+ * A ticket only counts against its subnet for a short time so unresponsive devices (slow connect timeouts)
+ * can't starve the others; this limits the rate of new attempts more than their duration.
+ */
+public class ReconnectScheduler {
+
+    /**
+     * The default number of connect attempts allowed to start at once per subnet.
+     */
+    public final static int DEFAULT_MAXPERSUBNET = 16;
+
+    /**
+     * (see related methods)
+     */
+    public static int staticMaxPerSubnet = DEFAULT_MAXPERSUBNET;
+
+    /**
+     * The longest time a granted ticket counts against its subnet (millis)
+     */
+    private final static long HOLD_LIMIT = 2000;
+
+    /**
+     * (counter)
+     */
+    private static AtomicInteger s_backingOff = new AtomicInteger();
+
+    /**
+     * (counter)
+     */
+    private static AtomicInteger s_waiting = new AtomicInteger();
+
+    /**
+     * (counter)
+     */
+    private static AtomicInteger s_connecting = new AtomicInteger();
+
+    static {
+        Diagnostics.shared().registerCounter("Reconnect scheduler.Backing off", new AtomicIntegerMeasurementProvider(s_backingOff), false);
+        Diagnostics.shared().registerCounter("Reconnect scheduler.Waiting for turn", new AtomicIntegerMeasurementProvider(s_waiting), false);
+        Diagnostics.shared().registerCounter("Reconnect scheduler.Connecting", new AtomicIntegerMeasurementProvider(s_connecting), false);
+    }
+
+    /**
+     * (see 'shared')
+     */
+    private final static ReconnectScheduler s_shared = new ReconnectScheduler();
+
+    /**
+     * The scheduler shared by all transports.
+     */
+    public static ReconnectScheduler shared() {
+        return s_shared;
+    }
+
+    /**
+     * Decorrelated jitter backoff, i.e. each delay is random between the base and three times the previous
+     * delay (capped), so a group of connections that failed together drifts apart.
+     * (not thread-safe, one per connection)
+     */
+    public static class Backoff {
+
+        private final long _base;
+
+        private final long _cap;
+
+        private long _last;
+
+        public Backoff(long base, long cap) {
+            _base = base;
+            _cap = cap;
+            _last = base;
+        }
+
+        /**
+         * The next delay to use (millis)
+         */
+        public long next() {
+            long upper = Math.max(_base + 1, _last * 3);
+
+            _last = Math.min(_cap, ThreadLocalRandom.current().nextLong(_base, upper));
+
+            return _last;
+        }
+
+        /**
+         * After a successful connection.
+         */
+        public void reset() {
+            _last = _base;
+        }
+
+    } // (class)
+
+    /**
+     * Tracks the attempts against a subnet.
+     * (self locked)
+     */
+    private static class Subnet {
+
+        /**
+         * (key into '_subnets')
+         */
+        final String key;
+
+        final List<Ticket> granted = new ArrayList<>();
+
+        final ArrayDeque<Ticket> priorityWaiting = new ArrayDeque<>();
+
+        final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+
+        Subnet(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Forgets grants that are past the hold limit.
+         * (assumes locked)
+         */
+        void expire(long now) {
+            Iterator<Ticket> i = granted.iterator();
+            while (i.hasNext()) {
+                if ((now - i.next().grantedAt) / 1000000 >= HOLD_LIMIT)
+                    i.remove();
+            }
+        }
+
+        /**
+         * (assumes locked)
+         */
+        Ticket head() {
+            return priorityWaiting.isEmpty() ? waiting.peek() : priorityWaiting.peek();
+        }
+
+        /**
+         * No attempts granted or waiting.
+         * (assumes locked)
+         */
+        boolean isIdle(long now) {
+            expire(now);
+
+            return granted.isEmpty() && priorityWaiting.isEmpty() && waiting.isEmpty();
+        }
+
+    }
+
+    /**
+     * A turn to connect (see 'ticket')
+     */
+    public class Ticket {
+
+        private final Subnet _subnet;
+
+        private final boolean _priority;
+
+        private boolean _waiting = true;
+
+        private boolean _released;
+
+        private long grantedAt;
+
+        private Ticket(Subnet subnet, boolean priority) {
+            _subnet = subnet;
+            _priority = priority;
+        }
+
+        /**
+         * Blocks until it's this connection's turn, returning false if released (cancelled) while waiting.
+         */
+        public boolean await() {
+            Subnet subnet = _subnet;
+
+            synchronized (subnet) {
+                for (;;) {
+                    if (_released)
+                        return false;
+
+                    long now = System.nanoTime();
+                    subnet.expire(now);
+
+                    if (subnet.granted.size() < staticMaxPerSubnet && subnet.head() == this) {
+                        (_priority ? subnet.priorityWaiting : subnet.waiting).poll();
+                        _waiting = false;
+                        s_waiting.decrementAndGet();
+
+                        grantedAt = now;
+                        subnet.granted.add(this);
+                        s_connecting.incrementAndGet();
+
+                        // the next in line may be able to go too
+                        subnet.notifyAll();
+
+                        return true;
+                    }
+
+                    // (grants expire so never wait indefinitely)
+                    Threads.waitOnSync(subnet, HOLD_LIMIT);
+                }
+            }
+        }
+
+        /**
+         * Gives back the turn once the attempt is over (successful or not) or cancels waiting.
+         * (can be called more than once, from any thread)
+         */
+        public void release() {
+            Subnet subnet = _subnet;
+
+            synchronized (subnet) {
+                if (_released)
+                    return;
+
+                _released = true;
+
+                if (_waiting) {
+                    (_priority ? subnet.priorityWaiting : subnet.waiting).remove(this);
+                    _waiting = false;
+                    s_waiting.decrementAndGet();
+
+                } else {
+                    subnet.granted.remove(this);
+                    s_connecting.decrementAndGet();
+                }
+
+                subnet.notifyAll();
+            }
+
+            prune(subnet);
+        }
+
+    } // (class)
+
+    /**
+     * The subnets with attempts granted or waiting, idle ones are removed (see 'prune')
+     * (self locked, taken before any subnet's lock)
+     */
+    private Map<String, Subnet> _subnets = new HashMap<>();
+
+    private ReconnectScheduler() {
+    }
+
+    /**
+     * Takes a place in line to connect to an address (returns immediately, see 'Ticket.await')
+     *
+     * @param priority if there are callers waiting on the connection
+     */
+    public Ticket ticket(InetAddress address, boolean priority) {
+        String key = subnetOf(address);
+
+        Ticket ticket;
+
+        // (joins the line while the map is locked so the subnet can't be pruned in between)
+        synchronized (_subnets) {
+            Subnet subnet = _subnets.get(key);
+            if (subnet == null) {
+                subnet = new Subnet(key);
+                _subnets.put(key, subnet);
+            }
+
+            ticket = new Ticket(subnet, priority);
+
+            synchronized (subnet) {
+                (priority ? subnet.priorityWaiting : subnet.waiting).add(ticket);
+                s_waiting.incrementAndGet();
+            }
+        }
+
+        return ticket;
+    }
+
+    /**
+     * Forgets a subnet once nothing is granted or waiting on it.
+     */
+    private void prune(Subnet subnet) {
+        synchronized (_subnets) {
+            synchronized (subnet) {
+                if (subnet.isIdle(System.nanoTime()) && _subnets.get(subnet.key) == subnet)
+                    _subnets.remove(subnet.key);
+            }
+        }
+    }
+
+    /**
+     * The number of subnets being tracked.
+     * (for testing)
+     */
+    int getSubnetCount() {
+        synchronized (_subnets) {
+            return _subnets.size();
+        }
+    }
+
+    /**
+     * Waits out a backoff delay on a signal (which can be notified to cut it short), counting it as a pending
+     * reconnect.
+     */
+    public void backOff(Object signal, long millis) {
+        s_backingOff.incrementAndGet();
+        try {
+            Threads.wait(signal, millis);
+        } finally {
+            s_backingOff.decrementAndGet();
+        }
+    }
+
+    /**
+     * The number of connections currently backing off or waiting for their turn.
+     */
+    public int getPendingCount() {
+        return s_backingOff.get() + s_waiting.get();
+    }
+
+    /**
+     * (e.g. "10.0.0" for IPv4 /24)
+     */
+    private static String subnetOf(InetAddress address) {
+        if (address == null)
+            return "";
+
+        byte[] raw = address.getAddress();
+        int prefix = address instanceof Inet4Address ? 3 : 8;
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < prefix && i < raw.length; i++) {
+            if (i > 0)
+                sb.append('.');
+            sb.append(raw[i] & 0xff);
+        }
+
+        return sb.toString();
+    }
+
+} // (class)
@@ -31,6 +31,7 @@ import org.nodel.UUIDs;
 import org.nodel.json.JSONArray;
 import org.nodel.json.JSONException;
 import org.nodel.json.JSONObject;
+import org.nodel.json.JSONReader;
 import org.nodel.json.JSONString;
 import org.nodel.reflection.Reflection.AllowedInstanceInfo;
 
@@ -57,11 +58,20 @@ public class Serialisation {
      * Coerces a JSON string into a destination class (providing generics hints and other serialisation rules).
      */
     public static Object coerceFromJSON(Object dstObjOrClass, CharSequence json, Class<?> genericClassA, Class<?> genericClassB, boolean treatEmptyStringsAsNull) {
+        return coerceFromJSON(dstObjOrClass, new JSONReader(json), genericClassA, genericClassB, treatEmptyStringsAsNull);
+    }
+
+    /**
+     * Same as above but from a reader, e.g. one reused for a stream of small documents (see 'JSONReader.reset').
+     * Passing an instance instead of a class fills that instance in.
+     */
+    public static Object coerceFromJSON(Object dstObjOrClass, JSONReader reader, Class<?> genericClassA, Class<?> genericClassB, boolean treatEmptyStringsAsNull) {
         try {
-            // unfortunately a String instead of a CharSequence has to be used for this JSON-library
-            JSONObject jsonObject = new JSONObject(json.toString());
+            // coerces straight off the tokens, only building trees for the odd value that needs one
+            if (reader.peek() != JSONReader.Token.BEGIN_OBJECT)
+                throw reader.syntaxError("A JSONObject text must begin with '{'");
 
-            return coerce(dstObjOrClass, jsonObject, null, genericClassA, genericClassB, treatEmptyStringsAsNull);
+            return coerce(dstObjOrClass, reader, null, genericClassA, genericClassB, treatEmptyStringsAsNull);
         } catch (JSONException exc) {
             throw new SerialisationException("JSON not formatted correctly.", exc);
         }
@@ -296,6 +306,94 @@ public class Serialisation {
         
     } // (method)
     
+    /**
+     * Same as above but for the next value in a reader, going straight into maps, collections, arrays and plain objects
+     * instead of through a tree.
+     */
+    private static Object coerce(Object dstObjOrClass, JSONReader reader, ValueInfo valueInfo, Class<?> genericClassA, Class<?> genericClassB, boolean treatEmptyStringsAsNull) throws JSONException {
+        Class<?> klass;
+        
+        if (dstObjOrClass instanceof Class<?>) {
+            klass = (Class<?>) dstObjOrClass;
+        } else {
+            klass = (dstObjOrClass != null ? dstObjOrClass.getClass() : null);
+        }
+        
+        if (valueInfo != null) {
+            genericClassA = valueInfo.genericClassA;
+            genericClassB = valueInfo.genericClassB;
+        }
+        
+        boolean anyClass = klass == null || klass.equals(Object.class);
+        
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                if (anyClass) {
+                    reader.next();
+                    return coerceIntoMap(Map.class, reader, null, null, treatEmptyStringsAsNull);
+                    
+                } else if (Map.class.isAssignableFrom(klass)) {
+                    reader.next();
+                    return coerceIntoMap(dstObjOrClass, reader, genericClassA, genericClassB, treatEmptyStringsAsNull);
+                    
+                } else if (isPlainObject(klass)) {
+                    reader.next();
+                    return coerceIntoPlainObject(dstObjOrClass, reader, treatEmptyStringsAsNull);
+                }
+                break;
+                
+            case BEGIN_ARRAY:
+                if (anyClass) {
+                    reader.next();
+                    return coerceIntoCollection(List.class, reader, null, treatEmptyStringsAsNull);
+                    
+                } else if (klass.isArray()) {
+                    reader.next();
+                    return coerceIntoArray(dstObjOrClass, reader, treatEmptyStringsAsNull);
+                    
+                } else if (Collection.class.isAssignableFrom(klass)) {
+                    reader.next();
+                    return coerceIntoCollection(dstObjOrClass, reader, genericClassA, treatEmptyStringsAsNull);
+                }
+                break;
+                
+            case NUMBER:
+                reader.next();
+                
+                // straight from the primitive for the common types (same as 'Number.intValue()', etc.)
+                if (klass == Integer.class || klass == int.class)
+                    return reader.isIntegral() ? (int) reader.getLong() : (int) reader.getDouble();
+                
+                else if (klass == Long.class || klass == long.class)
+                    return reader.getLong();
+                
+                else if (klass == Double.class || klass == double.class)
+                    return reader.getDouble();
+                
+                return coerce(dstObjOrClass, reader.getValue(), valueInfo, genericClassA, genericClassB, treatEmptyStringsAsNull);
+                
+            default:
+                break;
+        }
+        
+        // scalars, and anything that needs to be looked at as a whole (e.g. choosing one of the allowed instances)
+        return coerce(dstObjOrClass, reader.readValue(), valueInfo, genericClassA, genericClassB, treatEmptyStringsAsNull);
+    }
+    
+    /**
+     * Whether 'coerce' treats the class as a plain object (with no allowed instances to choose from)
+     */
+    private static boolean isPlainObject(Class<?> klass) {
+        if (klass == String.class || klass.isPrimitive() || klass == Integer.class || klass == Long.class ||
+                klass == Double.class || klass == Float.class || klass == Byte.class || klass == Boolean.class ||
+                klass == DateTime.class || klass == Date.class || klass == UUID.class || klass.isEnum() || klass.isArray() ||
+                Collection.class.isAssignableFrom(klass) || Map.class.isAssignableFrom(klass))
+            return false;
+        
+        AllowedInstanceInfo[] allowedInstanceInfos = Reflection.getAllowedInstances(klass);
+        return allowedInstanceInfos == null || allowedInstanceInfos.length == 0;
+    }
+    
 	/**
      * All other objects
      * 
@@ -373,20 +471,8 @@ public class Serialisation {
                 klass = selectedClass;
         }
         
-        // create a new instance of the object if required
-        Object object;
-        
-        // create a new instance or ...
-        if (dstObj == null) {
-            try {
-                object = klass.newInstance();
-            } catch (Exception exc) {
-                throw new SerialisationException("Could not create instance of requested type plain object, " + klass.getName(), exc);
-            }
-        } else {
-            // ... use provided object
-            object = dstObj;
-        }
+        // create a new instance or use provided object
+        Object object = (dstObj == null ? newPlainObject(klass) : dstObj);
         
         // go through each listed field info and deserialise
         Iterator<String> keys = jsonObject.keys();
@@ -398,10 +484,6 @@ public class Serialisation {
                 // only 0 argument methods are valid as fields 
                 continue;
             
-            Field field = (Field) fieldInfo.member;
-
-            Class<?> valueClass = field.getType();
-
             Object jsonValue;
             try {
                 jsonValue = jsonObject.get(key);
@@ -409,54 +491,108 @@ public class Serialisation {
                 throw new SerialisationException("Could not get entry '" + key + "' out of the object.");
             }
 
-            // choose when set the field or use a designated 'setter'
-            SetterInfo setterInfo = fieldInfo.setter;
-            if (setterInfo == null) {
-                Object objValue = coerce(valueClass, jsonValue, fieldInfo, null, null, treatEmptyStringsAsNull);
-                
-                try {
-                    // set field directly
-                    field.setAccessible(true);
+            Object objValue = coerce(valueClass(fieldInfo), jsonValue, fieldInfo, null, null, treatEmptyStringsAsNull);
+            
+            setValue(object, fieldInfo, objValue);
+        } // (while)
 
-                    if (objValue != null) {
-                        field.set(object, objValue);
-                    }
-                    
-                } catch (Exception e) {
-                    throw new SerialisationException("Could not set field '" + field.getName() + "'.");
-                }
+        return object;        
+    }
+    
+    /**
+     * (streaming form, BEGIN_OBJECT has been read, no allowed instances)
+     */
+    private static Object coerceIntoPlainObject(Object dstObjOrClass, JSONReader reader, boolean treatEmptyStringsAsNull) throws JSONException {
+        Class<?> klass;
+        Object object;
+        
+        if (dstObjOrClass instanceof Class<?>) {
+            klass = (Class<?>) dstObjOrClass;
+            object = newPlainObject(klass);
+        } else {
+            klass = dstObjOrClass.getClass();
+            object = dstObjOrClass;
+        }
+        
+        while (reader.next() == JSONReader.Token.NAME) {
+            ValueInfo fieldInfo = Reflection.getValueInfosByName(klass, reader.getString());
+            if (fieldInfo == null || !(fieldInfo.member instanceof Field)) {
+                // only 0 argument methods are valid as fields
+                reader.skipValue();
+                continue;
+            }
+            
+            Object objValue = coerce(valueClass(fieldInfo), reader, fieldInfo, null, null, treatEmptyStringsAsNull);
+            
+            setValue(object, fieldInfo, objValue);
+        } // (while)
+        
+        return object;
+    }
+    
+    private static Object newPlainObject(Class<?> klass) {
+        try {
+            return klass.newInstance();
+        } catch (Exception exc) {
+            throw new SerialisationException("Could not create instance of requested type plain object, " + klass.getName(), exc);
+        }
+    }
+    
+    /**
+     * The class to coerce into, i.e. the field's or its designated 'setter's.
+     */
+    private static Class<?> valueClass(ValueInfo fieldInfo) {
+        SetterInfo setterInfo = fieldInfo.setter;
+        if (setterInfo == null)
+            return ((Field) fieldInfo.member).getType();
+        else
+            return setterInfo.method.getParameterTypes()[0];
+    }
+    
+    /**
+     * Sets the field or uses its designated 'setter' (nulls are ignored)
+     */
+    private static void setValue(Object object, ValueInfo fieldInfo, Object objValue) {
+        Field field = (Field) fieldInfo.member;
+        
+        SetterInfo setterInfo = fieldInfo.setter;
+        if (setterInfo == null) {
+            try {
+                // set field directly
+                field.setAccessible(true);
 
-            } else {
-                // set indirectly using a 'setter' method
-                Method setterMethod = setterInfo.method;
-                
-                Class<?>[] paramClasses = setterMethod.getParameterTypes();
+                if (objValue != null) {
+                    field.set(object, objValue);
+                }
                 
-                Object objValue = coerce(paramClasses[0], jsonValue, fieldInfo, null, null, treatEmptyStringsAsNull);
+            } catch (Exception e) {
+                throw new SerialisationException("Could not set field '" + field.getName() + "'.");
+            }
 
-                Exception exception = null;
+        } else {
+            // set indirectly using a 'setter' method
+            Method setterMethod = setterInfo.method;
+            
+            Exception exception = null;
+            
+            try {
+                if (objValue != null)
+                    setterMethod.invoke(object, objValue);
                 
-                try {
-                    if (objValue != null)
-                        setterMethod.invoke(object, objValue);
-                    
-                } catch (InvocationTargetException exc) {
-                    Throwable actualException = exc.getTargetException();
-                    throw new RuntimeException(actualException);
-                    
-                } catch (IllegalAccessException e) {
-                    exception = e;
-                    
-                } catch (IllegalArgumentException e) {
-                    exception = e;
-                }
+            } catch (InvocationTargetException exc) {
+                Throwable actualException = exc.getTargetException();
+                throw new RuntimeException(actualException);
                 
-                if (exception != null)
-                    throw new SerialisationException("Could not set field '" + field.getName() + "'.", exception);
+            } catch (IllegalAccessException e) {
+                exception = e;
+                
+            } catch (IllegalArgumentException e) {
+                exception = e;
             }
-        } // (while)
-
-        return object;        
+            
+            if (exception != null)
+                throw new SerialisationException("Could not set field '" + field.getName() + "'.", exception);
+        }
     }
     
         
@@ -520,6 +656,35 @@ public class Serialisation {
         return array;
     } // (method)
     
+    /**
+     * (streaming form, BEGIN_ARRAY has been read)
+     */
+    private static Object coerceIntoArray(Object dstObjOrClass, JSONReader reader, boolean treatEmptyStringsAsNull) throws JSONException {
+        Class<?> klass = (dstObjOrClass instanceof Class<?> ? (Class<?>) dstObjOrClass : dstObjOrClass.getClass());
+        
+        // get the class of the items in the array
+        Class<?> componentType = klass.getComponentType();
+        
+        // (length isn't known up front)
+        List<Object> values = new ArrayList<Object>();
+        while (reader.peek() != JSONReader.Token.END_ARRAY)
+            values.add(coerce(componentType, reader, null, null, null, treatEmptyStringsAsNull));
+        reader.next();
+        
+        // create the array instance or use the provided object
+        int length = values.size();
+        Object array = (dstObjOrClass instanceof Class<?> ? Array.newInstance(componentType, length) : dstObjOrClass);
+        
+        for (int index = 0; index < length; index++) {
+            Object objValue = values.get(index);
+            
+            if (objValue != null)
+                Array.set(array, index, objValue);
+        } // (for)
+        
+        return array;
+    } // (method)
+    
     /**
      * (args all prechecked) 
      * @param treatEmptyStringsAsNull 
@@ -552,25 +717,7 @@ public class Serialisation {
             }
         }
         
-        Collection<Object> instance;
-        
-        // create own instance or...
-        if (dstObj == null) {
-            if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
-                // cannot create instance of interface or abstract classes, so use
-                // a well new 'Collection' class, ArrayList
-                instance = new ArrayList<Object>();
-            } else {
-                try {
-                    instance = (Collection<Object>) klass.newInstance();
-                } catch (Exception exc) {
-                    throw new SerialisationException("Could not create instance of requested type, Collection.", exc);
-                }
-            }
-        } else {
-            // ...use provided one
-            instance = (Collection<Object>) dstObj;
-        }
+        Collection<Object> instance = newCollection(klass, dstObj);
 
         // get the length of the array
         int length = jsonArray.length();
@@ -590,6 +737,45 @@ public class Serialisation {
         return instance;
     } // (method)
     
+    /**
+     * (streaming form, BEGIN_ARRAY has been read)
+     */
+    private static Object coerceIntoCollection(Object dstObjOrClass, JSONReader reader, Class<?> componentType, boolean treatEmptyStringsAsNull) throws JSONException {
+        Collection<Object> instance;
+        
+        if (dstObjOrClass instanceof Class<?>)
+            instance = newCollection((Class<?>) dstObjOrClass, null);
+        else
+            instance = newCollection(dstObjOrClass.getClass(), dstObjOrClass);
+        
+        while (reader.peek() != JSONReader.Token.END_ARRAY)
+            instance.add(coerce(componentType, reader, null, null, null, treatEmptyStringsAsNull));
+        reader.next();
+        
+        return instance;
+    } // (method)
+    
+    /**
+     * Creates own instance or uses the provided one.
+     */
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> klass, Object dstObj) {
+        if (dstObj != null)
+            return (Collection<Object>) dstObj;
+        
+        if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+            // cannot create instance of interface or abstract classes, so use
+            // a well new 'Collection' class, ArrayList
+            return new ArrayList<Object>();
+        }
+        
+        try {
+            return (Collection<Object>) klass.newInstance();
+        } catch (Exception exc) {
+            throw new SerialisationException("Could not create instance of requested type, Collection.", exc);
+        }
+    }
+    
     /**
      * (args all prechecked) 
      * @param treatEmptyStringsAsNull 
@@ -619,37 +805,13 @@ public class Serialisation {
             jsonMap = (JSONObject) wrappedObject;
         }
         
-        Map<Object, Object> instance;
-
-        // create a fresh instance or...
-        if (dstObj == null) {
-            if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
-                // cannot create instance of interface or abstract classes, so use
-                // a well new 'Map' class, LinkedHashMap which preservers order
-                instance = new LinkedHashMap<Object, Object>();
-            } else {
-                // use the klass that was specified
-                try {
-                    instance = (Map<Object, Object>) klass.newInstance();
-                } catch (Exception exc) {
-                    throw new SerialisationException("Could not create an instance of a requested type, Map.", exc);
-                }
-            }
-        } else {
-            // ... use the provided object
-            instance = (Map<Object, Object>) dstObj;
-        }
+        Map<Object, Object> instance = newMap(klass, dstObj);
         
         Iterator<String> keys = jsonMap.keys();
         while (keys.hasNext()) {
             String jsonKey = keys.next();
             
-            Object objKey;
-            if (keyType != String.class && keyType != Object.class) {
-                objKey = coerce(keyType, jsonKey, null, null, null, treatEmptyStringsAsNull);
-            } else {
-                objKey = jsonKey;
-            }
+            Object objKey = coerceKey(keyType, jsonKey, treatEmptyStringsAsNull);
 
             Object jsonValue;
             try {
@@ -666,6 +828,57 @@ public class Serialisation {
 
         return instance;
     } // (method)
+    
+    /**
+     * (streaming form, BEGIN_OBJECT has been read)
+     */
+    private static Object coerceIntoMap(Object dstObjOrClass, JSONReader reader, Class<?> keyType, Class<?> valueType, boolean treatEmptyStringsAsNull) throws JSONException {
+        Map<Object, Object> instance;
+        
+        if (dstObjOrClass instanceof Class<?>)
+            instance = newMap((Class<?>) dstObjOrClass, null);
+        else
+            instance = newMap(dstObjOrClass.getClass(), dstObjOrClass);
+        
+        while (reader.next() == JSONReader.Token.NAME) {
+            Object objKey = coerceKey(keyType, reader.getString(), treatEmptyStringsAsNull);
+            
+            Object objValue = coerce(valueType, reader, null, null, null, treatEmptyStringsAsNull);
+            
+            instance.put(objKey, objValue);
+        } // (while)
+        
+        return instance;
+    } // (method)
+    
+    /**
+     * Creates a fresh instance or uses the provided one.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> klass, Object dstObj) {
+        if (dstObj != null)
+            return (Map<Object, Object>) dstObj;
+        
+        if (klass.isInterface() || Modifier.isAbstract(klass.getModifiers())) {
+            // cannot create instance of interface or abstract classes, so use
+            // a well new 'Map' class, LinkedHashMap which preservers order
+            return new LinkedHashMap<Object, Object>();
+        }
+        
+        // use the klass that was specified
+        try {
+            return (Map<Object, Object>) klass.newInstance();
+        } catch (Exception exc) {
+            throw new SerialisationException("Could not create an instance of a requested type, Map.", exc);
+        }
+    }
+    
+    private static Object coerceKey(Class<?> keyType, String jsonKey, boolean treatEmptyStringsAsNull) {
+        if (keyType != String.class && keyType != Object.class)
+            return coerce(keyType, jsonKey, null, null, null, treatEmptyStringsAsNull);
+        else
+            return jsonKey;
+    }
 
     /**
      * (overloaded - no indentation specified)
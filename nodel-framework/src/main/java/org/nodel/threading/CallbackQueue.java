@@ -10,18 +10,67 @@ import org.nodel.Handler.H2;
 import org.nodel.Handler.H3;
 import org.nodel.Handler.H4;
 import org.nodel.Handler.H5;
+import org.nodel.diagnostics.LatencyHistogram;
 
 /**
  * A callback handler that using a fair ordering policy, with safe exception handling.
  */
 public class CallbackQueue {
     
-    private ReentrantLock _fairLock = new ReentrantLock(true);
+    private final ReentrantLock _fairLock;
+    
+    /**
+     * Time spent waiting for the queue.
+     */
+    private final LatencyHistogram _waits;
+    
+    /**
+     * Waits are also recorded here, e.g. a binding's (see 'recordingTo')
+     * (can be null)
+     */
+    private final LatencyHistogram _bindingWaits;
     
     /**
      * Creates a safe callback handler 
      */
     public CallbackQueue() {
+        this(new ReentrantLock(true), new LatencyHistogram(), null);
+    }
+    
+    private CallbackQueue(ReentrantLock fairLock, LatencyHistogram waits, LatencyHistogram bindingWaits) {
+        _fairLock = fairLock;
+        _waits = waits;
+        _bindingWaits = bindingWaits;
+    }
+    
+    /**
+     * The same queue but the waits of callbacks handled through the returned instance are also recorded into
+     * the given histogram, i.e. per action or event binding.
+     */
+    public CallbackQueue recordingTo(LatencyHistogram bindingWaits) {
+        return new CallbackQueue(_fairLock, _waits, bindingWaits);
+    }
+    
+    /**
+     * The distribution of time callers spent waiting for their turn (across all bindings).
+     */
+    public LatencyHistogram getWaits() {
+        return _waits;
+    }
+    
+    /**
+     * (acquires the lock, recording the time waited)
+     */
+    private void lock() {
+        long start = System.nanoTime();
+        
+        _fairLock.lock();
+        
+        long waited = System.nanoTime() - start;
+        _waits.record(waited);
+        
+        if (_bindingWaits != null)
+            _bindingWaits.record(waited);
     }
     
     /**
@@ -29,7 +78,7 @@ public class CallbackQueue {
      */
     private void doHandle(Runnable runnable) {
         try {
-            _fairLock.lock();
+            lock();
             
             runnable.run();
             
@@ -47,7 +96,7 @@ public class CallbackQueue {
      */
     public <T> T handle(Callable<T> func) throws Exception {
         try {
-            _fairLock.lock();
+            lock();
             
             return func.call();
             
@@ -61,7 +110,7 @@ public class CallbackQueue {
      */
     public <R, T> R handle(Handler.F1<R, T> func, T arg) throws Exception {
         try {
-            _fairLock.lock();
+            lock();
             
             return func.handle(arg);
             
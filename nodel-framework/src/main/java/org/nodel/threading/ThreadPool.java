@@ -16,20 +16,47 @@ import org.nodel.Threads;
 import org.nodel.diagnostics.AtomicIntegerMeasurementProvider;
 import org.nodel.diagnostics.AtomicLongMeasurementProvider;
 import org.nodel.diagnostics.Diagnostics;
+import org.nodel.diagnostics.LatencyHistogram;
 import org.nodel.diagnostics.MeasurementProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Contains thread-pool related utilities for the Nodel environment.
+ * 
+ * Work is queued in lanes: 'Control' tasks (wiring, keep-alives, binding state, etc.) are always
+ * taken ahead of 'Data' tasks (event dispatch, emit handlers, etc.) so a flood of data can't hold
+ * up the control plane. Data is never starved though; see CONTROL_BURST.
  */
 public class ThreadPool {
     
+    /**
+     * The task classes, in priority order.
+     */
+    public enum Lane {
+        
+        /**
+         * Light, latency sensitive tasks that keep things wired and alive.
+         */
+        Control,
+        
+        /**
+         * Everything else, potentially high volume (the default).
+         */
+        Data
+        
+    } // (enum)
+    
     /**
      * The default.
      */
     private final static int DEFAULT_MAXTHREADS = 128;
     
+    /**
+     * The most 'Control' tasks taken in a row while 'Data' tasks are waiting.
+     */
+    private final static int CONTROL_BURST = 8;
+    
     /**
      * (class-level lock)
      */
@@ -101,11 +128,47 @@ public class ThreadPool {
     private MeasurementProvider readOnlyOperations = new AtomicLongMeasurementProvider(this.operations);
     
     /**
-     * Holds all the work items.
+     * Holds the work items and metrics of a lane.
      */
-    private Queue<QueueItem> workQueue = new LinkedList<QueueItem>();
+    private class LaneQueue {
+        
+        public Queue<QueueItem> items = new LinkedList<QueueItem>();
+        
+        /**
+         * Number of operations taken from this lane (stats)
+         */
+        public AtomicLong operations = new AtomicLong();
+        
+        /**
+         * Number of items waiting (stats)
+         */
+        public AtomicInteger queued = new AtomicInteger();
+        
+        /**
+         * Time items spend waiting in this lane.
+         */
+        public LatencyHistogram queueWait = new LatencyHistogram();
+        
+    } // (class)
     
-    /**s
+    /**
+     * The lanes, by ordinal (also the lock for all of them)
+     */
+    private LaneQueue[] lanes;
+    
+    /**
+     * Items waiting across all lanes.
+     * (locked around 'lanes')
+     */
+    private int queued;
+    
+    /**
+     * 'Control' items taken in a row while 'Data' items were waiting.
+     * (locked around 'lanes')
+     */
+    private int controlRun;
+    
+    /**
      * For growth operations.
      */
     private ReentrantLock growLock = new ReentrantLock();
@@ -136,8 +199,19 @@ public class ThreadPool {
         
         this.timeout = timeout;
         
+        Lane[] values = Lane.values();
+        this.lanes = new LaneQueue[values.length];
+        for (int i = 0; i < values.length; i++)
+            this.lanes[i] = new LaneQueue();
+        
         Diagnostics.shared().registerCounter(this.name + " thread-pool.Ops", this.readOnlyOperations, true);
         Diagnostics.shared().registerCounter(this.name + " thread-pool.Active threads", this.readOnlyInUse, false);
+        
+        for (Lane lane : values) {
+            LaneQueue laneQueue = this.lanes[lane.ordinal()];
+            Diagnostics.shared().registerCounter(this.name + " thread-pool." + lane + " ops", new AtomicLongMeasurementProvider(laneQueue.operations), true);
+            Diagnostics.shared().registerCounter(this.name + " thread-pool." + lane + " queued", new AtomicIntegerMeasurementProvider(laneQueue.queued), false);
+        }
     }
     
     /**
@@ -147,6 +221,27 @@ public class ThreadPool {
        return this.maxThreads;
     }
     
+    /**
+     * The number of operations taken from a lane so far.
+     */
+    public long getOperations(Lane lane) {
+        return this.lanes[lane.ordinal()].operations.get();
+    }
+    
+    /**
+     * The number of items currently waiting in a lane.
+     */
+    public int getQueued(Lane lane) {
+        return this.lanes[lane.ordinal()].queued.get();
+    }
+    
+    /**
+     * The time items have spent waiting in a lane before being run.
+     */
+    public LatencyHistogram getQueueWait(Lane lane) {
+        return this.lanes[lane.ordinal()].queueWait;
+    }
+    
     /**
      * Stored in the queue.
      */
@@ -154,10 +249,13 @@ public class ThreadPool {
         
         public Runnable runnable;
         
+        public LaneQueue lane;
+        
         public long timestamp;
         
-        public QueueItem(Runnable runnable) {
+        public QueueItem(Runnable runnable, LaneQueue lane) {
             this.runnable = runnable;
+            this.lane = lane;
             this.timestamp = System.nanoTime();
         }
         
@@ -166,17 +264,30 @@ public class ThreadPool {
     /**
      * Executes a task within this thread-pool, growing the thread-pool
      * conservatively.
+     * (uses the 'Data' lane)
      */
     public void execute(Runnable runnable) {
-        if (runnable == null)
+        execute(runnable, Lane.Data);
+    } // (method)
+    
+    /**
+     * Executes a task within this thread-pool on the given lane, growing the thread-pool
+     * conservatively.
+     */
+    public void execute(Runnable runnable, Lane lane) {
+        if (runnable == null || lane == null)
             throw new NullPointerException();
         
-        QueueItem item = new QueueItem(runnable);
+        LaneQueue laneQueue = this.lanes[lane.ordinal()];
+        
+        QueueItem item = new QueueItem(runnable, laneQueue);
 
-        synchronized (this.workQueue) {
-            this.workQueue.add(item);
+        synchronized (this.lanes) {
+            laneQueue.items.add(item);
+            laneQueue.queued.incrementAndGet();
+            this.queued++;
 
-            this.workQueue.notify();
+            this.lanes.notify();
         }
 
         if (this.availableThreads.get() == 0)
@@ -255,14 +366,14 @@ public class ThreadPool {
             // holds the runnable
             QueueItem item;
             
-            synchronized (this.workQueue) {
-                while (this.workQueue.size() == 0) {
+            synchronized (this.lanes) {
+                while (this.queued == 0) {
                     if (this.timeout < 0) {
-                        Threads.waitOnSync(this.workQueue);
+                        Threads.waitOnSync(this.lanes);
                     } else {
-                        Threads.waitOnSync(this.workQueue, this.timeout);
+                        Threads.waitOnSync(this.lanes, this.timeout);
 
-                        if (this.workQueue.size() == 0) {
+                        if (this.queued == 0) {
                             // thread has been idle a while bring it down
                             this.availableThreads.decrementAndGet();
 
@@ -277,13 +388,15 @@ public class ThreadPool {
                     }
                 } // (while)
                 
-                // grab the item available
-                item = this.workQueue.remove();
+                // grab the next item
+                item = takeItem();
             }
             
             // grow the queue if anything has been sitting in it for more than 1 second
             long timeInQueue = System.nanoTime() - item.timestamp;
             
+            item.lane.queueWait.record(timeInQueue);
+            
             // or if there are no threads available
             available = this.availableThreads.decrementAndGet();
             
@@ -298,6 +411,7 @@ public class ThreadPool {
             
             // count the operation *before* actual execution
             this.operations.incrementAndGet();
+            item.lane.operations.incrementAndGet();
             
             try {
                 item.runnable.run();
@@ -320,6 +434,31 @@ public class ThreadPool {
         
     } // (method)
     
+    /**
+     * Takes the next item, 'Control' first unless it has had its burst and 'Data' is waiting.
+     * (assumes locked and an item is available)
+     */
+    private QueueItem takeItem() {
+        LaneQueue control = this.lanes[Lane.Control.ordinal()];
+        LaneQueue data = this.lanes[Lane.Data.ordinal()];
+        
+        LaneQueue laneQueue;
+        
+        if (control.items.size() > 0 && (data.items.size() == 0 || this.controlRun < CONTROL_BURST)) {
+            laneQueue = control;
+            this.controlRun = data.items.size() == 0 ? 0 : this.controlRun + 1;
+            
+        } else {
+            laneQueue = data;
+            this.controlRun = 0;
+        }
+        
+        this.queued--;
+        laneQueue.queued.decrementAndGet();
+        
+        return laneQueue.items.remove();
+    } // (method)
+    
     /**
      * Holds the back-ground thread-pool.
      */
@@ -93,7 +93,7 @@ public class Timers {
      * Use for a one-off timer.
      */
     public TimerTask schedule(TimerTask task, long delay) {
-        sharedTimer().schedule(createWrapper(task, null), delay);
+        sharedTimer().schedule(createWrapper(task, null, null), delay);
         
         return task;
     } // (method)
@@ -102,7 +102,7 @@ public class Timers {
      * A one-off timer whose task could be blocking so thread-pool can be used.
      */
     public TimerTask schedule(ThreadPool threadPool, TimerTask task, long delay) {
-        sharedTimer().schedule(createWrapper(task, threadPool), delay);
+        sharedTimer().schedule(createWrapper(task, threadPool, ThreadPool.Lane.Data), delay);
         
         return task;        
     } // (method)
@@ -111,7 +111,7 @@ public class Timers {
      * Use for a one-off timer.
      */
     public TimerTask schedule(TimerTask task, Date time) {
-        sharedTimer().schedule(createWrapper(task, null), time);
+        sharedTimer().schedule(createWrapper(task, null, null), time);
         
         return task;
     } // (method)
@@ -120,7 +120,7 @@ public class Timers {
      * Use for a repeating timer.
      */
     public TimerTask schedule(TimerTask task, long delay, long period) {
-        sharedTimer().schedule(createWrapper(task, null), delay, period);
+        sharedTimer().schedule(createWrapper(task, null, null), delay, period);
         
         return task;
     }
@@ -129,16 +129,25 @@ public class Timers {
      * Use for a repeating timer.
      */
     public TimerTask schedule(ThreadPool threadPool, TimerTask task, long delay, long period) {
-        sharedTimer().schedule(createWrapper(task, threadPool), delay, period);
+        sharedTimer().schedule(createWrapper(task, threadPool, ThreadPool.Lane.Data), delay, period);
         
         return task;
     }    
     
+    /**
+     * Use for a repeating timer whose task runs on a specific lane of the thread-pool.
+     */
+    public TimerTask schedule(ThreadPool threadPool, ThreadPool.Lane lane, TimerTask task, long delay, long period) {
+        sharedTimer().schedule(createWrapper(task, threadPool, lane), delay, period);
+        
+        return task;
+    } // (method)
+    
     /**
      * Use for a repeating timer.
      */
     public TimerTask schedule(TimerTask task, Date firstTime, long period) {
-        sharedTimer().schedule(createWrapper(task, null), firstTime, period);
+        sharedTimer().schedule(createWrapper(task, null, null), firstTime, period);
         
         return task;
     } // (method)
@@ -147,7 +156,7 @@ public class Timers {
      * Use for a repeating timer.
      */    
     public TimerTask scheduleAtFixedRate(TimerTask task, long delay, long period) {
-        sharedTimer().scheduleAtFixedRate(createWrapper(task, null), delay, period);
+        sharedTimer().scheduleAtFixedRate(createWrapper(task, null, null), delay, period);
         
         return task;
     } // (method)
@@ -156,7 +165,7 @@ public class Timers {
      * Use for a repeating timer.
      */    
     public TimerTask scheduleAtFixedRate(TimerTask task, Date firstTime, long period) {
-        sharedTimer().scheduleAtFixedRate(createWrapper(task, null), firstTime, period);
+        sharedTimer().scheduleAtFixedRate(createWrapper(task, null, null), firstTime, period);
         
         return task;
     } // (method)
@@ -164,7 +173,7 @@ public class Timers {
     /**
      * A convenience method to ensure unhandled exceptions are caught.
      */
-    private java.util.TimerTask createWrapper(final TimerTask task, final ThreadPool threadPool) {
+    private java.util.TimerTask createWrapper(final TimerTask task, final ThreadPool threadPool, final ThreadPool.Lane lane) {
         // set up the task entry-point at schedule time
         final Runnable runnable = new Runnable() {
             
@@ -188,7 +197,7 @@ public class Timers {
                     if (threadPool == null)
                         runnable.run();
                     else
-                        threadPool.execute(runnable);
+                        threadPool.execute(runnable, lane);
                     
                 } catch (Exception exc) {
                     // make sure unhandled exceptions don't pull down the whole thread
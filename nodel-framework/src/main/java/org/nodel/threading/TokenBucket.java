@@ -0,0 +1,83 @@
+package org.nodel.threading;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+/**
+ * A token bucket for pacing, i.e. allows bursts of up to 'burst' operations then 'rate' per second on average.
+ * (thread-safe)
+ */
+public class TokenBucket {
+
+    /**
+     * (tokens per nanosecond)
+     */
+    private final double _ratePerNano;
+
+    /**
+     * (the bucket size)
+     */
+    private final double _burst;
+
+    /**
+     * (self locked)
+     */
+    private double _tokens;
+
+    /**
+     * When the tokens were last topped up (nanos)
+     * (self locked)
+     */
+    private long _lastFill = System.nanoTime();
+
+    /**
+     * @param rate average tokens per second
+     * @param burst the most tokens that can be taken at once (the bucket starts full)
+     */
+    public TokenBucket(double rate, double burst) {
+        if (rate <= 0 || burst < 1)
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+
+        _ratePerNano = rate / 1000000000d;
+        _burst = burst;
+        _tokens = burst;
+    }
+
+    /**
+     * Takes a token if one is available, returning 0, otherwise returns how long until one will be (millis, at
+     * least 1) without taking anything.
+     */
+    public synchronized long tryTake() {
+        fill();
+
+        if (_tokens >= 1) {
+            _tokens -= 1;
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - _tokens) / _ratePerNano / 1000000d));
+    }
+
+    /**
+     * The number of whole tokens currently available.
+     */
+    public synchronized int available() {
+        fill();
+
+        return (int) _tokens;
+    }
+
+    /**
+     * (assumes locked)
+     */
+    private void fill() {
+        long now = System.nanoTime();
+
+        _tokens = Math.min(_burst, _tokens + (now - _lastFill) * _ratePerNano);
+        _lastFill = now;
+    }
+
+} // (class)
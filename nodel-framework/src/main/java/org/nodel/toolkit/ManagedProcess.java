@@ -1,6 +1,5 @@
 package org.nodel.toolkit;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -27,6 +26,9 @@ import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.BaseNode;
 import org.nodel.io.BufferBuilder;
 import org.nodel.io.Stream;
+import org.nodel.io.framing.DelimiterFramer;
+import org.nodel.io.framing.Framer;
+import org.nodel.io.framing.Framer.FrameHandler;
 import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
@@ -244,7 +246,8 @@ public class ManagedProcess implements Closeable {
      */
     private enum Modes {
         UnboundedRaw,
-        CharacterDelimitedText
+        CharacterDelimitedText,
+        Framed
     }
     
     /**
@@ -252,6 +255,16 @@ public class ManagedProcess implements Closeable {
      */
     private Modes _mode = Modes.CharacterDelimitedText;
     
+    /**
+     * (see setter)
+     */
+    private Framer _framer;
+    
+    /**
+     * The delimiter framer while in use (delimiters can be changed on the fly)
+     */
+    private DelimiterFramer _textFramer;
+    
     /**
      * The default request timeout value (timed from respective 'send')
      */
@@ -416,6 +429,23 @@ public class ManagedProcess implements Closeable {
             
             if (Strings.isEmpty(_receiveDelimiters))
                 _mode = Modes.UnboundedRaw;
+            
+            else if (_textFramer != null)
+                _textFramer.setDelimiters(_receiveDelimiters);
+        }
+    }
+    
+    /**
+     * Uses a framer to assemble stdout instead of the delimiters (stderr is still delimited). 
+     * Frames are passed on untrimmed.
+     * (the framer must not be shared with other processes)
+     */
+    public void setFramer(Framer framer) {
+        synchronized (_lock) {
+            _framer = framer;
+            
+            if (framer != null)
+                _mode = Modes.Framed;
         }
     }
     
@@ -702,6 +732,9 @@ public class ManagedProcess implements Closeable {
             if (_mode == Modes.CharacterDelimitedText) {
                 readTextLoop(process);
 
+            } else if (_mode == Modes.Framed) {
+                readFramedLoop(process, _framer, false);
+
             } else { // mode is 'UnboundedRaw'
                 readUnboundedRawLoop(process);
             }
@@ -777,64 +810,92 @@ public class ManagedProcess implements Closeable {
         return null;
     }
 
+    /**
+     * Reads and frames on the delimiters, passing on trimmed text.
+     */
+    private void readTextLoop(Process process) throws Exception {
+        DelimiterFramer framer = new DelimiterFramer(_receiveDelimiters, MAX_SEGMENT_ALLOWED);
+        
+        // dump what's in the buffer and continue if too much arrives 
+        framer.setOverflowHandler(new H1<IOException>() {
+            
+            @Override
+            public void handle(IOException exc) {
+                Handler.tryHandle(_callbackErrorHandler, new IOException(exc.getMessage() + " Dumping buffer and continuing."));
+            }
+            
+        });
+        
+        synchronized (_lock) {
+            _textFramer = framer;
+        }
+        
+        try {
+            readFramedLoop(process, framer, true);
+            
+        } finally {
+            synchronized (_lock) {
+                _textFramer = null;
+            }
+        }
+    }
+    
     /**
      * The reading loop will continually read until an error occurs 
      * or the stream is gracefully ended by the peer.
      * 
-     * ("resource" warning suppression applies to 'bis'. It's not valid because socket itself gets closed) 
+     * ("resource" warning suppression applies to 'cis'. It's not valid because the process streams get closed) 
      */
     @SuppressWarnings("resource")
-    private void readTextLoop(Process process) throws Exception {
+    private void readFramedLoop(Process process, Framer framer, final boolean trim) throws Exception {
         InputStream in = process.getInputStream();
-        BufferedInputStream bis = new BufferedInputStream(new CountableInputStream(in, SharableMeasurementProvider.Null.INSTANCE, _counterStdoutRate), 1024);
+        CountableInputStream cis = new CountableInputStream(in, SharableMeasurementProvider.Null.INSTANCE, _counterStdoutRate);
 
-        // check if stderr needs to be dealt with i.e. 'merge error' not flagged AND a callback is set up
-        if (!_mergeError) {
+        // check if stderr needs to be dealt with i.e. 'merge error' not flagged AND delimiters are available
+        String delims = _receiveDelimiters;
+        if (!_mergeError && !Strings.isEmpty(delims)) {
             InputStream stderr = process.getErrorStream();
-            BufferedInputStream biserr = new BufferedInputStream(new CountableInputStream(stderr, SharableMeasurementProvider.Null.INSTANCE, _counterStderrRate), 1024);
+            CountableInputStream ciserr = new CountableInputStream(stderr, SharableMeasurementProvider.Null.INSTANCE, _counterStderrRate);
 
             // this is ugly, but a new thread has to be started otherwise polling has to be done
-            Thread thread = new Thread(new StderrHandler(biserr), _parentNode.getName().getReducedName() + "_stderr");
+            Thread thread = new Thread(new StderrHandler(ciserr, delims), _parentNode.getName().getReducedName() + "_stderr");
             thread.start();
 
             // (thread will gracefully stop after its associated process dies)
         }
-
+        
         // create a buffer that'll be reused
-        // start off small, will grow as needed
-        BufferBuilder bb = new BufferBuilder(256);
+        if (_buffer == null)
+            _buffer = new byte[1024 * 10 * 2];
+        
+        FrameHandler frameHandler = new FrameHandler() {
+            
+            @Override
+            public void handleFrame(byte[] buffer, int offset, int len) {
+                String str = trim ? BufferBuilder.getTrimmedString(buffer, offset, len) : (len > 0 ? bufferToString(buffer, offset, len) : null);
+                if (str != null)
+                    handleReceivedData(str);
+            }
+            
+        };
+        
+        // (may have been used by a previous process)
+        framer.reset();
 
         while (!_shutdown) {
-            int c = bis.read();
+            int bytesRead = cis.read(_buffer);
 
-            if (c < 0)
+            if (bytesRead < 0)
                 break;
 
-            if (charMatches((char) c, _receiveDelimiters)) {
-                String str = bb.getTrimmedString();
-                if (str != null)
-                    handleReceivedData(str);
-
-                bb.reset();
-                
-            } else {
-                if (bb.getSize() >= MAX_SEGMENT_ALLOWED) {
-                    // dump what's in the buffer and reset
-                    Handler.tryHandle(_callbackErrorHandler, new IOException("Too much data arrived (at least " + bb.getSize() / 1024 + " KB) before any delimeter was present; dumping buffer and continuing."));
-                    bb.reset();
-                }
-
-                bb.append((byte) c);
-            }
+            framer.feed(_buffer, 0, bytesRead, frameHandler);
         } // (while)
         
         // the peer has gracefully closed down the connection or we're shutting down
         
         if (!_shutdown) {
             // send out last data
-            String str = bb.getTrimmedString();
-            if (str != null)
-                handleReceivedData(str);
+            framer.flush(frameHandler);
             
             // then fire the stopped event and pass through the exit value
             Handler.tryHandle(_stoppedCallback, process.waitFor(), _callbackErrorHandler);
@@ -850,12 +911,18 @@ public class ManagedProcess implements Closeable {
          * (reference for this instance)
          */
         private InputStream __is;
+        
+        /**
+         * (reference for this instance)
+         */
+        private String __delims;
 
         /**
          * (constructor)
          */
-        public StderrHandler(InputStream is) {
+        public StderrHandler(InputStream is, String delims) {
             __is = is;
+            __delims = delims;
         }
 
         @Override
@@ -864,32 +931,39 @@ public class ManagedProcess implements Closeable {
                 // (required once)
                 _threadStateHandler.handle();
                 
-                // create a buffer that'll be reused
-                // start off small, will grow as needed
-                BufferBuilder bb = new BufferBuilder(256);
+                DelimiterFramer framer = new DelimiterFramer(__delims, MAX_SEGMENT_ALLOWED);
+                
+                // dump what's in the buffer and continue if too much arrives
+                framer.setOverflowHandler(new H1<IOException>() {
 
-                while (!_shutdown) {
-                    int c = __is.read();
+                    @Override
+                    public void handle(IOException exc) {
+                        Handler.tryHandle(_callbackErrorHandler, new IOException("STDERR: " + exc.getMessage() + " Dumping buffer and continuing."));
+                    }
 
-                    if (c < 0)
-                        break;
+                });
+                
+                FrameHandler frameHandler = new FrameHandler() {
 
-                    if (charMatches((char) c, _receiveDelimiters)) {
-                        String str = bb.getTrimmedString();
+                    @Override
+                    public void handleFrame(byte[] buffer, int offset, int len) {
+                        String str = BufferBuilder.getTrimmedString(buffer, offset, len);
                         if (str != null)
                             _callbackHandler.handle(_stderrCallback, str, _callbackErrorHandler);
+                    }
+
+                };
+                
+                // (separate from the stdout buffer)
+                byte[] buffer = new byte[1024];
 
-                        bb.reset();
-                        
-                    } else {
-                        if (bb.getSize() >= MAX_SEGMENT_ALLOWED) {
-                            // dump what's in the buffer and reset
-                            Handler.tryHandle(_callbackErrorHandler, new IOException("STDERR: Too much data arrived (at least " + bb.getSize() / 1024 + " KB) before any delimeter was present; dumping buffer and continuing."));
-                            bb.reset();
-                        }
+                while (!_shutdown) {
+                    int bytesRead = __is.read(buffer);
 
-                        bb.append((byte) c);
-                    }
+                    if (bytesRead < 0)
+                        break;
+
+                    framer.feed(buffer, 0, bytesRead, frameHandler);
                 } // (while)
             } catch (Exception exc) {
                 // gracefully cleanup and end
@@ -933,18 +1007,6 @@ public class ManagedProcess implements Closeable {
         }        
     }    
 
-    /**
-     * (convenience method to check when a character appears in a list of characters (in the form of a String) 
-     */
-    private static boolean charMatches(char c, String chars) {
-        int len = chars.length();
-        for (int a = 0; a < len; a++)
-            if (chars.charAt(a) == c)
-                return true;
-
-        return false;
-    }
-    
     /**
      * When an actual data segment was received; deals with request callbacks if necessary
      */
@@ -1,11 +1,11 @@
 package org.nodel.toolkit;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -25,6 +25,11 @@ import org.nodel.diagnostics.Diagnostics;
 import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.BaseNode;
 import org.nodel.io.BufferBuilder;
+import org.nodel.io.framing.DelimiterFramer;
+import org.nodel.io.framing.Framer;
+import org.nodel.io.framing.Framer.FrameHandler;
+import org.nodel.net.AddressResolver;
+import org.nodel.net.ReconnectScheduler;
 import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
@@ -115,9 +120,20 @@ public class ManagedSSH implements Closeable {
     private final CallbackQueue _callbackHandler;
 
     /**
-     * The current back-off period (exponential back-off)
+     * The current back-off period (jittered exponential back-off, see 'backoff')
      */
-    private int _backoffTime = 0;
+    private long _backoffTime = 0;
+
+    /**
+     * (decorrelates reconnects from those of other connections)
+     */
+    private ReconnectScheduler.Backoff _backoff = new ReconnectScheduler.Backoff(MIN_CONNECTION_GAP, MAX_BACKOFF);
+
+    /**
+     * The turn to connect, if waiting on one (released by 'close')
+     * (locked around 'lock')
+     */
+    private ReconnectScheduler.Ticket _connectTicket;
 
     /**
      * If there was a recent successful connection.
@@ -204,13 +220,24 @@ public class ManagedSSH implements Closeable {
 
     private enum ReadMode {
         UnboundedRaw,
-        CharacterDelimitedText
+        CharacterDelimitedText,
+        Framed
     }
 
     /**
      * If length delimited mode is being used with start / stop flags
      */
     private ReadMode _mode = ReadMode.CharacterDelimitedText;
+    
+    /**
+     * (see setter)
+     */
+    private Framer _framer;
+    
+    /**
+     * The delimiter framer while in use (delimiters can be changed on the fly)
+     */
+    private DelimiterFramer _textFramer;
 
     /**
      * The default request timeout value (timed from respective 'send')
@@ -448,6 +475,22 @@ public class ManagedSSH implements Closeable {
 
             if (Strings.isEmpty(_receiveDelimiters))
                 _mode = ReadMode.UnboundedRaw;
+
+            else if (_textFramer != null)
+                _textFramer.setDelimiters(_receiveDelimiters);
+        }
+    }
+
+    /**
+     * Uses a framer to assemble the received data instead of the delimiters. Frames are passed on untrimmed.
+     * (the framer must not be shared with other connections)
+     */
+    public void setFramer(Framer framer) {
+        synchronized (_lock) {
+            _framer = framer;
+
+            if (framer != null)
+                _mode = ReadMode.Framed;
         }
     }
 
@@ -524,6 +567,27 @@ public class ManagedSSH implements Closeable {
         }
     }
 
+    /**
+     * Waits for a turn to connect, returning null if shut down in the meantime.
+     */
+    private ReconnectScheduler.Ticket awaitConnectTurn(InetSocketAddress address) {
+        ReconnectScheduler.Ticket ticket;
+
+        synchronized (_lock) {
+            // (callers waiting on this connection go first)
+            ticket = ReconnectScheduler.shared().ticket(address.getAddress(), _queueLength > 0);
+
+            if (_shutdown) {
+                ticket.release();
+                return null;
+            }
+
+            _connectTicket = ticket;
+        }
+
+        return ticket.await() ? ticket : null;
+    }
+
     /**
      * The main thread.
      */
@@ -541,13 +605,11 @@ public class ManagedSSH implements Closeable {
                     return;
                 }
 
+                // (after a recent connection, starts again from the minimum, still jittered)
                 if (_recentlyConnected)
-                    _backoffTime = MIN_CONNECTION_GAP;
+                    _backoff.reset();
 
-                else {
-                    _backoffTime = Math.min(_backoffTime * 2, MAX_BACKOFF);
-                    _backoffTime = Math.max(MIN_CONNECTION_GAP, _backoffTime);
-                }
+                _backoffTime = _backoff.next();
 
                 long timeDiff = (System.nanoTime() - _lastSuccessfulConnection) / 1000000;
                 if (timeDiff > _timeout) {
@@ -560,7 +622,7 @@ public class ManagedSSH implements Closeable {
                 _recentlyConnected = false;
             }
 
-            Threads.wait(_lock, _backoffTime);
+            ReconnectScheduler.shared().backOff(_lock, _backoffTime);
         } // (while)
     }
 
@@ -588,7 +650,16 @@ public class ManagedSSH implements Closeable {
 
             int interval = session.getServerAliveInterval();
 
-            session.connect(CONNECT_TIMEOUT);
+            // wait for a turn (limits simultaneous attempts against the same subnet)
+            ReconnectScheduler.Ticket ticket = awaitConnectTurn(socketAddress);
+            if (ticket == null)
+                return;
+
+            try {
+                session.connect(CONNECT_TIMEOUT);
+            } finally {
+                ticket.release();
+            }
 
             channel = session.openChannel("shell");
             ChannelShell channelShell = (ChannelShell) channel;
@@ -619,7 +690,9 @@ public class ManagedSSH implements Closeable {
 
                 _recentlyConnected = true;
 
-                _backoffTime = MIN_CONNECTION_GAP;
+                _backoff.reset();
+
+                _backoffTime = _backoff.next();
             }
 
             // fire the connected event
@@ -632,6 +705,8 @@ public class ManagedSSH implements Closeable {
                 readTextLoop(is);
             else if (_mode == ReadMode.UnboundedRaw)
                 readUnboundedRawLoop(is);
+            else if (_mode == ReadMode.Framed)
+                readFramedLoop(is, _framer, false);
             else
                 throw new Exception("Internal failure - unknown Input Stream Mode"); // should never get here
 
@@ -673,50 +748,68 @@ public class ManagedSSH implements Closeable {
         }
     }
 
+    /**
+     * Reads and frames on the delimiters, passing on trimmed text.
+     */
+    private void readTextLoop(InputStream is) throws Exception {
+        DelimiterFramer framer = new DelimiterFramer(_receiveDelimiters, MAX_SEGMENT_ALLOWED);
+
+        synchronized (_lock) {
+            _textFramer = framer;
+        }
+
+        try {
+            readFramedLoop(is, framer, true);
+
+        } finally {
+            synchronized (_lock) {
+                _textFramer = null;
+            }
+        }
+    }
+
     /**
      * The reading loop will continually read until an error occurs
      * or the stream is gracefully ended by the peer.
      *
-     * ("resource" warning suppression applies to 'bis'. It's not valid because socket itself gets closed)
+     * ("resource" warning suppression applies to 'cis'. It's not valid because the channel itself gets closed)
      */
     @SuppressWarnings("resource")
-    private void readTextLoop(InputStream is) throws Exception {
-        BufferedInputStream bis = new BufferedInputStream(new CountableInputStream(is, _counterRecvOps, _counterRecvRate), 1024);
+    private void readFramedLoop(InputStream is, Framer framer, final boolean trim) throws Exception {
+        CountableInputStream cis = new CountableInputStream(is, _counterRecvOps, _counterRecvRate);
 
         // create a buffer that'll be reused
-        // start off small, will grow as needed
-        BufferBuilder bb = new BufferBuilder(256);
-
-        while (!_shutdown) {
-            int c = bis.read();
+        if (_buffer == null)
+            _buffer = new byte[1024 * 10 * 2];
 
-            if (c < 0)
-                break;
+        FrameHandler frameHandler = new FrameHandler() {
 
-            if (charMatches((char) c, _receiveDelimiters)) {
-                String str = bb.getTrimmedString();
+            @Override
+            public void handleFrame(byte[] buffer, int offset, int len) {
+                String str = trim ? BufferBuilder.getTrimmedString(buffer, offset, len) : (len > 0 ? bufferToString(buffer, offset, len) : null);
                 if (str != null)
                     handleReceivedData(str);
+            }
 
-                bb.reset();
+        };
 
-            } else {
-                if (bb.getSize() >= MAX_SEGMENT_ALLOWED) {
-                    // drop the connection
-                    throw new IOException("Too much data arrived (at least " + bb.getSize() / 1024 + " KB) before any delimeter was present; dropping connection.");
-                }
+        // (may have been used by a previous connection)
+        framer.reset();
 
-                bb.append((byte) c);
-            }
+        while (!_shutdown) {
+            int bytesRead = cis.read(_buffer);
+
+            if (bytesRead < 0)
+                break;
+
+            framer.feed(_buffer, 0, bytesRead, frameHandler);
         } // (while)
 
         // the peer has gracefully closed down the connection or we're shutting down
 
         if (!_shutdown) {
             // send out last data
-            String str = bb.getTrimmedString();
-            if (str != null)
-                handleReceivedData(str);
+            framer.flush(frameHandler);
 
             // then fire the disconnected callback
             Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
@@ -754,18 +847,6 @@ public class ManagedSSH implements Closeable {
         }
     }
 
-    /**
-     * (convenience method to check when a character appears in a list of characters (in the form of a String)
-     */
-    private static boolean charMatches(char c, String chars) {
-        int len = chars.length();
-        for (int a = 0; a < len; a++)
-            if (chars.charAt(a) == c)
-                return true;
-
-        return false;
-    }
-
     /**
      * When an actual data segment was received; deals with request callbacks if necessary
      */
@@ -1260,6 +1341,9 @@ public class ManagedSSH implements Closeable {
 
             _shutdown = true;
 
+            if (_connectTicket != null)
+                _connectTicket.release();
+
             _outputStream = null;
 
             if (_startTimer != null)
@@ -1276,9 +1360,9 @@ public class ManagedSSH implements Closeable {
     }
 
     /**
-     * Creates an unresolved socket address.
+     * Creates a resolved socket address (using the shared resolver)
      */
-    private static InetSocketAddress parseAndResolveDestination(String dest) {
+    private static InetSocketAddress parseAndResolveDestination(String dest) throws UnknownHostException {
         if (Strings.isBlank(dest))
             throw new IllegalArgumentException("No destination has been set.");
 
@@ -1303,7 +1387,7 @@ public class ManagedSSH implements Closeable {
             throw new IllegalArgumentException("port was invalid - '" + portPart + "'");
         }
 
-        return new InetSocketAddress(addrPart, port);
+        return AddressResolver.shared().resolve(addrPart, port);
     }
 
 }
\ No newline at end of file
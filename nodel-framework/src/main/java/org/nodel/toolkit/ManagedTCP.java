@@ -8,8 +8,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.nodel.Formatting;
@@ -25,6 +33,11 @@ import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.BaseNode;
 import org.nodel.io.BufferBuilder;
 import org.nodel.io.Stream;
+import org.nodel.io.framing.DelimiterFramer;
+import org.nodel.io.framing.Framer;
+import org.nodel.io.framing.Framer.FrameHandler;
+import org.nodel.net.AddressResolver;
+import org.nodel.net.ReconnectScheduler;
 import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
@@ -40,9 +53,12 @@ import org.slf4j.LoggerFactory;
  *  - event-based
  *  - efficient stream filtering
  *    - minimisation of String object fragmentation 
- *    - automatic delimiting
+ *    - automatic delimiting (bulk reads, table-based multi-delimiter scanning)
+ *    - pluggable framing (length-field, fixed-length, regex, etc.)
  *    - UTF8 decoded
  *    - trimmed
+ *    - optional binary delivery (byte arrays, no String conversion)
+ *    - optional connection sharing (many handles, one socket to the same destination)
  *  - exponential back-off
  */
 public class ManagedTCP implements Closeable {
@@ -59,6 +75,23 @@ public class ManagedTCP implements Closeable {
      */
     private Logger _logger = LoggerFactory.getLogger(String.format("%s.instance%d", this.getClass().getName(), _instance));
     
+    /**
+     * The connections being shared, keyed by destination and receive framing.
+     * (self locked)
+     */
+    private static Map<String, ManagedTCP> s_sharedConnections = new HashMap<String, ManagedTCP>();
+    
+    /**
+     * (does nothing, for connections that are shared)
+     */
+    private final static H0 NULL_THREAD_STATE_HANDLER = new H0() {
+        
+        @Override
+        public void handle() {
+        }
+        
+    };
+    
     /**
      * The kick-off delay (randomized)
      */
@@ -73,6 +106,11 @@ public class ManagedTCP implements Closeable {
      * The maximum segment allowed between delimiters (default 2 MB)
      */
     private final static int MAX_SEGMENT_ALLOWED = 2 * 1024 * 1024;
+    
+    /**
+     * The size of the reusable receive buffer (bulk reads)
+     */
+    private final static int RECEIVE_BUFFER_SIZE = 1024 * 10 * 2;
 
     /**
      * The minimum gap between connections (default 500ms)
@@ -112,9 +150,20 @@ public class ManagedTCP implements Closeable {
     private CallbackQueue _callbackHandler;    
     
     /**
-     * The current back-off period (exponential back-off)
+     * The current back-off period (jittered exponential back-off, see 'backoff')
+     */
+    private long _backoffTime = 0;
+
+    /**
+     * (decorrelates reconnects from those of other connections)
      */
-    private int _backoffTime = 0;
+    private ReconnectScheduler.Backoff _backoff = new ReconnectScheduler.Backoff(MIN_CONNETION_GAP, MAX_BACKOFF);
+
+    /**
+     * The turn to connect, if waiting on one (released by 'close')
+     * (locked around 'lock')
+     */
+    private ReconnectScheduler.Ticket _connectTicket;
 
     /**
      * If there was a recent successful connection.
@@ -136,6 +185,11 @@ public class ManagedTCP implements Closeable {
      */
     private H1<String> _receivedCallback;
 
+    /**
+     * (see setter)
+     */
+    private H1<byte[]> _receivedBytesCallback;
+
     /**
      * (see setter)
      */
@@ -213,7 +267,8 @@ public class ManagedTCP implements Closeable {
     private enum Modes {
         UnboundedRaw,
         LengthDelimitedRaw,
-        CharacterDelimitedText
+        CharacterDelimitedText,
+        Framed
     }
     
     /**
@@ -226,6 +281,16 @@ public class ManagedTCP implements Closeable {
      */
     private Character _binaryStopFlag = null;
     
+    /**
+     * (see setter)
+     */
+    private Framer _framer;
+    
+    /**
+     * The delimiter framer while in use (delimiters can be changed on the fly)
+     */
+    private DelimiterFramer _textFramer;
+    
     /**
      * The default request timeout value (timed from respective 'send')
      */
@@ -296,11 +361,44 @@ public class ManagedTCP implements Closeable {
      * Gets initialised once, during connection loop and then never again.
      */
     private byte[] _buffer;
+    
+    /**
+     * (see setter)
+     */
+    private boolean _shared;
+    
+    /**
+     * When sharing, the instance that owns the actual connection (the 'carrier')
+     */
+    private ManagedTCP _carrier;
+    
+    /**
+     * When this instance is a carrier, the handles sharing it (otherwise null)
+     */
+    private List<ManagedTCP> _subscribers;
+    
+    /**
+     * (key into shared connections, carrier only)
+     */
+    private String _sharedKey;
+    
+    /**
+     * Whether the handles have been told the connection is up, so late joiners are told exactly once.
+     * (carrier only, locked around 'lock')
+     */
+    private boolean _connectedFannedOut;
 
     /**
      * (constructor)
      */
     public ManagedTCP(BaseNode node, String dest, H0 threadStateHandler, H1<Exception> callbackExceptionHandler, CallbackQueue callbackQueue, ThreadPool threadPool, Timers timers) {
+        this(node.getName().getReducedName(), dest, threadStateHandler, callbackExceptionHandler, callbackQueue, threadPool, timers);
+    }
+    
+    /**
+     * (constructor, with name used for thread and counters)
+     */
+    private ManagedTCP(String name, String dest, H0 threadStateHandler, H1<Exception> callbackExceptionHandler, CallbackQueue callbackQueue, ThreadPool threadPool, Timers timers) {
         _dest = dest;
         
         _threadStateHandler = threadStateHandler;
@@ -318,11 +416,11 @@ public class ManagedTCP implements Closeable {
             }
             
         });
-        _thread.setName(node.getName().getReducedName() + "_tcpConnectAndReceive_" + _instance);
+        _thread.setName(name + "_tcpConnectAndReceive_" + _instance);
         _thread.setDaemon(true);
         
         // register the counters
-        String counterName = "'" + node.getName().getReducedName() + "'";
+        String counterName = "'" + name + "'";
         _counterConnections = Diagnostics.shared().registerSharableCounter(counterName + ".TCP connects", true);
         _counterRecvOps = Diagnostics.shared().registerSharableCounter(counterName + ".TCP receives", true);
         _counterRecvRate = Diagnostics.shared().registerSharableCounter(counterName + ".TCP receive rate", true);
@@ -351,6 +449,16 @@ public class ManagedTCP implements Closeable {
         _receivedCallback = handler;
     }
     
+    /**
+     * When a data segment arrives, delivered as raw bytes (binary mode).
+     * 
+     * Delimited segments are not trimmed. If no String-based handlers or requests are in use, 
+     * String conversion is skipped entirely.
+     */
+    public void setReceivedBytesHandler(H1<byte[]> handler) {
+        _receivedBytesCallback = handler;
+    }
+    
     /**
      * When a data segment is sent
      */
@@ -391,6 +499,10 @@ public class ManagedTCP implements Closeable {
      */
     public void setReceiveDelimeters(String delims) {
         synchronized(_lock) {
+            // (the framing is part of what's shared so can't be changed per handle)
+            if (_carrier != null)
+                throw new IllegalStateException("The receive delimiters of a shared connection cannot be changed once started");
+            
             if (delims == null)
                 _receiveDelimiters = "";
             else
@@ -398,6 +510,23 @@ public class ManagedTCP implements Closeable {
             
             if (Strings.isEmpty(_receiveDelimiters))
                 _mode = Modes.UnboundedRaw;
+            
+            else if (_textFramer != null)
+                _textFramer.setDelimiters(_receiveDelimiters);
+        }
+    }
+    
+    /**
+     * Uses a framer to assemble the received data instead of the delimiters or start / stop flags, 
+     * e.g. for length-prefixed or fixed-size protocols. Frames are passed on untrimmed.
+     * (the framer must not be shared with other connections)
+     */
+    public void setFramer(Framer framer) {
+        synchronized (_lock) {
+            _framer = framer;
+            
+            if (framer != null)
+                _mode = Modes.Framed;
         }
     }
     
@@ -427,6 +556,22 @@ public class ManagedTCP implements Closeable {
         return _binaryStopFlag;
     }
     
+    /**
+     * Shares the connection with any other shared instances using the same destination and receive 
+     * delimiters / flags (must be set before 'start').
+     * 
+     * Requests from all handles are queued on the one connection so responses are correlated with the 
+     * handle that made the request. Other (unsolicited) data is passed to all handles. Instances using a 
+     * framer cannot be shared.
+     * 
+     * The connection itself runs on the thread-pool and timers, and with the timeout, of the handle that 
+     * opens it; a handle whose settings differ is rejected when started. Callbacks (and their exceptions) 
+     * are always dispatched to each handle's own environment.
+     */
+    public void setShared(boolean value) {
+        _shared = value;
+    }
+    
     /**
      * Sets the connection and receive timeout.
      */
@@ -461,6 +606,9 @@ public class ManagedTCP implements Closeable {
      * Returns the current queue length size.
      */
     public int getQueueLength() {
+        if (_carrier != null)
+            return _carrier.getQueueLength();
+        
         synchronized (_lock) {
             return _queueLength;
         }
@@ -476,6 +624,11 @@ public class ManagedTCP implements Closeable {
             
             _started = true;
             
+            if (_shared && _mode != Modes.Framed) {
+                attachToShared();
+                return;
+            }
+            
             // kick off after a random amount of time to avoid resource usage spikes
             
             int kickoffTime = 1000 + s_random.nextInt(KICKOFF_DELAY);
@@ -491,6 +644,195 @@ public class ManagedTCP implements Closeable {
         }
     }
     
+    /**
+     * Attaches to a carrier with the same destination and framing, creating one if necessary.
+     */
+    private void attachToShared() {
+        String key = _dest + "|" + _mode + "|" + _receiveDelimiters + "|" + _binaryStartFlag + "|" + _binaryStopFlag;
+        
+        ManagedTCP carrier;
+        boolean connected;
+        
+        synchronized (s_sharedConnections) {
+            carrier = s_sharedConnections.get(key);
+            
+            if (carrier != null) {
+                if (carrier._timeout != _timeout || carrier._threadPool != _threadPool || carrier._timerThread != _timerThread)
+                    throw new IllegalStateException("The shared connection to " + _dest + " is already using a different timeout or threading environment");
+                
+            } else {
+                // callbacks are dispatched into each handle's own environment so no thread-state is needed here
+                final ManagedTCP newCarrier = new ManagedTCP("shared_" + _dest, _dest, NULL_THREAD_STATE_HANDLER, null, new CallbackQueue(), _threadPool, _timerThread);
+                
+                // (its own errors go to the handles currently sharing it, not the one that happened to open it)
+                newCarrier._callbackErrorHandler = new H1<Exception>() {
+                    
+                    @Override
+                    public void handle(Exception exc) {
+                        newCarrier.fireCallbackError(exc);
+                    }
+                    
+                };
+                
+                carrier = newCarrier;
+                carrier._subscribers = new CopyOnWriteArrayList<ManagedTCP>();
+                carrier._sharedKey = key;
+                carrier._receiveDelimiters = _receiveDelimiters;
+                carrier._binaryStartFlag = _binaryStartFlag;
+                carrier._binaryStopFlag = _binaryStopFlag;
+                carrier._mode = _mode;
+                carrier._timeout = _timeout;
+                
+                s_sharedConnections.put(key, carrier);
+                
+                carrier.start();
+            }
+            
+            _carrier = carrier;
+            
+            // (must be atomic with the carrier's fan-out so 'connected' is fired exactly once)
+            synchronized (carrier._lock) {
+                carrier._subscribers.add(this);
+                connected = carrier._connectedFannedOut;
+            }
+        }
+        
+        _logger.debug("Sharing connection to {} ({} handles)", _dest, carrier._subscribers.size());
+        
+        // late joiner, so signal the connection is already up
+        if (connected)
+            _callbackHandler.handle(_connectedCallback, _callbackErrorHandler);
+    }
+    
+    /**
+     * Detaches from the carrier, closing it if this was the last handle. 
+     */
+    private void detachFromShared() {
+        ManagedTCP carrier = _carrier;
+        
+        synchronized (s_sharedConnections) {
+            synchronized (carrier._lock) {
+                carrier._subscribers.remove(this);
+            }
+            
+            if (carrier._subscribers.size() == 0) {
+                s_sharedConnections.remove(carrier._sharedKey);
+                carrier.close();
+            }
+        }
+        
+        // drop any outstanding requests that belong to this handle
+        carrier.clearQueue(this);
+    }
+    
+    /**
+     * (carrier only) Passes a callback error to the handle that owns the active request or, if there is
+     * none, to all handles.
+     */
+    private void fireCallbackError(Exception exc) {
+        ManagedTCP owner;
+        
+        synchronized (_lock) {
+            owner = _activeRequest != null ? _activeRequest.owner : null;
+        }
+        
+        if (owner != null) {
+            owner._threadStateHandler.handle();
+            Handler.tryHandle(owner._callbackErrorHandler, exc);
+            return;
+        }
+        
+        for (ManagedTCP subscriber : _subscribers) {
+            subscriber._threadStateHandler.handle();
+            Handler.tryHandle(subscriber._callbackErrorHandler, exc);
+        }
+    }
+    
+    /**
+     * Fires the 'connected' event (fanned out if a carrier)
+     */
+    private void fireConnected() {
+        if (_subscribers == null) {
+            _callbackHandler.handle(_connectedCallback, _callbackErrorHandler);
+            return;
+        }
+        
+        List<ManagedTCP> subscribers;
+        
+        synchronized (_lock) {
+            _connectedFannedOut = true;
+            subscribers = new ArrayList<ManagedTCP>(_subscribers);
+        }
+        
+        for (ManagedTCP subscriber : subscribers) {
+            subscriber._threadStateHandler.handle();
+            subscriber._callbackHandler.handle(subscriber._connectedCallback, subscriber._callbackErrorHandler);
+        }
+    }
+    
+    /**
+     * Fires the 'disconnected' event (fanned out if a carrier)
+     */
+    private void fireDisconnected() {
+        if (_subscribers == null) {
+            Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
+            return;
+        }
+        
+        List<ManagedTCP> subscribers;
+        
+        synchronized (_lock) {
+            _connectedFannedOut = false;
+            subscribers = new ArrayList<ManagedTCP>(_subscribers);
+        }
+        
+        for (ManagedTCP subscriber : subscribers) {
+            subscriber._threadStateHandler.handle();
+            Handler.tryHandle(subscriber._disconnectedCallback, subscriber._callbackErrorHandler);
+        }
+    }
+    
+    /**
+     * Fires the 'timeout' event for the handle that owns a request or, if a carrier 
+     * and there is no owner, for all handles.
+     */
+    private void fireTimeout(ManagedTCP owner) {
+        if (owner != null) {
+            owner._threadStateHandler.handle();
+            owner._callbackHandler.handle(owner._timeoutCallback, owner._callbackErrorHandler);
+            
+        } else if (_subscribers != null) {
+            for (ManagedTCP subscriber : _subscribers) {
+                subscriber._threadStateHandler.handle();
+                subscriber._callbackHandler.handle(subscriber._timeoutCallback, subscriber._callbackErrorHandler);
+            }
+            
+        } else {
+            _callbackHandler.handle(_timeoutCallback, _callbackErrorHandler);
+        }
+    }
+    
+    /**
+     * Waits for a turn to connect, returning null if shut down in the meantime.
+     */
+    private ReconnectScheduler.Ticket awaitConnectTurn(InetSocketAddress address) {
+        ReconnectScheduler.Ticket ticket;
+
+        synchronized (_lock) {
+            // (callers waiting on this connection go first)
+            ticket = ReconnectScheduler.shared().ticket(address.getAddress(), _queueLength > 0);
+
+            if (_shutdown) {
+                ticket.release();
+                return null;
+            }
+
+            _connectTicket = ticket;
+        }
+
+        return ticket.await() ? ticket : null;
+    }
+
     /**
      * The main thread.
      */
@@ -508,26 +850,24 @@ public class ManagedTCP implements Closeable {
                     return;
                 }
                 
+                // (after a recent connection, starts again from the minimum, still jittered)
                 if (_recentlyConnected)
-                    _backoffTime = MIN_CONNETION_GAP;
+                    _backoff.reset();
 
-                else {
-                    _backoffTime = Math.min(_backoffTime * 2, MAX_BACKOFF);
-                    _backoffTime = Math.max(MIN_CONNETION_GAP, _backoffTime);
-                }
+                _backoffTime = _backoff.next();
                 
                 long timeDiff = (System.nanoTime() - _lastSuccessfulConnection) / 1000000;
                 if (timeDiff > _timeout) {
                     // reset the timestamp
                     _lastSuccessfulConnection = System.nanoTime();
 
-                    _callbackHandler.handle(_timeoutCallback, _callbackErrorHandler);
+                    fireTimeout(null);
                 }
 
                 _recentlyConnected = false;
             }
             
-            Threads.wait(_lock, _backoffTime);
+            ReconnectScheduler.shared().backOff(_lock, _backoffTime);
         } // (while)
     }
     
@@ -539,9 +879,20 @@ public class ManagedTCP implements Closeable {
         OutputStream os = null;
         
         try {
-            socket = new Socket();
             InetSocketAddress socketAddress = parseAndResolveDestination(_dest);
-            socket.connect(socketAddress, CONNECT_TIMEOUT);
+            
+            // wait for a turn (limits simultaneous attempts against the same subnet)
+            // (before the socket is created, so nothing is left open if shut down while waiting)
+            ReconnectScheduler.Ticket ticket = awaitConnectTurn(socketAddress);
+            if (ticket == null)
+                return;
+            
+            try {
+                socket = new Socket();
+                socket.connect(socketAddress, CONNECT_TIMEOUT);
+            } finally {
+                ticket.release();
+            }
             
             _counterConnections.incr();
             
@@ -565,11 +916,13 @@ public class ManagedTCP implements Closeable {
 
                 _recentlyConnected = true;
                 
-                _backoffTime = MIN_CONNETION_GAP;
+                _backoff.reset();
+
+                _backoffTime = _backoff.next();
             }
             
             // fire the connected event
-            _callbackHandler.handle(_connectedCallback, _callbackErrorHandler);
+            fireConnected();
             
             // start reading
             if (_mode == Modes.LengthDelimitedRaw)
@@ -578,6 +931,9 @@ public class ManagedTCP implements Closeable {
             else if (_mode == Modes.CharacterDelimitedText)
                 readTextLoop(socket);
             
+            else if (_mode == Modes.Framed)
+                readFramedLoop(socket, _framer, false);
+            
             else { // mode is 'UnboundedRaw' 
                 readUnboundedRawLoop(socket);
             }
@@ -587,7 +943,7 @@ public class ManagedTCP implements Closeable {
         } catch (Exception exc) {
             // fire the disconnected handler if was previously connected
             if (os != null)
-                Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
+                fireDisconnected();
             
             throw exc;
             
@@ -603,54 +959,72 @@ public class ManagedTCP implements Closeable {
         }
     }
 
+    /**
+     * Reads and frames on the delimiters, passing on trimmed text.
+     */
+    private void readTextLoop(Socket socket) throws Exception {
+        DelimiterFramer framer = new DelimiterFramer(_receiveDelimiters, MAX_SEGMENT_ALLOWED);
+        
+        synchronized (_lock) {
+            _textFramer = framer;
+        }
+        
+        try {
+            readFramedLoop(socket, framer, true);
+            
+        } finally {
+            synchronized (_lock) {
+                _textFramer = null;
+            }
+        }
+    }
+    
     /**
      * The reading loop will continually read until an error occurs 
      * or the stream is gracefully ended by the peer.
      * 
-     * ("resource" warning suppression applies to 'bis'. It's not valid because socket itself gets closed) 
+     * Data is read in bulk into the reusable buffer and handed to the framer; frames that fall 
+     * entirely within a read are normally never copied.
+     * 
+     * ("resource" warning suppression applies to 'cis'. It's not valid because socket itself gets closed) 
      */
     @SuppressWarnings("resource")
-    private void readTextLoop(Socket socket) throws Exception {
-        InputStream in = socket.getInputStream();
-        BufferedInputStream bis = new BufferedInputStream(new CountableInputStream(in, _counterRecvOps, _counterRecvRate), 1024);
+    private void readFramedLoop(Socket socket, Framer framer, final boolean trim) throws Exception {
+        CountableInputStream cis = new CountableInputStream(socket.getInputStream(), _counterRecvOps, _counterRecvRate);
         
         // create a buffer that'll be reused
-        // start off small, will grow as needed
-        BufferBuilder bb = new BufferBuilder(256);
+        if (_buffer == null)
+            _buffer = new byte[RECEIVE_BUFFER_SIZE];
+        
+        FrameHandler frameHandler = new FrameHandler() {
+            
+            @Override
+            public void handleFrame(byte[] buffer, int offset, int len) {
+                handleReceivedSegment(buffer, offset, len, trim);
+            }
+            
+        };
+        
+        // (may have been used by a previous connection)
+        framer.reset();
         
         while (!_shutdown) {
-            int c = bis.read();
+            int bytesRead = cis.read(_buffer);
             
-            if (c < 0)
+            if (bytesRead < 0)
                 break;
-
-            if (charMatches((char) c, _receiveDelimiters)) {
-                String str = bb.getTrimmedString();
-                if (str != null)
-                    handleReceivedData(str);
-
-                bb.reset();
-                
-            } else {
-                if (bb.getSize() >= MAX_SEGMENT_ALLOWED) {
-                    // drop the connection
-                    throw new IOException("Too much data arrived (at least " + bb.getSize() / 1024 + " KB) before any delimeter was present; dropping connection.");
-                }
-
-                bb.append((byte) c);
-            }
+            
+            framer.feed(_buffer, 0, bytesRead, frameHandler);
         } // (while)
         
         // the peer has gracefully closed down the connection or we're shutting down
         
         if (!_shutdown) {
             // send out last data
-            String str = bb.getTrimmedString();
-            if (str != null)
-                handleReceivedData(str);
+            framer.flush(frameHandler);
             
             // then fire the disconnected callback
-            Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
+            fireDisconnected();
         }
     }
     
@@ -741,8 +1115,7 @@ public class ManagedTCP implements Closeable {
                 bb.append(c);
                 
                 // fire the handled event
-                String str = bb.getRawString();
-                handleReceivedData(str);
+                handleReceivedSegment(bb.getBuffer(), 0, bb.getSize(), false);
                 
                 bb.reset();
                 
@@ -754,7 +1127,7 @@ public class ManagedTCP implements Closeable {
         
         if (!_shutdown) {
             // drop left over data and fire the disconnected callback
-            Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
+            fireDisconnected();
         }
     }
     
@@ -767,7 +1140,7 @@ public class ManagedTCP implements Closeable {
         
         // create a buffer that'll be reused
         if (_buffer == null)
-            _buffer = new byte[1024 * 10 * 2];
+            _buffer = new byte[RECEIVE_BUFFER_SIZE];
 
         while (!_shutdown) {
             int bytesRead = cis.read(_buffer);
@@ -775,66 +1148,155 @@ public class ManagedTCP implements Closeable {
             if (bytesRead <= 0)
                 break;
             
-            String segment = bufferToString(_buffer, 0, bytesRead);
-            
             // fire the handler
-            handleReceivedData(segment);
+            handleReceivedSegment(_buffer, 0, bytesRead, false);
         }
         
         // the peer has gracefully closed down the connection or we're shutting down
         
         if (!_shutdown) {
             // then fire the disconnected callback
-            Handler.tryHandle(_disconnectedCallback, _callbackErrorHandler);
+            fireDisconnected();
         }        
     }    
 
     /**
-     * (convenience method to check when a character appears in a list of characters (in the form of a String) 
+     * When a raw segment was received; fires the binary handler and converts to a String (optionally trimmed) 
+     * for the text-based handlers and requests, but only if they're in use.
+     * 
+     * (the buffer is reused by the caller so must be copied if retained)
      */
-    private static boolean charMatches(char c, String chars) {
-        int len = chars.length();
-        for (int a = 0; a < len; a++)
-            if (chars.charAt(a) == c)
-                return true;
-
-        return false;
+    private void handleReceivedSegment(byte[] buffer, int offset, int len, boolean trim) {
+        if (len <= 0)
+            return;
+        
+        if (_subscribers != null) {
+            handleSharedSegment(buffer, offset, len, trim);
+            return;
+        }
+        
+        H1<byte[]> bytesCallback = _receivedBytesCallback;
+        
+        if (bytesCallback != null) {
+            _callbackHandler.handle(bytesCallback, Arrays.copyOfRange(buffer, offset, offset + len), _callbackErrorHandler);
+            
+            // any text-based handlers or requests?
+            synchronized (_lock) {
+                if (_receivedCallback == null && _activeRequest == null && _queueLength == 0)
+                    return;
+            }
+        }
+        
+        String str;
+        if (trim)
+            str = BufferBuilder.getTrimmedString(buffer, offset, len);
+        else
+            str = bufferToString(buffer, offset, len);
+        
+        if (str != null)
+            handleReceivedData(str);
     }
     
     /**
-     * When an actual data segment was received; deals with request callbacks if necessary
+     * (carrier version of above, raw bytes follow the text i.e. a response only goes to the handle 
+     * that requested it, anything else to all handles)
      */
-    private void handleReceivedData(String data) {
-        // deal with any queued callbacks first
+    private void handleSharedSegment(byte[] buffer, int offset, int len, boolean trim) {
+        String str;
+        if (trim)
+            str = BufferBuilder.getTrimmedString(buffer, offset, len);
+        else
+            str = bufferToString(buffer, offset, len);
+        
+        // (taken here so the raw bytes and the text agree on the owner)
+        QueuedRequest request = str != null ? takeActiveRequest() : null;
         
-        QueuedRequest request = null;
+        ManagedTCP owner = null;
+        if (request != null && request.timeout > 0 && !request.isExpired())
+            owner = request.owner;
         
-        // then check for any requests
+        byte[] copy = null;
+        
+        for (ManagedTCP subscriber : _subscribers) {
+            if (subscriber._receivedBytesCallback == null || (owner != null && subscriber != owner))
+                continue;
+            
+            // (one copy is enough)
+            if (copy == null)
+                copy = Arrays.copyOfRange(buffer, offset, offset + len);
+            
+            subscriber._threadStateHandler.handle();
+            subscriber._callbackHandler.handle(subscriber._receivedBytesCallback, copy, subscriber._callbackErrorHandler);
+        }
+        
+        if (str != null)
+            handleReceivedData(str, request);
+    }
+    
+    /**
+     * Takes the active request, if any.
+     */
+    private QueuedRequest takeActiveRequest() {
         // (should release lock as soon as possible)
         synchronized (_lock) {
-            if (_activeRequest != null) {
-                request = _activeRequest;
-                _activeRequest = null;
-            }
+            QueuedRequest request = _activeRequest;
+            _activeRequest = null;
+            return request;
         }
-
+    }
+    
+    /**
+     * When an actual data segment was received; deals with request callbacks if necessary
+     */
+    private void handleReceivedData(String data) {
+        // deal with any queued callbacks first
+        handleReceivedData(data, takeActiveRequest());
+    }
+    
+    /**
+     * (as above, with the request already taken)
+     */
+    private void handleReceivedData(String data, QueuedRequest request) {
+        // (the handle that made the request if the connection is shared)
+        ManagedTCP owner = null;
+        
         if (request != null && request.timeout > 0) {
             // make sure it hasn't been too long i.e. timeout
             if (request.isExpired()) {
                 _logger.debug("Active request has expired");
                 
                 // fire the timeout handler
-                _callbackHandler.handle(_timeoutCallback, _callbackErrorHandler);
+                fireTimeout(request.owner);
             } else {
                 // fire the response request's response handler
                 request.setResponse(data);
                 
-                _callbackHandler.handle(request.responseHandler, data, _callbackErrorHandler);
+                owner = request.owner;
+                
+                if (owner != null) {
+                    owner._threadStateHandler.handle();
+                    owner._callbackHandler.handle(request.responseHandler, data, owner._callbackErrorHandler);
+                } else {
+                    _callbackHandler.handle(request.responseHandler, data, _callbackErrorHandler);
+                }
             }            
         }
         
         // ...then fire the 'received' callback next
-        _callbackHandler.handle(_receivedCallback, data, _callbackErrorHandler);
+        if (_subscribers == null) {
+            _callbackHandler.handle(_receivedCallback, data, _callbackErrorHandler);
+            
+        } else if (owner != null) {
+            // a response only goes to the handle that requested it
+            owner._callbackHandler.handle(owner._receivedCallback, data, owner._callbackErrorHandler);
+            
+        } else {
+            // unsolicited, so fan out
+            for (ManagedTCP subscriber : _subscribers) {
+                subscriber._threadStateHandler.handle();
+                subscriber._callbackHandler.handle(subscriber._receivedCallback, data, subscriber._callbackErrorHandler);
+            }
+        }
         
         processQueue();
     }
@@ -880,6 +1342,11 @@ public class ManagedTCP implements Closeable {
          */
         public String response;
         
+        /**
+         * The handle that made the request when the connection is shared (otherwise null)
+         */
+        public ManagedTCP owner;
+        
         public QueuedRequest(byte[] requestBuffer, String origData, int timeout, H1<String> responseHandler) {
             this.requestBuffer = requestBuffer;
             this.request = origData;
@@ -937,6 +1404,13 @@ public class ManagedTCP implements Closeable {
     }
 
     public void doQueueRequest(QueuedRequest request) {
+        if (_carrier != null) {
+            // use the shared queue
+            request.owner = this;
+            _carrier.doQueueRequest(request);
+            return;
+        }
+        
         // whether or not this entry had to be queued
         boolean queued = false; 
         
@@ -961,7 +1435,7 @@ public class ManagedTCP implements Closeable {
         }
         
         if (!queued && request.requestBuffer != null) {
-            sendBufferNow(request.requestBuffer, request.request, true);
+            sendBufferNow(request.requestBuffer, request.request, true, request.owner);
         }
         
         // without a timer, the queue needs to serviced on both send and receive
@@ -1036,6 +1510,12 @@ public class ManagedTCP implements Closeable {
      * Clears the active request and any queue requests.
      */
     public void clearQueue() {
+        if (_carrier != null) {
+            // only this handle's requests
+            _carrier.clearQueue(this);
+            return;
+        }
+        
         synchronized (_lock) {
             boolean activeRequestCleared = false;
             
@@ -1057,6 +1537,27 @@ public class ManagedTCP implements Closeable {
         }
     }
     
+    /**
+     * Clears the active and queued requests belonging to a handle of a shared connection.
+     */
+    private void clearQueue(ManagedTCP owner) {
+        synchronized (_lock) {
+            if (_activeRequest != null && _activeRequest.owner == owner)
+                _activeRequest = null;
+            
+            Iterator<QueuedRequest> i = _requestQueue.iterator();
+            while (i.hasNext()) {
+                if (i.next().owner == owner) {
+                    i.remove();
+                    _queueLength--;
+                }
+            }
+        }
+        
+        // a request from another handle may be next
+        processQueue();
+    }
+    
     /**
      * Expires and initiates requests in the queue
      * (assumes not synced)
@@ -1067,6 +1568,9 @@ public class ManagedTCP implements Closeable {
         
         // if a timeout callback needs to be fired
         boolean callTimeout = false;
+        
+        // (whose timeout it is when shared)
+        ManagedTCP timeoutOwner = null;
 
         synchronized (_lock) {
             // check if any active requests need expiring
@@ -1080,6 +1584,7 @@ public class ManagedTCP implements Closeable {
                     
                     // timeout callback must be fired
                     callTimeout = true;
+                    timeoutOwner = _activeRequest.owner;
 
                     // clear active request
                     _activeRequest = null;
@@ -1088,6 +1593,7 @@ public class ManagedTCP implements Closeable {
                     _logger.debug("Active request has long term expired");
                     
                     callTimeout = true;
+                    timeoutOwner = _activeRequest.owner;
                     
                     _activeRequest = null;
                 } else {
@@ -1100,7 +1606,7 @@ public class ManagedTCP implements Closeable {
 
         // call the timeout callback, (there's an opportunity for request queue to be cleared by callback handler)
         if (callTimeout)
-            _callbackHandler.handle(_timeoutCallback, _callbackErrorHandler);
+            fireTimeout(timeoutOwner);
 
         // an active request might have come in
         synchronized (_lock) {
@@ -1143,7 +1649,7 @@ public class ManagedTCP implements Closeable {
 
         // if the request has send data 'data' send now
         if (nextRequest.requestBuffer != null)
-            sendBufferNow(nextRequest.requestBuffer, nextRequest.request, false);
+            sendBufferNow(nextRequest.requestBuffer, nextRequest.request, false, nextRequest.owner);
     }
     
     /**
@@ -1205,13 +1711,19 @@ public class ManagedTCP implements Closeable {
         if (buffer == null)
             return;
         
-        sendBufferNow(buffer, data, true);
+        sendBufferNow(buffer, data, true, null);
     }
     
     /**
      * Sends a prepared buffer immediately, optionally using a thread-pool
+     * (owner is the handle whose 'sent' callback is used, null for this one)
      */
-    private void sendBufferNow(final byte[] buffer, final String origData, boolean onThreadPool) {
+    private void sendBufferNow(final byte[] buffer, final String origData, boolean onThreadPool, final ManagedTCP owner) {
+        if (_carrier != null) {
+            _carrier.sendBufferNow(buffer, origData, onThreadPool, this);
+            return;
+        }
+        
         final OutputStream os;
         
         synchronized(_lock) {
@@ -1225,12 +1737,12 @@ public class ManagedTCP implements Closeable {
                     @Override
                     public void run() {
                         _threadStateHandler.handle();
-                        sendBufferNow0(os, buffer, origData);
+                        sendBufferNow0(os, buffer, origData, owner);
                     }
 
                 });
             } else {
-                sendBufferNow0(os, buffer, origData);
+                sendBufferNow0(os, buffer, origData, owner);
             }
         }
     }
@@ -1238,14 +1750,19 @@ public class ManagedTCP implements Closeable {
     /**
      * (convenience method)
      */
-    private void sendBufferNow0(OutputStream os, byte[] buffer, String origData) {
+    private void sendBufferNow0(OutputStream os, byte[] buffer, String origData, ManagedTCP owner) {
         try {
             os.write(buffer);
         } catch (Exception exc) {
             // ignore
         }
 
-        Handler.tryHandle(_sentCallback, origData, _callbackErrorHandler);
+        if (owner != null) {
+            owner._threadStateHandler.handle();
+            Handler.tryHandle(owner._sentCallback, origData, owner._callbackErrorHandler);
+        } else {
+            Handler.tryHandle(_sentCallback, origData, _callbackErrorHandler);
+        }
     }
 
     /**
@@ -1282,6 +1799,12 @@ public class ManagedTCP implements Closeable {
      * Drops this socket; may trigger a reconnect.
      */
     public void drop() {
+        if (_carrier != null) {
+            // (affects all handles)
+            _carrier.drop();
+            return;
+        }
+        
         synchronized (_lock) {
             if (_shutdown)
                 return;
@@ -1300,6 +1823,9 @@ public class ManagedTCP implements Closeable {
                 return;
             
             _shutdown = true;
+
+            if (_connectTicket != null)
+                _connectTicket.release();
             
             _outputStream = null;
             
@@ -1313,12 +1839,15 @@ public class ManagedTCP implements Closeable {
             // notify the connection and receive thread if it happens to be waiting
             _lock.notify();
         }
+        
+        if (_carrier != null)
+            detachFromShared();
     }
     
     /**
-     * Creates an unresolved socket address.
+     * Creates a resolved socket address (using the shared resolver)
      */
-    private static InetSocketAddress parseAndResolveDestination(String dest) {
+    private static InetSocketAddress parseAndResolveDestination(String dest) throws UnknownHostException {
         if (Strings.isNullOrEmpty(dest))
             throw new IllegalArgumentException("No destination has been set.");
 
@@ -1343,7 +1872,7 @@ public class ManagedTCP implements Closeable {
             throw new IllegalArgumentException("port was invalid - '" + portPart + "'");
         }
         
-        return new InetSocketAddress(addrPart, port);
+        return AddressResolver.shared().resolve(addrPart, port);
     }
 
 }
@@ -29,6 +29,8 @@ import org.nodel.host.Binding;
 import org.nodel.host.LogEntry;
 import org.nodel.host.BaseNode.ParameterEntry;
 import org.nodel.io.Stream;
+import org.nodel.io.framing.Framer;
+import org.nodel.net.HTTPSimpleResponse;
 import org.nodel.net.NodelHTTPClient;
 import org.nodel.net.NodelHttpClientProvider;
 import org.nodel.reflection.Objects;
@@ -145,6 +147,11 @@ public class ManagedToolkit {
      */
     private H1<Exception> _emitExceptionHandler = createExceptionHandlerWithContext("emit");    
     
+    /**
+     * ('exceptionHandler' with context)
+     */
+    private H1<Exception> _getURLExceptionHandler = createExceptionHandlerWithContext("getURL");
+    
     /**
      * Call from within calling thread, usually sets up the thread-state environment.
      */
@@ -381,19 +388,25 @@ public class ManagedToolkit {
                                 H0 onTimeout,
                                 String sendDelimiters,
                                 String receiveDelimiters,
-                                String binaryStartStopFlags) {
+                                String binaryStartStopFlags,
+                                H1<byte[]> onReceivedBytes,
+                                Framer framer,
+                                boolean shared) {
         // create a new TCP connection providing this environment's facilities
         ManagedTCP tcp = new ManagedTCP(_node, dest, _threadStateHandler, _tcpExceptionHandler, _callbackQueue, s_threadPool, s_timers);
         
         // set up the callback handlers as provided by the user
         tcp.setConnectedHandler(onConnected);
         tcp.setReceivedHandler(onReceived);
+        tcp.setReceivedBytesHandler(onReceivedBytes);
         tcp.setSentHandler(onSent);
         tcp.setDisconnectedHandler(onDisconnected);
         tcp.setTimeoutHandler(onTimeout);
         tcp.setSendDelimeters(sendDelimiters);
         tcp.setReceiveDelimeters(receiveDelimiters);
         tcp.setBinaryStartStopFlags(binaryStartStopFlags);
+        tcp.setFramer(framer);
+        tcp.setShared(shared);
         
         synchronized(_lock) {
             if (_closed)
@@ -410,11 +423,13 @@ public class ManagedToolkit {
                                 H0 onReady, 
                                 H2<String, String> onReceived, 
                                 H1<String> onSent,
-                                String intf) {
+                                String intf,
+                                H2<String, byte[]> onReceivedBytes) {
         ManagedUDP udp = new ManagedUDP(_node, source, dest, _threadStateHandler, _udpExceptionHandler, _callbackQueue, s_threadPool, s_timers);
         
         udp.setReadyHandler(onReady);
         udp.setReceivedHandler(onReceived);
+        udp.setReceivedBytesHandler(onReceivedBytes);
         udp.setSentHandler(onSent);
         udp.setIntf(intf);
         
@@ -441,7 +456,8 @@ public class ManagedToolkit {
                                 String receiveDelimiters,
                                 String username,
                                 String password,
-                                boolean disableEcho) {
+                                boolean disableEcho,
+                                Framer framer) {
         // create a new TCP connection providing this environment's facilities
         ManagedSSH ssh = new ManagedSSH(_node, dest, _threadStateHandler, _tcpExceptionHandler, _callbackQueue, s_threadPool, s_timers);
 
@@ -457,6 +473,7 @@ public class ManagedToolkit {
         ssh.setDisableEcho(disableEcho);
         ssh.setUsername(username);
         ssh.setPassword(password);
+        ssh.setFramer(framer);
 
         synchronized (_lock) {
             if (_closed)
@@ -482,7 +499,8 @@ public class ManagedToolkit {
                                 String receiveDelimiters,
                                 String working,
                                 boolean mergestderr,
-                                Map<String, String> env) {
+                                Map<String, String> env,
+                                Framer framer) {
         ManagedProcess process = new ManagedProcess(_node, command, _threadStateHandler, _processExceptionHandler, _callbackQueue, s_threadPool, s_timers);
         
         // set up the callback handlers as provided by the user
@@ -496,6 +514,7 @@ public class ManagedToolkit {
         // set general arguments
         process.setSendDelimeters(sendDelimiters);
         process.setReceiveDelimeters(receiveDelimiters);
+        process.setFramer(framer);
         process.setWorking(working);
         process.setMergeError(mergestderr);
         process.setEnv(env);
@@ -996,6 +1015,79 @@ public class ManagedToolkit {
 
         return getHttpClient().makeSimpleRequest(urlStr, method, query, username, password, headers, contentType, post, connectTimeout, readTimeout);
     }
+    
+    /**
+     * Same as 'getURL' except never blocks; 'onComplete' is called with the content (or the full response) 
+     * or 'onError' with the failure, both via the callback queue. Without 'onError', failures go to the 
+     * node's exception handler.
+     */
+    public void getURLAsync(String urlStr, String method, Map<String, String> query, String username, String password, Map<String, String> headers, String contentType, String post,
+            Integer connectTimeout, Integer readTimeout, final boolean fullResponse, final H1<Object> onComplete, final H1<Exception> onError) {
+        if (_closed)
+            throw new IllegalStateException("Node is closed.");
+
+        getHttpClient().makeRequestAsync(urlStr, method, query, username, password, headers, contentType, post, connectTimeout, readTimeout, new H1<HTTPSimpleResponse>() {
+
+            @Override
+            public void handle(final HTTPSimpleResponse response) {
+                // the engine's threads are never held up by the callbacks
+                s_threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (_closed)
+                            return;
+
+                        // call the thread-state handler to allow thread state initialisation
+                        _threadStateHandler.handle();
+
+                        Object result;
+                        try {
+                            result = fullResponse ? response : NodelHTTPClient.intoSimpleContent(response);
+                        } catch (Exception exc) {
+                            handleGetURLError(exc, onError);
+                            return;
+                        }
+
+                        if (onComplete != null)
+                            _callbackQueue.handle(onComplete, result, _getURLExceptionHandler);
+                    }
+
+                });
+            }
+
+        }, new H1<Exception>() {
+
+            @Override
+            public void handle(final Exception exc) {
+                s_threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (_closed)
+                            return;
+
+                        _threadStateHandler.handle();
+
+                        handleGetURLError(exc, onError);
+                    }
+
+                });
+            }
+
+        });
+    }
+    
+    /**
+     * (convenience method)
+     */
+    private void handleGetURLError(Exception exc, H1<Exception> onError) {
+        if (onError != null)
+            _callbackQueue.handle(onError, exc, _getURLExceptionHandler);
+        else
+            // call the global exception handler
+            _getURLExceptionHandler.handle(exc);
+    }
 
     /**
      * Permanently cleans up this instance of the toolkit and related
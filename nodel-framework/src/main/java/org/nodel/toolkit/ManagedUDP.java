@@ -2,13 +2,24 @@ package org.nodel.toolkit;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.MulticastSocket;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,12 +28,12 @@ import org.nodel.Handler.H0;
 import org.nodel.Handler.H1;
 import org.nodel.Handler.H2;
 import org.nodel.Strings;
-import org.nodel.Threads;
 import org.nodel.diagnostics.Diagnostics;
 import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.BaseNode;
-import org.nodel.io.Stream;
 import org.nodel.io.UTF8Charset;
+import org.nodel.net.AddressResolver;
+import org.nodel.net.ReconnectScheduler;
 import org.nodel.threading.CallbackQueue;
 import org.nodel.threading.ThreadPool;
 import org.nodel.threading.TimerTask;
@@ -37,13 +48,14 @@ import org.slf4j.LoggerFactory;
  *  - staggered start up (prevent startup storms)
  *  - event-based
  *  - automatic UTF8 / binary detection
+ *  - non-blocking, sharing one selector thread with all other managed UDP sockets (see 'UDPEngine')
  */
-public class ManagedUDP implements Closeable {
+public class ManagedUDP implements Closeable, UDPEngine.Endpoint {
     
     private static AtomicLong s_instanceCounter = new AtomicLong();
     
     /**
-     * (used by 'logger' and thread name)
+     * (used by 'logger')
      */
     private long _instance = s_instanceCounter.getAndIncrement();
     
@@ -63,14 +75,61 @@ public class ManagedUDP implements Closeable {
     private final static Random s_random = new Random();
     
     /**
-     * The maximum UDP buffer size
+     * The maximum back-off time allowed (default 32 secs or 2^5 millis)
      */
-    private final static int MAX_BUFFER_SIZE = 65536;
+    private final static int BACKOFF = 16000;
 
     /**
-     * The maximum back-off time allowed (default 32 secs or 2^5 millis)
+     * The socket receive buffer asked for, to absorb bursts (the OS may cap it)
      */
-    private final static int BACKOFF = 16000;
+    private final static int RECV_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Delay before rebinding after a drop (allows the selector to release the old socket)
+     */
+    private final static int REBIND_DELAY = 1000;
+
+    /**
+     * The most datagrams taken from the socket in one go before giving other sockets a turn.
+     */
+    private final static int RECV_BATCH = 64;
+
+    /**
+     * The most datagrams sent (or delivered) per batch, between lock acquisitions.
+     */
+    private final static int SEND_BATCH = 64;
+    
+    /**
+     * The outcome of sending a datagram.
+     */
+    private enum SendResult {
+        Sent,
+        
+        /**
+         * No room in the socket's send buffer right now (retry later)
+         */
+        Full,
+        
+        /**
+         * Failed and already reported, so not to be retried or treated as sent
+         */
+        Failed
+    }
+
+    /**
+     * Received datagrams beyond this that the callbacks haven't caught up with are dropped.
+     */
+    private final static int MAX_PENDING_RECEIVES = 10000;
+
+    /**
+     * How long resolved destinations are reused for (nanos)
+     */
+    private final static long DEST_CACHE_TTL = 30 * 1000000000L;
+
+    /**
+     * The most distinct destinations (or sources) remembered.
+     */
+    private final static int MAX_CACHED_ADDRESSES = 64;
 
     /**
      * (synchronisation / locking)
@@ -87,6 +146,11 @@ public class ManagedUDP implements Closeable {
      */
     private CallbackQueue _callbackHandler;    
     
+    /**
+     * The shared selector engine.
+     */
+    private UDPEngine _engine = UDPEngine.shared();
+
     /**
      * (see setter)
      */
@@ -97,6 +161,11 @@ public class ManagedUDP implements Closeable {
      */
     private H2<String, String> _receivedCallback;
 
+    /**
+     * (see setter)
+     */
+    private H2<String, byte[]> _receivedBytesCallback;
+
     /**
      * (see setter)
      */
@@ -117,23 +186,24 @@ public class ManagedUDP implements Closeable {
      */
     private boolean _started;
 
-    /**
-     * The receive thread.
-     */
-    private Thread _thread;
-    
     /**
      * Shared timer framework to use.
      */
     private Timers _timerThread;
     
     /**
-     * The current socket.
+     * The current channel.
+     * (volatile, read by the send queue processor outside of any lock)
      */
-    private DatagramSocket _socket;
+    private volatile DatagramChannel _channel;
     
     /**
-     * The start timer.
+     * (jitters rebinds, see 'BACKOFF')
+     */
+    private ReconnectScheduler.Backoff _bindBackoff = new ReconnectScheduler.Backoff(BACKOFF / 2, BACKOFF);
+
+    /**
+     * The start (or rebind) timer.
      */
     private TimerTask _startTimer;
     
@@ -144,9 +214,41 @@ public class ManagedUDP implements Closeable {
     private String _dest;
     
     /**
-     * A resolved address
+     * Resolved destinations, keyed by 'addr:port' in least recently used order
+     * (self locked)
+     */
+    private Map<String, ResolvedDest> _destCache = new LinkedHashMap<String, ResolvedDest>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResolvedDest> eldest) {
+            return size() > MAX_CACHED_ADDRESSES;
+        }
+
+    };
+
+    /**
+     * (a cached destination)
+     */
+    private static class ResolvedDest {
+
+        final InetSocketAddress address;
+
+        final long resolvedAt;
+
+        ResolvedDest(InetSocketAddress address, long resolvedAt) {
+            this.address = address;
+            this.resolvedAt = resolvedAt;
+        }
+
+    }
+
+    /**
+     * 'addr:port' strings of recent sources.
+     * (only used by the selector thread)
      */
-    private InetSocketAddress _resolvedDest;
+    private Map<SocketAddress, String> _fromCache = new HashMap<>();
     
     /**
      * e.g. "0.0.0.0:0"
@@ -164,7 +266,7 @@ public class ManagedUDP implements Closeable {
      * The send-queue
      * (self-locked)
      */
-    private Queue<QueueItem> _sendQueue = new LinkedList<>();
+    private ArrayDeque<QueueItem> _sendQueue = new ArrayDeque<>();
     
     /**
      * Whether or not the send queue is being processed.
@@ -173,15 +275,10 @@ public class ManagedUDP implements Closeable {
     private boolean _processing = false;
     
     /**
-     * This is needed to create the send packet
-     */
-    private byte[] DUMMY = new byte[1];
-    
-    /**
-     * The send packet (reused)
-     * The buffer is replaced each time unfortunately.
+     * The socket's send buffer is full, waiting on the engine.
+     * (locked around 'sendQueue')
      */
-    private DatagramPacket _sendPacket = new DatagramPacket(DUMMY, DUMMY.length);
+    private boolean _awaitingWritable = false;
     
     /**
      * The send queue item
@@ -201,6 +298,34 @@ public class ManagedUDP implements Closeable {
         }
     }
     
+    /**
+     * Datagrams waiting for the callbacks.
+     * (self-locked)
+     */
+    private ArrayDeque<ReceivedItem> _recvQueue = new ArrayDeque<>();
+
+    /**
+     * Whether or not the receive queue is being processed.
+     * (locked around 'recvQueue')
+     */
+    private boolean _delivering = false;
+
+    /**
+     * A received datagram.
+     */
+    private static class ReceivedItem {
+
+        final String from;
+
+        final byte[] data;
+
+        ReceivedItem(String from, byte[] data) {
+            this.from = from;
+            this.data = data;
+        }
+
+    }
+
     /**
      * (Response for handling thread-state)
      */
@@ -215,6 +340,11 @@ public class ManagedUDP implements Closeable {
      * (diagnostics)
      */    
     private SharableMeasurementProvider _counterRecvRate;
+
+    /**
+     * (diagnostics)
+     */
+    private SharableMeasurementProvider _counterRecvDrops;
     
     /**
      * (diagnostics)
@@ -239,22 +369,11 @@ public class ManagedUDP implements Closeable {
         _threadPool = threadPool;
         _timerThread = timers;
         
-        // set up the connect and receive thread
-        _thread = new Thread(new Runnable() {
-
-            @Override
-            public void run() {
-                begin();
-            }
-            
-        });
-        _thread.setName(node.getName().getReducedName() + "_udpBindAndListen_" + _instance);
-        _thread.setDaemon(true);
-        
         // register the counters
         String counterName = "'" + node.getName().getReducedName() + "'";
         _counterRecvOps = Diagnostics.shared().registerSharableCounter(counterName + ".UDP receives", true);
         _counterRecvRate = Diagnostics.shared().registerSharableCounter(counterName + ".UDP receive rate", true);
+        _counterRecvDrops = Diagnostics.shared().registerSharableCounter(counterName + ".UDP receive drops", true);
         _counterSendOps = Diagnostics.shared().registerSharableCounter(counterName + ".UDP sends", true);
         _counterSendRate = Diagnostics.shared().registerSharableCounter(counterName + ".UDP send rate", true);
     }
@@ -273,6 +392,13 @@ public class ManagedUDP implements Closeable {
         _receivedCallback = handler;
     }
     
+    /**
+     * When a data segment arrives, as raw bytes (no string conversion)
+     */
+    public void setReceivedBytesHandler(H2<String, byte[]> handler) {
+        _receivedBytesCallback = handler;
+    }
+
     /**
      * When a data segment is sent
      */
@@ -286,9 +412,6 @@ public class ManagedUDP implements Closeable {
     public void setDest(String dest) {
         synchronized(_lock) {
             _dest = dest;
-            
-            // clear resolved address
-            _resolvedDest = null;
         }
     }
     
@@ -336,11 +459,11 @@ public class ManagedUDP implements Closeable {
      * Gets the active listening port (may be different from port part of 'source')
      */
     public int getListeningPort() {
-        DatagramSocket socket = _socket;
-        if (socket == null)
+        DatagramChannel channel = _channel;
+        if (channel == null)
             return 0;
         else
-            return _socket.getLocalPort();
+            return channel.socket().getLocalPort();
     }
 
     
@@ -358,53 +481,87 @@ public class ManagedUDP implements Closeable {
             
             int kickoffTime = 1000 + s_random.nextInt(KICKOFF_DELAY);
 
-            _startTimer = _timerThread.schedule(_threadPool, new TimerTask() {
-
-                @Override
-                public void run() {
-                    _thread.start();
-                }
-
-            }, kickoffTime);
+            scheduleBind(kickoffTime);
         }
     }
     
     /**
-     * The main thread.
+     * (assumes locked)
      */
-    private void begin() {
-        while (!_shutdown) {
-            // only need to set the thread state once here
-            _threadStateHandler.handle();
+    private void scheduleBind(int delay) {
+        _startTimer = _timerThread.schedule(_threadPool, new TimerTask() {
             
-            try {
-                bindAndListen();
+            @Override
+            public void run() {
+                _threadStateHandler.handle();
+                bind();
+            }
+
+        }, delay);
+    }
+
+    /**
+     * Binds the channel and hands it to the engine, backing off and retrying on failure.
+     */
+    private void bind() {
+        DatagramChannel channel = null;
 
-            } catch (Exception exc) {
-                // an exception here can only happen if a binding failure
-                // has occurred or things are being shutdown
+        try {
+            channel = openAndBind();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, RECV_BUFFER_SIZE);
 
+            // at this point, the channel will be bound
+
+            synchronized (_lock) {
                 if (_shutdown) {
-                    // thread can gracefully exit
+                    _engine.close(channel);
                     return;
                 }
                 
-                // fire the general error-handler that'll hopefully log the issue
-                Handler.tryHandle(_callbackErrorHandler, exc);
+                _channel = channel;
+
+                _bindBackoff.reset();
             }
 
-            // back off for a period of time, no need for exponential back-off, normally
-            // just because someone else has bound to the port
-            Threads.wait(_lock, BACKOFF);
-        } // (while)
+            _engine.register(channel, this);
+
+        } catch (Exception exc) {
+            // an exception here can only happen if a binding failure
+            // has occurred or things are being shutdown
+
+            if (channel != null)
+                _engine.close(channel);
+
+            synchronized (_lock) {
+                if (_shutdown)
+                    return;
+
+                // back off for a period of time, no need for exponential back-off, normally
+                // just because someone else has bound to the port
+                scheduleBind((int) _bindBackoff.next());
+            }
+
+            // fire the general error-handler that'll hopefully log the issue
+            Handler.tryHandle(_callbackErrorHandler, exc);
+
+            return;
+        }
+
+        // channel is bound here, so fire 'ready' flag
+        _callbackHandler.handle(_readyCallback, _callbackErrorHandler);
+
+        _logger.info("A UDP socket is bound.");
+
+        // anything queued while unbound can go now
+        kickSendQueue();
     }
     
     /**
-     * Establishes a socket and continually reads.
+     * Opens a channel, binding and joining groups as required by the source, dest and intf addresses.
      */
-    private void bindAndListen() throws Exception {
-        DatagramSocket socket = null;
-        MulticastSocket multicastSocket = null;
+    private DatagramChannel openAndBind() throws Exception {
+        DatagramChannel channel = null;
         
         try {
         	String sourceAddress = _source;
@@ -434,22 +591,27 @@ public class ManagedUDP implements Closeable {
             
             InetAddress intfHostAddress = null;
             if (!Strings.isNullOrEmpty(intfAddress))
-            	intfHostAddress = InetAddress.getByName(intfAddress);
+            	intfHostAddress = AddressResolver.shared().resolve(intfAddress);
             
             if (sourceMulticast || destMulticast) {
             	// multicast usage
             	
             	// (requires more complex binding decisions than unicast)
-            	boolean bound = false;
+            	InetAddress group = sourceMulticast ? sourceSocketAddress.getAddress() : destSocketAddress.getAddress();
             	
-            	multicastSocket = new MulticastSocket(null);
-            	
-            	// 'socket' reference set immediately for clean up purposes
-            	socket = multicastSocket;
+            	// channels must be of the same family as the groups they join
+            	channel = DatagramChannel.open(group instanceof Inet4Address ? StandardProtocolFamily.INET : StandardProtocolFamily.INET6);
+            	channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
             	
             	// always set the optional 'interface' if it's specified
-            	if (intfHostAddress != null)
-            		multicastSocket.setInterface(intfHostAddress);
+            	NetworkInterface intf = null;
+            	if (intfHostAddress != null) {
+            		intf = NetworkInterface.getByInetAddress(intfHostAddress);
+            		if (intf == null)
+            			throw new IllegalArgumentException("No network interface has the address '" + intfAddress + "'");
+
+            		channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, intf);
+            	}
             	
             	// it's important the source is used as the bind address if it
             	// not a multicast address itself
@@ -457,112 +619,213 @@ public class ManagedUDP implements Closeable {
             	if (sourceMulticast) {
             		if (intfHostAddress == null) {
             			// bind to wildcard address, and specific port
-						multicastSocket.bind(new InetSocketAddress((InetAddress) null, sourceSocketAddress.getPort()));
+						channel.bind(new InetSocketAddress(sourceSocketAddress.getPort()));
             		} else {
             			// bind to intf address and specific port
-            			multicastSocket.bind(new InetSocketAddress(intfHostAddress, sourceSocketAddress.getPort()));
+            			channel.bind(new InetSocketAddress(intfHostAddress, sourceSocketAddress.getPort()));
             		}
             			
-            		bound = true;
-            	}
-            	
-            	if (!bound) {
+            	} else {
             		// specifying multicast with the destination, port can be altered on the fly
             		// during sends
-            		multicastSocket.bind(null);
-            		bound = true;
+            		channel.bind(null);
             	}
             	
             	// join the multicast group(s) (wouldn't make much sense having one set on 'source' and 'dest' but
             	// they can try)
             	if (sourceMulticast) 
-            		multicastSocket.joinGroup(sourceSocketAddress.getAddress());
+            		channel.join(sourceSocketAddress.getAddress(), intf != null ? intf : defaultMulticastInterface(sourceSocketAddress.getAddress()));
             	
             	if (destMulticast)
-            		multicastSocket.joinGroup(destSocketAddress.getAddress());
+            		channel.join(destSocketAddress.getAddress(), intf != null ? intf : defaultMulticastInterface(destSocketAddress.getAddress()));
             		
             } else {
             	// unicast usage
             	
             	// prepare a reusuable UDP socket
-            	socket = new DatagramSocket(null);
-            	socket.setReuseAddress(true);
+            	channel = DatagramChannel.open();
+            	channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
             	
             	// bind to the source address
             	// (null is valid)
-            	socket.bind(sourceSocketAddress);
+            	channel.bind(sourceSocketAddress);
             }
             
-            // at this point, the socket will be bound
+            return channel;
             
-            synchronized (_lock) {
-                if (_shutdown)
-                    return;
+        } catch (Exception exc) {
+            if (channel != null)
+                _engine.close(channel);
                 
-                _socket = socket;
-            }
-            
-            // socket it bound here, so fire 'ready' flag
-            _callbackHandler.handle(_readyCallback, _callbackErrorHandler);
-            
-            _logger.info("A UDP socket is bound.");
-            
-            // start listening
-            readLoop(socket);
-            
-        } finally {
-            // always gracefully close the socket and invalidate the socket fields
-            
-            synchronized(_lock) {
-                _socket = null;
-            }
-            
-            Stream.safeClose(socket);
+            throw exc;
         }
     }
 
     /**
-     * The reading loop will continually read or until shutdown.
+     * The interface the OS would use to reach a group (channels can't join on "any" interface the way
+     * multicast sockets can), otherwise the first one capable.
      */
-    private void readLoop(DatagramSocket socket) throws Exception {
-        // set up the receive buffer and packet once
-        byte[] recvBuffer = new byte[MAX_BUFFER_SIZE];
-        DatagramPacket recvPacket = new DatagramPacket(recvBuffer, recvBuffer.length);
+    private static NetworkInterface defaultMulticastInterface(InetAddress group) throws IOException {
+        try (DatagramSocket probe = new DatagramSocket()) {
+            // (connecting a datagram socket sends nothing, it only selects a route)
+            probe.connect(group, 9);
         
-        while (!_shutdown) {
-            // always reset the length before receiving
-            recvPacket.setLength(recvBuffer.length);
+            NetworkInterface intf = NetworkInterface.getByInetAddress(probe.getLocalAddress());
+            if (intf != null)
+                return intf;
             
-            try {
-                // receive packets...
-                datagramRecvAndCount(socket, recvPacket);
+        } catch (Exception exc) {
+            // no route, fall through
+        }
                 
-                handleReceivedData(recvPacket);
+        NetworkInterface loopback = null;
                 
-            } catch (Exception exc) {
-                // unless we're shutting down, ignore these exceptions
-                // which could be 'no route to host' etc.
+        for (NetworkInterface intf : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!intf.isUp() || !intf.supportsMulticast())
+                continue;
+
+            if (!intf.isLoopback())
+                return intf;
+
+            if (loopback == null)
+                loopback = intf;
+        }
+
+        if (loopback != null)
+            return loopback;
+
+        throw new IOException("No multicast capable network interface is available");
+    }
+
+    /**
+     * Takes all waiting datagrams off the socket.
+     * (selector thread, must never block)
+     */
+    @Override
+    public void handleReadable(ByteBuffer buffer) {
+        DatagramChannel channel = _channel;
+        if (channel == null)
+            return;
+
+        int count = 0;
+
+        try {
+            while (count < RECV_BATCH) {
+                buffer.clear();
+
+                SocketAddress from = channel.receive(buffer);
+                if (from == null)
+                    break;
+
+                buffer.flip();
+
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+
+                _counterRecvOps.incr();
+                _counterRecvRate.add(data.length * 8);
+
+                queueReceived(fromString(from), data);
+
+                count++;
             }
-        } // (while)
+        } catch (IOException exc) {
+            // unless we're shutting down, ignore these exceptions
+            // which could be 'no route to host' etc.
+        }
+    }
         
-        // asked to be shutdown, will do so gracefully... 
+    /**
+     * (convenience method, selector thread)
+     */
+    private String fromString(SocketAddress from) {
+        String result = _fromCache.get(from);
+
+        if (result == null) {
+            InetSocketAddress address = (InetSocketAddress) from;
+            result = address.getAddress().getHostAddress() + ":" + address.getPort();
+
+            if (_fromCache.size() >= MAX_CACHED_ADDRESSES)
+                _fromCache.clear();
+
+            _fromCache.put(from, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Queues a received datagram, kicking off delivery if necessary.
+     * (never blocks)
+     */
+    private void queueReceived(String from, byte[] data) {
+        synchronized (_recvQueue) {
+            if (_recvQueue.size() >= MAX_PENDING_RECEIVES) {
+                _counterRecvDrops.incr();
+                return;
+            }
+
+            _recvQueue.add(new ReceivedItem(from, data));
+
+            if (_delivering)
+                return;
+
+            _delivering = true;
+        }
+
+        _threadPool.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                _threadStateHandler.handle();
+                processReceiveQueue();
+            }
+
+        });
+    }
+
+    /**
+     * Delivers received datagrams to the callbacks, in order, in batches.
+     */
+    private void processReceiveQueue() {
+        List<ReceivedItem> batch = new ArrayList<>(SEND_BATCH);
+
+        for (;;) {
+            synchronized (_recvQueue) {
+                if (_recvQueue.isEmpty() || _shutdown) {
+                    _recvQueue.clear();
+                    _delivering = false;
+                    return;
+                }
+
+                while (batch.size() < SEND_BATCH && !_recvQueue.isEmpty())
+                    batch.add(_recvQueue.poll());
+            }
+
+            for (ReceivedItem item : batch)
+                handleReceivedData(item.from, item.data);
+
+            batch.clear();
+        }
     }
     
     /**
      * When a packet arrives; deals with request callbacks if necessary
      */
-    private void handleReceivedData(DatagramPacket recvPacket) {
-        InetAddress fromAddr = recvPacket.getAddress();
-        String fromHost = fromAddr.getHostAddress();
-        
-        int fromPort = recvPacket.getPort();
+    private void handleReceivedData(String from, byte[] data) {
+        H2<String, byte[]> bytesCallback = _receivedBytesCallback;
+        if (bytesCallback != null)
+            _callbackHandler.handle(bytesCallback, from, data, _callbackErrorHandler);
         
-        String from = fromHost + ":" + fromPort;
+        // (only convert if needed)
+        H2<String, String> callback = _receivedCallback;
+        if (callback == null)
+            return;
         
-        String data = bufferToString(recvPacket.getData(), recvPacket.getLength());
+        String str = bufferToString(data, data.length);
 
         // ...then fire the 'received' callback next
-        _callbackHandler.handle(_receivedCallback, from, data, _callbackErrorHandler);
+        _callbackHandler.handle(callback, from, str, _callbackErrorHandler);
     }
     
     /**
@@ -589,102 +852,165 @@ public class ManagedUDP implements Closeable {
         synchronized (_sendQueue) {
             // immediately queue the send request
             _sendQueue.add(new QueueItem(dest, buffer, data));
+        }
 
-            // kicking off thread-pool to process if necessary
-            if (!_processing) {
-                _processing = true;
+        kickSendQueue();
+    }
 
-                _threadPool.execute(new Runnable() {
+    /**
+     * Kicks off the thread-pool to process the send queue, if necessary.
+     */
+    private void kickSendQueue() {
+        synchronized (_sendQueue) {
+            if (_processing || _awaitingWritable || _sendQueue.isEmpty())
+                return;
 
-                    @Override
-                    public void run() {
-                        _threadStateHandler.handle();
-                        processQueue();
-                    }
+            _processing = true;
+        }
+
+        _threadPool.execute(new Runnable() {
 
-                });
+            @Override
+            public void run() {
+                _threadStateHandler.handle();
+                processQueue();
             }
-        }
+
+        });
     }
 
     /**
-     * Continually processes the queue.
+     * Continually processes the queue, sending in batches using a pooled direct buffer.
      */
     private void processQueue() {
-        for(;;) {
-            QueueItem qi;
-            synchronized(_sendQueue) {
-                qi = _sendQueue.poll();
-                
-                if (qi == null || _shutdown) {
-                    _processing = false;
-                    return;
+        List<QueueItem> batch = new ArrayList<>(SEND_BATCH);
+        List<String> sent = new ArrayList<>(SEND_BATCH);
+
+        ByteBuffer buffer = _engine.acquireBuffer();
+
+        try {
+            for (;;) {
+                DatagramChannel channel;
+
+                synchronized (_sendQueue) {
+                    channel = _channel;
+
+                    // (if unbound, leave everything queued, binding kicks the queue again)
+                    if (_sendQueue.isEmpty() || _shutdown || channel == null) {
+                        _processing = false;
+                        return;
+                    }
+
+                    while (batch.size() < SEND_BATCH && !_sendQueue.isEmpty())
+                        batch.add(_sendQueue.poll());
+                }
+
+                int a = 0;
+                for (; a < batch.size(); a++) {
+                    QueueItem qi = batch.get(a);
+
+                    SendResult result = doSend(channel, buffer, qi.dest, qi.buffer);
+
+                    if (result == SendResult.Full)
+                        break;
+
+                    if (result == SendResult.Sent)
+                        sent.add(qi.origData);
                 }
+
+                boolean full = a < batch.size();
+
+                if (full) {
+                    // the socket's send buffer is full, put back what's left (in order) and wait
+                    synchronized (_sendQueue) {
+                        for (int b = batch.size() - 1; b >= a; b--)
+                            _sendQueue.addFirst(batch.get(b));
+
+                        _processing = false;
+                        _awaitingWritable = true;
+                    }
+
+                    _engine.requestWritable(channel);
+                }
+
+                batch.clear();
+
+                // call the 'sent' handler
+                for (String origData : sent)
+                    Handler.tryHandle(_sentCallback, origData, _callbackErrorHandler);
+
+                sent.clear();
+
+                if (full)
+                    return;
             }
-            
-            // 'qi' has a value
-            doSend(qi.dest, qi.buffer, qi.origData);
+        } finally {
+            _engine.releaseBuffer(buffer);
         }
     }
+
+    /**
+     * Room in the send buffer again.
+     * (selector thread)
+     */
+    @Override
+    public void handleWritable() {
+        synchronized (_sendQueue) {
+            _awaitingWritable = false;
+        }
+                
+        kickSendQueue();
+    }
     
     /**
-     * Sends data
-     * (assumes locked)
+     * Sends data, failures are reported to the callback error handler.
      * (no exceptions can be thrown)
      */
-    private void doSend(String dest, byte[] buffer, String origData) {
+    private SendResult doSend(DatagramChannel channel, ByteBuffer buffer, String dest, byte[] data) {
         try {
-            DatagramSocket socket = _socket;
+            InetSocketAddress addr = resolveDest(dest != null ? dest : _dest);
 
-            if (socket == null)
-                return;
+            buffer.clear();
+            buffer.put(data);
+            buffer.flip();
             
-            InetSocketAddress addr;
-
-            if (dest == null) {
-                // use the 'dest' field, resolving if necessary
-                if (_resolvedDest == null) {
-                    addr = parseAndResolveAddress(_dest);
-                } else {
-                    addr = _resolvedDest;
-                }
-            } else {
-                // attempt to resolve the once-off address
-                addr = parseAndResolveAddress(dest);
-            }
-
-            _sendPacket.setSocketAddress(addr);
-            _sendPacket.setData(buffer);
-            _sendPacket.setLength(buffer.length);
+            if (channel.send(buffer, addr) == 0 && data.length > 0)
+                return SendResult.Full;
 
-            datagramSendAndCount(socket, _sendPacket);
+            _counterSendOps.incr();
+            _counterSendRate.add(data.length * 8);
             
-            // call the 'sent' handler
-            Handler.tryHandle(_sentCallback, origData, _callbackErrorHandler);
+            return SendResult.Sent;
             
         } catch (Exception exc) {
             Handler.tryHandle(_callbackErrorHandler, exc);
+            
+            return SendResult.Failed;
         }
     }
 
     /**
-     * Convenience method to send and count
+     * Resolves a destination, reusing recent resolutions (saves parsing and contention on the shared resolver
+     * for every datagram)
      */
-    private void datagramSendAndCount(DatagramSocket socket, DatagramPacket packet) throws IOException {
-        socket.send(packet);
+    private InetSocketAddress resolveDest(String dest) throws UnknownHostException {
+        long now = System.nanoTime();
         
-        _counterSendOps.incr();
-        _counterSendRate.add(packet.getLength() * 8);
-    }
+        if (dest != null) {
+            synchronized (_destCache) {
+                ResolvedDest resolved = _destCache.get(dest);
+                if (resolved != null && now - resolved.resolvedAt < DEST_CACHE_TTL)
+                    return resolved.address;
+            }
+        }
     
-    /**
-     * Convenience method to receive and count.
-     */
-    private void datagramRecvAndCount(DatagramSocket socket, DatagramPacket packet) throws IOException {
-        socket.receive(packet);
+        InetSocketAddress addr = parseAndResolveAddress(dest);
         
-        _counterRecvOps.incr();
-        _counterRecvRate.add(packet.getLength() * 8);
+        synchronized (_destCache) {
+            _destCache.put(dest, new ResolvedDest(addr, now));
+        }
+
+        return addr;
     }
 
     /**
@@ -755,15 +1081,22 @@ public class ManagedUDP implements Closeable {
      */
     public void drop() {
         synchronized (_lock) {
-            if (_shutdown)
+            if (_shutdown || _channel == null)
                 return;
 
-            Stream.safeClose(_socket);
+            _engine.close(_channel);
+            _channel = null;
+
+            scheduleBind(REBIND_DELAY);
+        }
+
+        synchronized (_sendQueue) {
+            _awaitingWritable = false;
         }
     }
     
     /**
-     * Permanently shuts down this managed TCP connection.
+     * Permanently shuts down this managed UDP socket.
      */
     @Override
     public void close() {
@@ -776,19 +1109,21 @@ public class ManagedUDP implements Closeable {
             if (_startTimer != null)
                 _startTimer.cancel();
 
-            Stream.safeClose(_socket);
+            if (_channel != null)
+                _engine.close(_channel);
 
-            _socket = null;
+            _channel = null;
+        }
             
-            // notify the connection and receive thread if it happens to be waiting
-            _lock.notify();
+        synchronized (_sendQueue) {
+            _sendQueue.clear();
         }
     }
     
     /**
-     * Creates a resolved (if necessary) socket address.
+     * Creates a resolved (if necessary) socket address (using the shared resolver)
      */
-    private static InetSocketAddress parseAndResolveAddress(String address) {
+    private static InetSocketAddress parseAndResolveAddress(String address) throws UnknownHostException {
         if (Strings.isNullOrEmpty(address))
             throw new IllegalArgumentException("No address was given.");
 
@@ -813,7 +1148,7 @@ public class ManagedUDP implements Closeable {
             throw new IllegalArgumentException("port was invalid - '" + portPart + "'");
         }
         
-        return new InetSocketAddress(hostPart, port);
+        return AddressResolver.shared().resolve(hostPart, port);
     }
 
 }
@@ -0,0 +1,246 @@
+package org.nodel.toolkit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.nodel.io.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single selector thread shared by all the managed UDP sockets of a host, instead of a blocking
+ * thread per socket.
+ *
+ * The selector thread only ever reads datagrams (into one reused direct buffer) and hands them over; endpoints
+ * must never block or call into scripts from 'handleReadable' or 'handleWritable'.
+ */
+class UDPEngine {
+
+    /**
+     * (logging)
+     */
+    private final static Logger s_logger = LoggerFactory.getLogger(UDPEngine.class);
+
+    /**
+     * The largest possible datagram.
+     */
+    final static int MAX_DATAGRAM = 65536;
+
+    /**
+     * The most direct send buffers held onto when idle.
+     */
+    private final static int MAX_POOLED_BUFFERS = 16;
+
+    /**
+     * Callbacks from the selector thread.
+     */
+    interface Endpoint {
+
+        /**
+         * Datagrams are ready to be received using the given buffer.
+         * (the buffer belongs to the selector thread, contents must be copied if retained)
+         */
+        void handleReadable(ByteBuffer buffer);
+
+        /**
+         * Room is available in the socket's send buffer again (see 'requestWritable')
+         */
+        void handleWritable();
+
+    }
+
+    /**
+     * (lazily started, see 'shared')
+     */
+    private static UDPEngine s_shared;
+
+    /**
+     * The engine shared by all managed UDP sockets.
+     */
+    static UDPEngine shared() {
+        synchronized (UDPEngine.class) {
+            if (s_shared == null)
+                s_shared = new UDPEngine();
+
+            return s_shared;
+        }
+    }
+
+    /**
+     * (owned by the selector thread)
+     */
+    private Selector _selector;
+
+    /**
+     * Registrations and interest changes to be applied by the selector thread.
+     */
+    private ConcurrentLinkedQueue<Runnable> _pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The receive buffer.
+     * (only used by the selector thread)
+     */
+    private ByteBuffer _recvBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+
+    /**
+     * Direct buffers for sending (see 'acquireBuffer')
+     */
+    private ConcurrentLinkedQueue<ByteBuffer> _bufferPool = new ConcurrentLinkedQueue<>();
+
+    private UDPEngine() {
+        try {
+            _selector = Selector.open();
+
+        } catch (IOException exc) {
+            throw new RuntimeException("A selector could not be created for UDP use", exc);
+        }
+
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                selectLoop();
+            }
+
+        }, "UDP engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts receiving on a bound, non-blocking channel.
+     * (returns immediately)
+     */
+    void register(final DatagramChannel channel, final Endpoint endpoint) {
+        queue(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    channel.register(_selector, SelectionKey.OP_READ, endpoint);
+
+                } catch (ClosedChannelException exc) {
+                    // closed before it could be registered, can ignore
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Asks for 'handleWritable' to be called once the channel can accept more datagrams.
+     * (returns immediately)
+     */
+    void requestWritable(final DatagramChannel channel) {
+        queue(new Runnable() {
+
+            @Override
+            public void run() {
+                SelectionKey key = channel.keyFor(_selector);
+                if (key == null || !key.isValid())
+                    return;
+
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+
+        });
+    }
+
+    /**
+     * Closes a channel, waking the selector so the underlying socket is released promptly.
+     */
+    void close(DatagramChannel channel) {
+        Stream.safeClose(channel);
+
+        _selector.wakeup();
+    }
+
+    /**
+     * Takes a direct buffer (at least 'MAX_DATAGRAM') for sending, to be returned using 'releaseBuffer'.
+     */
+    ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = _bufferPool.poll();
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+
+        buffer.clear();
+
+        return buffer;
+    }
+
+    /**
+     * (see 'acquireBuffer')
+     */
+    void releaseBuffer(ByteBuffer buffer) {
+        // (size is loosely bounded, not critical)
+        if (_bufferPool.size() < MAX_POOLED_BUFFERS)
+            _bufferPool.add(buffer);
+    }
+
+    /**
+     * (convenience method)
+     */
+    private void queue(Runnable op) {
+        _pending.add(op);
+
+        _selector.wakeup();
+    }
+
+    /**
+     * The selector thread.
+     */
+    private void selectLoop() {
+        for (;;) {
+            try {
+                _selector.select();
+
+                Runnable op;
+                while ((op = _pending.poll()) != null)
+                    op.run();
+
+                Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    handleKey(key);
+                }
+
+            } catch (Exception exc) {
+                // should never happen but must never let the thread die
+                s_logger.warn("Unexpected exception in UDP select loop; ignoring.", exc);
+            }
+        } // (for)
+    }
+
+    /**
+     * (keys are handled individually so one endpoint can't affect another)
+     */
+    private void handleKey(SelectionKey key) {
+        try {
+            Endpoint endpoint = (Endpoint) key.attachment();
+
+            if (key.isReadable())
+                endpoint.handleReadable(_recvBuffer);
+
+            if (key.isValid() && key.isWritable()) {
+                key.interestOps(SelectionKey.OP_READ);
+                endpoint.handleWritable();
+            }
+
+        } catch (CancelledKeyException exc) {
+            // channel was closed, normal
+
+        } catch (Exception exc) {
+            s_logger.warn("Unexpected exception handling UDP endpoint; ignoring.", exc);
+        }
+    }
+
+} // (class)
@@ -0,0 +1,175 @@
+package org.nanohttpd.protocols.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticFileCacheTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("Unchanged files keep their entry when revalidated")
+    void testUnchangedKept() throws Exception {
+        write("index.html", "<html></html>");
+
+        // (revalidates on every lookup)
+        StaticFileCache cache = new StaticFileCache(0, 16, 16);
+
+        StaticFileCache.Entry entry = cache.lookup(root.toFile(), "index.html");
+        assertTrue(entry.isFile());
+        assertEquals(13, entry.getLength());
+        assertEquals("text/html", entry.getMimeType());
+
+        assertSame(entry, cache.lookup(root.toFile(), "index.html"));
+    }
+
+    @Test
+    @DisplayName("Modified files are picked up by size and modification time")
+    void testModifiedNoticed() throws Exception {
+        Path file = write("app.js", "var a = 1;");
+
+        StaticFileCache cache = new StaticFileCache(0, 16, 16);
+
+        StaticFileCache.Entry entry = cache.lookup(root.toFile(), "app.js");
+        String etag = entry.getETag();
+
+        // (same size, later time)
+        write("app.js", "var b = 2;");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+
+        StaticFileCache.Entry changed = cache.lookup(root.toFile(), "app.js");
+        assertNotSame(entry, changed);
+        assertNotEquals(etag, changed.getETag());
+    }
+
+    @Test
+    @DisplayName("Entries are trusted until the revalidation period is up")
+    void testTrustedWithinPeriod() throws Exception {
+        write("app.css", "body {}");
+
+        StaticFileCache cache = new StaticFileCache(60000, 16, 16);
+
+        StaticFileCache.Entry entry = cache.lookup(root.toFile(), "app.css");
+        Files.delete(root.resolve("app.css"));
+
+        assertSame(entry, cache.lookup(root.toFile(), "app.css"));
+    }
+
+    @Test
+    @DisplayName("Directories can be renamed and files deleted while cached")
+    void testNothingHeld() throws Exception {
+        Files.createDirectory(root.resolve("ui"));
+        write("ui/index.html", "<html></html>");
+
+        StaticFileCache cache = new StaticFileCache(0, 16, 16);
+
+        assertTrue(cache.lookup(root.toFile(), "ui/index.html").isFile());
+        assertTrue(cache.lookup(root.toFile(), "ui").isDirectory());
+
+        Files.move(root.resolve("ui"), root.resolve("ui-old"));
+
+        assertFalse(cache.lookup(root.toFile(), "ui/index.html").exists());
+        assertFalse(cache.lookup(root.toFile(), "ui").exists());
+        assertTrue(cache.lookup(root.toFile(), "ui-old/index.html").isFile());
+
+        Files.delete(root.resolve("ui-old/index.html"));
+        Files.delete(root.resolve("ui-old"));
+
+        assertFalse(cache.lookup(root.toFile(), "ui-old/index.html").exists());
+    }
+
+    @Test
+    @DisplayName("Misses are capped separately and don't push out existing entries")
+    void testMissesCapped() throws Exception {
+        write("index.html", "<html></html>");
+
+        StaticFileCache cache = new StaticFileCache(60000, 16, 4);
+
+        StaticFileCache.Entry entry = cache.lookup(root.toFile(), "index.html");
+
+        for (int i = 0; i < 100; i++)
+            assertFalse(cache.lookup(root.toFile(), "missing" + i + ".html").exists());
+
+        assertEquals(1, cache.entryCount());
+        assertEquals(4, cache.missCount());
+        assertSame(entry, cache.lookup(root.toFile(), "index.html"));
+    }
+
+    @Test
+    @DisplayName("A file that appears replaces its miss")
+    void testMissThenCreated() throws Exception {
+        StaticFileCache cache = new StaticFileCache(0, 16, 16);
+
+        assertFalse(cache.lookup(root.toFile(), "late.html").exists());
+
+        write("late.html", "<html></html>");
+
+        assertTrue(cache.lookup(root.toFile(), "late.html").isFile());
+        assertEquals(1, cache.entryCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("The least recently used entry is evicted, not the whole cache")
+    void testLRUEviction() throws Exception {
+        for (int i = 0; i < 4; i++)
+            write("file" + i + ".txt", "content " + i);
+
+        StaticFileCache cache = new StaticFileCache(60000, 3, 3);
+
+        StaticFileCache.Entry first = cache.lookup(root.toFile(), "file0.txt");
+        StaticFileCache.Entry second = cache.lookup(root.toFile(), "file1.txt");
+        cache.lookup(root.toFile(), "file2.txt");
+
+        // (touch the first so the second is now the oldest)
+        cache.lookup(root.toFile(), "file0.txt");
+        cache.lookup(root.toFile(), "file3.txt");
+
+        assertEquals(3, cache.entryCount());
+        assertSame(first, cache.lookup(root.toFile(), "file0.txt"));
+        assertNotSame(second, cache.lookup(root.toFile(), "file1.txt"));
+    }
+
+    @Test
+    @DisplayName("Precompressed siblings are used and noticed when removed")
+    void testPrecompressedSibling() throws Exception {
+        write("app.js", "var a = 1;");
+        Path br = write("app.js.br", "(brotli)");
+
+        StaticFileCache cache = new StaticFileCache(0, 16, 16);
+
+        StaticFileCache.Entry entry = cache.lookup(root.toFile(), "app.js");
+        assertEquals("br", cache.selectVariant(entry, "gzip, deflate, br").encoding);
+
+        Files.delete(br);
+
+        entry = cache.lookup(root.toFile(), "app.js");
+        assertNull(cache.selectVariant(entry, "br"));
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding parsing honours q=0")
+    void testAccepts() {
+        assertTrue(StaticFileCache.accepts("gzip, deflate, br", "br"));
+        assertTrue(StaticFileCache.accepts("*", "gzip"));
+        assertFalse(StaticFileCache.accepts("gzip;q=0, br", "gzip"));
+        assertFalse(StaticFileCache.accepts("deflate", "gzip"));
+    }
+
+    private Path write(String relPath, String content) throws Exception {
+        Path path = root.resolve(relPath.replace('/', File.separatorChar));
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+}
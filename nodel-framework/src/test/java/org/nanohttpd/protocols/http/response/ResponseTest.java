@@ -0,0 +1,85 @@
+package org.nanohttpd.protocols.http.response;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseTest {
+
+    @Test
+    @DisplayName("Small bodies are written with the headers, connection kept")
+    void testGathered() {
+        Response response = Response.newFixedLengthResponse(Status.OK, "text/plain", "hello");
+        response.setUseGzip(false);
+        response.setKeepAlive(true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.send(out);
+
+        String sent = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(sent.contains("Content-Length: 5\r\n"));
+        assertTrue(sent.endsWith("\r\n\r\nhello"));
+        assertFalse(response.isCloseConnection());
+    }
+
+    @Test
+    @DisplayName("A body shorter than its Content-Length closes the connection")
+    void testShortBody() {
+        byte[] data = "only part".getBytes(StandardCharsets.UTF_8);
+        Response response = Response.newFixedLengthResponse(Status.OK, "text/plain", new ByteArrayInputStream(data), 100);
+        response.setUseGzip(false);
+        response.setKeepAlive(true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.send(out);
+
+        String sent = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(sent.contains("Content-Length: 100\r\n"));
+        assertTrue(sent.endsWith("only part"));
+        assertTrue(response.isCloseConnection());
+    }
+
+    @Test
+    @DisplayName("A file that shrank below its cached length closes the connection")
+    void testShortFile(@TempDir Path root) throws Exception {
+        byte[] content = new byte[40000];
+        Arrays.fill(content, (byte) 'x');
+        Path file = root.resolve("big.js");
+        Files.write(file, content);
+
+        // whole
+        Response response = Response.newFixedLengthResponse(Status.OK, "text/javascript", new FileInputStream(file.toFile()), content.length);
+        response.setUseGzip(false);
+        response.setKeepAlive(true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.send(out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\r\n\r\n" + new String(content, StandardCharsets.UTF_8)));
+        assertFalse(response.isCloseConnection());
+
+        // (the length as it was when cached)
+        Files.write(file, Arrays.copyOf(content, 30000));
+
+        response = Response.newFixedLengthResponse(Status.OK, "text/javascript", new FileInputStream(file.toFile()), content.length);
+        response.setUseGzip(false);
+        response.setKeepAlive(true);
+
+        out = new ByteArrayOutputStream();
+        response.send(out);
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Content-Length: 40000\r\n"));
+        assertTrue(response.isCloseConnection());
+    }
+
+}
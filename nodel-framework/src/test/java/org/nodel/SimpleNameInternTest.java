@@ -0,0 +1,56 @@
+package org.nodel;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimpleNameInternTest {
+
+    @Test
+    @DisplayName("The same raw name gives the same instance")
+    void testCanonical() {
+        SimpleName a = SimpleName.intern("Lobby Projector (Meta)");
+        SimpleName b = SimpleName.intern(new String("Lobby Projector (Meta)"));
+
+        assertSame(a, b);
+        assertEquals("Lobby Projector (Meta)", a.getOriginalName());
+        assertEquals("LobbyProjector", a.getReducedName());
+    }
+
+    @Test
+    @DisplayName("Interned names compare as constructed ones do")
+    void testEquality() {
+        SimpleName interned = SimpleName.intern("Cr\u00e8me Br\u00fbl\u00e9e");
+        SimpleName constructed = new SimpleName("creme-brulee");
+
+        // different raw names aren't the same instance but are still equal
+        assertNotSame(interned, SimpleName.intern("creme-brulee"));
+        assertEquals(interned, constructed);
+        assertEquals(constructed, interned);
+        assertEquals(interned.hashCode(), constructed.hashCode());
+
+        assertTrue(interned.equals("CREME BRULEE"));
+        assertFalse(interned.equals("Creme Caramel"));
+        assertFalse(interned.equals(null));
+    }
+
+    @Test
+    @DisplayName("Unused names are released")
+    void testReleased() throws Exception {
+        String raw = "Released Node " + System.nanoTime();
+        int identity = System.identityHashCode(SimpleName.intern(raw));
+
+        // (not guaranteed but GC of an unreachable weakly held instance is reliable in practice)
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            Thread.sleep(10);
+
+            if (System.identityHashCode(SimpleName.intern(raw)) != identity)
+                return;
+        }
+
+        fail("interned instance was never released");
+    }
+
+}
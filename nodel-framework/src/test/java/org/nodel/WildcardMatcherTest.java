@@ -0,0 +1,175 @@
+package org.nodel;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.core.Nodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WildcardMatcherTest {
+
+    @Test
+    @DisplayName("Whole-name globs")
+    void testCompile() {
+        assertTrue(WildcardMatcher.compile("Lobby Projector").matches(new SimpleName("lobby-projector")));
+        assertTrue(WildcardMatcher.compile("Lobby*").matches(new SimpleName("Lobby Projector")));
+        assertTrue(WildcardMatcher.compile("*Projector").matches(new SimpleName("Lobby Projector")));
+        assertTrue(WildcardMatcher.compile("*by*ject*").matches(new SimpleName("Lobby Projector")));
+        assertTrue(WildcardMatcher.compile("Gallery ?").matches(new SimpleName("Gallery 1")));
+        assertTrue(WildcardMatcher.compile("*").matches(new SimpleName("Anything")));
+
+        assertFalse(WildcardMatcher.compile("Lobby").matches(new SimpleName("Lobby Projector")));
+        assertFalse(WildcardMatcher.compile("Gallery ?").matches(new SimpleName("Gallery 12")));
+        assertFalse(WildcardMatcher.compile("*Audio").matches(new SimpleName("Lobby Projector")));
+        assertFalse(WildcardMatcher.compile("*").matches((SimpleName) null));
+    }
+
+    @Test
+    @DisplayName("Unanchored filters, as used for channel interests")
+    void testCompileContains() {
+        assertTrue(WildcardMatcher.compileContains("power").matches("mainpoweron"));
+        assertTrue(WildcardMatcher.compileContains("main*on").matches("mainpoweron"));
+        assertTrue(WildcardMatcher.compileContains("").matches("mainpoweron"));
+        assertTrue(WildcardMatcher.compileContains("*").matches(""));
+
+        assertFalse(WildcardMatcher.compileContains("on*main").matches("mainpoweron"));
+        assertFalse(WildcardMatcher.compileContains("off").matches("mainpoweron"));
+    }
+
+    @Test
+    @DisplayName("Combined filters match if any do")
+    void testAnyOf() {
+        assertSame(WildcardMatcher.NONE, WildcardMatcher.anyOf(Collections.<WildcardMatcher>emptyList()));
+
+        WildcardMatcher one = WildcardMatcher.compile("Lobby*");
+        assertEquals(one, WildcardMatcher.anyOf(Arrays.asList(one, WildcardMatcher.compile("lobby*"))));
+
+        WildcardMatcher any = WildcardMatcher.anyOf(Arrays.asList(one, WildcardMatcher.compile("*Audio"), WildcardMatcher.compile("Gallery ? PJ")));
+        assertTrue(any.matches(new SimpleName("Lobby Projector")));
+        assertTrue(any.matches(new SimpleName("Gallery 2 Audio")));
+        assertTrue(any.matches(new SimpleName("Gallery 2 PJ")));
+        assertFalse(any.matches(new SimpleName("Gallery 22 PJ")));
+        assertFalse(any.matches(new SimpleName("Foyer Display")));
+
+        // combining combined ones
+        WildcardMatcher more = WildcardMatcher.anyOf(Arrays.asList(any, WildcardMatcher.compile("Foyer*")));
+        assertTrue(more.matches(new SimpleName("Foyer Display")));
+        assertTrue(more.matches(new SimpleName("Lobby Projector")));
+    }
+
+    @Test
+    @DisplayName("Same results as a plain recursive glob, single and combined, including over 64 positions")
+    void testEquivalence() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            List<String> filters = new ArrayList<String>();
+            List<WildcardMatcher> matchers = new ArrayList<WildcardMatcher>();
+            int count = 1 + random.nextInt(12);
+            for (int i = 0; i < count; i++) {
+                String filter = randomString(random, "ab*?", 1 + random.nextInt(8));
+                filters.add(filter);
+                matchers.add(WildcardMatcher.compile(filter));
+            }
+
+            WildcardMatcher combined = WildcardMatcher.anyOf(matchers);
+
+            for (int t = 0; t < 50; t++) {
+                SimpleName name = new SimpleName(randomString(random, "ab", random.nextInt(10)));
+
+                boolean expectedAny = false;
+                for (int i = 0; i < count; i++) {
+                    String filter = filters.get(i);
+                    boolean expected = glob(filter, 0, name.getReducedForMatchingName(), 0);
+                    assertEquals(expected, matchers.get(i).matches(name), filter + " vs " + name);
+
+                    // the token matcher agrees except where '?' follows '*', which it gets wrong
+                    if (filter.indexOf('?') < 0)
+                        assertEquals(expected, SimpleName.wildcardMatch(name, SimpleName.wildcardMatchTokens(filter)), filter + " vs " + name);
+
+                    expectedAny |= expected;
+                }
+
+                assertEquals(expectedAny, combined.matches(name), filters + " vs " + name);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Combined filters over 64 positions, across word boundaries and sizes on the one thread")
+    void testMultiWord() {
+        // ("room", a number and a terminator then '*', 8 or so positions each, so several words)
+        List<WildcardMatcher> rooms = new ArrayList<WildcardMatcher>();
+        for (int i = 0; i < 40; i++)
+            rooms.add(WildcardMatcher.compile("Room " + i + "x*"));
+
+        List<WildcardMatcher> fewer = new ArrayList<WildcardMatcher>(rooms.subList(0, 12));
+        fewer.add(WildcardMatcher.compile("*Display"));
+
+        WildcardMatcher large = WildcardMatcher.anyOf(rooms);
+        WildcardMatcher small = WildcardMatcher.anyOf(fewer);
+
+        for (int i = 0; i < 40; i++) {
+            assertTrue(large.matches(new SimpleName("Room " + i + "x Projector")), "room " + i);
+            assertEquals(i < 12, small.matches(new SimpleName("Room " + i + "x Projector")), "room " + i);
+        }
+
+        assertFalse(large.matches(new SimpleName("Room")));
+        assertFalse(large.matches(new SimpleName("Foyer Display")));
+        assertTrue(small.matches(new SimpleName("Foyer Display")));
+
+        // (the scratch space of the larger one mustn't leak into the smaller one's results)
+        assertFalse(small.matches(new SimpleName("Room 39x")));
+        assertTrue(large.matches(new SimpleName("Room 39x")));
+        assertFalse(small.matches(new SimpleName("Room 39x")));
+    }
+
+    /**
+     * (reference)
+     */
+    private static boolean glob(String pattern, int p, String text, int t) {
+        if (p == pattern.length())
+            return t == text.length();
+
+        char c = pattern.charAt(p);
+        if (c == '*')
+            return glob(pattern, p + 1, text, t) || (t < text.length() && glob(pattern, p, text, t + 1));
+
+        return t < text.length() && (c == '?' || c == text.charAt(t)) && glob(pattern, p + 1, text, t + 1);
+    }
+
+    @Test
+    @DisplayName("Cached compiles are reused and bounded")
+    void testCompileCached() {
+        WildcardMatcher matcher = WildcardMatcher.compileCached("Lobby*");
+        assertSame(matcher, WildcardMatcher.compileCached("Lobby*"));
+        assertEquals(WildcardMatcher.compile("Lobby*"), matcher);
+        assertTrue(SimpleName.wildcardMatch(new SimpleName("Lobby Projector"), "Lobby*"));
+
+        WildcardMatcher contains = WildcardMatcher.compileContainsCached("power");
+        assertSame(contains, WildcardMatcher.compileContainsCached("power"));
+        assertNotSame(matcher, WildcardMatcher.compileContainsCached("Lobby*"));
+        assertTrue(Nodel.filterMatch("mainpoweron", "power"));
+
+        // (the least recently used are dropped)
+        for (int i = 0; i < WildcardMatcher.CACHE_SIZE; i++)
+            WildcardMatcher.compileCached("Filter " + i + "*");
+
+        assertNotSame(matcher, WildcardMatcher.compileCached("Lobby*"));
+        assertEquals(matcher, WildcardMatcher.compileCached("Lobby*"));
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.nodel.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.json.JSONReader;
+import org.nodel.reflection.Serialisation;
+import org.nodel.reflection.SerialisationException;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelMessageDecoderTest {
+
+    private final static String EVENT = "{\"node\": \"Lobby Projector\", \"event\": \"Status\", \"arg\": {\"state\": \"On\", \"level\": 75},"
+            + " \"timestamp\": \"2026-10-19T10:00:00.000+11:00\"}";
+
+    private final static String INTERESTS = "{\"node\": \"Lobby Projector\", \"events\": [\"Status\", \"Power*\"], \"actions\": [\"*\"]}";
+
+    private final static String ERROR = "{\"node\": \"Lobby Projector\", \"error\": \"Action not found\", \"action\": \"Missing\"}";
+
+    @Test
+    @DisplayName("Same message each time, same fields as a fresh one, nothing left over from the last")
+    void testDecode() {
+        ChannelMessage.Decoder decoder = new ChannelMessage.Decoder();
+
+        ChannelMessage first = decoder.decode(EVENT);
+        assertEquals(Serialisation.serialise(Serialisation.coerceFromJSON(ChannelMessage.class, EVENT)), first.toString());
+        assertEquals("On", ((Map<?, ?>) first.arg).get("state"));
+
+        for (String json : new String[] { INTERESTS, ERROR, EVENT, "{}" }) {
+            ChannelMessage message = decoder.decode(json);
+            assertSame(first, message);
+            assertEquals(Serialisation.serialise(Serialisation.coerceFromJSON(ChannelMessage.class, json)), message.toString(), json);
+        }
+
+        ChannelMessage empty = decoder.decode("{}");
+        assertNull(empty.node);
+        assertNull(empty.arg);
+        assertNull(empty.timestamp);
+        assertNull(empty.events);
+    }
+
+    @Test
+    @DisplayName("Args are fresh per message so they can be kept")
+    void testArgsNotShared() {
+        ChannelMessage.Decoder decoder = new ChannelMessage.Decoder();
+
+        Object arg = decoder.decode(EVENT).arg;
+        decoder.decode(EVENT.replace("\"On\"", "\"Off\""));
+
+        assertEquals("On", ((Map<?, ?>) arg).get("state"));
+    }
+
+    @Test
+    @DisplayName("Bad messages fail without spoiling the next, small and large messages in any order")
+    void testRecovery() {
+        ChannelMessage.Decoder decoder = new ChannelMessage.Decoder();
+
+        assertThrows(SerialisationException.class, () -> decoder.decode("{\"node\": \"Lobby"));
+        assertThrows(SerialisationException.class, () -> decoder.decode("[1, 2]"));
+        assertEquals("Status", decoder.decode(EVENT).event);
+
+        // (larger than the parse buffer)
+        StringBuilder big = new StringBuilder();
+        while (big.length() < 20000)
+            big.append("0123456789");
+
+        String large = "{\"node\": \"Lobby Projector\", \"event\": \"Log\", \"arg\": \"" + big + "\"}";
+        assertNull(decoder.decode("{}").arg);
+        assertEquals(big.toString(), decoder.decode(large).arg);
+        assertEquals("Status", decoder.decode(EVENT).event);
+        assertEquals(big.toString(), decoder.decode(large).arg);
+    }
+
+    @Test
+    void testResetOnlyForText() {
+        assertThrows(IllegalStateException.class, () -> new JSONReader(new StringReader("{}")).reset("{}"));
+    }
+
+}
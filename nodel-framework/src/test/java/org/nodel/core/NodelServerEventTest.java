@@ -0,0 +1,172 @@
+package org.nodel.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.SimpleName;
+import org.nodel.host.Binding;
+import org.nodel.reflection.Serialisation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodelServerEventTest {
+
+    private final List<NodelServerEvent> _events = new ArrayList<NodelServerEvent>();
+
+    private final List<Object> _published = Collections.synchronizedList(new ArrayList<Object>());
+
+    @AfterEach
+    void tearDown() {
+        for (NodelServerEvent event : _events)
+            event.close();
+    }
+
+    @Test
+    @DisplayName("Unthrottled events publish every emit")
+    void testUnthrottled() {
+        NodelServerEvent event = create("Unthrottled", new Binding());
+
+        for (int i = 0; i < 50; i++)
+            event.emit(i);
+
+        assertEquals(50, _published.size());
+        assertEquals(50, event.getPublishedCount());
+        assertEquals(0, event.getSuppressedCount());
+    }
+
+    @Test
+    @DisplayName("A max rate without coalescing drops the rest of the window")
+    void testMaxRate() throws Exception {
+        Binding metadata = new Binding();
+        metadata.maxRate = 5.0;
+
+        NodelServerEvent event = create("Max Rate", metadata);
+
+        for (int i = 0; i < 50; i++)
+            event.emit(i);
+
+        Thread.sleep(400);
+
+        assertEquals(List.of(0), _published);
+        assertEquals(49, event.getSuppressedCount());
+
+        // next window
+        event.emit(99);
+        assertEquals(List.of(0, 99), _published);
+    }
+
+    @Test
+    @DisplayName("Coalescing publishes only the latest value at the end of the window")
+    void testCoalesce() throws Exception {
+        Binding metadata = new Binding();
+        metadata.maxRate = 5.0;
+        metadata.coalesce = true;
+
+        NodelServerEvent event = create("Coalesce", metadata);
+
+        for (int i = 0; i < 50; i++)
+            event.emit(i);
+
+        // (leading edge straight away)
+        assertEquals(List.of(0), _published);
+
+        waitFor(2, 1000);
+        assertEquals(List.of(0, 49), _published);
+        assertEquals(49, event.getArg());
+
+        assertEquals(2, event.getPublishedCount());
+        assertEquals(48, event.getSuppressedCount());
+
+        // nothing else held back
+        Thread.sleep(400);
+        assertEquals(2, _published.size());
+    }
+
+    @Test
+    @DisplayName("A sustained flood is paced to the max rate")
+    void testPacing() throws Exception {
+        Binding metadata = new Binding();
+        metadata.maxRate = 20.0;
+        metadata.coalesce = true;
+
+        NodelServerEvent event = create("Pacing", metadata);
+
+        // 50 Hz for a second
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            event.emit(i);
+            Thread.sleep(20);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        waitFor(1, 1000);
+        Thread.sleep(200);
+
+        int count = _published.size();
+        assertTrue(count <= 20 * seconds + 2, "at most the max rate: " + count + " in " + seconds + " s");
+        assertTrue(count >= 10, "keeps publishing: " + count);
+
+        // the trailing edge always carries the final value
+        assertEquals(49, _published.get(count - 1));
+        assertEquals(50, event.getPublishedCount() + event.getSuppressedCount());
+    }
+
+    @Test
+    @DisplayName("Numeric values within the deadband of the last published are suppressed")
+    void testDeadband() {
+        Binding metadata = new Binding();
+        metadata.deadband = 1.0;
+
+        NodelServerEvent event = create("Deadband", metadata);
+
+        event.emit(-20.0);
+        event.emit(-20.5);
+        event.emit(-19.2);
+        event.emit(-18.9);
+        event.emit(-19.5);
+        event.emit(-21);
+
+        // (non-numbers always pass)
+        event.emit("Muted");
+        event.emit("Muted");
+        event.emit(-21);
+
+        assertEquals(List.of(-20.0, -18.9, -21, "Muted", "Muted", -21), _published);
+        assertEquals(3, event.getSuppressedCount());
+    }
+
+    @Test
+    @DisplayName("Throttling options come through the binding metadata")
+    void testMetadata() {
+        Binding metadata = (Binding) Serialisation.coerceFromJSON(Binding.class,
+                "{\"title\": \"Meter\", \"maxRate\": 10, \"coalesce\": true, \"deadband\": 0.5}");
+
+        assertEquals(10.0, metadata.maxRate);
+        assertEquals(Boolean.TRUE, metadata.coalesce);
+        assertEquals(0.5, metadata.deadband);
+
+        // (unset options aren't serialised)
+        assertFalse(new Binding().toString().contains("maxRate"));
+    }
+
+    private NodelServerEvent create(String name, Binding metadata) {
+        NodelServerEvent event = new NodelServerEvent(new SimpleName("Throttle Test " + name), new SimpleName("Meter"), metadata);
+        event.attachMonitor((timestamp, arg) -> _published.add(arg));
+        event.registerEvent();
+
+        _events.add(event);
+
+        return event;
+    }
+
+    private void waitFor(int count, long timeout) throws InterruptedException {
+        long until = System.currentTimeMillis() + timeout;
+        while (_published.size() < count && System.currentTimeMillis() < until)
+            Thread.sleep(5);
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.nodel.diagnostics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveCallsTest {
+
+    @Test
+    @DisplayName("Calls are tracked until they exit, beyond the slots too")
+    void testEnterExit() {
+        ActiveCalls calls = new ActiveCalls(4);
+
+        List<ActiveCalls.Call> entered = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            entered.add(calls.enter("local_action_" + i));
+
+        assertEquals(10, calls.size());
+        assertEquals(10, calls.getCalls(0).size());
+
+        for (ActiveCalls.Call call : entered)
+            calls.exit(call);
+
+        // (null is ignored)
+        calls.exit(null);
+
+        assertEquals(0, calls.size());
+        assertTrue(calls.getCalls(0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Only calls going for long enough are reported")
+    void testStuck() throws Exception {
+        ActiveCalls calls = new ActiveCalls(8);
+
+        ActiveCalls.Call stuck = calls.enter("remote_event_Stuck");
+        Thread.sleep(50);
+        calls.enter("local_action_Quick");
+
+        List<ActiveCalls.Call> reported = calls.getCalls(40);
+        assertEquals(1, reported.size());
+        assertSame(stuck, reported.get(0));
+        assertEquals("remote_event_Stuck", reported.get(0).getName());
+        assertTrue(reported.get(0).getMillis() >= 40);
+    }
+
+    @Test
+    @DisplayName("Concurrent calls never lose or leak a slot")
+    void testConcurrent() throws Exception {
+        final ActiveCalls calls = new ActiveCalls(16);
+        final int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger maxSeen = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    ActiveCalls.Call a = calls.enter("a");
+                    ActiveCalls.Call b = calls.enter("b");
+                    maxSeen.accumulateAndGet(calls.size(), Math::max);
+                    calls.exit(b);
+                    calls.exit(a);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        done.await();
+
+        assertEquals(0, calls.size());
+        assertTrue(maxSeen.get() <= threads * 2);
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.nodel.diagnostics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456, 4294967295L })
+    void testBucketContainsValue(long micros) {
+        int index = LatencyHistogram.indexOf(micros);
+
+        assertTrue(LatencyHistogram.highestEquivalent(index) >= micros);
+        if (index > 0)
+            assertTrue(LatencyHistogram.highestEquivalent(index - 1) < micros);
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // 1 ms to 1000 ms
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(500, histogram.getP50(), 500 * 0.07);
+        assertEquals(990, histogram.getP99(), 990 * 0.07);
+        assertEquals(1000, histogram.getMax(), 0.001);
+    }
+
+    @Test
+    void testResetAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getP99());
+
+        histogram.record(-5000);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP50());
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.nodel.discovery;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.SimpleName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscoveryIndexTest {
+
+    private final DiscoveryIndex index = new DiscoveryIndex();
+
+    private AdvertisementInfo add(String name) {
+        SimpleName node = new SimpleName(name);
+        AdvertisementInfo ad = new AdvertisementInfo(node, Arrays.asList("http://10.0.0.1/nodes/%NODE%"), 0);
+        index.add(node, ad);
+        return ad;
+    }
+
+    private static List<String> names(List<AdvertisementInfo> ads) {
+        return ads.stream().map(ad -> ad.getAllAddresses().get(0).getNode().getOriginalName()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Filtering matches substrings of names, case-insensitive, like the linear filter did")
+    void testFind() {
+        add("Lobby Projector");
+        add("Gallery 1 Projector");
+        add("Gallery 1 Audio");
+        add("PJ");
+
+        assertEquals(Arrays.asList("Gallery 1 Projector", "Lobby Projector"), names(index.find("PROJ")));
+        assertEquals(Arrays.asList("Gallery 1 Projector", "Lobby Projector"), names(index.find("ojec")));
+        assertEquals(Arrays.asList("Gallery 1 Audio", "Gallery 1 Projector"), names(index.find("ry 1")));
+        assertEquals(Arrays.asList("Gallery 1 Projector", "Lobby Projector", "PJ"), names(index.find("j")));
+        assertEquals(Arrays.asList(), names(index.find("projection")));
+        assertEquals(4, index.find("").size());
+        assertEquals(4, index.find(null).size());
+    }
+
+    @Test
+    @DisplayName("The same snapshot is returned until something changes")
+    void testSnapshotVersions() {
+        SimpleName node = new SimpleName("Lobby Projector");
+        AdvertisementInfo ad = add("Lobby Projector");
+
+        List<AdvertisementInfo> first = index.snapshot();
+        assertSame(first, index.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(ad));
+
+        // timestamp only
+        assertFalse(ad.refresh(node, Arrays.asList("http://10.0.0.1/nodes/%NODE%"), 1000));
+        assertSame(first, index.snapshot());
+
+        // new addresses
+        assertTrue(ad.refresh(node, Arrays.asList("http://10.0.0.2/nodes/%NODE%"), 1000));
+        index.changed(node);
+        assertNotSame(first, index.snapshot());
+
+        List<AdvertisementInfo> second = index.snapshot();
+        index.remove(node);
+        assertTrue(index.snapshot().isEmpty());
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    @DisplayName("Renamed and removed nodes are re-indexed")
+    void testReindex() {
+        SimpleName node = new SimpleName("Lobby Projector");
+        AdvertisementInfo ad = add("Lobby Projector");
+
+        // the same node seen under a different original name
+        SimpleName renamed = new SimpleName("lobby-projector");
+        assertEquals(node, renamed);
+        assertTrue(ad.refresh(renamed, Arrays.asList("http://10.0.0.1/nodes/%NODE%"), 1000));
+        index.changed(node);
+
+        assertEquals(1, index.find("y-p").size());
+        assertEquals(1, index.find("y p").size());
+
+        index.remove(node);
+        assertTrue(index.find("proj").isEmpty());
+        assertNull(index.get(node));
+    }
+
+    @Test
+    @DisplayName("Additions and removals are passed on in batches")
+    void testChangeHandler() {
+        List<String> events = new ArrayList<>();
+        index.addOnChangeHandler((added, removed) -> events.add(names(added) + " " + names(removed)));
+
+        add("Node A");
+        add("Node B");
+        index.fireChanges();
+
+        index.remove(new SimpleName("Node A"));
+        index.fireChanges();
+
+        // nothing new
+        index.fireChanges();
+
+        assertEquals(Arrays.asList("[Node A, Node B] []", "[] [Node A]"), events);
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.nodel.discovery;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.json.JSONArray;
+import org.nodel.json.JSONObject;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodelAdvertiserTest {
+
+    private final static String ADDRESSES = "\"addresses\":[\"tcp://10.0.0.1:8085\",\"http://10.0.0.1:8085/\"],\"snapshot\":\"abc-1\"}";
+
+    /**
+     * '{"present":[' and '],' + ADDRESSES
+     */
+    private final static int OVERHEAD = 12 + 2 + ADDRESSES.length();
+
+    private final static InetSocketAddress PROBER = new InetSocketAddress("10.0.0.2", 5354);
+
+    @Test
+    @DisplayName("Names are packed up to exactly the size limit")
+    void testPackingBoundary() throws Exception {
+        List<String> names = Arrays.asList("A", "B", "C", "D", "E");
+
+        // (room for exactly two 3 byte names and a comma)
+        int max = OVERHEAD + 3 + 1 + 3;
+
+        List<byte[]> packets = NodelAdvertiser.packResponses(names, ADDRESSES, max);
+        assertEquals(3, packets.size());
+        assertEquals(max, packets.get(0).length);
+        assertEquals(max, packets.get(1).length);
+        assertEquals(OVERHEAD + 3, packets.get(2).length);
+        assertEquals(names, present(packets));
+
+        // one byte less and it's one per datagram
+        packets = NodelAdvertiser.packResponses(names, ADDRESSES, max - 1);
+        assertEquals(5, packets.size());
+        assertEquals(names, present(packets));
+    }
+
+    @Test
+    @DisplayName("Each packed datagram is a complete response")
+    void testPackingComplete() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            names.add("Gallery " + i + " \"Projector\" \u00e9");
+
+        List<byte[]> packets = NodelAdvertiser.packResponses(names, ADDRESSES, 1400);
+        assertTrue(packets.size() > 1);
+
+        for (byte[] packet : packets) {
+            assertTrue(packet.length <= 1400);
+
+            JSONObject response = new JSONObject(new String(packet, StandardCharsets.UTF_8));
+            assertEquals("abc-1", response.getString("snapshot"));
+            assertEquals(2, response.getJSONArray("addresses").length());
+        }
+
+        assertEquals(names, present(packets));
+    }
+
+    @Test
+    @DisplayName("An oversized name is still sent, on its own")
+    void testOversizedName() throws Exception {
+        char[] chars = new char[200];
+        Arrays.fill(chars, 'x');
+        String big = new String(chars);
+
+        List<byte[]> packets = NodelAdvertiser.packResponses(Arrays.asList("A", big, "B"), ADDRESSES, OVERHEAD + 20);
+        assertEquals(3, packets.size());
+        assertEquals(Arrays.asList("A", big, "B"), present(packets));
+
+        assertTrue(NodelAdvertiser.packResponses(Collections.<String>emptyList(), ADDRESSES, 1400).isEmpty());
+    }
+
+    @Test
+    @DisplayName("\"Unchanged\" follows a full response to the same prober, never twice in a row")
+    void testDeltas() throws Exception {
+        NodelAdvertiser advertiser = new NodelAdvertiser(InetAddress.getLoopbackAddress());
+        NodelAdvertiser.Responses responses = responses("abc-1");
+        long now = System.nanoTime();
+
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, "p1", now));
+        assertEquals(Collections.singletonList(responses.unchanged), advertiser.selectResponse(responses, PROBER, true, "p1", now + 1000));
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, "p1", now + 2000));
+        assertEquals(Collections.singletonList(responses.unchanged), advertiser.selectResponse(responses, PROBER, true, "p1", now + 3000));
+    }
+
+    @Test
+    @DisplayName("A restarted prober on the same address gets a full response")
+    void testProberRestarted() throws Exception {
+        NodelAdvertiser advertiser = new NodelAdvertiser(InetAddress.getLoopbackAddress());
+        NodelAdvertiser.Responses responses = responses("abc-1");
+        long now = System.nanoTime();
+
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, "p1", now));
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, "p2", now + 1000));
+
+        // (and then as usual)
+        assertEquals(Collections.singletonList(responses.unchanged), advertiser.selectResponse(responses, PROBER, true, "p2", now + 2000));
+    }
+
+    @Test
+    @DisplayName("Full responses without deltas, a prober ID, the same snapshot or a recent full response")
+    void testFullResponses() throws Exception {
+        NodelAdvertiser advertiser = new NodelAdvertiser(InetAddress.getLoopbackAddress());
+        NodelAdvertiser.Responses responses = responses("abc-1");
+        long now = System.nanoTime();
+
+        // older peers
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, false, null, now));
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, false, null, now + 1000));
+
+        // no prober ID
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, null, now + 2000));
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, null, now + 3000));
+
+        // nodes came or went
+        assertSame(responses.full, advertiser.selectResponse(responses, PROBER, true, "p1", now + 4000));
+        NodelAdvertiser.Responses changed = responses("abc-2");
+        assertSame(changed.full, advertiser.selectResponse(changed, PROBER, true, "p1", now + 5000));
+
+        // too long since the full one
+        long later = now + 5000 + NodelAutoDNS.STALE_TIME * 1000000;
+        assertSame(changed.full, advertiser.selectResponse(changed, PROBER, true, "p1", later));
+
+        // other recipients are separate
+        InetSocketAddress other = new InetSocketAddress("10.0.0.3", 5354);
+        assertSame(changed.full, advertiser.selectResponse(changed, other, true, "p1", later + 1000));
+    }
+
+    private static NodelAdvertiser.Responses responses(String snapshot) {
+        String addresses = ADDRESSES.replace("abc-1", snapshot);
+        List<byte[]> full = NodelAdvertiser.packResponses(Arrays.asList("A", "B"), addresses, 1400);
+
+        return new NodelAdvertiser.Responses(null, snapshot, full, ("{" + addresses).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> present(List<byte[]> packets) throws Exception {
+        List<String> names = new ArrayList<>();
+
+        for (byte[] packet : packets) {
+            JSONArray present = new JSONObject(new String(packet, StandardCharsets.UTF_8)).getJSONArray("present");
+            for (int i = 0; i < present.length(); i++)
+                names.add(present.getString(i));
+        }
+
+        return names;
+    }
+
+}
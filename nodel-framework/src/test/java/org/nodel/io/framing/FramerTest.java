@@ -0,0 +1,104 @@
+package org.nodel.io.framing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramerTest {
+
+    /**
+     * Feeds the data in chunks of the given size, returning the frames (plus flush)
+     */
+    private static List<String> frame(Framer framer, String data, int chunkSize) throws IOException {
+        final List<String> frames = new ArrayList<>();
+        Framer.FrameHandler handler = (buffer, offset, len) -> frames.add(new String(buffer, offset, len, StandardCharsets.ISO_8859_1));
+
+        byte[] bytes = data.getBytes(StandardCharsets.ISO_8859_1);
+        for (int a = 0; a < bytes.length; a += chunkSize)
+            framer.feed(bytes, a, Math.min(chunkSize, bytes.length - a), handler);
+
+        framer.flush(handler);
+
+        return frames;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100 })
+    void testDelimiterFramer(int chunkSize) throws IOException {
+        assertEquals(List.of("ab", "", "cd", "", "efg"), frame(new DelimiterFramer("\r\n"), "ab\r\ncd\r\nefg", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100 })
+    void testFixedLengthFramer(int chunkSize) throws IOException {
+        // (incomplete trailing frame is dropped)
+        assertEquals(List.of("abc", "def"), frame(new FixedLengthFramer(3), "abcdefgh", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100 })
+    void testLengthFieldFramer(int chunkSize) throws IOException {
+        // STX, 2-byte big-endian length, payload
+        assertEquals(List.of("\u0002\u0000\u0002hi", "\u0002\u0000\u0003abc"), 
+                frame(new LengthFieldFramer(1, 2, true, 0), "\u0002\u0000\u0002hi\u0002\u0000\u0003abc\u0002\u0000", chunkSize));
+
+        // little-endian length which includes the header
+        assertEquals(List.of("\u0003ab", "\u0002c"), frame(new LengthFieldFramer(0, 1, false, -1), "\u0003ab\u0002c", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 100 })
+    void testRegexFramer(int chunkSize) throws IOException {
+        assertEquals(List.of("\u0002one\u0003", "\u0002two\u0003"), 
+                frame(new RegexFramer("\u0002[^\u0003]*\u0003"), "junk\u0002one\u0003xx\u0002two\u0003\u0002thr", chunkSize));
+
+        // matches are held back while they could still extend
+        assertEquals(List.of("12", "345", "6"), frame(new RegexFramer("\\d+"), "a12b345c6", chunkSize));
+
+        // (a pending match is retried from its start as data arrives)
+        assertEquals(List.of("one\r", "two\r"), frame(new RegexFramer("[^\r]+\r"), "one\rtwo\r\rthree", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 3, 100 })
+    void testRegexFramerSkipsJunk(int chunkSize) throws IOException {
+        // (far more junk than the maximum frame size)
+        StringBuilder junk = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            junk.append("noise\u0003");
+
+        assertEquals(List.of("\u0002one\u0003", "\u0002two\u0003"),
+                frame(new RegexFramer("\u0002[^\u0003]*\u0003", 8), junk + "\u0002one\u0003" + junk + "\u0002two\u0003" + junk, chunkSize));
+
+        // (a possible start is kept while it could still match)
+        assertEquals(List.of("OK\r\n"), frame(new RegexFramer("OK\r\n", 4), "OOOOOOOOOOK\r\nOKO", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 100 })
+    void testOversizedFrames(int chunkSize) {
+        assertThrows(IOException.class, () -> frame(new DelimiterFramer("\n", 4), "abcdefgh\n", chunkSize));
+        assertThrows(IOException.class, () -> frame(new LengthFieldFramer(0, 1, true, 0, 4), "\u0010abc", chunkSize));
+        assertThrows(IOException.class, () -> frame(new RegexFramer("\u0002[^\u0003]*\u0003", 4), "xx\u0002abcdefgh\u0003", chunkSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 3, 100 })
+    void testDelimiterOverflowHandler(int chunkSize) throws IOException {
+        DelimiterFramer framer = new DelimiterFramer("\n", 4);
+
+        List<IOException> overflows = new ArrayList<>();
+        framer.setOverflowHandler(overflows::add);
+
+        // (none of the oversized frame comes through, however it's chunked)
+        assertEquals(List.of("ab", "cd"), frame(framer, "ab\nabcdefgh\ncd\n", chunkSize));
+        assertEquals(1, overflows.size());
+    }
+
+}
@@ -0,0 +1,266 @@
+package org.nodel.json;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.core.ChannelMessage;
+import org.nodel.reflection.Serialisation;
+import org.nodel.reflection.Value;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONReaderTest {
+
+    @Test
+    @DisplayName("Tokens in order, numbers as primitives")
+    void testTokens() throws Exception {
+        JSONReader reader = new JSONReader("{\"a\": 12, \"b\": [-1.5, 'x', true, null], \"c\": {}}");
+
+        assertEquals(JSONReader.Token.BEGIN_OBJECT, reader.next());
+        assertEquals(JSONReader.Token.NAME, reader.next());
+        assertEquals("a", reader.getString());
+        assertEquals(JSONReader.Token.NUMBER, reader.next());
+        assertTrue(reader.isIntegral());
+        assertEquals(12, reader.getLong());
+
+        assertEquals(JSONReader.Token.NAME, reader.next());
+        assertEquals(JSONReader.Token.BEGIN_ARRAY, reader.peek());
+        assertEquals(JSONReader.Token.BEGIN_ARRAY, reader.next());
+        assertEquals(JSONReader.Token.NUMBER, reader.next());
+        assertFalse(reader.isIntegral());
+        assertEquals(-1.5, reader.getDouble());
+        assertEquals(JSONReader.Token.STRING, reader.next());
+        assertEquals("x", reader.getString());
+        assertEquals(JSONReader.Token.BOOLEAN, reader.next());
+        assertTrue(reader.getBoolean());
+        assertEquals(JSONReader.Token.NULL, reader.next());
+        assertEquals(JSONReader.Token.END_ARRAY, reader.next());
+
+        assertEquals(JSONReader.Token.NAME, reader.next());
+        reader.skipValue();
+        assertEquals(JSONReader.Token.END_OBJECT, reader.next());
+        assertEquals(JSONReader.Token.END, reader.next());
+    }
+
+    @Test
+    @DisplayName("Numbers come out as the tree has them")
+    void testNumbers() throws Exception {
+        String[] texts = { "0", "-0", "+7", "2147483647", "2147483648", "-9223372036854775808", "9223372036854775808",
+                "1.5", "-0.0", ".5", "5.", "1e5", "1E-3", "123456789.123456789", "1e400", "1.5f", "0x10", "-", "1.2.3", "1e" };
+
+        for (String text : texts) {
+            Object expected = JSONObject.stringToValue(text);
+
+            JSONReader reader = new JSONReader("[" + text + "]");
+            reader.next();
+            reader.next();
+            assertEquals(expected, reader.getValue(), text);
+            assertEquals(expected.getClass(), reader.getValue().getClass(), text);
+        }
+
+        // the fast path is exact
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            String text = (random.nextBoolean() ? "-" : "") + random.nextInt(1000000) + "." + random.nextInt(100000000) + (random.nextBoolean() ? "e" + (random.nextInt(30) - 15) : "");
+
+            JSONReader reader = new JSONReader("[" + text + "]");
+            reader.next();
+            assertEquals(JSONReader.Token.NUMBER, reader.next(), text);
+            assertEquals(Double.parseDouble(text), reader.getDouble(), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Same trees as JSONTokener, including its leniency")
+    void testLenientTrees() throws Exception {
+        String[] texts = {
+                "{}",
+                "{'a': 'single', b: unquoted text , \"c\" => 1; d = TRUE, e: Null,}",
+                "{\"esc\": \"q\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u2028\", 1: one, 1.50: 'one and a half', true: yes}",
+                "{\"arr\": [1,,2, ], \"nested\": {\"x\": [[], [{}], {\"y\": -3e2}]}}",
+                "{\"big\": 12345678901234567890, \"neg\": -2147483649, \"small\": 1e-7}",
+                "  {\"trailing\": 1}  ignored"
+        };
+
+        for (String text : texts)
+            assertEquals(new JSONObject(new JSONTokener(text)).toString(), new JSONObject(text).toString(), text);
+
+        assertEquals(new JSONArray(new JSONTokener("[1, 'a', [,], {}]")).toString(), new JSONArray("[1, 'a', [,], {}]").toString());
+
+        String[] bad = { "", "[]", "{\"a\" 1}", "{\"a\": 1 \"b\": 2}", "{\"a\": [1 [2]]}", "{\"a\": \"unterminated}", "{\"a\": 'bad \\x escape'}",
+                "{\"a\": 1", "{\"a\": 1, \"a\": 2}" };
+
+        for (String text : bad) {
+            assertThrows(JSONException.class, () -> new JSONObject(new JSONTokener(text)), text);
+            assertThrows(JSONException.class, () -> new JSONObject(text), text);
+        }
+    }
+
+    @Test
+    @DisplayName("Same trees as JSONTokener for large random documents, from text and readers")
+    void testRandomDocuments() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 30; round++) {
+            StringBuilder sb = new StringBuilder();
+            randomObject(random, sb, 0);
+            String text = sb.toString();
+
+            String expected = new JSONObject(new JSONTokener(text)).toString();
+
+            assertEquals(expected, new JSONObject(text).toString());
+
+            // (readers fill the buffer in parts)
+            JSONObject fromReader = new JSONObject();
+            new JSONReader(new StringReader(text)).readObject(fromReader);
+            assertEquals(expected, fromReader.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Serialisation coerces straight from the tokens, same as through the tree")
+    void testCoerce() throws Exception {
+        String[] texts = {
+                "{\"name\": \"Lobby\", \"count\": 3, \"total\": 12345678901, \"level\": -1.5, \"on\": true, \"mode\": \"Two\","
+                        + " \"tags\": [\"a\", \"b\"], \"numbers\": [1, 2.5, 3], \"levels\": [0.25, 1],"
+                        + " \"props\": {\"x\": 1, \"y\": [true, null], \"z\": {\"deep\": \"er\"}},"
+                        + " \"children\": [{\"name\": \"child\", \"count\": \"7\"}], \"unknown\": {\"skipped\": [1, {\"a\": 2}]}}",
+                "{\"count\": 2.9, \"total\": \"42\", \"level\": 3, \"on\": \"false\", \"tags\": \"single\", \"props\": {}}",
+                "{\"name\": null, \"count\": null, \"tags\": [], \"children\": null}"
+        };
+
+        for (String text : texts) {
+            Object streamed = Serialisation.coerceFromJSON(Sample.class, text);
+            Object tree = Serialisation.coerce(Sample.class, new JSONObject(new JSONTokener(text)));
+
+            assertEquals(Serialisation.serialise(tree), Serialisation.serialise(streamed), text);
+        }
+
+        // general objects are plain maps and lists
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) Serialisation.coerceFromJSON(Object.class, "{\"a\": [1, {\"b\": null}], \"c\": 'd'}");
+        assertEquals("[1, {b=null}]", map.get("a").toString());
+        assertEquals("d", map.get("c"));
+
+        // a real message
+        String message = "{\"node\": \"Lobby Projector\", \"action\": \"Power\", \"arg\": {\"state\": \"On\", \"level\": 75}, \"seq\": 3}";
+        assertEquals(Serialisation.serialise(Serialisation.coerce(ChannelMessage.class, new JSONObject(new JSONTokener(message)))),
+                Serialisation.serialise(Serialisation.coerceFromJSON(ChannelMessage.class, message)));
+
+        assertThrows(RuntimeException.class, () -> Serialisation.coerceFromJSON(Sample.class, "[1, 2]"));
+        assertThrows(RuntimeException.class, () -> Serialisation.coerceFromJSON(Sample.class, "{\"name\": "));
+    }
+
+    public enum Mode {
+        One, Two
+    }
+
+    public static class Sample {
+
+        @Value(name = "name")
+        public String name;
+
+        @Value(name = "count")
+        public int count;
+
+        @Value(name = "total")
+        public long total;
+
+        @Value(name = "level")
+        public double level;
+
+        @Value(name = "on")
+        public boolean on;
+
+        @Value(name = "mode")
+        public Mode mode;
+
+        @Value(name = "tags", genericClassA = String.class)
+        public List<String> tags;
+
+        @Value(name = "numbers")
+        public Object numbers;
+
+        @Value(name = "levels")
+        public double[] levels;
+
+        @Value(name = "props")
+        public Map<String, Object> props;
+
+        @Value(name = "children", genericClassA = Sample.class)
+        public List<Sample> children;
+
+    }
+
+    private static void randomObject(Random random, StringBuilder sb, int depth) {
+        sb.append('{');
+        int count = random.nextInt(depth == 0 ? 200 : 6);
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                sb.append(random.nextInt(4) == 0 ? "; " : ", ");
+            sb.append('"').append("key").append(i).append('"').append(random.nextBoolean() ? ":" : " : ");
+            randomValue(random, sb, depth + 1);
+        }
+        sb.append('}');
+    }
+
+    private static void randomValue(Random random, StringBuilder sb, int depth) {
+        switch (random.nextInt(depth > 3 ? 6 : 8)) {
+            case 0:
+                sb.append(random.nextLong());
+                break;
+
+            case 1:
+                sb.append(random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10));
+                break;
+
+            case 2:
+                sb.append('"');
+                int len = random.nextInt(random.nextInt(10) == 0 ? 3000 : 20);
+                for (int i = 0; i < len; i++) {
+                    int kind = random.nextInt(20);
+                    if (kind == 0)
+                        sb.append("\\n");
+                    else if (kind == 1)
+                        sb.append("\\u00fc");
+                    else if (kind == 2)
+                        sb.append("\\\"");
+                    else
+                        sb.append((char) ('a' + random.nextInt(26)));
+                }
+                sb.append('"');
+                break;
+
+            case 3:
+                sb.append(random.nextBoolean() ? "true" : "FALSE");
+                break;
+
+            case 4:
+                sb.append("null");
+                break;
+
+            case 5:
+                sb.append("unquoted").append(random.nextInt(100));
+                break;
+
+            case 6:
+                sb.append('[');
+                int items = random.nextInt(8);
+                for (int i = 0; i < items; i++) {
+                    if (i > 0)
+                        sb.append(',');
+                    randomValue(random, sb, depth + 1);
+                }
+                sb.append(']');
+                break;
+
+            default:
+                randomObject(random, sb, depth);
+        }
+    }
+
+}
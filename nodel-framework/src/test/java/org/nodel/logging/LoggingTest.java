@@ -0,0 +1,96 @@
+package org.nodel.logging;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.Handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingTest {
+
+    @Test
+    @DisplayName("The backlog starts from the given sequence number, oldest first")
+    void testBacklogFrom() {
+        Logging logging = new Logging();
+
+        List<LogEntry> added = new ArrayList<LogEntry>();
+        for (int i = 0; i < 10; i++)
+            added.add(add(logging, i));
+
+        List<LogEntry> backlog = logging.registerHandler(entry -> {}, added.get(6).seq);
+
+        assertEquals(added.subList(6, 10), backlog);
+    }
+
+    @Test
+    @DisplayName("Entries logged while registering are either in the backlog or given live, never both")
+    void testNoGapsOrOverlap() throws Exception {
+        Logging logging = new Logging();
+
+        long first = add(logging, -1).seq;
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++)
+                add(logging, i);
+        });
+        writer.start();
+
+        List<List<Long>> streams = new ArrayList<List<Long>>();
+
+        // (a bounded number of registrations, each handler keeps everything it's given)
+        for (int n = 0; n < 100 && writer.isAlive(); n++) {
+            final List<Long> stream = Collections.synchronizedList(new ArrayList<Long>());
+
+            Handler.H1<LogEntry> handler = entry -> stream.add(entry.seq);
+
+            List<LogEntry> backlog = logging.registerHandler(handler, first);
+            List<Long> ids = new ArrayList<Long>();
+            for (LogEntry entry : backlog)
+                ids.add(entry.seq);
+
+            synchronized (stream) {
+                stream.addAll(0, ids);
+            }
+
+            streams.add(stream);
+        }
+        writer.join();
+
+        for (List<Long> stream : streams) {
+            // (other threads log too so sequence numbers aren't contiguous, but must go up)
+            for (int i = 1; i < stream.size(); i++)
+                assertTrue(stream.get(i) > stream.get(i - 1), "in order, no duplicates");
+
+            assertEquals(first, (long) stream.get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Unregistered handlers are no longer given entries")
+    void testUnregister() {
+        Logging logging = new Logging();
+
+        List<LogEntry> live = new ArrayList<LogEntry>();
+        Handler.H1<LogEntry> handler = live::add;
+
+        logging.registerHandler(handler, Long.MAX_VALUE);
+        LogEntry entry = add(logging, 1);
+
+        logging.unregisterHandler(handler);
+        add(logging, 2);
+
+        assertEquals(List.of(entry), live);
+    }
+
+    private static LogEntry add(Logging logging, int i) {
+        LogEntry entry = new LogEntry(DateTime.now(), Level.INFO, "LoggingTest", "Entry " + i, (String) null);
+        logging.addLog(entry);
+        return entry;
+    }
+
+}
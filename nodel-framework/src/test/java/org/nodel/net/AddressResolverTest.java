@@ -0,0 +1,150 @@
+package org.nodel.net;
+
+import org.junit.jupiter.api.*;
+import org.nodel.threading.ThreadPool;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressResolverTest {
+
+    private static ThreadPool s_threadPool;
+
+    private final AddressResolver resolver = AddressResolver.shared();
+
+    @BeforeAll
+    static void setUpAll() {
+        s_threadPool = new ThreadPool("AddressResolverTest", 2);
+    }
+
+    @BeforeEach
+    void setUp() {
+        resolver.clear();
+    }
+
+    @Test
+    @DisplayName("Literal addresses are returned without a lookup")
+    void testLiteral() throws Exception {
+        long before = resolver.getLookupTimes().getCount();
+
+        InetSocketAddress address = resolver.resolve("10.1.2.3", 80);
+
+        assertFalse(address.isUnresolved());
+        assertEquals("10.1.2.3", address.getAddress().getHostAddress());
+        assertEquals(80, address.getPort());
+        assertEquals(before, resolver.getLookupTimes().getCount());
+    }
+
+    @Test
+    @DisplayName("Repeated and concurrent lookups of a name share one lookup")
+    void testCached() throws Exception {
+        long before = resolver.getLookupTimes().getCount();
+
+        int callers = 20;
+        CountDownLatch done = new CountDownLatch(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            for (int i = 0; i < callers; i++) {
+                executor.execute(() -> {
+                    try {
+                        assertTrue(resolver.resolve("localhost").isLoopbackAddress());
+                    } catch (UnknownHostException exc) {
+                        fail(exc);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        // (names are case insensitive)
+        InetAddress again = resolver.resolve("LOCALHOST");
+        assertTrue(again.isLoopbackAddress());
+
+        assertEquals(before + 1, resolver.getLookupTimes().getCount());
+    }
+
+    @Test
+    @DisplayName("Failures are cached too")
+    void testNegative() {
+        long before = resolver.getLookupTimes().getCount();
+
+        // ('.invalid' is reserved and never resolves)
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("nodel-test.invalid"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("nodel-test.invalid"));
+
+        assertEquals(before + 1, resolver.getLookupTimes().getCount());
+    }
+
+    @Test
+    @DisplayName("A failed refresh keeps the last good address for one negative TTL, then the failure is cached")
+    void testFailedRefresh() throws Exception {
+        long positiveTTL = AddressResolver.staticPositiveTTL;
+        long negativeTTL = AddressResolver.staticNegativeTTL;
+
+        AddressResolver.staticPositiveTTL = 1000;
+        AddressResolver.staticNegativeTTL = 1000;
+
+        InetAddress good = InetAddress.getByAddress(new byte[] { 10, 1, 2, 3 });
+        AtomicInteger lookups = new AtomicInteger();
+
+        // (only the first lookup succeeds)
+        AddressResolver failing = new AddressResolver(host -> {
+            if (lookups.incrementAndGet() == 1)
+                return new InetAddress[] { good };
+
+            throw new UnknownHostException(host);
+        }, s_threadPool);
+
+        try {
+            long start = System.nanoTime();
+            assertEquals(good, failing.resolve("projector.test"));
+
+            // into the refresh window, the refresh fails but the address is still used
+            sleepUntil(start, 850);
+            assertEquals(good, failing.resolve("projector.test"));
+            waitFor(() -> lookups.get() == 2);
+            assertEquals(good, failing.resolve("projector.test"));
+
+            // past the positive TTL and a negative TTL after it
+            sleepUntil(start, 2100);
+            assertThrows(UnknownHostException.class, () -> failing.resolve("projector.test"));
+            assertEquals(3, lookups.get());
+
+            // the failure is kept, no lookup for every caller
+            assertThrows(UnknownHostException.class, () -> failing.resolve("projector.test"));
+            assertEquals(3, lookups.get());
+
+        } finally {
+            AddressResolver.staticPositiveTTL = positiveTTL;
+            AddressResolver.staticNegativeTTL = negativeTTL;
+        }
+    }
+
+    private static void sleepUntil(long start, long millis) throws InterruptedException {
+        long remaining = millis - (System.nanoTime() - start) / 1000000;
+        if (remaining > 0)
+            Thread.sleep(remaining);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < until)
+            Thread.sleep(10);
+
+        assertTrue(condition.getAsBoolean(), "condition met in time");
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.nodel.net;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AsyncHTTPEngineTest {
+
+    @Test
+    @DisplayName("A request the client rejects up front fails and gives its slot back")
+    void testRejectedReleasesSlot() {
+        HttpClient client = mock(HttpClient.class);
+        when(client.sendAsync(any(), any())).thenThrow(new IllegalArgumentException("Rejected"));
+
+        // (one slot, so a leak would leave the later requests queued forever)
+        AsyncHTTPEngine engine = new AsyncHTTPEngine(client, 1);
+
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        for (int i = 0; i < 3; i++)
+            engine.makeRequest("http://127.0.0.1:9/", "GET", null, null, null, null, null, null, null, null,
+                    result -> fail("no response expected"), errors::add);
+
+        assertEquals(3, errors.size());
+        assertEquals("Rejected", errors.get(2).getMessage());
+        verify(client, times(3)).sendAsync(any(), any());
+    }
+
+    @Test
+    @DisplayName("Engines are shared per connect timeout and the least recently used are dropped")
+    void testSharedEngines() {
+        AsyncHTTPEngine engine = AsyncHTTPEngine.shared(null, null, null, false, false, 1000);
+
+        assertSame(engine, AsyncHTTPEngine.shared(null, null, null, false, false, 1000));
+        assertNotSame(engine, AsyncHTTPEngine.shared(null, null, null, false, false, 2000));
+
+        for (int i = 0; i < 20; i++)
+            AsyncHTTPEngine.shared(null, null, null, false, false, 3000 + i);
+
+        assertEquals(16, AsyncHTTPEngine.getSharedCount());
+        assertNotSame(engine, AsyncHTTPEngine.shared(null, null, null, false, false, 1000));
+    }
+
+    @Test
+    @DisplayName("Bodies within the limit are received whole")
+    void testWithinLimit() throws Exception {
+        AsyncHTTPEngine.LimitedBodySubscriber subscriber = new AsyncHTTPEngine.LimitedBodySubscriber(BodySubscribers.ofByteArray(), 10);
+        AtomicBoolean cancelled = subscribe(subscriber);
+
+        subscriber.onNext(List.of(ByteBuffer.wrap("hello".getBytes())));
+        subscriber.onNext(List.of(ByteBuffer.wrap(" you".getBytes())));
+        subscriber.onComplete();
+
+        assertEquals("hello you", new String(subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS)));
+        assertFalse(cancelled.get());
+    }
+
+    @Test
+    @DisplayName("Bodies over the limit fail as they arrive, without a Content-Length")
+    void testOverLimit() {
+        AsyncHTTPEngine.LimitedBodySubscriber subscriber = new AsyncHTTPEngine.LimitedBodySubscriber(BodySubscribers.ofByteArray(), 10);
+        AtomicBoolean cancelled = subscribe(subscriber);
+
+        subscriber.onNext(List.of(ByteBuffer.wrap("hello".getBytes())));
+        subscriber.onNext(List.of(ByteBuffer.wrap(" there".getBytes()), ByteBuffer.wrap("!".getBytes())));
+
+        // (anything after is ignored)
+        subscriber.onNext(List.of(ByteBuffer.wrap("more".getBytes())));
+        subscriber.onComplete();
+
+        assertTrue(cancelled.get(), "stopped receiving");
+
+        ExecutionException exc = assertThrows(ExecutionException.class, () -> subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertTrue(exc.getCause().getMessage().contains("Too big"));
+    }
+
+    private static AtomicBoolean subscribe(Flow.Subscriber<List<ByteBuffer>> subscriber) {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+
+        });
+
+        return cancelled;
+    }
+
+}
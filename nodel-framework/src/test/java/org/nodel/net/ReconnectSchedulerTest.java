@@ -0,0 +1,140 @@
+package org.nodel.net;
+
+import org.junit.jupiter.api.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReconnectSchedulerTest {
+
+    private final ReconnectScheduler scheduler = ReconnectScheduler.shared();
+
+    private int originalMax;
+
+    @BeforeEach
+    void setUp() {
+        originalMax = ReconnectScheduler.staticMaxPerSubnet;
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReconnectScheduler.staticMaxPerSubnet = originalMax;
+    }
+
+    @Test
+    @DisplayName("Backoff delays stay within the base and cap and vary")
+    void testBackoffBounds() {
+        ReconnectScheduler.Backoff backoff = new ReconnectScheduler.Backoff(500, 32000);
+
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long delay = backoff.next();
+            assertTrue(delay >= 500 && delay <= 32000, "delay in range: " + delay);
+            delays.add(delay);
+        }
+
+        assertTrue(delays.stream().distinct().count() > 10, "delays are jittered");
+
+        backoff.reset();
+        assertTrue(backoff.next() < 1500, "starts again from the base after a reset");
+    }
+
+    @Test
+    @DisplayName("Attempts against the same subnet are limited, with priority tickets first")
+    void testLimitAndPriority() throws Exception {
+        ReconnectScheduler.staticMaxPerSubnet = 1;
+
+        InetAddress address = InetAddress.getByName("10.99.1.1");
+
+        ReconnectScheduler.Ticket holder = scheduler.ticket(address, false);
+        assertTrue(holder.await());
+
+        List<String> granted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        ReconnectScheduler.Ticket normal = scheduler.ticket(InetAddress.getByName("10.99.1.2"), false);
+        ReconnectScheduler.Ticket priority = scheduler.ticket(InetAddress.getByName("10.99.1.3"), true);
+
+        for (String name : new String[] { "normal", "priority" }) {
+            ReconnectScheduler.Ticket ticket = name.equals("normal") ? normal : priority;
+            new Thread(() -> {
+                if (ticket.await())
+                    granted.add(name);
+                ticket.release();
+                done.countDown();
+            }).start();
+        }
+
+        Thread.sleep(100);
+        assertTrue(granted.isEmpty(), "nothing granted while the subnet is busy");
+
+        holder.release();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("priority", "normal"), granted);
+    }
+
+    @Test
+    @DisplayName("Releasing a waiting ticket cancels it")
+    void testCancel() throws Exception {
+        ReconnectScheduler.staticMaxPerSubnet = 1;
+
+        InetAddress address = InetAddress.getByName("10.99.2.1");
+
+        ReconnectScheduler.Ticket holder = scheduler.ticket(address, false);
+        assertTrue(holder.await());
+
+        ReconnectScheduler.Ticket waiter = scheduler.ticket(address, false);
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException exc) {
+            }
+            waiter.release();
+        }).start();
+
+        assertFalse(waiter.await());
+
+        holder.release();
+    }
+
+    @Test
+    @DisplayName("Subnets are forgotten once nothing is granted or waiting")
+    void testIdlePruned() throws Exception {
+        ReconnectScheduler.staticMaxPerSubnet = 1;
+
+        int before = scheduler.getSubnetCount();
+
+        ReconnectScheduler.Ticket first = scheduler.ticket(InetAddress.getByName("10.99.3.1"), false);
+        ReconnectScheduler.Ticket second = scheduler.ticket(InetAddress.getByName("10.99.3.2"), false);
+        ReconnectScheduler.Ticket other = scheduler.ticket(InetAddress.getByName("10.99.4.1"), false);
+        assertEquals(before + 2, scheduler.getSubnetCount());
+
+        assertTrue(first.await());
+        first.release();
+
+        // (the second is still waiting)
+        assertEquals(before + 2, scheduler.getSubnetCount());
+
+        assertTrue(second.await());
+        second.release();
+        assertEquals(before + 1, scheduler.getSubnetCount());
+
+        // (cancelled while waiting)
+        other.release();
+        assertEquals(before, scheduler.getSubnetCount());
+
+        // and a new turn still works
+        ReconnectScheduler.Ticket again = scheduler.ticket(InetAddress.getByName("10.99.3.1"), false);
+        assertTrue(again.await());
+        again.release();
+        assertEquals(before, scheduler.getSubnetCount());
+    }
+
+}
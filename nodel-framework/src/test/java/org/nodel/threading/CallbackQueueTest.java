@@ -0,0 +1,81 @@
+package org.nodel.threading;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.diagnostics.LatencyHistogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallbackQueueTest {
+
+    @Test
+    @DisplayName("Waits are recorded per binding as well as for the whole queue")
+    void testPerBindingWaits() throws Exception {
+        CallbackQueue queue = new CallbackQueue();
+
+        LatencyHistogram action = new LatencyHistogram();
+        LatencyHistogram event = new LatencyHistogram();
+
+        CallbackQueue actionQueue = queue.recordingTo(action);
+        CallbackQueue eventQueue = queue.recordingTo(event);
+
+        actionQueue.handle(() -> "a");
+        actionQueue.handle(() -> "b");
+        eventQueue.handle(() -> "c");
+        queue.handle(() -> "d");
+
+        assertEquals(2, action.getCount());
+        assertEquals(1, event.getCount());
+        assertEquals(4, queue.getWaits().getCount());
+
+        // (views share the queue's histogram)
+        assertSame(queue.getWaits(), actionQueue.getWaits());
+    }
+
+    @Test
+    @DisplayName("Bindings still take turns on the one queue")
+    void testSharedLock() throws Exception {
+        CallbackQueue queue = new CallbackQueue();
+        CallbackQueue binding = queue.recordingTo(new LatencyHistogram());
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicBoolean inside = new AtomicBoolean();
+
+        Thread holder = new Thread(() -> queue.handle(() -> {
+            inside.set(true);
+            holding.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exc) {
+                // (ignore)
+            }
+            inside.set(false);
+        }, exc -> fail(exc)));
+        holder.start();
+
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        Thread other = new Thread(() -> binding.handle(() -> {
+            if (inside.get())
+                overlapped.set(true);
+        }, exc -> fail(exc)));
+        other.start();
+
+        // (give it a chance to get in if it could)
+        other.join(100);
+        assertTrue(other.isAlive(), "waits for the other binding's callback");
+
+        release.countDown();
+        holder.join(5000);
+        other.join(5000);
+
+        assertFalse(overlapped.get());
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.nodel.threading;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nodel.threading.ThreadPool.Lane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadPoolTest {
+
+    @Test
+    @DisplayName("Control tasks jump ahead of a data flood")
+    void testControlFirst() throws Exception {
+        ThreadPool pool = new ThreadPool("Test control first", 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        CountDownLatch release = block(pool);
+
+        for (int i = 0; i < 100; i++)
+            pool.execute(record(order, "D" + i));
+
+        for (int i = 0; i < 3; i++)
+            pool.execute(record(order, "C" + i), Lane.Control);
+
+        assertEquals(100, pool.getQueued(Lane.Data));
+        assertEquals(3, pool.getQueued(Lane.Control));
+
+        release.countDown();
+        drain(pool, order, 103);
+
+        assertEquals(List.of("C0", "C1", "C2", "D0", "D1"), order.subList(0, 5));
+
+        // data order is preserved
+        for (int i = 0; i < 100; i++)
+            assertEquals("D" + i, order.get(3 + i));
+    }
+
+    @Test
+    @DisplayName("Data is never starved by a control flood")
+    void testNoStarvation() throws Exception {
+        ThreadPool pool = new ThreadPool("Test no starvation", 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        CountDownLatch release = block(pool);
+
+        for (int i = 0; i < 3; i++)
+            pool.execute(record(order, "D"), Lane.Data);
+
+        for (int i = 0; i < 20; i++)
+            pool.execute(record(order, "C"), Lane.Control);
+
+        release.countDown();
+        drain(pool, order, 23);
+
+        // (a burst of 8 control tasks at most while data waits)
+        assertEquals("CCCCCCCCDCCCCCCCCDCCCCD", String.join("", order));
+    }
+
+    @Test
+    @DisplayName("Per-lane operations, queue lengths and waits are measured")
+    void testMetrics() throws Exception {
+        ThreadPool pool = new ThreadPool("Test metrics", 1);
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        CountDownLatch release = block(pool);
+
+        for (int i = 0; i < 10; i++)
+            pool.execute(record(order, "D"));
+
+        for (int i = 0; i < 4; i++)
+            pool.execute(record(order, "C"), Lane.Control);
+
+        Thread.sleep(20);
+
+        release.countDown();
+        drain(pool, order, 14);
+
+        // (includes the blocker)
+        assertEquals(11, pool.getOperations(Lane.Data));
+        assertEquals(4, pool.getOperations(Lane.Control));
+        assertEquals(0, pool.getQueued(Lane.Data));
+        assertEquals(0, pool.getQueued(Lane.Control));
+
+        assertEquals(4, pool.getQueueWait(Lane.Control).getCount());
+        assertTrue(pool.getQueueWait(Lane.Control).getMax() >= 15, "waited behind the blocker");
+        assertTrue(pool.getQueueWait(Lane.Data).getMax() >= pool.getQueueWait(Lane.Control).getMax(), "data waited longer");
+    }
+
+    /**
+     * Occupies the pool's (only) thread until released.
+     */
+    private static CountDownLatch block(ThreadPool pool) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        pool.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException exc) {
+                    throw new RuntimeException(exc);
+                }
+            }
+
+        });
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        return release;
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                order.add(name);
+            }
+
+        };
+    }
+
+    private static void drain(ThreadPool pool, List<String> order, int expected) throws InterruptedException {
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (order.size() < expected && System.nanoTime() < timeout)
+            Thread.sleep(5);
+
+        assertEquals(expected, order.size());
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.nodel.threading;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    @DisplayName("A full bucket allows a burst then paces")
+    void testBurstThenPace() {
+        TokenBucket bucket = new TokenBucket(10, 4);
+
+        for (int i = 0; i < 4; i++)
+            assertEquals(0, bucket.tryTake(), "burst " + i);
+
+        long wait = bucket.tryTake();
+        assertTrue(wait > 0 && wait <= 100, "waits about one token period: " + wait);
+
+        // nothing taken while waiting
+        assertEquals(0, bucket.available());
+    }
+
+    @Test
+    @DisplayName("Tokens refill at the rate, up to the burst")
+    void testRefill() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 3);
+
+        while (bucket.tryTake() == 0)
+            ;
+
+        Thread.sleep(50);
+
+        // ~5 tokens worth of time but capped at the burst
+        assertEquals(3, bucket.available());
+    }
+
+    @Test
+    @DisplayName("Invalid rates are rejected")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+
+}
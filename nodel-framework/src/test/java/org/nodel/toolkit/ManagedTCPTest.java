@@ -0,0 +1,258 @@
+package org.nodel.toolkit;
+
+import org.junit.jupiter.api.*;
+import org.nodel.SimpleName;
+import org.nodel.host.BaseDynamicNode;
+import org.nodel.threading.CallbackQueue;
+import org.nodel.threading.ThreadPool;
+import org.nodel.threading.Timers;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ManagedTCPTest {
+
+    private static ThreadPool s_threadPool;
+
+    private static Timers s_timers;
+
+    private BaseDynamicNode node;
+
+    private ServerSocket server;
+
+    private final List<ManagedTCP> handles = new ArrayList<>();
+
+    @BeforeAll
+    static void setUpAll() {
+        s_threadPool = new ThreadPool("ManagedTCPTest", 8);
+        s_timers = new Timers("ManagedTCPTest");
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = mock(BaseDynamicNode.class);
+        when(node.getName()).thenReturn(new SimpleName("MockNode"));
+
+        server = new ServerSocket(0);
+        server.setSoTimeout(15000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ManagedTCP handle : handles)
+            handle.close();
+
+        server.close();
+    }
+
+    /**
+     * A shared handle which records its callbacks.
+     */
+    private class Handle {
+
+        final ManagedTCP tcp;
+
+        final AtomicInteger connects = new AtomicInteger();
+
+        final AtomicInteger disconnects = new AtomicInteger();
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        final CountDownLatch connected = new CountDownLatch(1);
+
+        final CountDownLatch disconnected = new CountDownLatch(1);
+
+        Handle(int timeout) {
+            tcp = new ManagedTCP(node, "127.0.0.1:" + server.getLocalPort(), () -> {}, exc -> fail(exc), new CallbackQueue(), s_threadPool, s_timers);
+            tcp.setShared(true);
+            tcp.setTimeout(timeout);
+            tcp.setConnectedHandler(() -> {
+                connects.incrementAndGet();
+                connected.countDown();
+            });
+            tcp.setDisconnectedHandler(() -> {
+                disconnects.incrementAndGet();
+                disconnected.countDown();
+            });
+            tcp.setReceivedHandler(received::add);
+
+            handles.add(tcp);
+        }
+
+        Handle() {
+            this(45000);
+        }
+
+    }
+
+    @Test
+    @DisplayName("Shared handles join, leave and disconnect on one connection")
+    void testSharedJoinLeaveDisconnect() throws Exception {
+        Handle first = new Handle();
+        first.tcp.start();
+
+        // (start-up is staggered by up to 6 seconds)
+        Socket peer = server.accept();
+        peer.setSoTimeout(5000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(peer.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = peer.getOutputStream();
+
+        assertTrue(first.connected.await(5, TimeUnit.SECONDS), "first connected");
+
+        // late joiner is told the connection is already up, exactly once
+        Handle second = new Handle();
+        second.tcp.start();
+
+        assertTrue(second.connected.await(5, TimeUnit.SECONDS), "second connected");
+
+        // both send down the one connection
+        first.tcp.send("from first");
+        second.tcp.send("from second");
+
+        List<String> lines = new ArrayList<>();
+        lines.add(in.readLine());
+        lines.add(in.readLine());
+        Collections.sort(lines);
+        assertEquals(List.of("from first", "from second"), lines);
+
+        // unsolicited data fans out
+        out.write("hello\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        waitFor(() -> first.received.size() == 1 && second.received.size() == 1);
+        assertEquals(List.of("hello"), first.received);
+        assertEquals(List.of("hello"), second.received);
+
+        // first leaves, the connection stays up for the second
+        first.tcp.close();
+
+        out.write("after\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        waitFor(() -> second.received.size() == 2);
+        assertEquals(List.of("hello", "after"), second.received);
+        assertEquals(List.of("hello"), first.received);
+
+        // the peer drops the connection
+        peer.close();
+
+        assertTrue(second.disconnected.await(5, TimeUnit.SECONDS), "second disconnected");
+        Thread.sleep(200);
+
+        assertEquals(1, first.connects.get());
+        assertEquals(1, second.connects.get());
+        assertEquals(0, first.disconnects.get(), "left before the disconnect");
+        assertEquals(1, second.disconnects.get());
+    }
+
+    @Test
+    @DisplayName("Handles with conflicting settings can't share")
+    void testConflictingSettings() throws Exception {
+        Handle first = new Handle(45000);
+        first.tcp.start();
+
+        Handle second = new Handle(10000);
+        assertThrows(IllegalStateException.class, second.tcp::start);
+
+        // same settings are fine
+        Handle third = new Handle(45000);
+        third.tcp.start();
+    }
+
+    @Test
+    @DisplayName("The shared connection closes with its last handle")
+    void testLastHandleCloses() throws Exception {
+        Handle first = new Handle();
+        Handle second = new Handle();
+        first.tcp.start();
+        second.tcp.start();
+
+        Socket peer = server.accept();
+        peer.setSoTimeout(500);
+
+        assertTrue(first.connected.await(5, TimeUnit.SECONDS));
+        assertTrue(second.connected.await(5, TimeUnit.SECONDS));
+
+        first.tcp.close();
+        assertThrows(SocketTimeoutException.class, () -> peer.getInputStream().read(), "still open for the second");
+
+        second.tcp.close();
+        assertEquals(-1, peer.getInputStream().read(), "closed by the last handle");
+
+        peer.close();
+    }
+
+    @Test
+    @DisplayName("A response's raw bytes only go to the handle that requested it")
+    void testSharedResponseBytes() throws Exception {
+        Handle first = new Handle();
+        Handle second = new Handle();
+
+        List<String> firstBytes = Collections.synchronizedList(new ArrayList<>());
+        List<String> secondBytes = Collections.synchronizedList(new ArrayList<>());
+        first.tcp.setReceivedBytesHandler(bytes -> firstBytes.add(new String(bytes, StandardCharsets.UTF_8)));
+        second.tcp.setReceivedBytesHandler(bytes -> secondBytes.add(new String(bytes, StandardCharsets.UTF_8)));
+
+        first.tcp.start();
+        second.tcp.start();
+
+        Socket peer = server.accept();
+        peer.setSoTimeout(5000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(peer.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = peer.getOutputStream();
+
+        assertTrue(first.connected.await(5, TimeUnit.SECONDS));
+        assertTrue(second.connected.await(5, TimeUnit.SECONDS));
+
+        List<String> responses = Collections.synchronizedList(new ArrayList<>());
+        first.tcp.request("status?", responses::add);
+
+        assertEquals("status?", in.readLine());
+        out.write("on\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        waitFor(() -> responses.size() == 1 && firstBytes.size() == 1);
+        assertEquals(List.of("on"), firstBytes);
+
+        // unsolicited, so both
+        out.write("hello\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        waitFor(() -> firstBytes.size() == 2 && secondBytes.size() == 1);
+        assertEquals(List.of("hello"), secondBytes);
+
+        peer.close();
+    }
+
+    @Test
+    @DisplayName("Receive delimiters can't be changed on a started shared handle")
+    void testSharedDelimitersFixed() throws Exception {
+        Handle first = new Handle();
+        first.tcp.setReceiveDelimeters("\n");
+        first.tcp.start();
+
+        assertThrows(IllegalStateException.class, () -> first.tcp.setReceiveDelimeters("\r"));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < until)
+            Thread.sleep(10);
+
+        assertTrue(condition.getAsBoolean(), "condition met in time");
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.nodel.toolkit;
+
+import org.junit.jupiter.api.*;
+import org.nodel.SimpleName;
+import org.nodel.host.BaseDynamicNode;
+import org.nodel.threading.CallbackQueue;
+import org.nodel.threading.ThreadPool;
+import org.nodel.threading.Timers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ManagedUDPTest {
+
+    private static final int COUNT = 2000;
+
+    private static ThreadPool threadPool;
+    private static Timers timers;
+
+    private BaseDynamicNode node;
+    private CallbackQueue callbackQueue;
+
+    private ManagedUDP receiver;
+    private ManagedUDP sender;
+
+    @BeforeAll
+    static void setUpAll() {
+        // (once only, pools register their diagnostics counters by name)
+        threadPool = new ThreadPool("ManagedUDPTest", 8);
+        timers = new Timers("ManagedUDPTest");
+    }
+
+    @BeforeEach
+    void setUp() {
+        node = mock(BaseDynamicNode.class);
+        when(node.getName()).thenReturn(new SimpleName("MockNode"));
+        callbackQueue = new CallbackQueue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (receiver != null)
+            receiver.close();
+        if (sender != null)
+            sender.close();
+    }
+
+    private ManagedUDP create(String source, String dest, CountDownLatch ready) {
+        ManagedUDP udp = new ManagedUDP(node, source, dest, () -> {}, exc -> fail(exc), callbackQueue, threadPool, timers);
+        udp.setReadyHandler(ready::countDown);
+        return udp;
+    }
+
+    @Test
+    @DisplayName("Burst of datagrams arrives in order as strings and bytes")
+    void testBurstInOrder() throws Exception {
+        CountDownLatch ready = new CountDownLatch(2);
+        CountDownLatch received = new CountDownLatch(COUNT);
+
+        List<String> strings = Collections.synchronizedList(new ArrayList<>());
+        List<byte[]> bytes = Collections.synchronizedList(new ArrayList<>());
+
+        receiver = create("127.0.0.1:0", null, ready);
+        receiver.setReceivedHandler((from, data) -> {
+            strings.add(data);
+            received.countDown();
+        });
+        receiver.setReceivedBytesHandler((from, data) -> bytes.add(data));
+        receiver.start();
+
+        sender = create("127.0.0.1:0", null, ready);
+        sender.start();
+
+        // (start-up is staggered by up to 6 seconds)
+        assertTrue(ready.await(10, TimeUnit.SECONDS), "both sockets bound");
+
+        String dest = "127.0.0.1:" + receiver.getListeningPort();
+        for (int i = 0; i < COUNT; i++)
+            sender.sendTo(dest, "seq " + i);
+
+        assertTrue(received.await(10, TimeUnit.SECONDS), "all datagrams received");
+
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals("seq " + i, strings.get(i));
+            assertArrayEquals(("seq " + i).getBytes(), bytes.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Binary data is delivered as raw characters")
+    void testBinaryData() throws Exception {
+        CountDownLatch ready = new CountDownLatch(2);
+        CountDownLatch received = new CountDownLatch(1);
+        String[] result = new String[1];
+
+        receiver = create("127.0.0.1:0", null, ready);
+        receiver.setReceivedHandler((from, data) -> {
+            result[0] = data;
+            received.countDown();
+        });
+        receiver.start();
+
+        sender = create("127.0.0.1:0", null, ready);
+        sender.start();
+
+        assertTrue(ready.await(10, TimeUnit.SECONDS), "both sockets bound");
+
+        sender.setDest("127.0.0.1:" + receiver.getListeningPort());
+        sender.send("\u0000\u00ff\u0001");
+
+        assertTrue(received.await(10, TimeUnit.SECONDS), "datagram received");
+        assertEquals("\u0000\u00ff\u0001", result[0]);
+    }
+
+    @Test
+    @DisplayName("Sends queued before the socket is bound go once it is")
+    void testSendBeforeReady() throws Exception {
+        CountDownLatch receiverReady = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(3);
+        List<String> strings = Collections.synchronizedList(new ArrayList<>());
+
+        receiver = create("127.0.0.1:0", null, receiverReady);
+        receiver.setReceivedHandler((from, data) -> {
+            strings.add(data);
+            received.countDown();
+        });
+        receiver.start();
+
+        assertTrue(receiverReady.await(10, TimeUnit.SECONDS), "receiver bound");
+
+        CountDownLatch senderReady = new CountDownLatch(1);
+        sender = create("127.0.0.1:0", "127.0.0.1:" + receiver.getListeningPort(), senderReady);
+        sender.start();
+
+        // (binding is staggered so these are definitely queued while unbound)
+        sender.send("one");
+        sender.send("two");
+        sender.send("three");
+        assertEquals(1, senderReady.getCount(), "not bound yet");
+
+        assertTrue(received.await(10, TimeUnit.SECONDS), "queued datagrams received after binding");
+        assertEquals(List.of("one", "two", "three"), strings);
+    }
+
+    @Test
+    @DisplayName("A failed send is reported and not treated as sent")
+    void testFailedSendNotSent() throws Exception {
+        CountDownLatch ready = new CountDownLatch(2);
+        CountDownLatch received = new CountDownLatch(1);
+
+        receiver = create("127.0.0.1:0", null, ready);
+        receiver.setReceivedHandler((from, data) -> received.countDown());
+        receiver.start();
+
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+        sender = new ManagedUDP(node, "127.0.0.1:0", null, () -> {}, errors::add, callbackQueue, threadPool, timers);
+        sender.setReadyHandler(ready::countDown);
+        sender.setSentHandler(sent::add);
+        sender.start();
+
+        assertTrue(ready.await(10, TimeUnit.SECONDS), "both sockets bound");
+
+        sender.sendTo("127.0.0.1:notaport", "bad");
+        sender.sendTo("127.0.0.1:" + receiver.getListeningPort(), "good");
+
+        assertTrue(received.await(10, TimeUnit.SECONDS), "good datagram received");
+
+        // ('sent' is called after the batch)
+        long until = System.currentTimeMillis() + 5000;
+        while (sent.isEmpty() && System.currentTimeMillis() < until)
+            Thread.sleep(10);
+
+        assertEquals(List.of("good"), sent);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalArgumentException);
+    }
+
+}
@@ -0,0 +1,284 @@
+package org.nodel.load;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.nodel.json.JSONObject;
+import org.nodel.load.LoadHarness.Recorder;
+
+/**
+ * The HTTP, REST and WebSocket clients, as browsers and integrations would use the host.
+ *
+ * HTTP and REST clients are closed-loop i.e. one request at a time, optionally paced to a rate.
+ */
+public class LoadClients {
+
+    private final HttpClient _httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String _base;
+
+    private final String _wsBase;
+
+    private final List<String> _nodes;
+
+    private final Recorder _recorder;
+
+    private final List<Thread> _threads = new ArrayList<Thread>();
+
+    private final List<WebSocket> _webSockets = new ArrayList<WebSocket>();
+
+    private volatile boolean _stopping;
+
+    public final AtomicLong restCalls = new AtomicLong();
+
+    public final AtomicLong httpRequests = new AtomicLong();
+
+    public final AtomicLong wsMessages = new AtomicLong();
+
+    public final AtomicLong restErrors = new AtomicLong();
+
+    public final AtomicLong httpErrors = new AtomicLong();
+
+    public final AtomicLong wsErrors = new AtomicLong();
+
+    public LoadClients(int httpPort, List<String> nodes, Recorder recorder) {
+        _base = "http://127.0.0.1:" + httpPort;
+        _wsBase = "ws://127.0.0.1:" + httpPort;
+        _nodes = nodes;
+        _recorder = recorder;
+    }
+
+    /**
+     * Starts the clients.
+     *
+     * @param rate requests per second, per client (0 for as fast as possible)
+     */
+    public void start(int httpClients, int restClients, int wsClients, double rate) {
+        for (int i = 0; i < httpClients; i++)
+            startLoop("Load HTTP client " + i, rate, new Runnable() {
+
+                @Override
+                public void run() {
+                    doHTTP();
+                }
+
+            });
+
+        for (int i = 0; i < restClients; i++)
+            startLoop("Load REST client " + i, rate, new Runnable() {
+
+                @Override
+                public void run() {
+                    doREST();
+                }
+
+            });
+
+        // (spread over the nodes)
+        for (int i = 0; i < wsClients; i++)
+            openWebSocket(_nodes.get(i % _nodes.size()));
+    }
+
+    /**
+     * Stops the clients and waits for them to finish.
+     */
+    public void stop() throws InterruptedException {
+        _stopping = true;
+
+        for (Thread thread : _threads)
+            thread.join(15000);
+
+        for (WebSocket webSocket : _webSockets)
+            webSocket.abort();
+    }
+
+    private void startLoop(String name, final double rate, final Runnable request) {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                long period = rate > 0 ? (long) (1000000000L / rate) : 0;
+                long next = System.nanoTime();
+
+                while (!_stopping) {
+                    request.run();
+
+                    if (period > 0) {
+                        next += period;
+                        long wait = next - System.nanoTime();
+                        if (wait > 0)
+                            LockSupport.parkNanos(wait);
+                        else
+                            // (fallen behind, don't try to catch up with a burst)
+                            next = System.nanoTime();
+                    }
+                }
+            }
+
+        }, name);
+
+        thread.setDaemon(true);
+        thread.start();
+
+        _threads.add(thread);
+    }
+
+    /**
+     * Static content and a node's page, alternately.
+     */
+    private void doHTTP() {
+        String path = ThreadLocalRandom.current().nextBoolean() ? "/" : "/nodes/" + encode(randomNode()) + "/";
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(_base + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = _httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("HTTP status " + response.statusCode());
+
+            _recorder.http(System.nanoTime() - start);
+            httpRequests.incrementAndGet();
+
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+
+        } catch (Exception exc) {
+            httpErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Calls a node's 'Poke' action (which emits 'Poked', seen by the WebSocket sessions too).
+     */
+    private void doREST() {
+        String path = "/REST/nodes/" + encode(randomNode()) + "/actions/Poke/call";
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(_base + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"arg\": {\"rest\": " + restCalls.get() + "}}"))
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = _httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("HTTP status " + response.statusCode());
+
+            _recorder.rest(System.nanoTime() - start);
+            restCalls.incrementAndGet();
+
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+
+        } catch (Exception exc) {
+            restErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * A node's activity session, as its page would have.
+     */
+    private void openWebSocket(String node) {
+        try {
+            WebSocket webSocket = _httpClient.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(URI.create(_wsBase + "/nodes/" + encode(node)), new ActivityListener())
+                    .get(15, TimeUnit.SECONDS);
+
+            _webSockets.add(webSocket);
+
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+
+        } catch (Exception exc) {
+            wsErrors.incrementAndGet();
+        }
+    }
+
+    private class ActivityListener implements WebSocket.Listener {
+
+        /**
+         * (messages can arrive in parts)
+         */
+        private final StringBuilder _sb = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            _sb.append(data);
+
+            if (last) {
+                handleMessage(_sb.toString());
+                _sb.setLength(0);
+            }
+
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            if (!_stopping)
+                wsErrors.incrementAndGet();
+        }
+
+    } // (class)
+
+    /**
+     * Counts activity and measures it if it carries an emit time.
+     */
+    private void handleMessage(String text) {
+        long now = System.nanoTime();
+
+        try {
+            JSONObject message = new JSONObject(text);
+            JSONObject activity = message.optJSONObject("activity");
+            if (activity == null)
+                // (the history when the session starts, etc.)
+                return;
+
+            wsMessages.incrementAndGet();
+
+            JSONObject arg = activity.optJSONObject("arg");
+            if (arg != null && arg.has("sent"))
+                _recorder.ws(now - arg.getLong("sent"));
+
+        } catch (Exception exc) {
+            wsErrors.incrementAndGet();
+        }
+    }
+
+    private String randomNode() {
+        return _nodes.get(ThreadLocalRandom.current().nextInt(_nodes.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+} // (class)
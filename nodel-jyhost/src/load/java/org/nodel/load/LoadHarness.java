@@ -0,0 +1,409 @@
+package org.nodel.load;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.nodel.SimpleName;
+import org.nodel.core.Nodel;
+import org.nodel.core.NodelClientEvent;
+import org.nodel.core.NodelEventHandler;
+import org.nodel.io.Stream;
+import org.nodel.jyhost.Launch;
+import org.nodel.reflection.Serialisation;
+
+/**
+ * Starts a full host in this process with a number of synthetic nodes (see 'synthetic_node.py') and puts it under
+ * load, then reports throughput, latency percentiles, thread counts and GC activity.
+ *
+ * The nodes tick at a fixed rate and are cross-bound in a ring (each one's remote event and remote action is bound to
+ * the next node) so all traffic goes through real TCP channels. The harness subscribes to every node's events the same
+ * way and HTTP, REST and WebSocket clients use the host alongside.
+ *
+ * Discovery is in-process ('LocalAutoDNS') so nothing is advertised on the network. Usually run through Gradle, e.g.
+ * './gradlew :nodel-jyhost:loadTest -Pload.args="--nodes 50 --rate 20 --duration 120"'
+ */
+public class LoadHarness {
+
+    private final static String USAGE = "Options: --nodes <count> --rate <ticks per second, per node> --warmup <seconds> --duration <seconds> "
+            + "--httpClients <count> --restClients <count> --wsClients <count> --clientRate <requests per second, per client, 0 for unpaced> "
+            + "--port <HTTP port, 0 for any> --report <file> --maxP99 <round trip millis, fails the run if exceeded>";
+
+    private final static String DISCOVERY_PROPERTY = "org.nodel.discovery.impl";
+
+    private final static String NODE_PREFIX = "Load Node ";
+
+    private final static SimpleName TICK = new SimpleName("Tick");
+
+    private final static SimpleName POKED = new SimpleName("Poked");
+
+    private int _nodeCount = 10;
+
+    private double _rate = 5;
+
+    private int _warmup = 10;
+
+    private int _duration = 30;
+
+    private int _httpClients = 2;
+
+    private int _restClients = 2;
+
+    private int _wsClients = 4;
+
+    private double _clientRate = 20;
+
+    private int _port = 0;
+
+    private File _reportFile = new File("load-report.json");
+
+    /**
+     * (0 for no limit)
+     */
+    private double _maxP99;
+
+    /**
+     * Latencies are only kept while measuring.
+     */
+    private volatile boolean _measuring;
+
+    private final LoadReport _report = new LoadReport();
+
+    private final AtomicLong _ticks = new AtomicLong();
+
+    private final AtomicLong _roundTrips = new AtomicLong();
+
+    /**
+     * Whether a node's events have made it through yet (by node index, ticks then round trips)
+     */
+    private AtomicLongArray _seen;
+
+    /**
+     * Records latencies while measuring (used by the clients too).
+     */
+    public class Recorder {
+
+        public void rest(long nanos) {
+            if (_measuring)
+                _report.latencies.rest.record(nanos);
+        }
+
+        public void http(long nanos) {
+            if (_measuring)
+                _report.latencies.http.record(nanos);
+        }
+
+        public void ws(long nanos) {
+            if (_measuring)
+                _report.latencies.ws.record(nanos);
+        }
+
+    } // (class)
+
+    private final Recorder _recorder = new Recorder();
+
+    public static void main(String[] args) throws Exception {
+        // the discovery implementation is chosen once, on first use
+        if (System.getProperty(DISCOVERY_PROPERTY) == null)
+            System.setProperty(DISCOVERY_PROPERTY, "org.nodel.discovery.LocalAutoDNS;instance");
+
+        LoadHarness harness = new LoadHarness();
+
+        int exitCode;
+        try {
+            harness.parseArgs(args);
+            exitCode = harness.run();
+
+        } catch (IllegalArgumentException exc) {
+            System.err.println(exc.getMessage());
+            System.err.println(USAGE);
+            exitCode = 1;
+        }
+
+        // (the host leaves non-daemon threads behind)
+        System.exit(exitCode);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int a = 0; a < args.length; a++) {
+            String arg = args[a];
+
+            if (a + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for '" + arg + "'");
+
+            String value = args[++a];
+
+            try {
+                if ("--nodes".equalsIgnoreCase(arg))
+                    _nodeCount = Integer.parseInt(value);
+                else if ("--rate".equalsIgnoreCase(arg))
+                    _rate = Double.parseDouble(value);
+                else if ("--warmup".equalsIgnoreCase(arg))
+                    _warmup = Integer.parseInt(value);
+                else if ("--duration".equalsIgnoreCase(arg))
+                    _duration = Integer.parseInt(value);
+                else if ("--httpClients".equalsIgnoreCase(arg))
+                    _httpClients = Integer.parseInt(value);
+                else if ("--restClients".equalsIgnoreCase(arg))
+                    _restClients = Integer.parseInt(value);
+                else if ("--wsClients".equalsIgnoreCase(arg))
+                    _wsClients = Integer.parseInt(value);
+                else if ("--clientRate".equalsIgnoreCase(arg))
+                    _clientRate = Double.parseDouble(value);
+                else if ("--port".equalsIgnoreCase(arg))
+                    _port = Integer.parseInt(value);
+                else if ("--report".equalsIgnoreCase(arg))
+                    _reportFile = new File(value);
+                else if ("--maxP99".equalsIgnoreCase(arg))
+                    _maxP99 = Double.parseDouble(value);
+                else
+                    throw new IllegalArgumentException("Unknown option '" + arg + "'");
+
+            } catch (NumberFormatException exc) {
+                throw new IllegalArgumentException("Bad value for '" + arg + "': " + value);
+            }
+        }
+
+        if (_nodeCount < 2 || _rate <= 0 || _duration <= 0 || _warmup < 0)
+            throw new IllegalArgumentException("Needs at least 2 nodes and a positive rate and duration");
+    }
+
+    /**
+     * Returns the exit code.
+     */
+    private int run() throws Exception {
+        List<String> nodes = writeNodes();
+
+        System.out.println("Starting host with " + _nodeCount + " synthetic nodes...");
+        Launch launch = new Launch(new String[] { "-p", String.valueOf(_port) });
+
+        subscribe(nodes);
+
+        // every node's ticks and echoes need to have come through before starting
+        System.out.println("Waiting for all bindings to be wired...");
+        waitForAllSeen(120000);
+
+        LoadClients clients = new LoadClients(Nodel.getHTTPPort(), nodes, _recorder);
+        clients.start(_httpClients, _restClients, _wsClients, _clientRate);
+
+        System.out.println("Warming up for " + _warmup + " s...");
+        Thread.sleep(_warmup * 1000L);
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+
+        Map<String, long[]> gcBefore = gcSnapshot();
+
+        long ticksBefore = _ticks.get();
+        long roundTripsBefore = _roundTrips.get();
+        long restBefore = clients.restCalls.get();
+        long httpBefore = clients.httpRequests.get();
+        long wsBefore = clients.wsMessages.get();
+        long restErrorsBefore = clients.restErrors.get();
+        long httpErrorsBefore = clients.httpErrors.get();
+        long wsErrorsBefore = clients.wsErrors.get();
+
+        _report.threads.start = threadMXBean.getThreadCount();
+
+        System.out.println("Measuring for " + _duration + " s...");
+        long start = System.nanoTime();
+        _measuring = true;
+
+        Thread.sleep(_duration * 1000L);
+
+        _measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        _report.threads.peak = threadMXBean.getPeakThreadCount();
+        _report.threads.end = threadMXBean.getThreadCount();
+
+        Map<String, long[]> gcAfter = gcSnapshot();
+        for (Entry<String, long[]> entry : gcAfter.entrySet()) {
+            long[] before = gcBefore.get(entry.getKey());
+            long collections = entry.getValue()[0] - (before != null ? before[0] : 0);
+            long millis = entry.getValue()[1] - (before != null ? before[1] : 0);
+
+            _report.gc.collectors.put(entry.getKey(), collections);
+            _report.gc.collections += collections;
+            _report.gc.millis += millis;
+        }
+        _report.gc.heapUsedMB = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+
+        _report.throughput.ticksExpected = _nodeCount * _rate;
+        _report.throughput.ticks = (_ticks.get() - ticksBefore) / seconds;
+        _report.throughput.roundTrips = (_roundTrips.get() - roundTripsBefore) / seconds;
+        _report.throughput.rest = (clients.restCalls.get() - restBefore) / seconds;
+        _report.throughput.http = (clients.httpRequests.get() - httpBefore) / seconds;
+        _report.throughput.ws = (clients.wsMessages.get() - wsBefore) / seconds;
+
+        _report.errors.rest = clients.restErrors.get() - restErrorsBefore;
+        _report.errors.http = clients.httpErrors.get() - httpErrorsBefore;
+        _report.errors.ws = clients.wsErrors.get() - wsErrorsBefore;
+
+        clients.stop();
+        launch.shutdown();
+
+        _report.commit = System.getProperty("load.commit", "local");
+        _report.settings.nodes = _nodeCount;
+        _report.settings.rate = _rate;
+        _report.settings.warmup = _warmup;
+        _report.settings.duration = _duration;
+        _report.settings.httpClients = _httpClients;
+        _report.settings.restClients = _restClients;
+        _report.settings.wsClients = _wsClients;
+
+        System.out.println();
+        System.out.println(_report.toText());
+
+        File parent = _reportFile.getAbsoluteFile().getParentFile();
+        if (parent != null)
+            parent.mkdirs();
+        Stream.writeFully(_reportFile, Serialisation.serialise(_report, 4));
+        System.out.println("(written to " + _reportFile.getAbsolutePath() + ")");
+
+        double p99 = _report.latencies.roundTrip.getP99();
+        if (_maxP99 > 0 && p99 > _maxP99) {
+            System.err.println(String.format(Locale.ROOT, "FAILED: round trip p99 of %.2f ms exceeds %.2f ms", p99, _maxP99));
+            return 2;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Writes the node folders, each bound to the next in a ring, returning the node names.
+     */
+    private List<String> writeNodes() throws Exception {
+        String template;
+        try (InputStream is = LoadHarness.class.getResourceAsStream("synthetic_node.py")) {
+            template = Stream.readFully(is);
+        }
+
+        // (as Python)
+        String interval = String.format(Locale.ROOT, "%.4f", 1 / _rate);
+
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < _nodeCount; i++)
+            names.add(String.format(Locale.ROOT, NODE_PREFIX + "%03d", i + 1));
+
+        for (int i = 0; i < _nodeCount; i++) {
+            File folder = new File("nodes", names.get(i));
+            folder.mkdirs();
+
+            String script = template.replace("%PEER%", names.get((i + 1) % _nodeCount)).replace("%INTERVAL%", interval);
+            Stream.writeFully(new File(folder, "script.py"), script);
+        }
+
+        return names;
+    }
+
+    /**
+     * Binds to every node's 'Tick' and 'Poked' through the channel layer, as any peer would.
+     */
+    private void subscribe(List<String> nodes) {
+        _seen = new AtomicLongArray(nodes.size() * 2);
+
+        for (int i = 0; i < nodes.size(); i++) {
+            final int index = i;
+            SimpleName node = new SimpleName(nodes.get(i));
+
+            NodelClientEvent tick = new NodelClientEvent(new SimpleName(nodes.get(i) + " Tick"), node, TICK);
+            tick.setHandler(new NodelEventHandler() {
+
+                @Override
+                public void handleEvent(SimpleName node, SimpleName event, Object arg) {
+                    handleArrival(index, false, arg);
+                }
+
+            });
+            tick.registerInterest();
+
+            NodelClientEvent poked = new NodelClientEvent(new SimpleName(nodes.get(i) + " Poked"), node, POKED);
+            poked.setHandler(new NodelEventHandler() {
+
+                @Override
+                public void handleEvent(SimpleName node, SimpleName event, Object arg) {
+                    handleArrival(index, true, arg);
+                }
+
+            });
+            poked.registerInterest();
+        }
+    }
+
+    private void handleArrival(int index, boolean roundTrip, Object arg) {
+        long now = System.nanoTime();
+
+        // (echoes of REST calls carry no emit time)
+        if (!(arg instanceof Map))
+            return;
+        Object sent = ((Map<?, ?>) arg).get("sent");
+        if (!(sent instanceof Number))
+            return;
+
+        _seen.incrementAndGet(index * 2 + (roundTrip ? 1 : 0));
+
+        if (roundTrip)
+            _roundTrips.incrementAndGet();
+        else
+            _ticks.incrementAndGet();
+
+        if (_measuring) {
+            long nanos = now - ((Number) sent).longValue();
+
+            if (roundTrip)
+                _report.latencies.roundTrip.record(nanos);
+            else
+                _report.latencies.tick.record(nanos);
+        }
+    }
+
+    private void waitForAllSeen(long timeout) throws InterruptedException {
+        long start = System.nanoTime();
+
+        for (;;) {
+            int missing = 0;
+            for (int i = 0; i < _seen.length(); i++) {
+                if (_seen.get(i) == 0)
+                    missing++;
+            }
+
+            if (missing == 0)
+                return;
+
+            if ((System.nanoTime() - start) / 1000000 > timeout)
+                throw new IllegalStateException(missing + " of " + _seen.length() + " node events never arrived; check the nodes' consoles and bindings");
+
+            Thread.sleep(500);
+        }
+    }
+
+    /**
+     * Collection counts and times by collector.
+     */
+    private static Map<String, long[]> gcSnapshot() {
+        Map<String, long[]> result = new LinkedHashMap<String, long[]>();
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            result.put(bean.getName(), new long[] { bean.getCollectionCount(), bean.getCollectionTime() });
+
+        return result;
+    }
+
+} // (class)
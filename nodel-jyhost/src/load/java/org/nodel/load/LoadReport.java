@@ -0,0 +1,187 @@
+package org.nodel.load;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.nodel.diagnostics.LatencyHistogram;
+import org.nodel.reflection.Value;
+
+/**
+ * The results of a load run, written as JSON so runs can be compared (and gated on).
+ */
+public class LoadReport {
+
+    public static class Settings {
+
+        @Value(name = "nodes", order = 1)
+        public int nodes;
+
+        @Value(name = "rate", order = 2, desc = "Ticks per second, per node.")
+        public double rate;
+
+        @Value(name = "warmup", order = 3, desc = "(seconds)")
+        public int warmup;
+
+        @Value(name = "duration", order = 4, desc = "(seconds)")
+        public int duration;
+
+        @Value(name = "httpClients", order = 5)
+        public int httpClients;
+
+        @Value(name = "restClients", order = 6)
+        public int restClients;
+
+        @Value(name = "wsClients", order = 7)
+        public int wsClients;
+
+    } // (class)
+
+    public static class Throughput {
+
+        @Value(name = "ticksExpected", order = 1, desc = "Ticks per second all nodes should emit.")
+        public double ticksExpected;
+
+        @Value(name = "ticks", order = 2, desc = "Ticks per second received by the harness (one channel hop).")
+        public double ticks;
+
+        @Value(name = "roundTrips", order = 3, desc = "Echoes per second received by the harness (three channel hops).")
+        public double roundTrips;
+
+        @Value(name = "rest", order = 4, desc = "REST action calls per second.")
+        public double rest;
+
+        @Value(name = "http", order = 5, desc = "HTTP requests per second.")
+        public double http;
+
+        @Value(name = "ws", order = 6, desc = "WebSocket messages per second.")
+        public double ws;
+
+    } // (class)
+
+    public static class Latencies {
+
+        @Value(name = "tick", order = 1, desc = "Emit to arrival at the harness.")
+        public LatencyHistogram tick = new LatencyHistogram();
+
+        @Value(name = "roundTrip", order = 2, desc = "Emit, to the peer's remote event, to the remote action, to the echo arriving at the harness.")
+        public LatencyHistogram roundTrip = new LatencyHistogram();
+
+        @Value(name = "rest", order = 3, desc = "REST action call round trip.")
+        public LatencyHistogram rest = new LatencyHistogram();
+
+        @Value(name = "http", order = 4, desc = "HTTP request round trip.")
+        public LatencyHistogram http = new LatencyHistogram();
+
+        @Value(name = "ws", order = 5, desc = "Emit to arrival through a WebSocket session.")
+        public LatencyHistogram ws = new LatencyHistogram();
+
+    } // (class)
+
+    public static class Errors {
+
+        @Value(name = "rest", order = 1)
+        public long rest;
+
+        @Value(name = "http", order = 2)
+        public long http;
+
+        @Value(name = "ws", order = 3)
+        public long ws;
+
+    } // (class)
+
+    public static class Threads {
+
+        @Value(name = "start", order = 1)
+        public int start;
+
+        @Value(name = "peak", order = 2)
+        public int peak;
+
+        @Value(name = "end", order = 3)
+        public int end;
+
+    } // (class)
+
+    public static class GC {
+
+        @Value(name = "collections", order = 1, desc = "During the measurement.")
+        public long collections;
+
+        @Value(name = "millis", order = 2, desc = "Time spent collecting during the measurement.")
+        public long millis;
+
+        @Value(name = "collectors", order = 3, genericClassA = Long.class, desc = "Collections by collector.")
+        public Map<String, Long> collectors = new LinkedHashMap<String, Long>();
+
+        @Value(name = "heapUsedMB", order = 4, desc = "Heap in use at the end.")
+        public long heapUsedMB;
+
+    } // (class)
+
+    @Value(name = "commit", order = 1)
+    public String commit;
+
+    @Value(name = "settings", order = 2)
+    public Settings settings = new Settings();
+
+    @Value(name = "throughput", order = 3)
+    public Throughput throughput = new Throughput();
+
+    @Value(name = "latencies", order = 4)
+    public Latencies latencies = new Latencies();
+
+    @Value(name = "errors", order = 5)
+    public Errors errors = new Errors();
+
+    @Value(name = "threads", order = 6)
+    public Threads threads = new Threads();
+
+    @Value(name = "gc", order = 7)
+    public GC gc = new GC();
+
+    /**
+     * A console friendly summary.
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format(Locale.ROOT, "%d nodes at %.1f ticks/s each, %d s measured after %d s warm-up (%d HTTP, %d REST, %d WebSocket clients)%n",
+                settings.nodes, settings.rate, settings.duration, settings.warmup, settings.httpClients, settings.restClients, settings.wsClients));
+
+        sb.append(String.format(Locale.ROOT, "%nThroughput (per second):%n"));
+        sb.append(String.format(Locale.ROOT, "  ticks %.1f (of %.1f expected), round trips %.1f, REST %.1f, HTTP %.1f, WebSocket %.1f%n",
+                throughput.ticks, throughput.ticksExpected, throughput.roundTrips, throughput.rest, throughput.http, throughput.ws));
+
+        sb.append(String.format(Locale.ROOT, "%nLatency (ms)       count      p50      p90      p99      max%n"));
+        appendLatency(sb, "tick", latencies.tick);
+        appendLatency(sb, "round trip", latencies.roundTrip);
+        appendLatency(sb, "REST", latencies.rest);
+        appendLatency(sb, "HTTP", latencies.http);
+        appendLatency(sb, "WebSocket", latencies.ws);
+
+        sb.append(String.format(Locale.ROOT, "%nErrors: REST %d, HTTP %d, WebSocket %d%n", errors.rest, errors.http, errors.ws));
+        sb.append(String.format(Locale.ROOT, "Threads: %d at start, %d peak, %d at end%n", threads.start, threads.peak, threads.end));
+
+        sb.append(String.format(Locale.ROOT, "GC: %d collections, %d ms", gc.collections, gc.millis));
+        for (Entry<String, Long> entry : gc.collectors.entrySet())
+            sb.append(String.format(Locale.ROOT, " (%s %d)", entry.getKey(), entry.getValue()));
+        sb.append(String.format(Locale.ROOT, ", %d MB heap in use%n", gc.heapUsedMB));
+
+        return sb.toString();
+    }
+
+    private static void appendLatency(StringBuilder sb, String name, LatencyHistogram histogram) {
+        sb.append(String.format(Locale.ROOT, "  %-14s %9d %8.2f %8.2f %8.2f %8.2f%n",
+                name, histogram.getCount(), histogram.getP50(), histogram.getP90(), histogram.getP99(), histogram.getMax()));
+    }
+
+} // (class)
@@ -0,0 +1,36 @@
+'''A synthetic node generated by the load harness'''
+
+# Emits 'Tick' at a fixed rate. The peer's 'Tick' arrives through a remote event which calls the peer's 'Poke'
+# action, which emits 'Poked' with the same argument, so every tick crosses two channel hops before it is echoed.
+#
+# ('sent' is the 'System.nanoTime' of the emit; the harness runs in the same process so it can measure latency)
+
+from java.lang import System
+
+PEER = '%PEER%'
+INTERVAL = %INTERVAL%
+
+local_event_Tick = LocalEvent({'title': 'Tick', 'schema': {'type': 'object'}})
+
+local_event_Poked = LocalEvent({'title': 'Poked', 'schema': {'type': 'object'}})
+
+seq = [0]
+
+def tick():
+  seq[0] += 1
+  local_event_Tick.emit({'seq': seq[0], 'sent': System.nanoTime()})
+
+@local_action({'title': 'Poke', 'schema': {'type': 'object'}})
+def Poke(arg):
+  local_event_Poked.emit(arg)
+
+peer_poke = create_remote_action('PeerPoke', {'title': 'Peer Poke', 'schema': {'type': 'object'}}, suggestedNode=PEER, suggestedAction='Poke')
+
+def peer_tick(arg):
+  peer_poke.call(arg)
+
+create_remote_event('PeerTick', peer_tick, {'title': 'Peer Tick', 'schema': {'type': 'object'}}, suggestedNode=PEER, suggestedEvent='Tick')
+
+def main():
+  Timer(tick, INTERVAL, INTERVAL)
+  console.info('Synthetic node started, peer is "%s"' % PEER)
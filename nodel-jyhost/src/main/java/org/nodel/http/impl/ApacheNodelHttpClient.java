@@ -44,6 +44,7 @@ import org.apache.http.client.methods.HttpTrace;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
@@ -62,6 +63,7 @@ import org.nodel.diagnostics.CountableInputStream;
 import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.io.Stream;
 import org.nodel.io.UnexpectedIOException;
+import org.nodel.net.AddressResolver;
 import org.nodel.net.HTTPSimpleResponse;
 import org.nodel.net.NodelHTTPClient;
 
@@ -108,6 +110,9 @@ public class ApacheNodelHttpClient extends NodelHTTPClient {
                         // need to reference this later
                         .setDefaultCredentialsProvider(_credentialsProvider = new BasicCredentialsProvider())
                         
+                        // resolve using the host-wide cache
+                        .setDnsResolver(SHARED_DNS_RESOLVER)
+
                         // unrestricted connections
                         .setMaxConnTotal(1000)
                         .setMaxConnPerRoute(1000)
@@ -195,7 +200,7 @@ public class ApacheNodelHttpClient extends NodelHTTPClient {
                     .register("https", sslSocketFactory)
                     .build();
             
-            PoolingHttpClientConnectionManager connMgr = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+            PoolingHttpClientConnectionManager connMgr = new PoolingHttpClientConnectionManager(socketFactoryRegistry, SHARED_DNS_RESOLVER);
             builder.setConnectionManager(connMgr);
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -459,6 +464,18 @@ public class ApacheNodelHttpClient extends NodelHTTPClient {
     
     // convenience instances
     
+    /**
+     * Uses the host-wide address cache
+     */
+    private static DnsResolver SHARED_DNS_RESOLVER = new DnsResolver() {
+        
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            return AddressResolver.shared().resolveAll(host);
+        }
+        
+    };
+    
     /**
      * Ignores all SSL issues
      */
@@ -0,0 +1,276 @@
+package org.nodel.jyhost;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.nanohttpd.protocols.http.response.Response;
+import org.nanohttpd.protocols.http.response.Status;
+import org.nodel.Handler;
+import org.nodel.Threads;
+import org.nodel.reflection.Serialisation;
+
+/**
+ * A 'text/event-stream' (Server-Sent Events) response that holds the connection open and writes
+ * entries as they're emitted, each with its sequence number as the event ID so clients resume using
+ * 'Last-Event-ID'.
+ *
+ * 'emit' never blocks (it's called by log appenders), entries are serialised and written on the
+ * connection's own thread. If a client can't keep up the stream is closed and the client simply
+ * reconnects from where it was up to.
+ *
+ * Live entries are held back until 'endBacklog' so they can never overtake the backlog (which is
+ * given using 'emitBacklog'); any held entry already covered by the backlog is dropped, so event IDs
+ * always go up.
+ */
+public class EventStreamResponse extends Response {
+
+    /**
+     * Beyond this, the client is too slow and is dropped.
+     */
+    private final static int MAX_PENDING = 5000;
+
+    /**
+     * A comment is sent after this much quiet time (millis) to keep proxies happy and detect dead clients.
+     */
+    private final static long KEEPALIVE_PERIOD = 15000;
+
+    /**
+     * Tells clients how long to wait before reconnecting (millis)
+     */
+    private final static long RETRY = 3000;
+
+    /**
+     * (queued entry)
+     */
+    private static class Event {
+
+        final long id;
+
+        final Object value;
+
+        Event(long id, Object value) {
+            this.id = id;
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * (instance lock / signal)
+     */
+    private final Object _lock = new Object();
+
+    /**
+     * (locked around 'lock')
+     */
+    private ArrayDeque<Event> _pending = new ArrayDeque<>();
+
+    /**
+     * Live entries that arrived before the backlog was complete, null once it is.
+     * (locked around 'lock')
+     */
+    private ArrayDeque<Event> _held = new ArrayDeque<>();
+
+    /**
+     * The ID of the last backlog entry.
+     * (locked around 'lock')
+     */
+    private long _lastBacklogID = Long.MIN_VALUE;
+
+    /**
+     * (locked around 'lock')
+     */
+    private boolean _overflowed;
+
+    /**
+     * (locked around 'lock')
+     */
+    private boolean _closed;
+
+    /**
+     * (see setter)
+     */
+    private Handler.H0 _closeHandler;
+
+    public EventStreamResponse() {
+        super(Status.OK, "text/event-stream; charset=utf-8", new byte[0]);
+
+        closeConnection(true);
+    }
+
+    /**
+     * Called once the client has gone away or the stream is closed (e.g. to unregister handlers)
+     */
+    public void setCloseHandler(Handler.H0 handler) {
+        _closeHandler = handler;
+    }
+
+    /**
+     * Queues a live entry (never blocks), held back until 'endBacklog' has been called.
+     */
+    public void emit(long id, Object value) {
+        synchronized (_lock) {
+            if (_held != null)
+                queue(_held, new Event(id, value));
+            else
+                queue(_pending, new Event(id, value));
+        }
+    }
+
+    /**
+     * Queues a backlog entry (oldest first).
+     */
+    public void emitBacklog(long id, Object value) {
+        synchronized (_lock) {
+            if (_held == null)
+                throw new IllegalStateException("The backlog has already ended.");
+
+            queue(_pending, new Event(id, value));
+
+            _lastBacklogID = Math.max(_lastBacklogID, id);
+        }
+    }
+
+    /**
+     * Releases the live entries that arrived while the backlog was being given, dropping any it
+     * already covered. Must be called (even if there is no backlog) for live entries to flow.
+     */
+    public void endBacklog() {
+        synchronized (_lock) {
+            if (_held == null)
+                return;
+
+            for (Event event : _held) {
+                if (event.id > _lastBacklogID)
+                    queue(_pending, event);
+            }
+
+            _held = null;
+        }
+    }
+
+    /**
+     * (assumes locked)
+     */
+    private void queue(ArrayDeque<Event> queue, Event event) {
+        if (_closed || _overflowed)
+            return;
+
+        if (_pending.size() + (_held != null ? _held.size() : 0) >= MAX_PENDING) {
+            _overflowed = true;
+            _pending.clear();
+            if (_held != null)
+                _held.clear();
+
+        } else {
+            queue.add(event);
+        }
+
+        _lock.notify();
+    }
+
+    /**
+     * Writes the headers and then the entries as they arrive (blocks the connection thread for the life of the stream).
+     */
+    @Override
+    public void send(OutputStream out) {
+        try {
+            SimpleDateFormat gmtFrmt = new SimpleDateFormat("E, d MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+            gmtFrmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+            StringBuilder head = new StringBuilder();
+            head.append("HTTP/1.1 ").append(getStatus().getDescription()).append(" \r\n")
+                .append("Content-Type: ").append(getMimeType()).append("\r\n")
+                .append("Date: ").append(gmtFrmt.format(new Date())).append("\r\n")
+                .append("Cache-Control: no-cache\r\n")
+                .append("Access-Control-Allow-Origin: *\r\n")
+                .append("Connection: close\r\n")
+                .append("\r\n")
+                .append("retry: ").append(RETRY).append("\n\n");
+
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            List<Event> batch = new ArrayList<>();
+
+            for (;;) {
+                synchronized (_lock) {
+                    if (_pending.isEmpty() && !_overflowed)
+                        Threads.waitOnSync(_lock, KEEPALIVE_PERIOD);
+
+                    if (_overflowed)
+                        break;
+
+                    batch.addAll(_pending);
+                    _pending.clear();
+                }
+
+                StringBuilder sb = new StringBuilder();
+
+                if (batch.isEmpty()) {
+                    sb.append(":\n\n");
+
+                } else {
+                    for (Event event : batch)
+                        appendEvent(sb, event);
+
+                    batch.clear();
+                }
+
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+
+        } catch (IOException exc) {
+            // client has gone away (normal)
+
+        } finally {
+            synchronized (_lock) {
+                _closed = true;
+                _pending.clear();
+                if (_held != null)
+                    _held.clear();
+            }
+
+            Handler.tryHandle(_closeHandler);
+        }
+    }
+
+    /**
+     * Formats an event, splitting any multi-line data as required.
+     */
+    private static void appendEvent(StringBuilder sb, Event event) {
+        sb.append("id: ").append(event.id).append('\n');
+
+        String json = Serialisation.serialise(event.value);
+
+        int start = 0;
+        for (;;) {
+            int end = json.indexOf('\n', start);
+
+            sb.append("data: ").append(json, start, end < 0 ? json.length() : end).append('\n');
+
+            if (end < 0)
+                break;
+
+            start = end + 1;
+        }
+
+        sb.append('\n');
+    }
+
+} // (class)
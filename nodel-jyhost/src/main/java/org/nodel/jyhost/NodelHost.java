@@ -29,6 +29,7 @@ import org.nodel.Strings;
 import org.nodel.Threads;
 import org.nodel.Tuple;
 import org.nodel.Version;
+import org.nodel.WildcardMatcher;
 import org.nodel.core.Nodel;
 import org.nodel.core.NodelClients.NodeURL;
 import org.nodel.core.NodelServerEvent;
@@ -165,9 +166,9 @@ public class NodelHost {
     private String[] _origInclFilters;
 
     /**
-     * (will/must never be null)
+     * (compiled, null for everything)
      */
-    private List<String[]> _inclTokensFilters = Collections.emptyList();
+    private WildcardMatcher _inclFilters;
     
     /**
      * As specified by user.
@@ -175,9 +176,9 @@ public class NodelHost {
     private String[] _origExclFilters;
     
     /**
-     * (will/must never be null)
+     * (compiled, will/must never be null)
      */
-    private List<String[]> _exclTokensFilters = Collections.emptyList();
+    private WildcardMatcher _exclFilters = WildcardMatcher.NONE;
 
     /**
      * Constructs a new NodelHost and returns immediately.
@@ -252,9 +253,11 @@ public class NodelHost {
                    .append(exclFilters == null || exclFilters.length == 0 ? "nothing" : Serialisation.serialise(exclFilters));
         Nodel.setHostingRule(hostingRule.toString());
         
-        // 'compile' the tokens list
-        _inclTokensFilters = intoTokensList(inclFilters);
-        _exclTokensFilters = intoTokensList(exclFilters);
+        // compile the filters
+        _inclFilters = intoMatcher(inclFilters);
+        
+        WildcardMatcher exclMatcher = intoMatcher(exclFilters);
+        _exclFilters = exclMatcher != null ? exclMatcher : WildcardMatcher.NONE;
     }
     
     /**
@@ -539,56 +542,13 @@ public class NodelHost {
      * Processes a name through inclusion and exclusion lists. (convenience instance function)
      */
     public boolean shouldBeIncluded(SimpleName simpleName) {
-        // using filtering? 
-        boolean filteringIn = false;
-
-        // by default, it's included
-        boolean include = true;
-
-        // check if any exclusive inclusion filters apply
-        List<String[]> inclTokensFilters = _inclTokensFilters;
-        if (inclTokensFilters != null) {
-            int len = inclTokensFilters.size();
-
-            for (int a = 0; a < len; a++) {
-                // got at least one inclusion filter, so flip the mode
-                // and wait for inclusion filter to match
-                if (!filteringIn) {
-                    filteringIn = true;
-                    include = false;
-                }
-
-                String[] inclTokens = inclTokensFilters.get(a);
-
-                if (SimpleName.wildcardMatch(simpleName, inclTokens)) {
-                    // flag it can be included and...
-                    include = true;
-
-                    // ...can bail out after first match
-                    break;
-                }
-            }
-        }
+        // if there are any inclusion filters, one must match...
+        WildcardMatcher inclFilters = _inclFilters;
+        if (inclFilters != null && !inclFilters.matches(simpleName))
+            return false;
 
-        // now check if there are any "opt-outs"
-        List<String[]> exclTokensFilters = _exclTokensFilters;
-        if (exclTokensFilters != null) {
-            int len = exclTokensFilters.size();
-
-            for (int a = 0; a < len; a++) {
-                String[] exclTokens = exclTokensFilters.get(a);
-
-                if (SimpleName.wildcardMatch(simpleName, exclTokens)) {
-                    // flag it must be excluded
-                    include = false;
-
-                    // ... bail out
-                    break;
-                }
-            }
-        }
-
-        return include;
+        // ...and none of the "opt-outs"
+        return !_exclFilters.matches(simpleName);
     }
     
     /**
@@ -663,24 +623,26 @@ public class NodelHost {
     }
     
     /**
-     * Converts a list of simple filters into tokens that are used more efficiently later when matching.
+     * Compiles a list of simple filters into a single matcher (null if there are none)
      */
-    private static List<String[]> intoTokensList(String[] filters) {
+    private static WildcardMatcher intoMatcher(String[] filters) {
         if (filters == null)
-            return Collections.emptyList();
+            return null;
 
-        List<String[]> list = new ArrayList<String[]>();
+        List<WildcardMatcher> list = new ArrayList<WildcardMatcher>();
 
         for (int a = 0; a < filters.length; a++) {
             String filter = filters[a];
             if (Strings.isBlank(filter))
                 continue;
 
-            String[] tokens = SimpleName.wildcardMatchTokens(filter);
-            list.add(tokens);
+            list.add(WildcardMatcher.compile(filter));
         }
 
-        return list;
+        if (list.isEmpty())
+            return null;
+
+        return WildcardMatcher.anyOf(list);
     }
     
     /**
@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.joda.time.DateTime;
+import org.nodel.Handler;
 import org.nodel.SimpleName;
 import org.nodel.Strings;
 import org.nodel.core.Nodel;
@@ -34,6 +35,7 @@ import org.nodel.discovery.AdvertisementInfo;
 import org.nodel.discovery.AutoDNS;
 import org.nodel.discovery.TopologyWatcher;
 import org.nodel.host.BaseNode;
+import org.nodel.host.ConsoleLogEntry;
 import org.nodel.io.Stream;
 import org.nodel.io.UTF8Charset;
 import org.nodel.json.XML;
@@ -272,7 +274,7 @@ public class NodelHostHTTPD extends NanoHTTPD {
         // 'http://example/nodes/index.htm'
         if (parts.length >= 2 && parts[0].equalsIgnoreCase("nodes")) {
             // the second part will be the node name
-            SimpleName nodeName = new SimpleName(parts[1]);
+            SimpleName nodeName = SimpleName.intern(parts[1]);
 
             BaseNode node = BaseNode.getNode(nodeName);
 
@@ -320,6 +322,13 @@ public class NodelHostHTTPD extends NanoHTTPD {
 
             parts = newParts;
 
+            // push streams of logs for clients that ask for them (e.g. EventSource)
+            if (isEventStreamRequest(method, request)) {
+                Response eventStream = tryServeEventStream(restTarget, parts, params, request);
+                if (eventStream != null)
+                    return eventStream;
+            }
+
             try {
                 Object target;
 
@@ -593,6 +602,146 @@ public class NodelHostHTTPD extends NanoHTTPD {
         
     }
     
+    /**
+     * Whether the client wants a 'text/event-stream' instead of JSON.
+     */
+    private static boolean isEventStreamRequest(String method, Request request) {
+        if (!method.equalsIgnoreCase("GET"))
+            return false;
+
+        String accept = request.header.getProperty("accept");
+        return accept != null && accept.contains("text/event-stream");
+    }
+
+    /**
+     * Serves 'logs' and 'console' for a node and the host-wide 'logs' as Server-Sent Events, or
+     * returns null if not an event stream endpoint.
+     * 
+     * Entries are pushed as they're appended (no polling) with the sequence number as the event ID.
+     * Streams resume from 'Last-Event-ID' (or the 'from' argument), otherwise start with the most
+     * recent 'max' entries (default 100).
+     */
+    private Response tryServeEventStream(Object restTarget, String[] parts, Properties params, Request request) {
+        if (parts.length != 1)
+            return null;
+
+        long from = -1;
+        String lastEventID = request.header.getProperty("last-event-id");
+        String fromArg = params.getProperty("from");
+        try {
+            if (!Strings.isEmpty(lastEventID))
+                from = Long.parseLong(lastEventID.trim()) + 1;
+            else if (!Strings.isEmpty(fromArg))
+                from = Long.parseLong(fromArg.trim());
+        } catch (NumberFormatException exc) {
+            // ignore, start from recent
+        }
+
+        int max = 100;
+        try {
+            String maxArg = params.getProperty("max");
+            if (!Strings.isEmpty(maxArg))
+                max = Integer.parseInt(maxArg.trim());
+        } catch (NumberFormatException exc) {
+            // ignore, use default
+        }
+
+        final EventStreamResponse response = new EventStreamResponse();
+        String endpoint = parts[0];
+
+        if (restTarget instanceof BaseNode && endpoint.equals("logs")) {
+            final BaseNode node = (BaseNode) restTarget;
+
+            final Handler.H1<org.nodel.host.LogEntry> handler = new Handler.H1<org.nodel.host.LogEntry>() {
+
+                @Override
+                public void handle(org.nodel.host.LogEntry entry) {
+                    response.emit(entry.seq, entry);
+                }
+
+            };
+
+            List<org.nodel.host.LogEntry> backlog = node.registerLogHandler(handler, Math.max(from, 0));
+            for (org.nodel.host.LogEntry entry : recent(backlog, from, max))
+                response.emitBacklog(entry.seq, entry);
+            response.endBacklog();
+
+            response.setCloseHandler(new Handler.H0() {
+
+                @Override
+                public void handle() {
+                    node.unregisterActivityHandler(handler);
+                }
+
+            });
+
+        } else if (restTarget instanceof BaseNode && endpoint.equals("console")) {
+            final BaseNode node = (BaseNode) restTarget;
+
+            final Handler.H1<ConsoleLogEntry> handler = new Handler.H1<ConsoleLogEntry>() {
+
+                @Override
+                public void handle(ConsoleLogEntry entry) {
+                    response.emit(entry.seq, entry);
+                }
+
+            };
+
+            List<ConsoleLogEntry> backlog = node.registerConsoleHandler(handler, Math.max(from, 0));
+            for (ConsoleLogEntry entry : recent(backlog, from, max))
+                response.emitBacklog(entry.seq, entry);
+            response.endBacklog();
+
+            response.setCloseHandler(new Handler.H0() {
+
+                @Override
+                public void handle() {
+                    node.unregisterConsoleHandler(handler);
+                }
+
+            });
+
+        } else if (restTarget == _restModel && endpoint.equals("logs")) {
+            final Handler.H1<LogEntry> handler = new Handler.H1<LogEntry>() {
+
+                @Override
+                public void handle(LogEntry entry) {
+                    response.emit(entry.seq, entry);
+                }
+
+            };
+
+            List<LogEntry> backlog = Logging.instance().registerHandler(handler, Math.max(from, 0));
+            for (LogEntry entry : recent(backlog, from, max))
+                response.emitBacklog(entry.seq, entry);
+            response.endBacklog();
+
+            response.setCloseHandler(new Handler.H0() {
+
+                @Override
+                public void handle() {
+                    Logging.instance().unregisterHandler(handler);
+                }
+
+            });
+
+        } else {
+            return null;
+        }
+
+        return response;
+    }
+
+    /**
+     * All of the backlog if resuming, otherwise only the most recent.
+     */
+    private static <T> List<T> recent(List<T> backlog, long from, int max) {
+        if (from >= 0 || backlog.size() <= max)
+            return backlog;
+
+        return backlog.subList(backlog.size() - Math.max(max, 0), backlog.size());
+    }
+
     /**
      * @param node (pre-checked)
      * @return
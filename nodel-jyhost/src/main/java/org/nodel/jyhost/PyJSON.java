@@ -0,0 +1,684 @@
+package org.nodel.jyhost;
+
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+import java.math.BigInteger;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.nodel.json.JSONException;
+import org.nodel.json.JSONObject;
+import org.nodel.reflection.Serialisation;
+import org.nodel.reflection.SerialisationException;
+import org.python.core.BaseSet;
+import org.python.core.Py;
+import org.python.core.PyBoolean;
+import org.python.core.PyDictionary;
+import org.python.core.PyFloat;
+import org.python.core.PyInteger;
+import org.python.core.PyList;
+import org.python.core.PyLong;
+import org.python.core.PyObject;
+import org.python.core.PyString;
+import org.python.core.PyTuple;
+
+/**
+ * JSON straight to and from Python objects for 'json_encode' and 'json_decode' i.e. without building 'JSONObject' /
+ * Java collection trees first and then having Jython convert those again.
+ *
+ * Behaves like the 'Serialisation' based codec did, including its leniency when decoding (single quotes, unquoted
+ * strings, '=' and ';' separators, trailing commas) and keeping the order of object keys. Badly formed text raises a
+ * Python 'ValueError' (with the position) instead of a 'SerialisationException'.
+ */
+public class PyJSON {
+
+    /**
+     * Encodes a Python object (dicts, lists, tuples, sets, strings, numbers, booleans and None; anything else is
+     * serialised as a Java object).
+     */
+    public static String encode(PyObject obj) {
+        // as before, top-level strings and floats are returned as they are instead of as JSON values
+        if (obj instanceof PyString)
+            return ((PyString) obj).getString();
+
+        if (obj instanceof PyFloat)
+            return Double.toString(((PyFloat) obj).getValue());
+
+        StringBuilder sb = new StringBuilder();
+        writeValue(sb, obj);
+        return sb.toString();
+    }
+
+    /**
+     * Decodes JSON text into dicts (keys in the order they appear), lists, unicode strings, ints, longs, floats, booleans and None.
+     */
+    public static PyObject decode(String json) {
+        if (json == null)
+            throw Py.ValueError("No JSON text");
+
+        Decoder decoder = new Decoder(json);
+        PyObject result = decoder.readValue();
+
+        if (decoder.nextClean() != 0)
+            throw decoder.error("Unexpected text after value");
+
+        return result;
+    }
+
+    private static void writeValue(StringBuilder sb, PyObject obj) {
+        if (obj == null || obj == Py.None) {
+            sb.append("null");
+
+        } else if (obj instanceof PyString) {
+            quote(sb, ((PyString) obj).getString());
+
+        } else if (obj instanceof PyBoolean) {
+            // (before 'PyInteger' which it extends)
+            sb.append(((PyBoolean) obj).getBooleanValue());
+
+        } else if (obj instanceof PyInteger) {
+            sb.append(((PyInteger) obj).getValue());
+
+        } else if (obj instanceof PyLong) {
+            sb.append(((PyLong) obj).getValue());
+
+        } else if (obj instanceof PyFloat) {
+            double value = ((PyFloat) obj).getValue();
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                throw Py.ValueError("Out of range float values are not JSON compliant: " + value);
+
+            sb.append(valueToString(value));
+
+        } else if (obj instanceof PyDictionary) {
+            sb.append('{');
+            boolean first = true;
+
+            // (iterate through Python so dict subclasses e.g. OrderedDict keep their order)
+            for (PyObject key : obj.asIterable()) {
+                PyObject value = obj.__finditem__(key);
+
+                // as before, entries with no value are left out
+                if (value == null || value == Py.None)
+                    continue;
+
+                if (!first)
+                    sb.append(',');
+                first = false;
+
+                quote(sb, key instanceof PyString ? ((PyString) key).getString() : String.valueOf(key.__tojava__(Object.class)));
+                sb.append(':');
+                writeValue(sb, value);
+            }
+
+            sb.append('}');
+
+        } else if (obj instanceof PyList || obj instanceof PyTuple || obj instanceof BaseSet) {
+            sb.append('[');
+            boolean first = true;
+
+            for (PyObject item : obj.asIterable()) {
+                if (!first)
+                    sb.append(',');
+                first = false;
+
+                writeValue(sb, item);
+            }
+
+            sb.append(']');
+
+        } else {
+            // Java objects, etc.
+            sb.append(valueToString(Serialisation.wrap(obj.__tojava__(Object.class))));
+        }
+    }
+
+    /**
+     * (as the 'JSONObject' trees are written)
+     */
+    private static String valueToString(Object value) {
+        try {
+            return JSONObject.valueToString(value);
+        } catch (JSONException exc) {
+            throw new SerialisationException(exc);
+        }
+    }
+
+    /**
+     * (escapes the same way as 'JSONObject.quote')
+     */
+    private static void quote(StringBuilder sb, String string) {
+        sb.append('"');
+
+        char last = 0;
+        int len = string.length();
+        for (int i = 0; i < len; i++) {
+            char c = string.charAt(i);
+
+            switch (c) {
+                case '\\':
+                case '"':
+                    sb.append('\\').append(c);
+                    break;
+
+                case '/':
+                    if (last == '<')
+                        sb.append('\\');
+                    sb.append(c);
+                    break;
+
+                case '\b':
+                    sb.append("\\b");
+                    break;
+
+                case '\t':
+                    sb.append("\\t");
+                    break;
+
+                case '\n':
+                    sb.append("\\n");
+                    break;
+
+                case '\f':
+                    sb.append("\\f");
+                    break;
+
+                case '\r':
+                    sb.append("\\r");
+                    break;
+
+                default:
+                    if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+                        String hex = Integer.toHexString(c);
+                        sb.append("\\u");
+                        for (int pad = hex.length(); pad < 4; pad++)
+                            sb.append('0');
+                        sb.append(hex);
+
+                    } else {
+                        sb.append(c);
+                    }
+            }
+
+            last = c;
+        }
+
+        sb.append('"');
+    }
+
+    /**
+     * Recursive descent over the text, one instance per document.
+     */
+    private static class Decoder {
+
+        /**
+         * (same as 'JSONTokener' for unquoted values)
+         */
+        private final static String DELIMITERS = ",:]}/\\\"[{;=#";
+
+        private final String _text;
+
+        private final int _len;
+
+        private int _pos;
+
+        /**
+         * Keys repeat a lot (e.g. arrays of similar objects) so their strings are shared.
+         */
+        private final Map<String, PyObject> _keys = new HashMap<>();
+
+        /**
+         * (reused for strings with escapes)
+         */
+        private final StringBuilder _sb = new StringBuilder();
+
+        public Decoder(String text) {
+            _text = text;
+            _len = text.length();
+        }
+
+        /**
+         * The next character that is not whitespace (0 at the end)
+         */
+        public char nextClean() {
+            while (_pos < _len) {
+                char c = _text.charAt(_pos++);
+                if (c > ' ')
+                    return c;
+            }
+
+            return 0;
+        }
+
+        public PyObject readValue() {
+            char c = nextClean();
+
+            switch (c) {
+                case '"':
+                case '\'':
+                    return Py.newUnicode(readString(c));
+
+                case '{':
+                    return readObject();
+
+                case '[':
+                    return readArray();
+
+                case 0:
+                    throw error("Missing value");
+
+                default:
+                    _pos--;
+                    return readLiteral();
+            }
+        }
+
+        private PyDictionary readObject() {
+            PyDictionary dict = new OrderedDictionary();
+
+            for (;;) {
+                char c = nextClean();
+                if (c == '}')
+                    return dict;
+
+                if (c == 0)
+                    throw error("Expected '}'");
+
+                PyObject key = readKey(c);
+
+                // (also tolerates '=' or '=>')
+                c = nextClean();
+                if (c == '=') {
+                    if (_pos < _len && _text.charAt(_pos) == '>')
+                        _pos++;
+
+                } else if (c != ':') {
+                    throw error("Expected ':' after a key");
+                }
+
+                dict.__setitem__(key, readValue());
+
+                // (also tolerates ';')
+                c = nextClean();
+                if (c == '}')
+                    return dict;
+
+                if (c != ',' && c != ';')
+                    throw error("Expected ',' or '}'");
+            }
+        }
+
+        private PyList readArray() {
+            PyList list = new PyList();
+
+            char c = nextClean();
+            if (c == ']')
+                return list;
+
+            if (c == 0)
+                throw error("Expected ']'");
+            _pos--;
+
+            for (;;) {
+                list.append(readValue());
+
+                c = nextClean();
+                if (c == ']')
+                    return list;
+
+                if (c != ',' && c != ';')
+                    throw error("Expected ',' or ']'");
+
+                // (trailing comma)
+                c = nextClean();
+                if (c == ']')
+                    return list;
+
+                if (c == 0)
+                    throw error("Expected ']'");
+                _pos--;
+            }
+        }
+
+        private PyObject readKey(char first) {
+            String key;
+            if (first == '"' || first == '\'') {
+                key = readString(first);
+
+            } else {
+                _pos--;
+                key = readToken();
+            }
+
+            PyObject pyKey = _keys.get(key);
+            if (pyKey == null) {
+                pyKey = Py.newUnicode(key);
+                _keys.put(key, pyKey);
+            }
+
+            return pyKey;
+        }
+
+        /**
+         * (the opening quote has been consumed)
+         */
+        private String readString(char quote) {
+            int start = _pos;
+
+            // most strings have no escapes
+            for (int i = start; i < _len; i++) {
+                char c = _text.charAt(i);
+
+                if (c == quote) {
+                    _pos = i + 1;
+                    return _text.substring(start, i);
+                }
+
+                if (c == '\\' || c == '\n' || c == '\r')
+                    break;
+            }
+
+            StringBuilder sb = _sb;
+            sb.setLength(0);
+
+            for (;;) {
+                if (_pos >= _len)
+                    throw error("Unterminated string");
+
+                char c = _text.charAt(_pos++);
+
+                if (c == quote)
+                    return sb.toString();
+
+                if (c == '\n' || c == '\r')
+                    throw error("Unterminated string");
+
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+
+                if (_pos >= _len)
+                    throw error("Unterminated string");
+
+                c = _text.charAt(_pos++);
+                switch (c) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+
+                    case 't':
+                        sb.append('\t');
+                        break;
+
+                    case 'n':
+                        sb.append('\n');
+                        break;
+
+                    case 'f':
+                        sb.append('\f');
+                        break;
+
+                    case 'r':
+                        sb.append('\r');
+                        break;
+
+                    case 'u':
+                        if (_pos + 4 > _len)
+                            throw error("Illegal escape");
+
+                        try {
+                            sb.append((char) Integer.parseInt(_text.substring(_pos, _pos + 4), 16));
+                        } catch (NumberFormatException exc) {
+                            throw error("Illegal escape");
+                        }
+                        _pos += 4;
+                        break;
+
+                    case '"':
+                    case '\'':
+                    case '\\':
+                    case '/':
+                        sb.append(c);
+                        break;
+
+                    default:
+                        throw error("Illegal escape");
+                }
+            }
+        }
+
+        /**
+         * Unquoted text up to the next delimiter, trimmed.
+         */
+        private String readToken() {
+            int start = _pos;
+
+            while (_pos < _len) {
+                char c = _text.charAt(_pos);
+                if (c < ' ' || DELIMITERS.indexOf(c) >= 0)
+                    break;
+
+                _pos++;
+            }
+
+            String token = _text.substring(start, _pos).trim();
+            if (token.isEmpty())
+                throw error("Missing value");
+
+            return token;
+        }
+
+        /**
+         * true, false, null, numbers, otherwise the text itself (as 'JSONObject.stringToValue')
+         */
+        private PyObject readLiteral() {
+            String token = readToken();
+
+            if (token.equalsIgnoreCase("true"))
+                return Py.True;
+
+            if (token.equalsIgnoreCase("false"))
+                return Py.False;
+
+            if (token.equalsIgnoreCase("null"))
+                return Py.None;
+
+            char b = token.charAt(0);
+            if ((b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+') {
+                try {
+                    if (token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0) {
+                        double value = Double.parseDouble(token);
+                        if (!Double.isNaN(value) && !Double.isInfinite(value))
+                            return Py.newFloat(value);
+
+                    } else {
+                        long value = Long.parseLong(token);
+                        if (value == (int) value)
+                            return Py.newInteger((int) value);
+                        else
+                            return Py.newLong(value);
+                    }
+
+                } catch (NumberFormatException exc) {
+                    // too big for a long?
+                    try {
+                        return Py.newLong(new BigInteger(token));
+                    } catch (NumberFormatException ignore) {
+                        // treat as text
+                    }
+                }
+            }
+
+            return Py.newUnicode(token);
+        }
+
+        public RuntimeException error(String message) {
+            return Py.ValueError(message + " at character " + _pos);
+        }
+
+    } // (class)
+
+    /**
+     * A plain 'dict' as far as scripts are concerned but which keeps its keys in insertion order, as the
+     * 'LinkedHashMap' based maps of the previous decoder did.
+     */
+    static class OrderedDictionary extends PyDictionary {
+
+        private final ConcurrentMap<PyObject, PyObject> _map = new LinkedConcurrentMap();
+
+        public OrderedDictionary() {
+            // (no backing map of its own, see 'getMap')
+            super(TYPE, false);
+        }
+
+        @Override
+        public ConcurrentMap<PyObject, PyObject> getMap() {
+            return _map;
+        }
+
+    } // (class)
+
+    /**
+     * An insertion ordered map that is safe to use across threads. Iteration is over a snapshot so, like
+     * 'ConcurrentHashMap', it never fails because of concurrent changes.
+     */
+    private static class LinkedConcurrentMap extends AbstractMap<PyObject, PyObject> implements ConcurrentMap<PyObject, PyObject> {
+
+        private final LinkedHashMap<PyObject, PyObject> _map = new LinkedHashMap<>();
+
+        @Override
+        public synchronized int size() {
+            return _map.size();
+        }
+
+        @Override
+        public synchronized boolean containsKey(Object key) {
+            return _map.containsKey(key);
+        }
+
+        @Override
+        public synchronized boolean containsValue(Object value) {
+            return _map.containsValue(value);
+        }
+
+        @Override
+        public synchronized PyObject get(Object key) {
+            return _map.get(key);
+        }
+
+        @Override
+        public synchronized PyObject put(PyObject key, PyObject value) {
+            return _map.put(key, value);
+        }
+
+        @Override
+        public synchronized PyObject remove(Object key) {
+            return _map.remove(key);
+        }
+
+        @Override
+        public synchronized void clear() {
+            _map.clear();
+        }
+
+        @Override
+        public synchronized PyObject putIfAbsent(PyObject key, PyObject value) {
+            PyObject existing = _map.get(key);
+            if (existing == null)
+                _map.put(key, value);
+
+            return existing;
+        }
+
+        @Override
+        public synchronized boolean remove(Object key, Object value) {
+            PyObject existing = _map.get(key);
+            if (existing == null || !existing.equals(value))
+                return false;
+
+            _map.remove(key);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean replace(PyObject key, PyObject oldValue, PyObject newValue) {
+            PyObject existing = _map.get(key);
+            if (existing == null || !existing.equals(oldValue))
+                return false;
+
+            _map.put(key, newValue);
+            return true;
+        }
+
+        @Override
+        public synchronized PyObject replace(PyObject key, PyObject value) {
+            if (!_map.containsKey(key))
+                return null;
+
+            return _map.put(key, value);
+        }
+
+        @Override
+        public Set<Map.Entry<PyObject, PyObject>> entrySet() {
+            return new AbstractSet<Map.Entry<PyObject, PyObject>>() {
+
+                @Override
+                public int size() {
+                    return LinkedConcurrentMap.this.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<PyObject, PyObject>> iterator() {
+                    final List<Map.Entry<PyObject, PyObject>> snapshot = new ArrayList<>();
+                    synchronized (LinkedConcurrentMap.this) {
+                        for (Map.Entry<PyObject, PyObject> entry : _map.entrySet())
+                            snapshot.add(new SimpleImmutableEntry<>(entry));
+                    }
+
+                    final Iterator<Map.Entry<PyObject, PyObject>> i = snapshot.iterator();
+
+                    return new Iterator<Map.Entry<PyObject, PyObject>>() {
+
+                        private Map.Entry<PyObject, PyObject> _last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<PyObject, PyObject> next() {
+                            _last = i.next();
+                            return _last;
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (_last == null)
+                                throw new IllegalStateException();
+
+                            LinkedConcurrentMap.this.remove(_last.getKey());
+                            _last = null;
+                        }
+
+                    };
+                }
+
+            };
+        }
+
+    } // (class)
+
+}
@@ -14,13 +14,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.joda.time.DateTime;
@@ -41,6 +39,8 @@ import org.nodel.core.NodelClientEvent;
 import org.nodel.core.NodelEventHandler;
 import org.nodel.core.NodelServerAction;
 import org.nodel.core.NodelServerEvent;
+import org.nodel.diagnostics.ActiveCalls;
+import org.nodel.diagnostics.LatencyHistogram;
 import org.nodel.host.BaseDynamicNode;
 import org.nodel.host.Binding;
 import org.nodel.host.Bindings;
@@ -123,15 +123,10 @@ public class PyNode extends BaseDynamicNode {
     private static Object s_globalLock = new Object();
     
     /**
-     * Used when calling functions in a multithreaded Python environment.
+     * For detecting never-ending functions.
+     * (lock-free so does not hold up actions and events)
      */
-    private AtomicLong _funcSeqNumber = new AtomicLong();
-    
-    /**
-     * For detecting never-ending functions. 
-     * Stores the time-in by function name.
-     */
-    private Map<String, Long> _activeFunctions = new HashMap<String, Long>();
+    private ActiveCalls _activeFunctions = new ActiveCalls(64);
     
     /**
      * The general purpose toolkit related to this node.
@@ -310,6 +305,13 @@ public class PyNode extends BaseDynamicNode {
      * (gets recycled)
      */
     private CallbackQueue _callbackQueue;
+    
+    @Service(name = "callbackQueueWaits", title = "Callback queue waits", desc = "How long callbacks have waited for their turn in the script's callback queue (since the last restart).")
+    public LatencyHistogram getCallbackQueueWaits() {
+        CallbackQueue callbackQueue = _callbackQueue;
+        
+        return callbackQueue != null ? callbackQueue.getWaits() : null;
+    }
 
     /**
      * The exception handler.
@@ -422,26 +424,14 @@ public class PyNode extends BaseDynamicNode {
     private void checkActiveFunctions() {
         StringBuilder sb = null;
         try {
-            synchronized (_activeFunctions) {
-                int count = _activeFunctions.size();
-                if (count <= 0)
-                    return;
-
-                for (Entry<String, Long> entry : _activeFunctions.entrySet()) {
-                    String name = entry.getKey();
-                    long timeIn = entry.getValue();
-                    
-                    // check if it's been stuck for more than 2 minutes
-                    long stuckMillis = (System.nanoTime() - timeIn) / 1000000;
-                    if (stuckMillis > 2 * 60000) {
-                        if (sb == null)
-                            sb = new StringBuilder();
-                        else
-                            sb.append(", ");
-                        
-                        sb.append(name + " (" + DateTimes.formatShortDuration(stuckMillis) + " ago)");
-                    }
-                }
+            // check if any have been stuck for more than 2 minutes
+            for (ActiveCalls.Call call : _activeFunctions.getCalls(2 * 60000)) {
+                if (sb == null)
+                    sb = new StringBuilder();
+                else
+                    sb.append(", ");
+
+                sb.append(call.getName() + " (" + DateTimes.formatShortDuration(call.getMillis()) + " ago)");
             }
 
             if (sb != null) {
@@ -556,17 +546,18 @@ public class PyNode extends BaseDynamicNode {
         _globals = new PyDictionary();
         
         ReentrantLock lock = null;
+        ActiveCalls.Call call = null;
         
         try {
             lock = getAReentrantLock();
             
-            trackFunction("(instance creation)");
+            call = trackFunction("(instance creation)");
 
             // _python = new PythonInterpreter(globals, pySystemState);
             _python = PythonInterpreter.threadLocalStateInterpreter(_globals);
 
         } finally {
-            untrackFunction("(instance creation)");
+            untrackFunction(call);
             
             if (lock != null)
                 lock.unlock();
@@ -615,16 +606,17 @@ public class PyNode extends BaseDynamicNode {
             injectToolkit();
             
             lock = null;
+            call = null;
             try {
                 lock = getAReentrantLock();
                 
-                trackFunction("(toolkit injection)");
+                call = trackFunction("(toolkit injection)");
                 
                 // use this import to provide a toolkit directly into the script
                 _python.exec("from nodetoolkit import *");
                 
             } finally {
-                untrackFunction("(toolkit injection)");
+                untrackFunction(call);
                 
                 if (lock != null)
                     lock.unlock();
@@ -660,10 +652,11 @@ public class PyNode extends BaseDynamicNode {
                     throw new FileNotFoundException(filename + " is listed as a dependency but missing");
                 
                 lock = null;
+                call = null;
                 try {
                     lock = getAReentrantLock();
                     
-                    trackFunction("(" + filename + " loading)");
+                    call = trackFunction("(" + filename + " loading)");
                     
                     // execute the script file
                     _python.execfile(pythonFile.getAbsolutePath());
@@ -671,7 +664,7 @@ public class PyNode extends BaseDynamicNode {
                     dependenciesUsed.add(filename);
                     
                 } finally {
-                    untrackFunction("(" + filename + " loading)");
+                    untrackFunction(call);
                     
                     if (lock != null)
                         lock.unlock();
@@ -729,13 +722,14 @@ public class PyNode extends BaseDynamicNode {
             
             try {
                 lock = null;
+                call = null;
                 try {
                     lock = getAReentrantLock();
                     
                     // the commentary list for main-related
                     List<String> commentary = new ArrayList<>(3);
 
-                    trackFunction("mains");
+                    call = trackFunction("mains");
                     
                     // handle @before_main functions (if present)
                     PyFunction processBeforeMainFunctions = (PyFunction) _globals.get(Py.java2py("processBeforeMainFunctions"));
@@ -792,7 +786,7 @@ public class PyNode extends BaseDynamicNode {
                     _outReader.inject(msg);
 
                 } finally {
-                    untrackFunction("mains");
+                    untrackFunction(call);
 
                     if (lock != null)
                         lock.unlock();
@@ -1005,6 +999,9 @@ public class PyNode extends BaseDynamicNode {
 
         for (final Entry<SimpleName, Binding> entry : actions.entrySet()) {
             Binding binding = entry.getValue();
+            
+            final BoundFunction function = resolveFunction("local_action_" + entry.getKey());
+            
             // (Nodel layer)
             //String title, String desc, String group, String caution, Map<String, Object> argSchema
             NodelServerAction serverAction = new NodelServerAction(_name.getOriginalName(), entry.getKey().getReducedName(), binding);
@@ -1014,7 +1011,7 @@ public class PyNode extends BaseDynamicNode {
                 @Override
                 public void handleActionRequest(Object arg) {
                     addLog(DateTime.now(), LogEntry.Source.local, LogEntry.Type.action, entry.getKey(), arg);
-                    PyNode.this.handleActionRequest(entry.getKey(), arg);
+                    PyNode.this.handleActionRequest(entry.getKey(), function, arg);
                 }
 
             });
@@ -1035,45 +1032,85 @@ public class PyNode extends BaseDynamicNode {
         return actions.size();
     } // (method)
     
+    /**
+     * A binding's Python function, resolved once when the bindings are applied (i.e. with every new interpreter)
+     * instead of on every call.
+     */
+    private static class BoundFunction {
+
+        /**
+         * e.g. 'local_action_Power'
+         */
+        final String name;
+
+        /**
+         * (null if it could not be resolved)
+         */
+        final PyFunction function;
+
+        /**
+         * Only 0 or 1 args are supported.
+         */
+        final boolean takesArg;
+
+        BoundFunction(String name, PyFunction function, boolean takesArg) {
+            this.name = name;
+            this.function = function;
+            this.takesArg = takesArg;
+        }
+
+    } // (class)
+
+    /**
+     * Looks up a binding's function in the current interpreter.
+     * (assumes locked)
+     */
+    private BoundFunction resolveFunction(String functionName) {
+        PyObject pyObject = _globals.get(Py.java2py(functionName));
+        if (!(pyObject instanceof PyFunction)) {
+            _logger.warn("Python interpreter function resolution failed when it should not have. name:'{}', class:{} value:{}", 
+                    functionName, pyObject == null ? null : pyObject.getClass(), pyObject);
+
+            return new BoundFunction(functionName, null, false);
+        }
+
+        PyFunction pyFunction = (PyFunction) pyObject;
+        PyBaseCode code = (PyBaseCode) pyFunction.func_code;
+
+        return new BoundFunction(functionName, pyFunction, code.co_argcount != 0);
+    }
+    
     /**
      * When an action request arrives via Nodel layer.
-     * @throws Exception 
+     * (resolves the function on every call, as it always did; bound actions use the resolved function instead)
      */
+    @Deprecated
     protected Object handleActionRequest(SimpleName action, Object arg) {
+        return handleActionRequest(action, resolveFunction("local_action_" + action), arg);
+    }
+
+    /**
+     * When an action request arrives via Nodel layer.
+     */
+    private Object handleActionRequest(SimpleName action, BoundFunction function, Object arg) {
         _logger.info("Action requested - {}", action);
         
-        // is a threaded environment so need sequence numbering
-        long num = _funcSeqNumber.getAndIncrement();
-        
-        String functionName = "local_action_" + action;
-        
-        String functionKey = functionName + "_" + num;
+        ActiveCalls.Call call = trackFunction(function.name);
 
         try {
-            synchronized (_activeFunctions) {
-                _activeFunctions.put(functionKey, System.nanoTime());
-            }
-            
             PySystemState systemState = _pySystemState;
             if (systemState == null)
                 throw new IllegalStateException("Python interpreter not ready.");
             
             Py.setSystemState(systemState);
             
-            PyObject pyObject = _globals.get(Py.java2py(functionName));
-            if (!(pyObject instanceof PyFunction)) {
-                _logger.warn("Python interpreter function resolution failed when it should not have. name:'{}', class:{} value:{}", 
-                        functionName, pyObject == null? null: pyObject.getClass(), pyObject);
-                
-                throw new IllegalStateException("Action call failure (internal server error) - '" + functionName + "'");
-            }
-            
-            PyFunction pyFunction = (PyFunction) pyObject;
-            PyBaseCode code = (PyBaseCode) pyFunction.func_code;
+            PyFunction pyFunction = function.function;
+            if (pyFunction == null)
+                throw new IllegalStateException("Action call failure (internal server error) - '" + function.name + "'");
 
             // only support either 0 or 1 args
             PyObject pyResult;
-            if (code.co_argcount == 0)
+            if (!function.takesArg)
                 pyResult = pyFunction.__call__();
             else
                 pyResult = pyFunction.__call__(Py.java2py(arg));
@@ -1088,10 +1125,7 @@ public class PyNode extends BaseDynamicNode {
             throw new RuntimeException(exc);
             
         } finally {
-            // clean up the active function map and temporary argument
-            synchronized(_activeFunctions) {
-                _activeFunctions.remove(functionKey);
-            }
+            untrackFunction(call);
         }
     } // (method)
         
@@ -1259,6 +1293,8 @@ public class PyNode extends BaseDynamicNode {
             NodelEventInfo eventInfo = entry.getValue();
             
             final String pythonEvent = "remote_event_" + alias;
+            
+            final BoundFunction function = resolveFunction(pythonEvent);
 
             String nodeName = eventInfo.node;
             String eventName = eventInfo.event;
@@ -1275,7 +1311,7 @@ public class PyNode extends BaseDynamicNode {
                 
                 @Override
                 public void handleEvent(SimpleName node, SimpleName event, Object arg) {
-                    handleRemoteEventArrival(alias, nodelClientEvent, pythonEvent, arg);
+                    handleRemoteEventArrival(alias, nodelClientEvent, function, arg);
                 }
                 
             });
@@ -1307,19 +1343,12 @@ public class PyNode extends BaseDynamicNode {
     /**
      * When an event arrives via Nodel layer.
      */
-    private void handleRemoteEventArrival(SimpleName alias, NodelClientEvent nodelClientEvent, String functionName, Object arg) {
+    private void handleRemoteEventArrival(SimpleName alias, NodelClientEvent nodelClientEvent, BoundFunction function, Object arg) {
         _logger.info("Event arrived - {}", nodelClientEvent.getNodelPoint());
         
         addLog(DateTime.now(), LogEntry.Source.remote, LogEntry.Type.event, alias, arg);
         
-        // is a threaded environment so need sequence numbering
-        long num = _funcSeqNumber.getAndIncrement();
-        
-        String functionKey = functionName + "_" + num;
-        
-        synchronized (_activeFunctions) {
-            _activeFunctions.put(functionKey, System.nanoTime());
-        }
+        ActiveCalls.Call call = trackFunction(function.name);
 
         try {
             PySystemState systemState = _pySystemState;
@@ -1328,19 +1357,12 @@ public class PyNode extends BaseDynamicNode {
             
             Py.setSystemState(systemState);
             
-            PyObject pyObject = _globals.get(Py.java2py(functionName));
-            if (!(pyObject instanceof PyFunction)) {
-                _logger.warn("Python interpreter function resolution failed when it should not have. name:'{}', class:{} value:{}", 
-                        functionName, pyObject == null ? null : pyObject.getClass(), pyObject);
-
-                throw new IllegalStateException("Event handling failure (internal server error) - '" + functionName + "'");
-            }
-
-            PyFunction pyFunction = (PyFunction) pyObject;
-            PyBaseCode code = (PyBaseCode) pyFunction.func_code;
+            PyFunction pyFunction = function.function;
+            if (pyFunction == null)
+                throw new IllegalStateException("Event handling failure (internal server error) - '" + function.name + "'");
 
             // only support either 0 or 1 args
-            if (code.co_argcount == 0)
+            if (!function.takesArg)
                 pyFunction.__call__();
             else
                 pyFunction.__call__(Py.java2py(arg));
@@ -1353,10 +1375,7 @@ public class PyNode extends BaseDynamicNode {
             throw new RuntimeException(exc);
             
         } finally {
-            // clean up the and active function map temporary argument
-            synchronized (_activeFunctions) {
-                _activeFunctions.remove(functionKey);
-            }
+            untrackFunction(call);
         }
 
     } // (method)
@@ -1442,10 +1461,10 @@ public class PyNode extends BaseDynamicNode {
             throw new RuntimeException("The interpreter has not been initialised yet.");
         
         // for keeping track of stuck threads
-        String functionKey = "eval" + (!Strings.isBlank(source) ? "_" + source : "") + "_" + _funcSeqNumber.getAndIncrement();
+        ActiveCalls.Call call = null;
         
         try {
-            trackFunction(functionKey);
+            call = trackFunction("eval" + (!Strings.isBlank(source) ? "_" + source : ""));
 
             Threads.AsyncResult<Object> op = Threads.executeAsync(new Callable<Object>() {
 
@@ -1460,7 +1479,7 @@ public class PyNode extends BaseDynamicNode {
             
         } finally {
             // clean up
-            untrackFunction(functionKey);
+            untrackFunction(call);
         }
     } // (method)
 
@@ -1480,10 +1499,10 @@ public class PyNode extends BaseDynamicNode {
         if (python == null)
             throw new RuntimeException("The interpreter has not been initialised yet.");
 
-        String functionKey = "exec" + (!Strings.isBlank(source) ? "_" + source : "") + "_" + _funcSeqNumber.getAndIncrement();
+        ActiveCalls.Call call = null;
 
         try {
-            trackFunction(functionKey);
+            call = trackFunction("exec" + (!Strings.isBlank(source) ? "_" + source : ""));
             
             Threads.AsyncResult<Object> op = Threads.executeAsync(new Callable<Object>() {
 
@@ -1509,7 +1528,7 @@ public class PyNode extends BaseDynamicNode {
             
         } finally {
             // clean up
-            untrackFunction(functionKey);
+            untrackFunction(call);
         }
     } // (method)
     
@@ -1640,20 +1659,16 @@ public class PyNode extends BaseDynamicNode {
      * Tracks dead (never-ending) functions.
      * Done just after 'try' section.
      */
-    private void trackFunction(String functionKey) {
-        synchronized (_activeFunctions) {
-            _activeFunctions.put(functionKey, System.nanoTime());
-        }
+    private ActiveCalls.Call trackFunction(String name) {
+        return _activeFunctions.enter(name);
     }
 
     /**
-     * (opposite of 'trackFunction')
+     * (opposite of 'trackFunction', null is ignored)
      * Done within 'finally' section.
      */
-    private void untrackFunction(String functionKey) {
-        synchronized (_activeFunctions) {
-            _activeFunctions.remove(functionKey);
-        }
+    private void untrackFunction(ActiveCalls.Call call) {
+        _activeFunctions.exit(call);
     }
 
     /**
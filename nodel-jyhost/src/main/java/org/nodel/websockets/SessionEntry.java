@@ -2,24 +2,72 @@ package org.nodel.websockets;
 
 import org.nanohttpd.protocols.websockets.WebSocket;
 import org.nodel.Handler;
+import org.nodel.SimpleName;
+import org.nodel.WildcardMatcher;
+import org.nodel.diagnostics.SharableMeasurementProvider;
 import org.nodel.host.BaseNode;
 import org.nodel.host.LogEntry;
 import org.nodel.threading.TimerTask;
 
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SessionEntry {
     public boolean busy = false;
 
     public WebSocket webSocket;
 
+    /**
+     * (null for a host-level session)
+     */
     public BaseNode node;
 
+    /**
+     * The node subscriptions of a host-level session (null for a node session)
+     */
+    public Map<SimpleName, Subscription> subscriptions;
+
     public Handler.H1<LogEntry> activityHandler;
 
+    /**
+     * Control messages (history, pings, etc.) which are always sent ahead of activity.
+     */
     public Queue<QueueEntry> sendQueue = new LinkedList<QueueEntry>();
 
+    /**
+     * Pending live activity conflated by (node, source, type, alias) so only the latest value of each is sent.
+     * (in 'seq' order, a replaced value moves to the back)
+     */
+    public Map<String, WebSocketMessage> pendingActivity = new LinkedHashMap<String, WebSocketMessage>();
+
+    /**
+     * Activity superseded before it could be sent (this session).
+     */
+    public long conflated;
+
+    /**
+     * Set once the session is closing (including when it has fallen too far behind), nothing more is queued.
+     */
+    public boolean closing;
+
+    /**
+     * Pending messages and activity (shared by all sessions of the node)
+     */
+    public SharableMeasurementProvider counterPending;
+
+    /**
+     * Superseded activity (shared by all sessions of the node)
+     */
+    public SharableMeasurementProvider counterConflated;
+
+    /**
+     * Disconnects to resync (shared by all sessions of the node)
+     */
+    public SharableMeasurementProvider counterResyncs;
+
     public TimerTask pingTimer;
 
     /**
@@ -31,5 +79,41 @@ public class SessionEntry {
     public SessionEntry(WebSocket webSocket, BaseNode node) {
         this.webSocket = webSocket;
         this.node = node;
+
+        if (node == null)
+            this.subscriptions = new ConcurrentHashMap<SimpleName, Subscription>();
+    }
+
+    /**
+     * A node subscription of a host-level session.
+     */
+    public static class Subscription {
+
+        public BaseNode node;
+
+        public Handler.H1<LogEntry> activityHandler;
+
+        /**
+         * Alias wildcard filters, compiled (null for everything)
+         */
+        public WildcardMatcher filters;
+
+        /**
+         * Whether the activity passes the filters.
+         */
+        public boolean matches(LogEntry activity) {
+            if (filters == null)
+                return true;
+
+            return filters.matches(activity.alias);
+        }
+    }
+
+    /**
+     * The number of messages and activity waiting to be sent (this session).
+     * (assumes locked)
+     */
+    public int depth() {
+        return sendQueue.size() + pendingActivity.size();
     }
 }
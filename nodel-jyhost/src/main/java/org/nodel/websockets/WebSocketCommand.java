@@ -0,0 +1,22 @@
+package org.nodel.websockets;
+
+import org.nodel.reflection.Value;
+
+/**
+ * A command sent by the client of a host-level (multiplexed) session.
+ */
+public class WebSocketCommand {
+
+    @Value(name = "op", title = "Operation", desc = "'subscribe' or 'unsubscribe'")
+    public String op;
+
+    @Value(name = "node", title = "Node", desc = "The node name.")
+    public String node;
+
+    @Value(name = "from", title = "From", desc = "Resume from this activity sequence number (e.g. last seen + 1); 0 (default) for full state.")
+    public long from;
+
+    @Value(name = "filter", title = "Filter", desc = "Optional alias wildcard filters, e.g. 'Power*' (all activity if missing).")
+    public String[] filter;
+
+}
@@ -7,6 +7,8 @@ import org.nanohttpd.protocols.websockets.WebSocket;
 import org.nanohttpd.protocols.websockets.WebSocketFrame;
 import org.nodel.Handler;
 import org.nodel.SimpleName;
+import org.nodel.WildcardMatcher;
+import org.nodel.diagnostics.Diagnostics;
 import org.nodel.host.BaseNode;
 import org.nodel.host.LogEntry;
 import org.nodel.io.UnexpectedIOException;
@@ -20,6 +22,12 @@ import java.util.*;
 
 public class WebSocketInterceptor extends Interceptor {
 
+    /**
+     * The most distinct activity items and messages a session may have pending before it is considered 
+     * too far behind; it is then closed so the client reconnects and resyncs from the activity history.
+     */
+    final static int MAX_PENDING = 2000;
+
     /**
      * Timers, used for 'ping/pong'
      * (opting-out of Diagnostics registration)
@@ -45,9 +53,10 @@ public class WebSocketInterceptor extends Interceptor {
 
     /**
      * inner class
+     * (package-private for testing, the session handling is static so can be driven without a socket)
      */
 
-    private static class NodelWebSocket extends WebSocket {
+    static class NodelWebSocket extends WebSocket {
 
         public NodelWebSocket(IHTTPSession handshakeRequest) {
             super(handshakeRequest);
@@ -67,7 +76,7 @@ public class WebSocketInterceptor extends Interceptor {
                 String origName = parts[1];
 
                 // the second part will be the node name
-                SimpleName nodeName = new SimpleName(parts[1]);
+                SimpleName nodeName = SimpleName.intern(parts[1]);
 
                 BaseNode node = BaseNode.getNode(nodeName);
                 if (node == null) {
@@ -77,9 +86,11 @@ public class WebSocketInterceptor extends Interceptor {
 
                 // the node is present, establish a new session
                 newSession(this, node);
+            } else if (parts.length == 1 && parts[0].length() == 0) {
+                // is the root, a host-level session that multiplexes any number of nodes
+                newHostSession(this);
+
             } else {
-                // is the root
-                // RESERVED for possible future use, close for now
                 indicateMethodNotFound(this);
             }
         }
@@ -89,15 +100,66 @@ public class WebSocketInterceptor extends Interceptor {
          */
         private void newSession(WebSocket webSocket, BaseNode node) {
             final SessionEntry session = new SessionEntry(webSocket, node);
+
+            // counters are per node (shared by its sessions)
+            String counterName = "'" + node.getName().getReducedName() + "'";
+            session.counterPending = Diagnostics.shared().registerSharableCounter(counterName + ".WebSocket pending", false);
+            session.counterConflated = Diagnostics.shared().registerSharableCounter(counterName + ".WebSocket conflated", true);
+            session.counterResyncs = Diagnostics.shared().registerSharableCounter(counterName + ".WebSocket resyncs", true);
             session.activityHandler = new Handler.H1<LogEntry>() {
 
                 @Override
                 public void handle(LogEntry activity) {
-                    handleActivityArrived(session, activity);
+                    handleActivityArrived(session, null, activity);
                 }
 
             };
 
+            startSession(session);
+
+            // get the latest history so states can be synced up
+            List<LogEntry> activityHistory = node.registerActivityHandler(session.activityHandler, 0);
+
+            // (the socket may have closed in the meantime, see 'handleCommand')
+            boolean closing;
+            synchronized (session) {
+                closing = session.closing;
+            }
+
+            if (closing) {
+                node.unregisterActivityHandler(session.activityHandler);
+                return;
+            }
+
+            // prepare the message
+            WebSocketMessage msg = new WebSocketMessage();
+            msg.activityHistory = activityHistory;
+
+            QueueEntry qe = new QueueEntry();
+            qe.msg = msg;
+
+            queueSend(session, qe);
+        }
+
+        /**
+         * Sets up a host-level session; nodes are subscribed to using commands, e.g.
+         * { "op": "subscribe", "node": "Room 1", "from": 1234, "filter": ["Power*"] }
+         * and activity is tagged with the node name.
+         */
+        private void newHostSession(WebSocket webSocket) {
+            SessionEntry session = new SessionEntry(webSocket, null);
+
+            session.counterPending = Diagnostics.shared().registerSharableCounter("WebSocket host sessions.Pending", false);
+            session.counterConflated = Diagnostics.shared().registerSharableCounter("WebSocket host sessions.Conflated", true);
+            session.counterResyncs = Diagnostics.shared().registerSharableCounter("WebSocket host sessions.Resyncs", true);
+
+            startSession(session);
+        }
+
+        /**
+         * Starts the pings and tracks the session.
+         */
+        static void startSession(final SessionEntry session) {
             // ping every 45s (read timeout is 60s)
             session.pingTimer = s_timers.schedule(new TimerTask() {
 
@@ -109,15 +171,131 @@ public class WebSocketInterceptor extends Interceptor {
             }, 45000, 45000);
 
             synchronized (_sessions) {
-                _sessions.put(webSocket, session);
+                _sessions.put(session.webSocket, session);
             }
+        }
 
-            // get the latest history so states can be synced up
-            List<LogEntry> activityHistory = node.registerActivityHandler(session.activityHandler, 0);
+        /**
+         * Handles a command from the client of a host-level session.
+         */
+        static void handleCommand(final SessionEntry session, String json) {
+            WebSocketCommand command;
+            try {
+                command = (WebSocketCommand) Serialisation.coerceFromJSON(WebSocketCommand.class, json);
+            } catch (Exception exc) {
+                indicateError(session, null, "Could not parse command");
+                return;
+            }
 
-            // prepare the message
+            if (command == null || command.node == null) {
+                indicateError(session, null, "Missing node");
+                return;
+            }
+
+            final String nodeName = command.node;
+            SimpleName name = SimpleName.intern(nodeName);
+
+            if ("subscribe".equalsIgnoreCase(command.op)) {
+                final BaseNode node = BaseNode.getNode(name);
+                if (node == null) {
+                    indicateError(session, nodeName, "Node not found");
+                    return;
+                }
+
+                final SessionEntry.Subscription subscription = new SessionEntry.Subscription();
+                subscription.node = node;
+
+                if (command.filter != null && command.filter.length > 0) {
+                    List<WildcardMatcher> filters = new ArrayList<WildcardMatcher>(command.filter.length);
+                    for (String filter : command.filter)
+                        filters.add(WildcardMatcher.compile(filter));
+
+                    subscription.filters = WildcardMatcher.anyOf(filters);
+                }
+
+                subscription.activityHandler = new Handler.H1<LogEntry>() {
+
+                    @Override
+                    public void handle(LogEntry activity) {
+                        if (subscription.matches(activity))
+                            handleActivityArrived(session, nodeName, activity);
+                    }
+
+                };
+
+                // replace any existing subscription (e.g. to change filters)
+                SessionEntry.Subscription previous;
+                synchronized (session) {
+                    if (session.closing)
+                        return;
+
+                    previous = session.subscriptions.put(name, subscription);
+                }
+
+                if (previous != null)
+                    previous.node.unregisterActivityHandler(previous.activityHandler);
+
+                // get the history from where the client is up to (e.g. on reconnect)
+                // (can't register under the session lock, activity arrives under the node's lock and then takes it)
+                List<LogEntry> activityHistory = node.registerActivityHandler(subscription.activityHandler, command.from);
+
+                // the session may have closed (or the subscription been replaced) in the meantime
+                boolean stale;
+                synchronized (session) {
+                    stale = session.closing || session.subscriptions.get(name) != subscription;
+                }
+
+                if (stale) {
+                    node.unregisterActivityHandler(subscription.activityHandler);
+                    return;
+                }
+
+                List<LogEntry> filtered = new ArrayList<LogEntry>(activityHistory.size());
+                for (LogEntry activity : activityHistory) {
+                    if (subscription.matches(activity))
+                        filtered.add(activity);
+                }
+
+                WebSocketMessage msg = new WebSocketMessage();
+                msg.node = nodeName;
+                msg.op = "subscribed";
+                msg.activityHistory = filtered;
+
+                QueueEntry qe = new QueueEntry();
+                qe.msg = msg;
+
+                queueSend(session, qe);
+
+            } else if ("unsubscribe".equalsIgnoreCase(command.op)) {
+                SessionEntry.Subscription subscription;
+                synchronized (session) {
+                    subscription = session.subscriptions.remove(name);
+                }
+
+                if (subscription != null)
+                    subscription.node.unregisterActivityHandler(subscription.activityHandler);
+
+                WebSocketMessage msg = new WebSocketMessage();
+                msg.node = nodeName;
+                msg.op = "unsubscribed";
+
+                QueueEntry qe = new QueueEntry();
+                qe.msg = msg;
+
+                queueSend(session, qe);
+
+            } else {
+                indicateError(session, nodeName, "Unknown operation");
+            }
+        }
+
+        /**
+         * (convenience method)
+         */
+        private static void indicateError(SessionEntry session, String nodeName, String error) {
             WebSocketMessage msg = new WebSocketMessage();
-            msg.activityHistory = activityHistory;
+            msg.node = nodeName;
+            msg.error = error;
 
             QueueEntry qe = new QueueEntry();
             qe.msg = msg;
@@ -128,7 +306,7 @@ public class WebSocketInterceptor extends Interceptor {
         /**
          * (timer entry-point)
          */
-        private void handlePingTimer(SessionEntry session) {
+        private static void handlePingTimer(SessionEntry session) {
             // check whether too much time has passed
             long diff = (session.lastReceive - System.currentTimeMillis()) / 1000000;
             if (diff > 120000) {
@@ -146,55 +324,134 @@ public class WebSocketInterceptor extends Interceptor {
          * (must not-block)
          * (onActivity callback)
          */
-        private void handleActivityArrived(SessionEntry session, LogEntry activity) {
+        static void handleActivityArrived(final SessionEntry session, String nodeName, LogEntry activity) {
+            String key = nodeName + "|" + activity.source + "|" + activity.type + "|" + activity.alias;
+
             WebSocketMessage msg = new WebSocketMessage();
+            msg.node = nodeName;
             msg.activity = activity;
 
-            QueueEntry qe = new QueueEntry();
-            qe.msg = msg;
+            synchronized (session) {
+                if (session.closing)
+                    return;
 
-            queueSend(session, qe);
+                // replace any pending value, moving it to the back so pending activity stays in 'seq' order
+                // (a client resuming from the last 'seq' it got must not have skipped older, still pending, activity)
+                WebSocketMessage previous = session.pendingActivity.remove(key);
+                session.pendingActivity.put(key, msg);
+
+                if (previous != null) {
+                    session.conflated++;
+                    session.counterConflated.incr();
+
+                } else {
+                    session.counterPending.incr();
+
+                    if (session.depth() > MAX_PENDING) {
+                        startResync(session);
+                        return;
+                    }
+                }
+
+                kickProcessor(session);
+            }
+        }
+
+        /**
+         * Drops everything pending and closes the socket; the client will reconnect and get the history.
+         * (assumes locked)
+         */
+        private static void startResync(final SessionEntry session) {
+            session.closing = true;
+            session.counterResyncs.incr();
+
+            session.counterPending.add(-session.depth());
+            session.pendingActivity.clear();
+            session.sendQueue.clear();
+
+            // (close can block, so never on the activity thread)
+            s_threadPool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        session.webSocket.close(CloseCode.GoingAway, "Too far behind, please resync");
+                    } catch (Exception exc) {
+                        // ignore
+                    }
+                }
+
+            });
         }
 
 
         /**
          * Queues the message to be set immediately (without blocking)
          */
-        private void queueSend(final SessionEntry session, QueueEntry qe) {
+        private static void queueSend(final SessionEntry session, QueueEntry qe) {
             synchronized (session) {
+                if (session.closing)
+                    return;
+
                 // add to the queue
                 session.sendQueue.add(qe);
+                session.counterPending.incr();
 
-                // kick off processor if necessary
-                if (!session.busy) {
-                    session.busy = true;
+                if (session.depth() > MAX_PENDING) {
+                    startResync(session);
+                    return;
+                }
 
-                    // run on the thread-pool
-                    s_threadPool.execute(new Runnable() {
+                kickProcessor(session);
+            }
+        }
 
-                        @Override
-                        public void run() {
-                            processQueue(session);
-                        }
+        /**
+         * Starts the processor if it isn't already running.
+         * (assumes locked)
+         */
+        private static void kickProcessor(final SessionEntry session) {
+            if (!session.busy) {
+                session.busy = true;
 
-                    });
-                }
+                // run on the thread-pool
+                s_threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        processQueue(session);
+                    }
+
+                });
             }
         }
 
         /**
          * Process the message queue (within a thread-pool)
          */
-        private void processQueue(SessionEntry session) {
+        static void processQueue(SessionEntry session) {
             for (; ; ) {
                 QueueEntry qe;
 
                 synchronized (session) {
+                    // control messages first...
                     qe = session.sendQueue.poll();
+
+                    // ...then the oldest pending activity
+                    if (qe == null && !session.pendingActivity.isEmpty()) {
+                        Iterator<WebSocketMessage> i = session.pendingActivity.values().iterator();
+
+                        qe = new QueueEntry();
+                        qe.msg = i.next();
+                        i.remove();
+                    }
+
                     if (qe == null) {
                         session.busy = false;
                         return;
                     }
+
+                    session.counterPending.decr();
                 }
 
                 // 'busy' flag will stay high while data is being sent
@@ -230,7 +487,28 @@ public class WebSocketInterceptor extends Interceptor {
                 if (session == null)
                     return;
 
-                session.node.unregisterActivityHandler(session.activityHandler);
+                // nothing more will be sent or subscribed to (see 'handleCommand')
+                List<SessionEntry.Subscription> subscriptions = null;
+
+                synchronized (session) {
+                    session.closing = true;
+                    session.counterPending.add(-session.depth());
+                    session.pendingActivity.clear();
+                    session.sendQueue.clear();
+
+                    if (session.subscriptions != null) {
+                        subscriptions = new ArrayList<SessionEntry.Subscription>(session.subscriptions.values());
+                        session.subscriptions.clear();
+                    }
+                }
+
+                if (session.node != null)
+                    session.node.unregisterActivityHandler(session.activityHandler);
+
+                if (subscriptions != null) {
+                    for (SessionEntry.Subscription subscription : subscriptions)
+                        subscription.node.unregisterActivityHandler(subscription.activityHandler);
+                }
 
                 session.pingTimer.cancel();
 
@@ -241,13 +519,19 @@ public class WebSocketInterceptor extends Interceptor {
 
         @Override
         protected void onMessage(WebSocketFrame message) {
+            SessionEntry session;
+
             synchronized (_sessions) {
-                SessionEntry session = _sessions.get(this);
+                session = _sessions.get(this);
                 if (session == null)
                     return;
 
                 session.lastReceive = System.nanoTime();
             }
+
+            // only host-level sessions take commands
+            if (session.subscriptions != null)
+                handleCommand(session, message.getTextPayload());
         }
 
         @Override
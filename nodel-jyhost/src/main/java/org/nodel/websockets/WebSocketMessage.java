@@ -10,6 +10,9 @@ public class WebSocketMessage {
     @Value(name = "node")
     public String node;
 
+    @Value(name = "op", title = "Operation", desc = "Acknowledges a host-level session command, 'subscribed' or 'unsubscribed'")
+    public String op;
+
     @Value(name = "error")
     public String error;
 
@@ -28,13 +28,16 @@ _toolkit = nodetoolkit
 console = nodetoolkit.getConsole()
 
 
+# JSON straight to and from Python objects (natively, no intermediate Java objects)
+from org.nodel.jyhost.PyJSON import encode as _json_encode, decode as _json_decode
+
 # Simple JSON encoder
 def json_encode(obj):
-  return nodetoolkit.jsonEncode(obj)
+  return _json_encode(obj)
 
-# Simple JSON decoder
+# Simple JSON decoder (into dicts, lists, unicode strings, numbers, booleans and None)
 def json_decode(json):
-  return nodetoolkit.jsonDecode(json)
+  return _json_decode(json)
 
 # Tests whether two objects are effectively the same value (safely deeply inspects both objects)
 # (collections, arrays, maps, dicts sets, etc. are all normalised and made "comparable" where possible)
@@ -94,6 +97,12 @@ def get_url(url, method=None, query=None, username=None, password=None, headers=
   else:
     return nodetoolkit.getHttpClient().makeSimpleRequest(url, method, query, username, password, headers, contentType, post, long(connectTimeout*1000), long(readTimeout*1000))
   
+# Same as 'get_url' except returns immediately; 'complete' is called with the content (or full response) 
+# and 'error' with any exception (HTTP requests are queued per host and connections shared)
+def get_url_async(url, method=None, query=None, username=None, password=None, headers=None, contentType=None, post=None, connectTimeout=10, readTimeout=15, fullResponse=False,
+                  complete=None, error=None):
+  nodetoolkit.getURLAsync(url, method, query, username, password, headers, contentType, post, long(connectTimeout*1000), long(readTimeout*1000), fullResponse, complete, error)
+  
 # For HTTP proxy use, call this before any other HTTP client operations: 
 #     _toolkit.getHttpClient().setProxy("PROXY_HOST:PORT_PORT", USERNAME or None, PASSWORD or None)
 
@@ -105,18 +114,24 @@ def getURL(url, method=None, query=None, username=None, password=None, headers=N
   return nodetoolkit.getHttpClient().makeSimpleRequest(url, method, query, username, password, headers, contentType, post, long(connectTimeout*1000), long(readTimeout*1000))
 
 # A managed TCP connection that attempts to stay open (includes instrumentation)
-def TCP(dest=None, connected=None, received=None, sent=None, disconnected=None, timeout=None, sendDelimiters='\n', receiveDelimiters='\r\n', binaryStartStopFlags=None):
-  return nodetoolkit.createTCP(dest, connected, received, sent, disconnected, timeout, sendDelimiters, receiveDelimiters, binaryStartStopFlags)
+# ('receivedBytes' delivers data as byte arrays instead of strings, untrimmed)
+# ('framer' assembles received data in place of the delimiters, see the framers below)
+# ('shared' shares one connection with other shared TCP handles to the same 'dest', even across nodes;
+#  responses go to the requesting handle, other data to all of them)
+def TCP(dest=None, connected=None, received=None, sent=None, disconnected=None, timeout=None, sendDelimiters='\n', receiveDelimiters='\r\n', binaryStartStopFlags=None,
+        receivedBytes=None, framer=None, shared=False):
+  return nodetoolkit.createTCP(dest, connected, received, sent, disconnected, timeout, sendDelimiters, receiveDelimiters, binaryStartStopFlags, receivedBytes, framer, shared)
 
 # A managed UDP connection for sending or receiving UDP (includes instrumentation)
-def UDP(source='0.0.0.0:0', dest=None, ready=None, received=None, sent=None, intf=None):
-  return nodetoolkit.createUDP(source, dest, ready, received, sent, intf)
+# ('receivedBytes' delivers data as byte arrays instead of strings, e.g. receivedBytes(source, data))
+def UDP(source='0.0.0.0:0', dest=None, ready=None, received=None, sent=None, intf=None, receivedBytes=None):
+  return nodetoolkit.createUDP(source, dest, ready, received, sent, intf, receivedBytes)
 
 # A managed SSH connection ('shell' mode) for executing commands (includes instrumentation)
 # (see https://github.com/museumsvictoria/nodel/wiki/Scripting-Toolkit:-SSH-usage)
 def SSH(dest=None, connected=None, received=None, sent=None, disconnected=None, timeout=None, sendDelimiters='\n', receiveDelimiters='\r\n',
-        username=None, password=None, echoDisabled=False):
-  return nodetoolkit.createSSH(dest, connected, received, sent, disconnected, timeout, sendDelimiters, receiveDelimiters, username, password, echoDisabled)
+        username=None, password=None, echoDisabled=False, framer=None):
+  return nodetoolkit.createSSH(dest, connected, received, sent, disconnected, timeout, sendDelimiters, receiveDelimiters, username, password, echoDisabled, framer)
   
 # A managed processes that attempts to stay executed (includes instrumentation)
 def Process(command, # the command line and arguments
@@ -131,10 +146,31 @@ def Process(command, # the command line and arguments
            sendDelimiters='\n', receiveDelimiters='\r\n', # default delimiters
            working=None,   # working directory
            mergeErr=False, # merge  stderr into the stdout for convenience
-           env=None):      # add/set environment variables (dict)
+           env=None,       # add/set environment variables (dict)
+           framer=None):   # assembles stdout in place of the delimiters (see framers below)
   return nodetoolkit.createProcess(command, 
                                 started, stdout, stdin, stderr, stopped, timeout, sendDelimiters, receiveDelimiters,
-                                working, mergeErr, env)
+                                working, mergeErr, env, framer)
+
+# Protocol framers (frame assembly happens natively; use a new framer for each connection)
+from org.nodel.io.framing import DelimiterFramer as _DelimiterFramer, FixedLengthFramer as _FixedLengthFramer, LengthFieldFramer as _LengthFieldFramer, RegexFramer as _RegexFramer
+
+# Frames on any of the delimiter characters (untrimmed, delimiters excluded)
+def delimiter_framer(delimiters='\r\n'):
+  return _DelimiterFramer(delimiters)
+
+# Frames of a fixed number of bytes
+def fixed_length_framer(length):
+  return _FixedLengthFramer(length)
+
+# Frames with a length field: total length = offset + size + value + adjustment (whole frame passed on)
+# e.g. STX, 2-byte big-endian length (excl. header), payload: length_field_framer(offset=1, size=2)
+def length_field_framer(offset=0, size=2, bigEndian=True, adjustment=0):
+  return _LengthFieldFramer(offset, size, bigEndian, adjustment)
+
+# Each match of the pattern is a frame (bytes as 8-bit chars), e.g. regex_framer('\x02[^\x03]*\x03')
+def regex_framer(pattern):
+  return _RegexFramer(pattern)
 
 # Creates a short-living process (still managed)
 def quick_process(command,
@@ -0,0 +1,230 @@
+package org.nodel;
+
+import org.junit.jupiter.api.*;
+import org.nodel.jyhost.EventStreamResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the Server-Sent Events log streams, backlog and live ordering directly and against the
+ * test host using raw sockets.
+ */
+public class EventStreamTests extends TestBase {
+
+    private static final String TEST_NODE = "Event Stream Test Node";
+
+    private static final String CHATTY_SCRIPT =
+        "def tick():\n" +
+        "    console.info('tick')\n\n" +
+        "Timer(tick, 0.005)\n\n" +
+        "def main():\n" +
+        "    console.info('Event stream test node started')\n";
+
+    @BeforeAll
+    public static void setup() {
+        initBrowser();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        closeBrowser();
+    }
+
+    @Test
+    public void testBacklogBeforeLiveEntries() throws Exception {
+        EventStreamResponse response = new EventStreamResponse();
+
+        // live entries arriving while the backlog is still being given (5 is in both)
+        response.emit(5, "live 5");
+        response.emit(6, "live 6");
+
+        response.emitBacklog(3, "backlog 3");
+        response.emitBacklog(4, "backlog 4");
+        response.emitBacklog(5, "backlog 5");
+        response.endBacklog();
+
+        response.emit(7, "live 7");
+
+        String stream = capture(response, "id: 7\n");
+
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L), ids(stream));
+        assertTrue(stream.contains("data: backlog 5\n"), "backlog copy of 5 kept");
+        assertFalse(stream.contains("live 5"), "live copy of 5 dropped");
+    }
+
+    @Test
+    public void testNoLiveEntriesUntilBacklogEnds() throws Exception {
+        EventStreamResponse response = new EventStreamResponse();
+        response.emit(10, "live 10");
+
+        Capture out = new Capture();
+        Thread sender = start(response, out);
+
+        Thread.sleep(200);
+        assertFalse(out.text().contains("id: "), "live entry held back");
+
+        // no backlog at all
+        response.endBacklog();
+
+        out.awaitText("id: 10\n");
+        out.fail = true;
+        response.emit(11, "wake");
+        sender.join(5000);
+    }
+
+    @Test
+    public void testNodeConsoleStreamInOrder() throws Exception {
+        // (a node logging constantly so live entries race the backlog)
+        boolean created = createTestNode(TEST_NODE, CHATTY_SCRIPT);
+        assumeTrue(created, "Test node must be created and discovered");
+
+        try {
+            for (int attempt = 0; attempt < 5; attempt++) {
+                List<Long> ids = readStream("/nodes/" + encode(TEST_NODE) + "/REST/console?max=50", 100);
+
+                for (int i = 1; i < ids.size(); i++)
+                    assertTrue(ids.get(i) > ids.get(i - 1), "IDs go up: " + ids);
+            }
+
+        } finally {
+            deleteTestNode(TEST_NODE);
+        }
+    }
+
+    @Test
+    public void testHostLogsStream() throws Exception {
+        URI uri = URI.create(BASE_URL);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            socket.setSoTimeout(10000);
+
+            String request = "GET /REST/logs HTTP/1.1\r\nHost: " + uri.getHost() + "\r\nAccept: text/event-stream\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            String status = in.readLine();
+            assertTrue(status.startsWith("HTTP/1.1 200"), status);
+
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                if (line.startsWith("Content-Type:"))
+                    assertTrue(line.contains("text/event-stream"), line);
+            }
+
+            assertEquals("retry: 3000", in.readLine());
+        }
+    }
+
+    /**
+     * Opens an event stream and reads the IDs of the first 'count' entries.
+     */
+    private static List<Long> readStream(String path, int count) throws IOException {
+        URI uri = URI.create(BASE_URL);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            socket.setSoTimeout(10000);
+
+            String request = "GET " + path + " HTTP/1.1\r\nHost: " + uri.getHost() + "\r\nAccept: text/event-stream\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            String status = in.readLine();
+            assertTrue(status.startsWith("HTTP/1.1 200"), status);
+
+            List<Long> ids = new ArrayList<>();
+            String line;
+            while (ids.size() < count && (line = in.readLine()) != null) {
+                if (line.startsWith("id: "))
+                    ids.add(Long.parseLong(line.substring(4)));
+            }
+
+            assertEquals(count, ids.size(), "entries read");
+
+            return ids;
+        }
+    }
+
+    /**
+     * Runs the stream until the given text has been written, then ends it.
+     */
+    private static String capture(EventStreamResponse response, String until) throws Exception {
+        Capture out = new Capture();
+        Thread sender = start(response, out);
+
+        out.awaitText(until);
+
+        // (the next write ends the stream)
+        out.fail = true;
+        response.emit(Long.MAX_VALUE, "end");
+        sender.join(5000);
+
+        return out.text();
+    }
+
+    private static Thread start(EventStreamResponse response, OutputStream out) {
+        Thread thread = new Thread(() -> response.send(out), "EventStreamTests sender");
+        thread.start();
+        return thread;
+    }
+
+    private static List<Long> ids(String stream) {
+        List<Long> ids = new ArrayList<>();
+        for (String line : stream.split("\n")) {
+            if (line.startsWith("id: "))
+                ids.add(Long.parseLong(line.substring(4)));
+        }
+        return ids;
+    }
+
+    /**
+     * Collects what's written, failing like a dropped client when asked to.
+     */
+    private static class Capture extends OutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        volatile boolean fail;
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (fail)
+                throw new IOException("Client gone");
+            buffer.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (fail)
+                throw new IOException("Client gone");
+            buffer.write(b, off, len);
+        }
+
+        synchronized String text() {
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        void awaitText(String text) throws InterruptedException {
+            long until = System.currentTimeMillis() + 5000;
+            while (!text().contains(text) && System.currentTimeMillis() < until)
+                Thread.sleep(10);
+
+            assertTrue(text().contains(text), "stream contains " + text.trim());
+        }
+
+    }
+
+}
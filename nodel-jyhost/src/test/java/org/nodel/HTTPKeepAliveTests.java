@@ -0,0 +1,176 @@
+package org.nodel;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests HTTP/1.1 keep-alive and pipelining against the test host using raw sockets (no browser).
+ * (requests per second are measured by nodel-framework's HTTPKeepAliveBenchmark)
+ */
+public class HTTPKeepAliveTests extends TestBase {
+
+    private static final String PATH = "/REST/";
+
+    @Test
+    public void testPipelinedRequestsAnsweredInOrder() throws Exception {
+        URI uri = URI.create(BASE_URL);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            socket.setSoTimeout(10000);
+
+            // 3 requests in a single write, the 2nd one for a larger static file
+            String requests = request(uri, PATH) + request(uri, "/v1/js/nodel.js") + request(uri, PATH);
+
+            OutputStream os = socket.getOutputStream();
+            os.write(requests.getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+
+            InputStream is = new BufferedInputStream(socket.getInputStream());
+
+            int first = readResponse(is);
+            int second = readResponse(is);
+            int third = readResponse(is);
+
+            assertEquals(200, first, "first pipelined request");
+            assertEquals(200, second, "second pipelined request");
+            assertEquals(200, third, "third pipelined request");
+        }
+    }
+
+    @Test
+    public void testPostBodyDoesNotLeakIntoNextRequest() throws Exception {
+        URI uri = URI.create(BASE_URL);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            socket.setSoTimeout(10000);
+
+            String body = "{}";
+            String post = "POST /REST/nodes/__doesNotExist__/ HTTP/1.1\r\nHost: " + uri.getHost() + "\r\n" +
+                    "Content-Type: application/json\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+
+            OutputStream os = socket.getOutputStream();
+            os.write((post + request(uri, PATH)).getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+
+            InputStream is = new BufferedInputStream(socket.getInputStream());
+            readResponse(is);
+
+            assertEquals(200, readResponse(is), "request following a POST on the same connection");
+        }
+    }
+
+    @Test
+    public void testChunkedBodyRejected() throws Exception {
+        URI uri = URI.create(BASE_URL);
+
+        try (Socket socket = new Socket(uri.getHost(), uri.getPort())) {
+            socket.setSoTimeout(10000);
+
+            // a chunked body that looks like a request of its own
+            String body = request(uri, "/REST/__smuggled__");
+            String post = "POST /REST/nodes/__doesNotExist__/ HTTP/1.1\r\nHost: " + uri.getHost() + "\r\n" +
+                    "Content-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                    Integer.toHexString(body.length()) + "\r\n" + body + "\r\n0\r\n\r\n";
+
+            OutputStream os = socket.getOutputStream();
+            os.write((post + request(uri, PATH)).getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+
+            InputStream is = new BufferedInputStream(socket.getInputStream());
+
+            assertEquals(411, readResponse(is), "chunked request body");
+            assertEquals(-1, readResponse(is), "connection closed, nothing else read from it");
+        }
+    }
+
+    private static String request(URI uri, String path) {
+        return "GET " + path + " HTTP/1.1\r\nHost: " + uri.getHost() + ":" + uri.getPort() + "\r\n\r\n";
+    }
+
+    /**
+     * Reads a full response (fixed length or chunked) returning the status code, or -1 if the connection closed.
+     */
+    private static int readResponse(InputStream is) throws IOException {
+        String statusLine = readLine(is);
+        if (statusLine == null)
+            return -1;
+
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean close = false;
+
+        String line;
+        while ((line = readLine(is)) != null && !line.isEmpty()) {
+            String lower = line.toLowerCase();
+            if (lower.startsWith("content-length:"))
+                contentLength = Long.parseLong(line.substring(15).trim());
+            else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked"))
+                chunked = true;
+            else if (lower.startsWith("connection:") && lower.contains("close"))
+                close = true;
+        }
+
+        if (chunked) {
+            for (;;) {
+                String sizeLine = readLine(is);
+                if (sizeLine == null)
+                    return -1;
+
+                int semi = sizeLine.indexOf(';');
+                long size = Long.parseLong((semi >= 0 ? sizeLine.substring(0, semi) : sizeLine).trim(), 16);
+                skip(is, size);
+                readLine(is);
+
+                if (size == 0)
+                    break;
+            }
+
+        } else if (contentLength >= 0) {
+            skip(is, contentLength);
+
+        } else if (close) {
+            while (is.read() >= 0) {
+            }
+        }
+
+        return status;
+    }
+
+    private static String readLine(InputStream is) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int c;
+        while ((c = is.read()) >= 0) {
+            if (c == '\n')
+                return line.toString(StandardCharsets.US_ASCII.name()).trim();
+
+            line.write(c);
+        }
+
+        return line.size() > 0 ? line.toString(StandardCharsets.US_ASCII.name()) : null;
+    }
+
+    private static void skip(InputStream is, long count) throws IOException {
+        while (count > 0) {
+            long skipped = is.skip(count);
+            if (skipped <= 0) {
+                if (is.read() < 0)
+                    throw new IOException("Connection closed mid-response");
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+}
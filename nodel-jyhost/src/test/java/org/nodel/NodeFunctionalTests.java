@@ -117,6 +117,20 @@ public class NodeFunctionalTests extends TestBase {
         assertEquals(404, response.status(), "Non-existent action should return 404");
     }
 
+    @Test
+    @Order(13)
+    public void testJSONRoundTripInScript() {
+        // decodes into a real dict with native numbers and encodes straight back out
+        APIResponse response = apiPost(
+            "/nodes/" + encode(TEST_NODE) + "/actions/jsonRoundTrip/call",
+            "{\"arg\": \"{\\\"n\\\": 41, \\\"items\\\": [1, 2.5, true, null]}\"}"
+        );
+        assertEquals(200, response.status(), "Action call should return 200");
+
+        assertTrue(waitForConsoleContains(TEST_NODE, "JSON round trip: dict 42 [1,2.5,true,null]", 5000),
+            "Console should show the decoded types and re-encoded list");
+    }
+
     // ===== Gap 4: Console Output Tests =====
 
     @Test
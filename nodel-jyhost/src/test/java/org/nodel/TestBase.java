@@ -478,6 +478,10 @@ public abstract class TestBase {
         "    console.info('Test action called with: %s' % arg)\n" +
         "    local_event_Status.emit('Action executed: %s' % arg)\n" +
         "    return 'OK'\n\n" +
+        "@local_action({'title': 'JSON Round Trip', 'schema': {'type': 'string'}})\n" +
+        "def jsonRoundTrip(arg):\n" +
+        "    value = json_decode(arg)\n" +
+        "    console.info('JSON round trip: %s %s %s' % (type(value).__name__, value['n'] + 1, json_encode(value['items'])))\n\n" +
         "@local_action({'title': 'Simple Action'})\n" +
         "def simpleAction():\n" +
         "    console.info('Simple action called')\n" +
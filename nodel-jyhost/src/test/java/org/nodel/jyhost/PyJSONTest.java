@@ -0,0 +1,136 @@
+package org.nodel.jyhost;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.python.core.Py;
+import org.python.core.PyDictionary;
+import org.python.core.PyException;
+import org.python.core.PyFloat;
+import org.python.core.PyInteger;
+import org.python.core.PyList;
+import org.python.core.PyLong;
+import org.python.core.PyObject;
+import org.python.core.PyUnicode;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PyJSONTest {
+
+    @Test
+    @DisplayName("String escapes are decoded")
+    void testEscapes() {
+        PyObject result = PyJSON.decode("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\u2014\"");
+
+        assertTrue(result instanceof PyUnicode);
+        assertEquals("a\"b\\c/d\b\f\n\r\t\u00e9\u2014", result.toString());
+
+        assertEquals("it's", PyJSON.decode("'it\\'s'").toString());
+        assertEquals("plain", PyJSON.decode("\"plain\"").toString());
+    }
+
+    @Test
+    @DisplayName("Numbers become ints, longs or floats")
+    void testNumbers() {
+        assertEquals(new PyInteger(42), PyJSON.decode("42"));
+        assertEquals(new PyInteger(-7), PyJSON.decode("-7"));
+        assertEquals(new PyLong(4000000000L), PyJSON.decode("4000000000"));
+        assertEquals(new PyLong(new BigInteger("123456789012345678901234567890")), PyJSON.decode("123456789012345678901234567890"));
+
+        assertTrue(PyJSON.decode("1.5") instanceof PyFloat);
+        assertEquals(1.5, ((PyFloat) PyJSON.decode("1.5")).getValue());
+        assertEquals(-2.5e-3, ((PyFloat) PyJSON.decode("-2.5e-3")).getValue());
+        assertEquals(1000.0, ((PyFloat) PyJSON.decode("1E3")).getValue());
+    }
+
+    @Test
+    @DisplayName("Literals and nesting")
+    void testNesting() {
+        PyObject result = PyJSON.decode("{\"a\": [1, {\"b\": [true, false, null]}, []], \"c\": {}}");
+
+        assertTrue(result instanceof PyDictionary);
+
+        PyList a = (PyList) result.__getitem__(Py.newUnicode("a"));
+        assertEquals(3, a.size());
+        assertEquals(new PyInteger(1), a.pyget(0));
+
+        PyList b = (PyList) a.pyget(1).__getitem__(Py.newUnicode("b"));
+        assertSame(Py.True, b.pyget(0));
+        assertSame(Py.False, b.pyget(1));
+        assertSame(Py.None, b.pyget(2));
+
+        assertEquals(0, ((PyList) a.pyget(2)).size());
+        assertEquals(0, result.__getitem__(Py.newUnicode("c")).__len__());
+    }
+
+    @Test
+    @DisplayName("Object keys keep their order")
+    void testKeyOrder() {
+        PyObject result = PyJSON.decode("{\"zebra\": 1, \"apple\": 2, \"mango\": 3, \"banana\": 4, \"cherry\": 5}");
+
+        List<String> keys = new ArrayList<>();
+        for (PyObject key : result.asIterable())
+            keys.add(key.toString());
+
+        assertEquals(List.of("zebra", "apple", "mango", "banana", "cherry"), keys);
+        assertEquals("{\"zebra\":1,\"apple\":2,\"mango\":3,\"banana\":4,\"cherry\":5}", PyJSON.encode(result));
+
+        // (still a plain, changeable dict)
+        assertSame(PyDictionary.TYPE, result.getType());
+        result.__setitem__(Py.newUnicode("apple"), Py.newInteger(20));
+        result.__delitem__(Py.newUnicode("mango"));
+        result.__setitem__(Py.newUnicode("date"), Py.newInteger(6));
+        assertEquals("{\"zebra\":1,\"apple\":20,\"banana\":4,\"cherry\":5,\"date\":6}", PyJSON.encode(result));
+    }
+
+    @Test
+    @DisplayName("Lenient input as the old tokenizer allowed")
+    void testLenient() {
+        PyObject result = PyJSON.decode("{name = 'Lobby'; port => 4352, 'tags': [av, gallery,], on: TRUE,}");
+
+        assertEquals("Lobby", result.__getitem__(Py.newUnicode("name")).toString());
+        assertEquals(new PyInteger(4352), result.__getitem__(Py.newUnicode("port")));
+        assertSame(Py.True, result.__getitem__(Py.newUnicode("on")));
+
+        PyList tags = (PyList) result.__getitem__(Py.newUnicode("tags"));
+        assertEquals(2, tags.size());
+        assertEquals("gallery", tags.pyget(1).toString());
+
+        // (not numbers, so left as text)
+        assertEquals("10.0.0.1", PyJSON.decode("10.0.0.1").toString());
+        assertEquals("  spaced  ", PyJSON.decode(" '  spaced  ' ").toString());
+    }
+
+    @Test
+    @DisplayName("Errors are ValueErrors with the position")
+    void testErrors() {
+        assertError("{\"a\": 1", "Expected ',' or '}' at character 7");
+        assertError("{\"a\" 1}", "Expected ':' after a key at character 6");
+        assertError("[1, 2", "Expected ',' or ']' at character 5");
+        assertError("\"open", "Unterminated string at character 5");
+        assertError("\"bad \\q\"", "Illegal escape at character 7");
+        assertError("\"short \\u12\"", "Illegal escape at character 9");
+        assertError("", "Missing value at character 0");
+        assertError("{\"a\": 1} x", "Unexpected text after value at character 10");
+    }
+
+    @Test
+    @DisplayName("Encoding escapes and round trips")
+    void testEncode() {
+        PyObject value = PyJSON.decode("{\"text\": \"line\\n\\\"quoted\\\" </tag>\", \"list\": [1, 2.5, null, false]}");
+
+        assertEquals("{\"text\":\"line\\n\\\"quoted\\\" <\\/tag>\",\"list\":[1,2.5,null,false]}", PyJSON.encode(value));
+        assertEquals(PyJSON.encode(value), PyJSON.encode(PyJSON.decode(PyJSON.encode(value))));
+    }
+
+    private static void assertError(String json, String message) {
+        PyException exc = assertThrows(PyException.class, () -> PyJSON.decode(json));
+
+        assertTrue(exc.match(Py.ValueError), "ValueError for " + json);
+        assertEquals(message, exc.value.__str__().toString());
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.nodel.websockets;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.nanohttpd.protocols.http.IHTTPSession;
+import org.nanohttpd.protocols.websockets.CloseCode;
+import org.nodel.SimpleName;
+import org.nodel.diagnostics.Diagnostics;
+import org.nodel.host.LogEntry;
+import org.nodel.json.JSONObject;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketInterceptorTest {
+
+    /**
+     * A socket that was never opened, recording what would be sent.
+     */
+    private static class RecordingWebSocket extends WebSocketInterceptor.NodelWebSocket {
+
+        final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        RecordingWebSocket() {
+            super((IHTTPSession) Proxy.newProxyInstance(IHTTPSession.class.getClassLoader(), new Class<?>[] { IHTTPSession.class }, (proxy, method, args) -> null));
+        }
+
+        @Override
+        public void send(String payload) {
+            sent.add(payload);
+        }
+
+        @Override
+        public void ping(byte[] payload) {
+        }
+
+        @Override
+        public void close(CloseCode code, String reason) throws IOException {
+            // (not open so this goes straight to 'onClose')
+            super.close(code, reason);
+            closed.countDown();
+        }
+
+    }
+
+    @Test
+    @DisplayName("Conflated activity is sent in 'seq' order, a replaced value moving to the back")
+    void testConflationOrder() throws Exception {
+        RecordingWebSocket webSocket = new RecordingWebSocket();
+        SessionEntry session = hostSession(webSocket);
+
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(1, "Power"));
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(2, "Volume"));
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(3, "Power"));
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 2", activity(4, "Power"));
+
+        assertEquals(1, session.conflated);
+        assertEquals(3, session.pendingActivity.size());
+
+        WebSocketInterceptor.NodelWebSocket.processQueue(session);
+
+        List<Long> seqs = new ArrayList<Long>();
+        for (String data : webSocket.sent)
+            seqs.add(new JSONObject(data).getJSONObject("activity").getLong("seq"));
+
+        assertEquals(List.of(2L, 3L, 4L), seqs);
+        assertEquals("Room 1", new JSONObject(webSocket.sent.get(1)).getString("node"));
+        assertEquals("Room 2", new JSONObject(webSocket.sent.get(2)).getString("node"));
+    }
+
+    @Test
+    @DisplayName("Falling too far behind drops everything pending and closes the session to resync")
+    void testOverflowResync() throws Exception {
+        RecordingWebSocket webSocket = new RecordingWebSocket();
+        SessionEntry session = hostSession(webSocket);
+        WebSocketInterceptor.NodelWebSocket.startSession(session);
+
+        for (int i = 0; i <= WebSocketInterceptor.MAX_PENDING; i++)
+            WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(i, "Signal " + i));
+
+        synchronized (session) {
+            assertTrue(session.closing);
+            assertEquals(0, session.depth());
+        }
+
+        assertTrue(webSocket.closed.await(5, TimeUnit.SECONDS), "closed so the client resyncs");
+
+        // nothing more is taken on
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(5000, "Power"));
+        WebSocketInterceptor.NodelWebSocket.processQueue(session);
+
+        assertTrue(webSocket.sent.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A closed session drops what's pending and ignores later activity and commands")
+    void testClose() throws Exception {
+        RecordingWebSocket webSocket = new RecordingWebSocket();
+        SessionEntry session = hostSession(webSocket);
+        WebSocketInterceptor.NodelWebSocket.startSession(session);
+
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(1, "Power"));
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "{\"op\": \"nope\", \"node\": \"Room 1\"}");
+
+        synchronized (session) {
+            assertEquals(2, session.depth());
+        }
+
+        webSocket.close(CloseCode.NormalClosure, "Bye");
+
+        synchronized (session) {
+            assertTrue(session.closing);
+            assertEquals(0, session.depth());
+        }
+
+        WebSocketInterceptor.NodelWebSocket.handleActivityArrived(session, "Room 1", activity(2, "Power"));
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "{\"op\": \"unsubscribe\", \"node\": \"Room 1\"}");
+        WebSocketInterceptor.NodelWebSocket.processQueue(session);
+
+        assertTrue(webSocket.sent.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Host session commands that can't be carried out are answered with an error")
+    void testCommandErrors() throws Exception {
+        RecordingWebSocket webSocket = new RecordingWebSocket();
+        SessionEntry session = hostSession(webSocket);
+
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "{\"op\": \"subscribe\", \"node\": \"No such node\"}");
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "{\"op\": \"nope\", \"node\": \"Room 1\"}");
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "{\"op\": \"subscribe\"}");
+        WebSocketInterceptor.NodelWebSocket.handleCommand(session, "not json");
+
+        WebSocketInterceptor.NodelWebSocket.processQueue(session);
+
+        assertEquals(4, webSocket.sent.size());
+
+        JSONObject notFound = new JSONObject(webSocket.sent.get(0));
+        assertEquals("No such node", notFound.getString("node"));
+        assertEquals("Node not found", notFound.getString("error"));
+
+        assertEquals("Unknown operation", new JSONObject(webSocket.sent.get(1)).getString("error"));
+        assertEquals("Missing node", new JSONObject(webSocket.sent.get(2)).getString("error"));
+        assertEquals("Could not parse command", new JSONObject(webSocket.sent.get(3)).getString("error"));
+    }
+
+    /**
+     * A host-level session with its processor held off, so the queue is only processed when the test says.
+     */
+    private static SessionEntry hostSession(RecordingWebSocket webSocket) {
+        SessionEntry session = new SessionEntry(webSocket, null);
+        session.counterPending = Diagnostics.shared().registerSharableCounter("WebSocketInterceptorTest.Pending", false);
+        session.counterConflated = Diagnostics.shared().registerSharableCounter("WebSocketInterceptorTest.Conflated", true);
+        session.counterResyncs = Diagnostics.shared().registerSharableCounter("WebSocketInterceptorTest.Resyncs", true);
+        session.busy = true;
+        return session;
+    }
+
+    private static LogEntry activity(long seq, String alias) {
+        return new LogEntry(seq, DateTime.now(), LogEntry.Source.local, LogEntry.Type.event, new SimpleName(alias), "on");
+    }
+
+}